@@ -0,0 +1,36 @@
+package it.unibs.operations_research.gurobi.couple_10;
+
+import it.unibs.operations_research.gurobi.couple_10.instance.Instance;
+import it.unibs.operations_research.gurobi.couple_10.instance.InstanceGenerator;
+import it.unibs.operations_research.gurobi.couple_10.solver.*;
+
+/**
+ * Helpers shared by the JMH benchmarks of the solving phases.
+ *
+ * The benchmarks live in the module gurobi_couple_10_jmh (same package as {@link Gurobi}, so they can call its
+ * phases directly). In IntelliJ: import jmh/gurobi_couple_10_jmh.iml as a module, enable annotation processing
+ * (Settings > Build > Compiler > Annotation Processors) and run 'org.openjdk.jmh.Main' with the module classpath,
+ * e.g. "GenerateModelBenchmark -p size=10x8,1000x96 -p solver=simplex".
+ *
+ * Every benchmark is parameterized over "size" (M x K of a synthetic instance, see {@link InstanceGenerator})
+ * and, when it solves, over "solver" (gurobi or simplex).
+ */
+final class Benchmarks {
+    // every size gets always the same instance
+    private static final long SEED = 1;
+
+    private Benchmarks() {
+    }
+
+    // "MxK"
+    static Instance instance(String size) {
+        int m = Integer.parseInt(size.substring(0, size.indexOf('x')));
+        int k = Integer.parseInt(size.substring(size.indexOf('x') + 1));
+        return InstanceGenerator.generate(m, k, SEED);
+    }
+
+    // same parameters of the project (primal simplex, no presolve), without log
+    static LpBackend backend(String solver) throws SolverException {
+        return Gurobi.createSilentBackend(solver, SolverParameters.DEFAULT);
+    }
+}
@@ -0,0 +1,42 @@
+package it.unibs.operations_research.gurobi.couple_10;
+
+import it.unibs.operations_research.gurobi.couple_10.instance.Instance;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * convexCombination of two solutions as long as the variables of the original problem.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConvexCombinationBenchmark {
+    @Param({"10x8", "100x24", "300x48"})
+    public String size;
+
+    private double[] x, y;
+
+    @Setup
+    public void setUp() {
+        Instance instance = Benchmarks.instance(size);
+        // x_ij, slack variables and aux
+        int numVars = instance.m() * instance.k() + instance.m() + instance.k() + 2;
+        Random random = new Random(1);
+        x = new double[numVars];
+        y = new double[numVars];
+        for (int i = 0; i < numVars; i++) {
+            x[i] = random.nextDouble() * 3;
+            y[i] = random.nextDouble() * 3;
+        }
+    }
+
+    @Benchmark
+    public double[] convexCombination() {
+        return Gurobi.convexCombination(x, y);
+    }
+}
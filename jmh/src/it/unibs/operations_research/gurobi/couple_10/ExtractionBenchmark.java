@@ -0,0 +1,46 @@
+package it.unibs.operations_research.gurobi.couple_10;
+
+import it.unibs.operations_research.gurobi.couple_10.instance.Instance;
+import it.unibs.operations_research.gurobi.couple_10.solver.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Extraction loop of solve(): values, basis and reduced costs of the optimal solution (Questions I and II).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExtractionBenchmark {
+    @Param({"10x8", "100x24", "300x48"})
+    public String size;
+
+    @Param({"gurobi"})
+    public String solver;
+
+    private Instance instance;
+    private LpBackend backend;
+    private LpModel model;
+
+    @Setup
+    public void setUp() throws SolverException {
+        instance = Benchmarks.instance(size);
+        backend = Benchmarks.backend(solver);
+        model = Gurobi.generateModel(backend, instance, false);
+    }
+
+    @TearDown
+    public void tearDown() throws SolverException {
+        model.dispose();
+        backend.dispose();
+    }
+
+    @Benchmark
+    public Gurobi.OptimalSolution extractOptimalSolution() throws SolverException {
+        return Gurobi.extractOptimalSolution(model, instance);
+    }
+}
@@ -0,0 +1,57 @@
+package it.unibs.operations_research.gurobi.couple_10;
+
+import it.unibs.operations_research.gurobi.couple_10.instance.Instance;
+import it.unibs.operations_research.gurobi.couple_10.solver.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Construction phase of generateModel: variables, constraints and objective function, without optimize().
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GenerateModelBenchmark {
+    @Param({"10x8", "100x24", "300x48"})
+    public String size;
+
+    @Param({"gurobi"})
+    public String solver;
+
+    private Instance instance;
+    private LpBackend backend;
+
+    @Setup
+    public void setUp() throws SolverException {
+        instance = Benchmarks.instance(size);
+        backend = Benchmarks.backend(solver);
+    }
+
+    @TearDown
+    public void tearDown() throws SolverException {
+        backend.dispose();
+    }
+
+    // the model is disposed inside the measurement, it is a small fraction of the construction time
+    @Benchmark
+    public int generateModel() throws SolverException {
+        LpModel model = ModelBuilder.build(backend, instance, false, true);
+        model.update();
+        int numVars = model.numVars();
+        model.dispose();
+        return numVars;
+    }
+
+    @Benchmark
+    public int generateAuxiliaryModel() throws SolverException {
+        LpModel model = ModelBuilder.build(backend, instance, true, true);
+        model.update();
+        int numVars = model.numVars();
+        model.dispose();
+        return numVars;
+    }
+}
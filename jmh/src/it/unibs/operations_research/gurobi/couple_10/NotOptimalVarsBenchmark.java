@@ -0,0 +1,47 @@
+package it.unibs.operations_research.gurobi.couple_10;
+
+import it.unibs.operations_research.gurobi.couple_10.instance.Instance;
+import it.unibs.operations_research.gurobi.couple_10.solver.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * generateNotOptimalVars: solve from scratch stopped at half of the iterations of the optimal solve (Question III).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NotOptimalVarsBenchmark {
+    @Param({"10x8", "100x24", "300x48"})
+    public String size;
+
+    @Param({"gurobi"})
+    public String solver;
+
+    private LpBackend backend;
+    private LpModel model;
+    private double iterationLimit;
+
+    @Setup
+    public void setUp() throws SolverException {
+        Instance instance = Benchmarks.instance(size);
+        backend = Benchmarks.backend(solver);
+        model = Gurobi.generateModel(backend, instance, false);
+        iterationLimit = model.getIterCount() / 2;
+    }
+
+    @TearDown
+    public void tearDown() throws SolverException {
+        model.dispose();
+        backend.dispose();
+    }
+
+    @Benchmark
+    public int generateNotOptimalVars() throws SolverException {
+        return Gurobi.generateNotOptimalVars(model, iterationLimit).getStatus();
+    }
+}
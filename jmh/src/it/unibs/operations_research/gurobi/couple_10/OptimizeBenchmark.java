@@ -0,0 +1,49 @@
+package it.unibs.operations_research.gurobi.couple_10;
+
+import it.unibs.operations_research.gurobi.couple_10.instance.Instance;
+import it.unibs.operations_research.gurobi.couple_10.solver.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * optimize() of the original problem from scratch: the model is built once and reset before every solve.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OptimizeBenchmark {
+    @Param({"10x8", "100x24", "300x48"})
+    public String size;
+
+    @Param({"gurobi"})
+    public String solver;
+
+    private LpBackend backend;
+    private LpModel model;
+
+    @Setup
+    public void setUp() throws SolverException {
+        Instance instance = Benchmarks.instance(size);
+        backend = Benchmarks.backend(solver);
+        model = ModelBuilder.build(backend, instance, false, true);
+        model.update();
+    }
+
+    @TearDown
+    public void tearDown() throws SolverException {
+        model.dispose();
+        backend.dispose();
+    }
+
+    @Benchmark
+    public int optimize() throws SolverException {
+        // without reset() the next solve would start from the optimal basis
+        model.reset();
+        model.optimize();
+        return model.getStatus();
+    }
+}
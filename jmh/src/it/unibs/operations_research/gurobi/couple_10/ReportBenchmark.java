@@ -0,0 +1,74 @@
+package it.unibs.operations_research.gurobi.couple_10;
+
+import it.unibs.operations_research.gurobi.couple_10.instance.Instance;
+import it.unibs.operations_research.gurobi.couple_10.report.ReportWriter;
+import it.unibs.operations_research.gurobi.couple_10.solver.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * write* methods that stream the answers to the project questions, in every report format, to a writer
+ * that discards everything so only formatting and encoding are measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReportBenchmark {
+    @Param({"10x8", "100x24", "300x48"})
+    public String size;
+
+    @Param({"gurobi"})
+    public String solver;
+
+    @Param({"text", "csv", "jsonl"})
+    public String format;
+
+    private Instance instance;
+    private LpBackend backend;
+    // Question II reads the names of the constraints from the model
+    private LpModel model;
+    private Gurobi.OptimalSolution optimal;
+    private ReportWriter report;
+
+    @Setup
+    public void setUp() throws SolverException {
+        instance = Benchmarks.instance(size);
+        backend = Benchmarks.backend(solver);
+        model = Gurobi.generateModel(backend, instance, false);
+        optimal = Gurobi.extractOptimalSolution(model, instance);
+        report = ReportWriter.create(format, Writer.nullWriter(), true);
+    }
+
+    @TearDown
+    public void tearDown() throws SolverException, IOException {
+        report.close();
+        model.dispose();
+        backend.dispose();
+    }
+
+    @Benchmark
+    public void writeFirstQuestion() throws IOException {
+        Gurobi.writeFirstQuestion(report, instance, optimal);
+    }
+
+    @Benchmark
+    public void writeSecondQuestion() throws IOException, SolverException {
+        Gurobi.writeSecondQuestion(report, instance, model, optimal);
+    }
+
+    // the three solutions of Question III have the length of the solution of Question I
+    @Benchmark
+    public void writeThirdQuestion() throws IOException {
+        report.beginQuestion("III", "QUESITO III");
+        for (int s = 0; s < 3; s++)
+            Gurobi.writeSolution(report, "not_optimal_" + (s + 1), "soluzione ammissibile ma non ottima",
+                    optimal.varNames, optimal.snapshot.getX());
+        report.endQuestion();
+    }
+}
@@ -0,0 +1,57 @@
+package it.unibs.operations_research.gurobi.couple_10;
+
+import it.unibs.operations_research.gurobi.couple_10.instance.Instance;
+import it.unibs.operations_research.gurobi.couple_10.solver.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * optimize() from scratch of the nominal model and of the robust one (see ModelBuilder.addRobustCoverage), with
+ * deviations of 10% of P_ij: "gamma" = -1 is the nominal model.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RobustBenchmark {
+    private static final double DEVIATION = 0.1;
+
+    @Param({"10x8", "100x24", "300x48"})
+    public String size;
+
+    @Param({"gurobi"})
+    public String solver;
+
+    @Param({"-1", "0", "2", "8"})
+    public double gamma;
+
+    private LpBackend backend;
+    private LpModel model;
+
+    @Setup
+    public void setUp() throws SolverException {
+        Instance instance = Benchmarks.instance(size);
+        backend = Benchmarks.backend(solver);
+        model = ModelBuilder.build(backend, instance, false, true);
+        if (gamma >= 0)
+            ModelBuilder.addRobustCoverage(model, instance, RobustPlanner.deviations(instance, DEVIATION), gamma, true);
+        model.update();
+    }
+
+    @TearDown
+    public void tearDown() throws SolverException {
+        model.dispose();
+        backend.dispose();
+    }
+
+    @Benchmark
+    public int optimize() throws SolverException {
+        // without reset() the next solve would start from the optimal basis
+        model.reset();
+        model.optimize();
+        return model.getStatus();
+    }
+}
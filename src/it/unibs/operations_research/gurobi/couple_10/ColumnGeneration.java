@@ -0,0 +1,419 @@
+package it.unibs.operations_research.gurobi.couple_10;
+
+import it.unibs.operations_research.gurobi.couple_10.instance.Instance;
+import it.unibs.operations_research.gurobi.couple_10.instance.InstanceReader;
+import it.unibs.operations_research.gurobi.couple_10.logging.RunLog;
+import it.unibs.operations_research.gurobi.couple_10.report.ReportWriter;
+import it.unibs.operations_research.gurobi.couple_10.solver.*;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Column generation for catalogues where most (i, j) pairs are never worth buying: the LP of the planning model is
+ * solved on a restricted master problem (ModelBuilder.buildMaster) that starts with the "initial" cells of each
+ * slot with the most spectators per euro, and the other x_ij are priced with the duals of its rows:
+ *     d_ij = -(C_ij (π_i + π_(M+j)) + P_ij (π_S - sign_j π_aux1 + sign_j π_aux2)),
+ * π_i of c_max_budget_i, π_(M+j) of c_min_budget_j, π_S of c_spectators, sign_j = 1 in the first half of the slots
+ * and -1 in the second one. An x_ij out of the master is at 0, it improves the master when d_ij < 0: the "limit"
+ * most negative ones are added and the master is solved again from its previous basis, until no column improves.
+ *
+ * Phase 1 minimizes the artificial variables of the master (the initial columns may not reach the minimum budgets
+ * or S), phase 2 fixes them at 0 and minimizes "aux"; both price with their own duals.
+ *
+ * The pricing scan runs on a fork-join pool over blocks of stations and only reads the primitive C_ij, P_ij, τ_ij
+ * arrays: each block keeps its best candidates in a bounded heap of primitive keys (reduced cost bits, cell),
+ * allocated once, so the scan allocates nothing per cell.
+ *
+ * Usage: ColumnGeneration [--solver=gurobi|simplex] [--instance=<path>] [--initial=1] [--columns=100]
+ *                         [--workers=<cores>] [--full=true] [--report=<path>] [--report-format=text|csv|jsonl]
+ *                         [--log-dir=logs]
+ */
+public class ColumnGeneration {
+    // cells scanned by one fork-join task, whole stations
+    private static final int CHUNK = 1 << 16;
+    // a column improves the master when its reduced cost is below -TOLERANCE
+    private static final double TOLERANCE = 1e-6;
+
+    private final Instance instance;
+    private final ForkJoinPool pool;
+    private final int m, k, stationsPerBlock, blocks;
+    private final int[] minutes, costs, spectators;
+
+    // variable of each cell in the master, -1 when it is not a column yet
+    private final int[] columnOf;
+    // cells of the master columns, in column order
+    private int[] cells = new int[64];
+    private int columns;
+
+    // dual prices of a round: π_i of the stations, π_(M+j) and the spectators price of each slot (with the aux rows)
+    private double[] pi;
+    private final double[] slotCost, slotSpectators;
+
+    // bounded max-heap of candidate keys of each block (the least improving one on top), the merged candidates and
+    // the cells of the best ones
+    private final long[] heaps, merged;
+    private final int[] heapSizes, chosen;
+    private final int limit;
+
+    public ColumnGeneration(Instance instance, ForkJoinPool pool, int limit) {
+        this.instance = instance;
+        this.pool = pool;
+        this.limit = limit;
+        m = instance.m();
+        k = instance.k();
+        minutes = instance.minutes();
+        costs = instance.costs();
+        spectators = instance.spectators();
+        stationsPerBlock = Math.max(1, CHUNK / k);
+        blocks = (m + stationsPerBlock - 1) / stationsPerBlock;
+        columnOf = new int[m * k];
+        Arrays.fill(columnOf, -1);
+        slotCost = new double[k];
+        slotSpectators = new double[k];
+        heaps = new long[blocks * limit];
+        merged = new long[blocks * limit];
+        heapSizes = new int[blocks];
+        chosen = new int[limit];
+    }
+
+    public static void main(String[] args) throws SolverException, IOException {
+        try (RunLog log = RunLog.open(Paths.get(Gurobi.option(args, "log-dir", "logs")), "ColumnGeneration")) {
+            run(args, log);
+        }
+    }
+
+    private static void run(String[] args, RunLog log) throws SolverException, IOException {
+        String path = Gurobi.option(args, "instance", "data/couple_10.csv");
+        Instance instance = InstanceReader.read(Paths.get(path));
+        log.parameter("Instance", path);
+        int initial = Integer.parseInt(Gurobi.option(args, "initial", "1"));
+        int limit = Integer.parseInt(Gurobi.option(args, "columns", "100"));
+        int workers = Integer.parseInt(Gurobi.option(args, "workers", Integer.toString(Runtime.getRuntime().availableProcessors())));
+        boolean full = Boolean.parseBoolean(Gurobi.option(args, "full", "true"));
+        LpBackend backend = Gurobi.createBackend(Gurobi.option(args, "solver", "gurobi"), log);
+
+        try {
+            ForkJoinPool pool = new ForkJoinPool(workers);
+            Result result;
+            try {
+                result = new ColumnGeneration(instance, pool, limit).solve(backend, initial);
+            } finally {
+                pool.shutdown();
+            }
+
+            // the complete model, solved from scratch
+            int fullStatus = -1;
+            double fullObjVal = Double.NaN, fullIterations = Double.NaN, fullTime = Double.NaN;
+            if (full) {
+                long start = System.nanoTime();
+                LpModel model = ModelBuilder.build(backend, instance, false, false);
+                try {
+                    model.update();
+                    model.optimize();
+                    fullTime = (System.nanoTime() - start) / 1e6;
+                    fullStatus = model.getStatus();
+                    fullIterations = model.getIterCount();
+                    if (fullStatus == LpModel.OPTIMAL)
+                        fullObjVal = model.getObjVal();
+                } finally {
+                    model.dispose();
+                }
+            }
+
+            try (ReportWriter report = ReportWriter.open(Gurobi.option(args, "report-format", "text"), Gurobi.option(args, "report", null))) {
+                report.header("GRUPPO 10", "Componenti: Baresi, El Koudri");
+                report.beginQuestion("CG", "GENERAZIONE DI COLONNE");
+                report.value("status", "stato", result.status);
+                report.value("objective", "funzione obiettivo", result.objVal);
+                report.value("candidates", "coppie (i, j) candidate", (double) instance.m() * instance.k());
+                report.value("columns", "colonne generate", result.columns);
+                report.value("rounds", "iterazioni di pricing", result.rounds);
+                report.value("iterations", "iterazioni del simplesso", result.iterations);
+                report.value("pricing_time", "tempo di pricing (ms)", result.pricingTime);
+                report.value("time", "tempo totale (ms)", result.time);
+                if (full) {
+                    report.value("full_status", "stato del modello completo", fullStatus);
+                    report.value("full_objective", "funzione obiettivo del modello completo", fullObjVal);
+                    report.value("full_iterations", "iterazioni del modello completo", fullIterations);
+                    report.value("full_time", "tempo del modello completo (ms)", fullTime);
+                }
+                if (result.status == LpModel.OPTIMAL) {
+                    report.beginSolution("plan", "colonne del problema ristretto");
+                    int[] cells = result.cells;
+                    for (int n = 0; n < cells.length; n++)
+                        report.variable("x_" + (cells[n] / instance.k() + 1) + "_" + (cells[n] % instance.k() + 1), result.x[n]);
+                }
+                report.endQuestion();
+            }
+        } finally {
+            // Release the resources associated with the backend, also when a solve or the report failed
+            backend.dispose();
+        }
+    }
+
+    /**
+     * Solves the LP relaxation by column generation, see the class comment. The status is INFEASIBLE when phase 1
+     * ends with artificial variables above 0, the status of the master when one of its solves is not optimal.
+     */
+    public Result solve(LpBackend backend, int initial) throws SolverException {
+        long start = System.nanoTime();
+        LpModel model = ModelBuilder.buildMaster(backend, instance, false);
+        try {
+            int artificial = ModelBuilder.masterArtificial(instance);
+            int[] first = initialCells(initial);
+            add(model, first, first.length, null, null);
+            model.update();
+
+            Result result = new Result();
+            LinExpr phaseOne = new LinExpr();
+            for (int a = 0; a <= k; a++)
+                phaseOne.addTerm(1.0, artificial + a);
+            model.setObjective(phaseOne, LpModel.MINIMIZE);
+            if (!generate(model, result)) {
+                finish(model, result, start);
+                return result;
+            }
+            if (model.getObjVal() > TOLERANCE * (1. + instance.coverage())) {
+                result.status = LpModel.INFEASIBLE;
+                finish(model, result, start);
+                return result;
+            }
+
+            // phase 2 starts from the basis of phase 1
+            int[] vBasis = model.getVBasis(), cBasis = model.getCBasis();
+            for (int a = 0; a <= k; a++)
+                model.setUB(artificial + a, 0.0);
+            model.setObjective(ModelBuilder.objective(ModelBuilder.masterAux(instance)), LpModel.MINIMIZE);
+            model.setBasis(vBasis, cBasis);
+            model.update();
+            if (generate(model, result))
+                result.objVal = model.getObjVal();
+            finish(model, result, start);
+            return result;
+        } finally {
+            // also when a solve of generate() failed
+            model.dispose();
+        }
+    }
+
+    // solves the master and adds the improving columns until there are none, false when a solve is not optimal
+    private boolean generate(LpModel model, Result result) throws SolverException {
+        while (true) {
+            model.optimize();
+            result.rounds++;
+            result.iterations += model.getIterCount();
+            result.status = model.getStatus();
+            if (result.status != LpModel.OPTIMAL)
+                return false;
+
+            long start = System.nanoTime();
+            pi = model.getPi();
+            int count = price();
+            result.pricingTime += (System.nanoTime() - start) / 1e6;
+            if (count == 0)
+                return true;
+
+            // the new columns enter the previous basis at their lower bound
+            for (int n = 0; n < count; n++)
+                chosen[n] = (int) merged[n];
+            add(model, chosen, count, model.getVBasis(), model.getCBasis());
+            model.update();
+        }
+    }
+
+    // adds the columns of newCells[0 .. count-1], extending the basis when given
+    private void add(LpModel model, int[] newCells, int count, int[] vBasis, int[] cBasis) throws SolverException {
+        if (columns + count > cells.length)
+            cells = Arrays.copyOf(cells, Math.max(2 * cells.length, columns + count));
+        int first = ModelBuilder.addColumns(model, instance, newCells, count, false);
+        for (int n = 0; n < count; n++) {
+            cells[columns + n] = newCells[n];
+            columnOf[newCells[n]] = first + n;
+        }
+        columns += count;
+
+        if (vBasis != null) {
+            int[] extended = Arrays.copyOf(vBasis, vBasis.length + count);
+            Arrays.fill(extended, vBasis.length, extended.length, LpModel.NONBASIC_LOWER);
+            model.setBasis(extended, cBasis);
+        }
+    }
+
+    // the "initial" cells of each slot with the most spectators per euro
+    private int[] initialCells(int initial) {
+        int[] best = new int[k * initial];
+        int count = 0;
+        for (int j = 0; j < k; j++) {
+            // best cells of the slot at best[first ..], kept sorted
+            int first = count, size = 0;
+            for (int i = 0; i < m; i++) {
+                int c = i * k + j;
+                if (minutes[c] == 0 || size == initial && !better(c, best[first + size - 1]))
+                    continue;
+                int at = first + (size < initial ? size++ : size - 1);
+                for (; at > first && better(c, best[at - 1]); at--)
+                    best[at] = best[at - 1];
+                best[at] = c;
+            }
+            count += size;
+        }
+        return Arrays.copyOf(best, count);
+    }
+
+    // P / C of "a" above the one of "b", without divisions
+    private boolean better(int a, int b) {
+        return (long) spectators[a] * costs[b] > (long) spectators[b] * costs[a];
+    }
+
+    /**
+     * Prices every cell out of the master with the duals "pi" and leaves the most negative reduced costs, at most
+     * "limit" of them, in merged[0 .. count-1] (best first). Returns count.
+     */
+    private int price() {
+        int spectatorsRow = ModelBuilder.spectatorsConstr(instance);
+        double aux = pi[spectatorsRow + 2] - pi[spectatorsRow + 1];
+        for (int j = 0; j < k; j++) {
+            slotCost[j] = pi[ModelBuilder.minBudgetConstr(instance, j)];
+            slotSpectators[j] = pi[spectatorsRow] + (j < k / 2 ? aux : -aux);
+        }
+        pool.invoke(new Pricing(0, blocks));
+
+        int count = 0;
+        for (int b = 0; b < blocks; b++) {
+            System.arraycopy(heaps, b * limit, merged, count, heapSizes[b]);
+            count += heapSizes[b];
+        }
+        Arrays.sort(merged, 0, count);
+        return Math.min(count, limit);
+    }
+
+    private final class Pricing extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from, to;
+
+        Pricing(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                Pricing left = new Pricing(from, middle);
+                left.fork();
+                new Pricing(middle, to).compute();
+                left.join();
+                return;
+            }
+
+            int base = from * limit, size = 0;
+            int last = Math.min(m, (from + 1) * stationsPerBlock);
+            for (int i = from * stationsPerBlock; i < last; i++) {
+                double stationCost = pi[i];
+                for (int j = 0, c = i * k; j < k; j++, c++) {
+                    if (columnOf[c] >= 0 || minutes[c] == 0)
+                        continue;
+                    double reduced = -(costs[c] * (stationCost + slotCost[j]) + spectators[c] * slotSpectators[j]);
+                    if (reduced >= -TOLERANCE)
+                        continue;
+                    long key = (long) sortable((float) reduced) << 32 | c;
+                    if (size < limit) {
+                        // sift up
+                        int at = size++;
+                        while (at > 0 && heaps[base + (at - 1) / 2] < key) {
+                            heaps[base + at] = heaps[base + (at - 1) / 2];
+                            at = (at - 1) / 2;
+                        }
+                        heaps[base + at] = key;
+                    } else if (key < heaps[base]) {
+                        // replaces the least improving one, sift down
+                        int at = 0;
+                        while (true) {
+                            int child = 2 * at + 1;
+                            if (child >= size)
+                                break;
+                            if (child + 1 < size && heaps[base + child + 1] > heaps[base + child])
+                                child++;
+                            if (heaps[base + child] <= key)
+                                break;
+                            heaps[base + at] = heaps[base + child];
+                            at = child;
+                        }
+                        heaps[base + at] = key;
+                    }
+                }
+            }
+            heapSizes[from] = size;
+        }
+    }
+
+    // float bits in an order that matches the order of the values
+    private static int sortable(float value) {
+        int bits = Float.floatToIntBits(value);
+        return bits ^ (bits >> 31 & 0x7fffffff);
+    }
+
+    private void finish(LpModel model, Result result, long start) throws SolverException {
+        result.columns = columns;
+        result.cells = Arrays.copyOf(cells, columns);
+        if (result.status == LpModel.OPTIMAL) {
+            // the columns follow the artificial variables
+            int first = ModelBuilder.masterArtificial(instance) + k + 1;
+            result.x = Arrays.copyOfRange(model.getX(), first, first + columns);
+        }
+        result.time = (System.nanoTime() - start) / 1e6;
+    }
+
+    public static class Result {
+        private int status = LpModel.LOADED, columns, rounds;
+        private double objVal = Double.NaN, iterations, pricingTime, time;
+        private int[] cells;
+        private double[] x;
+
+        public int getStatus() {
+            return status;
+        }
+
+        // NaN when the status is not OPTIMAL
+        public double getObjVal() {
+            return objVal;
+        }
+
+        public int getColumns() {
+            return columns;
+        }
+
+        public int getRounds() {
+            return rounds;
+        }
+
+        public double getIterations() {
+            return iterations;
+        }
+
+        // ms
+        public double getPricingTime() {
+            return pricingTime;
+        }
+
+        public double getTime() {
+            return time;
+        }
+
+        // cell i*K + j of every column of the master, in column order
+        public int[] getCells() {
+            return cells;
+        }
+
+        // value of every column, null when the status is not OPTIMAL
+        public double[] getX() {
+            return x;
+        }
+    }
+}
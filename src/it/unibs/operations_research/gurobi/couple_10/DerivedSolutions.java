@@ -0,0 +1,259 @@
+package it.unibs.operations_research.gurobi.couple_10;
+
+import it.unibs.operations_research.gurobi.couple_10.instance.Instance;
+import it.unibs.operations_research.gurobi.couple_10.solver.*;
+
+import java.util.Arrays;
+
+/**
+ * The three solutions required by the project (auxiliary, feasible but not optimal, optimal) taken from a single
+ * model and a single simplex run, instead of three separate solves of two separate models.
+ *
+ * The model is the original one with the auxiliary variables a_i appended (see {@link ModelBuilder#addArtificials}):
+ * 1. the sum of the a_i is minimized: this is phase I and its optimum is the auxiliary solution;
+ * 2. the a_i are fixed to 0, the original objective is restored and the simplex restarts from the basis of step 1
+ *    with a small iteration limit: the basis is feasible, so the result is a feasible solution that is not optimal;
+ * 3. the limit is removed and the simplex goes on from the basis of step 2 up to the optimum.
+ * Each step starts where the previous one stopped, so together they cost one solve.
+ *
+ * Nothing forces steps 1 and 2 to stop on a vertex worse than the optimum (the auxiliary objective does not involve
+ * the balance, phase I may end on an optimal vertex), so both solutions are checked: a solution that is not feasible
+ * or not worse than the optimum by more than the tolerance is replaced by a convex step from the optimum towards a
+ * feasible vertex of larger balance, found by two more runs from the optimal basis (see {@link #worseVertex}).
+ */
+public class DerivedSolutions {
+    private final Instance instance;
+    private final LpModel model;
+    // variables of the original model, the a_i follow them
+    private final int numVars;
+    private final int y;
+    // tolerance of the comparisons with the optimal value and of the feasibility of the rows, relative to their size
+    private static final double TOLERANCE = OptimalFace.PRIMAL_TOL;
+    // share of the worse vertex in the solutions that replace the ones of steps 1 and 2
+    private static final double AUXILIARY_STEP = 1.0, NOT_OPTIMAL_STEP = 0.5;
+
+    private String[] auxiliaryNames;
+    private double[] auxiliaryValues, notOptimalValues;
+    private double iterCount;
+
+    public DerivedSolutions(LpBackend backend, Instance instance, boolean names) throws SolverException {
+        this.instance = instance;
+        model = ModelBuilder.build(backend, instance, false, names);
+        numVars = model.numVars();
+        y = ModelBuilder.addArtificials(model, instance, names);
+    }
+
+    /**
+     * Runs the three steps, "notOptimalIterations" is the iteration limit of step 2.
+     * At the end the model holds the optimal solution of the original problem.
+     */
+    public void solve(double notOptimalIterations) throws SolverException {
+        int extra = model.numVars() - y;
+        int aux = numVars - 1;
+
+        // 1. auxiliary problem
+        model.setObjective(ModelBuilder.phaseOneObjective(instance, y), LpModel.MINIMIZE);
+        model.update();
+        model.optimize();
+        iterCount = model.getIterCount();
+        checkStatus("auxiliary problem", false);
+
+        // same variables of the auxiliary model: everything but "aux"
+        String[] names = model.getVarNames();
+        double[] values = model.getX();
+        // a_i > 0 at the end of phase I: the original problem has no feasible solution and no basis to restart from
+        int m = instance.m(), k = instance.k();
+        for (int j = 0; j <= k; j++) {
+            double rhs = j < k ? instance.minSlotBudget() : instance.coverage();
+            if (values[y + m + j] > TOLERANCE * (1. + Math.abs(rhs)))
+                throw new SolverException("auxiliary problem: no feasible solution, " + names[y + m + j] + " = " + values[y + m + j]);
+        }
+        auxiliaryNames = new String[names.length - 1];
+        auxiliaryValues = new double[names.length - 1];
+        System.arraycopy(names, 0, auxiliaryNames, 0, aux);
+        System.arraycopy(names, y, auxiliaryNames, aux, extra);
+        System.arraycopy(values, 0, auxiliaryValues, 0, aux);
+        System.arraycopy(values, y, auxiliaryValues, aux, extra);
+
+        // 2. original problem, stopped early
+        int[] vBasis = model.getVBasis(), cBasis = model.getCBasis();
+        for (int a = y; a < y + extra; a++)
+            model.setUB(a, 0.0);
+        model.setObjective(ModelBuilder.objective(aux), LpModel.MINIMIZE);
+        model.setBasis(vBasis, cBasis);
+        model.setIterationLimit(notOptimalIterations);
+        model.update();
+        model.optimize();
+        iterCount += model.getIterCount();
+        checkStatus("feasible but not optimal solution", true);
+        notOptimalValues = Arrays.copyOf(model.getX(), numVars);
+
+        // 3. up to the optimum
+        vBasis = model.getVBasis();
+        cBasis = model.getCBasis();
+        model.setBasis(vBasis, cBasis);
+        model.setIterationLimit(LpModel.INFINITY);
+        model.update();
+        model.optimize();
+        iterCount += model.getIterCount();
+        checkStatus("original problem", false);
+
+        // the solutions of steps 1 and 2 must be feasible and worse than the optimum
+        double objVal = model.getObjVal();
+        double[] auxiliaryPlan = Arrays.copyOf(auxiliaryValues, numVars);
+        auxiliaryPlan[aux] = Math.abs(balance(auxiliaryPlan));
+        boolean auxiliaryWorse = isFeasible(auxiliaryPlan) && isWorse(auxiliaryPlan[aux], objVal);
+        boolean notOptimalWorse = isFeasible(notOptimalValues) && isWorse(notOptimalValues[aux], objVal);
+        if (auxiliaryWorse && notOptimalWorse)
+            return;
+
+        double[] optimal = Arrays.copyOf(model.getX(), numVars);
+        double[] vertex = worseVertex(objVal);
+        if (!auxiliaryWorse) {
+            // x and s of the step, the a_i stay at 0
+            double[] step = convexStep(optimal, vertex, AUXILIARY_STEP);
+            Arrays.fill(auxiliaryValues, 0.0);
+            System.arraycopy(step, 0, auxiliaryValues, 0, aux);
+        }
+        if (!notOptimalWorse)
+            notOptimalValues = convexStep(optimal, vertex, NOT_OPTIMAL_STEP);
+    }
+
+    /**
+     * Feasible vertex of the original problem whose balance |sum_ij sign_j P_ij x_ij| is larger than "objVal" by more
+     * than the tolerance, with "aux" equal to its balance: the balance is maximized, then minimized, both times from
+     * the optimal basis. The model holds the optimal solution again at the end.
+     */
+    private double[] worseVertex(double objVal) throws SolverException {
+        int aux = numVars - 1;
+        int[] vBasis = model.getVBasis(), cBasis = model.getCBasis();
+        double[] vertex = null;
+        for (int sense : new int[]{LpModel.MAXIMIZE, LpModel.MINIMIZE}) {
+            model.setObjective(balanceExpr(), sense);
+            model.setBasis(vBasis, cBasis);
+            model.update();
+            model.optimize();
+            iterCount += model.getIterCount();
+            checkStatus("vertex worse than the optimum", false);
+            double[] values = Arrays.copyOf(model.getX(), numVars);
+            values[aux] = Math.abs(balance(values));
+            if (isWorse(values[aux], objVal)) {
+                vertex = values;
+                break;
+            }
+        }
+
+        // back to the optimum, no iteration from its basis
+        model.setObjective(ModelBuilder.objective(aux), LpModel.MINIMIZE);
+        model.setBasis(vBasis, cBasis);
+        model.update();
+        model.optimize();
+        iterCount += model.getIterCount();
+        checkStatus("original problem", false);
+        if (vertex == null)
+            throw new SolverException("every feasible solution is optimal, objective " + objVal);
+        return vertex;
+    }
+
+    // (1 - lambda) * optimal + lambda * vertex: feasible because both are, worse than the optimum if lambda > 0
+    private static double[] convexStep(double[] optimal, double[] vertex, double lambda) {
+        double[] z = new double[optimal.length];
+        for (int v = 0; v < z.length; v++)
+            z[v] = (1. - lambda) * optimal[v] + lambda * vertex[v];
+        return z;
+    }
+
+    private static boolean isWorse(double value, double objVal) {
+        return value > objVal + TOLERANCE * (1. + Math.abs(objVal));
+    }
+
+    // sum_ij sign_j P_ij x_ij, with sign_j = 1 in the first half of the slots and -1 in the second one
+    private LinExpr balanceExpr() {
+        int mk = instance.m() * instance.k();
+        int[] spectators = instance.spectators();
+        LinExpr expr = new LinExpr(mk);
+        for (int c = 0; c < mk; c++)
+            expr.addTerm(sign(c) * spectators[c], c);
+        return expr;
+    }
+
+    private double balance(double[] values) {
+        int mk = instance.m() * instance.k();
+        int[] spectators = instance.spectators();
+        double balance = 0.;
+        for (int c = 0; c < mk; c++)
+            balance += sign(c) * spectators[c] * values[c];
+        return balance;
+    }
+
+    private int sign(int c) {
+        return c % instance.k() < instance.k() / 2 ? 1 : -1;
+    }
+
+    // the rows and bounds of the original problem (see ModelBuilder.columns) at "values", x, s and "aux"
+    private boolean isFeasible(double[] values) {
+        ColumnMatrix matrix = ModelBuilder.columns(instance, false);
+        int m = instance.m(), k = instance.k();
+        int[] colStart = matrix.colStart(), rowIdx = matrix.rowIdx();
+        double[] val = matrix.val(), lb = matrix.lb(), ub = matrix.ub();
+        double[] activity = new double[matrix.numRows()];
+        for (int v = 0; v < numVars; v++) {
+            if (values[v] < lb[v] - TOLERANCE * (1. + Math.abs(lb[v])) || values[v] > ub[v] + TOLERANCE * (1. + Math.abs(ub[v])))
+                return false;
+            for (int e = colStart[v]; e < colStart[v + 1]; e++)
+                activity[rowIdx[e]] += val[e] * values[v];
+        }
+
+        double[] rhs = new double[activity.length];
+        for (int i = 0; i < m; i++)
+            rhs[ModelBuilder.maxBudgetConstr(i)] = instance.budget(i);
+        for (int j = 0; j < k; j++)
+            rhs[ModelBuilder.minBudgetConstr(instance, j)] = instance.minSlotBudget();
+        rhs[ModelBuilder.spectatorsConstr(instance)] = instance.coverage();
+        char[] senses = matrix.senses();
+        for (int r = 0; r < activity.length; r++) {
+            double tolerance = TOLERANCE * (1. + Math.abs(rhs[r]));
+            if (senses[r] == LpModel.EQUAL ? Math.abs(activity[r] - rhs[r]) > tolerance : activity[r] < rhs[r] - tolerance)
+                return false;
+        }
+        return true;
+    }
+
+    public LpModel model() {
+        return model;
+    }
+
+    // variables of the original problem: indices from 0 to numVars() - 1 of model()
+    public int numVars() {
+        return numVars;
+    }
+
+    // x, s and a, like the auxiliary model built by ModelBuilder
+    public String[] getAuxiliaryNames() {
+        return auxiliaryNames;
+    }
+
+    public double[] getAuxiliaryValues() {
+        return auxiliaryValues;
+    }
+
+    // variables of the original problem
+    public double[] getNotOptimalValues() {
+        return notOptimalValues;
+    }
+
+    // simplex iterations of the three steps, and of the search of a worse vertex when it was needed
+    public double getIterCount() {
+        return iterCount;
+    }
+
+    public void dispose() {
+        model.dispose();
+    }
+
+    private void checkStatus(String step, boolean limitAllowed) throws SolverException {
+        int status = model.getStatus();
+        if (status != LpModel.OPTIMAL && !(limitAllowed && status == LpModel.ITERATION_LIMIT))
+            throw new SolverException(step + ": status " + status);
+    }
+}
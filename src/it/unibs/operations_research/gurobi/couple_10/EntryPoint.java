@@ -1,428 +1,241 @@
 package it.unibs.operations_research.gurobi.couple_10;
-import gurobi.*;
-
+import it.unibs.operations_research.gurobi.couple_10.instance.Instance;
+import it.unibs.operations_research.gurobi.couple_10.instance.InstanceReader;
+import it.unibs.operations_research.gurobi.couple_10.logging.RunLog;
+import it.unibs.operations_research.gurobi.couple_10.profiling.PhaseEvent;
+import it.unibs.operations_research.gurobi.couple_10.report.ReportWriter;
+import it.unibs.operations_research.gurobi.couple_10.solver.*;
+
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
 
 public class EntryPoint {
-    // number of television station
-    private static final int M = 10;
-
-    // number of time slots for each television station
-    private static final int K = 8;
-
-    // minimum daily number of spectators (coverage)
-    private static final int S = 86236;
-
-    // Ω% (Omega) - percentage of the minimum budget to invest in each time slot
-    private static final int O = 2;
-
-    // β_i - maximum budget for the i-th television station
-    private static final int [] B_i = {
-            3356,
-            2632,
-            2867,
-            3215,
-            3103,
-            3449,
-            2825,
-            3398,
-            3158,
-            2657
-    };
-
-    // τ_ij - maximum amount of minutes that can be purchased in each time slot
-    // "i": index to the television station
-    // "j": index to the time slot
-    private static final int [][] T_ij = {
-            {1, 2, 2, 1, 1, 2, 2, 1},
-            {2, 2, 1, 2, 2, 2, 2, 3},
-            {1, 1, 2, 1, 1, 2, 2, 3},
-            {3, 3, 1, 2, 2, 1, 2, 2},
-            {2, 1, 2, 3, 2, 2, 2, 1},
-            {2, 2, 2, 3, 2, 3, 1, 1},
-            {2, 3, 2, 3, 2, 3, 3, 2},
-            {2, 2, 1, 1, 3, 2, 1, 1},
-            {3, 2, 2, 2, 3, 1, 3, 2},
-            {2, 2, 2, 2, 3, 3, 1, 2}
-    };
-
-    // Cost euro/minute of each time slot
-    // "i": index to the television station
-    // "j": index to the time slot
-    private static final int [][] C_ij = {
-            {914, 972, 1352, 1299, 1258, 1237, 1276, 1286},
-            {1030, 969, 1073, 1234, 1289, 1107, 1357, 1276},
-            {1270, 1191, 1393, 1112, 1297, 1296, 1244, 1228},
-            {1390, 1121, 1009, 1039, 1107, 993, 1144, 1073},
-            {1237, 1345, 1191, 1235, 954, 1314, 976, 953},
-            {1065, 1012, 1349, 1145, 1087, 938, 1343, 1356},
-            {1235, 970, 998, 900, 1064, 1178, 970, 1056},
-            {1159, 1077, 1330, 1261, 1294, 1382, 1190, 1002},
-            {996, 1137, 1151, 931, 1067, 986, 1014, 1104},
-            {1101, 1354, 1381, 1026, 1374, 986, 1067, 1149}
-    };
-
-    // Coverage of spectators (spectators/minute) guaranteed by spending C_ij euro/minute
-    // "i": index to the television station
-    // "j": index to the time slot
-    private static final int [][] P_ij = {
-            {1387, 3382, 3496, 1574, 1292, 1989, 2251, 1314},
-            {919, 3333, 595, 956, 1299, 2485, 3241, 1642},
-            {1546, 2036, 1493, 2429, 2325, 1840, 1124, 3088},
-            {2781, 784, 1133, 1203, 1990, 2333, 1046, 2569},
-            {2308, 3480, 628, 2628, 2606, 384, 3413, 2764},
-            {2348, 392, 3480, 1005, 553, 2536, 2367, 1461},
-            {3014, 931, 3194, 1926, 2482, 2680, 947, 359},
-            {2712, 3405, 680, 2389, 1517, 2085, 953, 3021},
-            {2421, 886, 781, 3246, 3142, 601, 813, 735},
-            {911, 2714, 2837, 3135, 3007, 409, 898, 1598}
-    };
-
-
-    // total budget
-    private static final int B_TOT = Arrays.stream(B_i).sum();
-
-    // 2% of the total budget
-    private static final double B_PCT = (B_TOT/100.)*O;
-
-    public static void main(String[] args) throws GRBException {
-        // GRBEve stands for 'Gurobi Environment'
-        // we will add parameters to the environment to solve problems
-        // to set parameters: 'env.set(<parameter>, <value>)'
-        // main parameters are:
-        // GRB.IntParam.Threads         # number of Threads used by Gurobi
-        // GRB.IntParam.Presolve        # operations before the executions of our model - speedup the execution
-        // GRB.DoubleParam.TimeLimit    # time limit dedicated to Gurobi to solve our problem
-        GRBEnv env = new GRBEnv("gurobi_first_part.log");
-
-        // it sets necessary parameters
-        setParameters(env);
-
-        // a model represents a single optimization problem
-        // it contains set of variables, set of constraints, one objective function and others attributes
-        GRBModel model = new GRBModel(env);
-
-        // adding x_ij variables
-        GRBVar[][] x_ij = addVariables(model);
-
-        // adding slack surplus variables
-        GRBVar[] s = addSlackSurplusVariables(model);
-
-        // adding budget constraints
-        addBudgetConstraints(model, x_ij, s, null, false);
-
-        // adding minimum spectators number
-        addSpectatorsConstraint(model, x_ij, s, null, false);
-
-        setObjectiveFunction(model, x_ij);
-
-        // function to solve all required problems
-        solve(model, s.length);
-
-        // Release the resources associated with a GRBModel object
-        model.dispose();
-
-        // Release the resources associated with a GRBEnv object
-        env.dispose();
-    }
-
-    private static void setParameters(GRBEnv env) throws GRBException {
-        // we can set solve method used by Gurobi
-        // '0' stands for "primal simplex"
-        env.set(GRB.IntParam.Method, 0);
-
-        // we choose to disable gurobi presolve option
-        // it is necessary to avoid unexpected changes
-        env.set(GRB.IntParam.Presolve, 0);
-    }
-
-    private static GRBVar[][] addVariables(GRBModel model) throws GRBException {
-        // "i": index to the television station (0 ... M-1)
-        // "j": index to the time slot (0 ... K-1)
-        GRBVar[][] x_ij = new GRBVar[M][K];
-
-        for (int i=0; i<M; i++) {
-            for (int j = 0; j < K; j++) {
-                // 'addVar' is required to add variables
-                // first parameter represents the 'lower bound | lb' - in that case 0.0
-                // second parameter represents the 'upper bound | ub' - in that case τ_ij
-                // third parameter represents the coefficient of the variable in our objective function
-                // the third parameter set to 0 is temporary, we will change it building objective function
-                // fourth parameter represents the type of the variable
-                // fifth parameter represents the name of the variable
-                x_ij[i][j] = model.addVar(0.0, T_ij[i][j], 0.0, GRB.CONTINUOUS, "x_" + (i + 1) + "_" + (j + 1));
-            }
+    // instance solved when no "--instance=<path>" option is given (".bin" files use the binary format)
+    private static final String DEFAULT_INSTANCE = "data/couple_10.csv";
+
+    // "--solver=simplex" runs the pure-Java simplex, no Gurobi license is required
+    // "--instance=<path>" loads another instance (CSV or binary), see InstanceReader
+    // "--report=<path>", "--report-format=text|csv|jsonl", "--mode=single" and "--log-dir=<directory>" as in Gurobi
+    public static void main(String[] args) throws SolverException, IOException {
+        try (RunLog log = RunLog.open(Paths.get(Gurobi.option(args, "log-dir", "logs")), "EntryPoint")) {
+            run(args, log);
         }
-
-        return x_ij;
-    }
-
-    private static GRBVar[] addSlackSurplusVariables(GRBModel model) throws GRBException {
-        // M == Bi.length() : constraints related to the maximum budget for each television station
-        // K : constraints related to minimum budget for each time slot
-        // 1 : constraint related to minimum total number of spectators (daily)
-        GRBVar[] s = new GRBVar[M + K + 1];
-
-        for (int i = 0; i < (M + K + 1); i++)
-            s[i] = model.addVar(0.0, GRB.INFINITY, 0.0, GRB.CONTINUOUS, "s_" + i);
-
-        return s;
-    }
-
-    private static GRBVar[] addAuxiliaryVariables(GRBModel model) throws GRBException {
-        // M == Bi.length() : constraints related to the maximum budget for each television station
-        // K : constraints related to minimum budget for each time slot
-        // 1 : constraint related to minimum total number of spectators (daily)
-        GRBVar[] a = new GRBVar[M + K + 1];
-
-        for (int i = 0; i < (M + K + 1); i++)
-            a[i] = model.addVar(0.0, GRB.INFINITY, 0.0, GRB.CONTINUOUS, "a_" + i);
-
-        return a;
     }
 
-    private static void setAuxiliaryObjectiveFunction(GRBModel model, GRBVar[] y) throws GRBException {
-        // auxiliary objective function is necessary to find a feasible but not optimal solution
-        GRBLinExpr obj = new GRBLinExpr();
-
-        for (int i = 0; i < M; i++) {
-            for (int j = 0; j < K; j++) {
-                obj.addTerm(1.0, y[i]);
+    private static void run(String[] args, RunLog log) throws SolverException, IOException {
+        // M, K, S, Ω and the B_i, T_ij, C_ij, P_ij tables
+        String path = Gurobi.option(args, "instance", DEFAULT_INSTANCE);
+        Instance instance = InstanceReader.read(Paths.get(path));
+        log.parameter("Instance", path);
+
+        // same backend of Gurobi: environment without log file, parameters of Gurobi.setParameters and the tuning
+        String solver = Gurobi.option(args, "solver", "gurobi");
+        LpBackend backend = Gurobi.createBackend(solver, log);
+        try {
+            // "--mode=single": the optimal and the auxiliary solutions come from one model and one simplex run
+            DerivedSolutions derived = null;
+            LpModel model;
+            if (Gurobi.option(args, "mode", "separate").equals("single")) {
+                derived = new DerivedSolutions(backend, instance, true);
+                model = derived.model();
+            } else {
+                // a model represents a single optimization problem
+                // it contains set of variables, set of constraints, one objective function and others attributes
+                // variables, constraints and objective function are added with a few bulk calls, see ModelBuilder
+                model = ModelBuilder.build(backend, instance, false, true);
             }
-        }
-
-        model.setObjective(obj);
-        model.set(GRB.IntAttr.ModelSense, GRB.MINIMIZE);
-    }
 
-    private static void setObjectiveFunction(GRBModel model, GRBVar[][] x_ij) throws GRBException {
-        GRBLinExpr sum = new GRBLinExpr();
-        GRBLinExpr reverse_sum = new GRBLinExpr();
-
-        // 1.0 indicates the coefficient of the aux_var in our objective function
-        GRBVar aux_var = model.addVar(0.0, GRB.INFINITY, 0.0, GRB.CONTINUOUS, "aux");
-
-        for (int i = 0; i < M; i++) {
-            for (int j = 0; j < K; j++) {
-                int sign = (j < (K/2) ? 1 : -1);
-                sum.addTerm(sign * P_ij[i][j], x_ij[i][j]);
-                reverse_sum.addTerm((-1 * sign) * P_ij[i][j], x_ij[i][j]);
+            try {
+                // no iteration is spent on the solution stopped early, EntryPoint does not use it
+                if (derived != null)
+                    derived.solve(0);
+                // function to solve all required problems, answers are written to the report while they are computed
+                // M + K + 1 slack surplus variables
+                try (ReportWriter report = ReportWriter.open(Gurobi.option(args, "report-format", "text"), Gurobi.option(args, "report", null))) {
+                    solve(backend, instance, model, instance.m() + instance.k() + 1, derived, report);
+                }
+            } finally {
+                // Release the resources associated with the model
+                model.dispose();
             }
+        } finally {
+            // Release the resources associated with the backend, also when a solve or the report failed
+            backend.dispose();
         }
-
-        model.addConstr(aux_var, GRB.GREATER_EQUAL, sum, "c_aux1");
-        model.addConstr(aux_var, GRB.GREATER_EQUAL, reverse_sum, "c_aux2");
-
-        GRBLinExpr objFunc = new GRBLinExpr();
-        objFunc.addTerm(1.0, aux_var);
-
-        model.setObjective(objFunc, GRB.MINIMIZE);
     }
 
-    // y array contains variables only if "isAuxiliary" == true, we use it to solve an auxiliary problem
-    private static void addBudgetConstraints(GRBModel model, GRBVar[][] x_ij, GRBVar[] s, GRBVar[] y, boolean isAuxiliary) throws GRBException {
-        GRBLinExpr expr;
+    // "derived" == null: "model" is optimized here and the auxiliary problem gets a model of its own
+    // otherwise both solutions have already been computed by derived.solve()
+    private static void solve(LpBackend backend, Instance instance, LpModel model, int slackNum, DerivedSolutions derived,
+                              ReportWriter report) throws SolverException, IOException {
+        int m = instance.m(), k = instance.k();
 
-        // maximum budget for each television station
-        for (int i = 0; i < M; i++) {
-            expr = new GRBLinExpr();
-            for (int j = 0; j < K; j++) {
-                expr.addTerm(C_ij[i][j], x_ij[i][j]);
-            }
-            // adding slack
-            expr.addTerm(1, s[i]);
-            model.addConstr(expr, GRB.EQUAL, B_i[i], "c_max_budget_" + (i+1));
+        // the phases are JFR events, as in Gurobi
+        if (derived == null) {
+            PhaseEvent event = PhaseEvent.begin("optimize", instance);
+            model.update();
+            // to optimize our model
+            model.optimize();
+            event.end(model.getIterCount());
         }
 
-        // minimum budget for each time slot
-        for (int j = 0; j < K; j++) {
-            expr = new GRBLinExpr();
-            for (int i = 0; i < M; i++) {
-                expr.addTerm(C_ij[i][j], x_ij[i][j]);
-            }
-            // adding slack
-            expr.addTerm(-1.0, s[M+j]);
-            if (isAuxiliary)
-                expr.addTerm(1.0, y[M+j]);
-            model.addConstr(expr, GRB.EQUAL, B_PCT, "c_min_budget_" + (j+1));
-        }
-    }
-
-    // y array contains variables only if "isAuxiliary" == true, we use it to solve an auxiliary problem
-    private static void addSpectatorsConstraint(GRBModel model, GRBVar[][] x_ij, GRBVar[] s, GRBVar[] y, boolean isAuxiliary) throws GRBException {
-        GRBLinExpr expr = new GRBLinExpr();
-
-        for (int i = 0; i < M; i++) {
-            for (int j = 0; j < K; j++) {
-                expr.addTerm(P_ij[i][j], x_ij[i][j]);
-            }
-        }
-        expr.addTerm(-1.0, s[M+K]);
-        if (isAuxiliary)
-            expr.addTerm(1.0, y[M+K]);
-        model.addConstr(expr, GRB.EQUAL, S, "c_spectators");
-    }
-
-    private static void solve(GRBModel model, int slackNum) throws GRBException {
-        model.update();
-        // to optimize our model
-        model.optimize();
+        PhaseEvent event = PhaseEvent.begin("extractOptimalSolution", instance);
 
         double objVal, fullCoverage = 0., purchasedTime = 0., usedBudget = 0.;
-        int counter = 0, counterZero = 0;
-        String optimalSols = "", vBasisList = "", reducedCostsList = "", constrOpVertex = "", sols1 = "", sols2 = "", sols3 = "";
-        boolean isDegenerate = false;
-
-        // results can be analyzed with '<constraint>.get(...)' or 'model.get(...)'
-        // result of optimization is contained in 'Status' attribute
-        // 'GRB.StringAttr.VarName' is the name of the variable
-        // 'GRB.DoubleAttr.X' contains the value of the variable in current solution
-        // 'GRB.DoubleAttr.ObjVal' contains the value of the objective function in current solution
-        objVal = model.get(GRB.DoubleAttr.ObjVal);
-
-        // necessary for Question III
-        GRBVar[] vars2 = new GRBVar[model.getVars().length];
-
-        for (GRBVar var : model.getVars()) {
-            vars2[counter] = var;
-            double value = var.get(GRB.DoubleAttr.X);
-            optimalSols += var.get(GRB.StringAttr.VarName) + " = " + roundValue(value) + "\n";
-
-            // we count the number of zeros to check if the optimal solution is multiple
-            if (roundValue(value) == 0)
-                counterZero++;
-
-            if (counter < (M*K)) {
+        int counter = 0;
+
+        // results are copied with one call for each attribute, the analysis below runs on the arrays
+        // 'X' contains the values of the variables in current solution
+        // 'VBasis' tells which variables are in the basis, 'RC' contains their reduced costs
+        // 'ObjVal' contains the value of the objective function in current solution
+        SolutionSnapshot snapshot = SolutionSnapshot.take(model);
+        objVal = snapshot.getObjVal();
+
+        // necessary for Question III, only the variables of the original problem
+        int numVars = derived == null ? model.numVars() : derived.numVars();
+        double[] vars2 = Arrays.copyOf(snapshot.getX(), numVars);
+        // necessary for Question II
+        String[] names2 = model.getVarNames();
+        int[] vBasis = snapshot.getVBasis();
+        double[] reducedCosts = snapshot.getRC();
+
+        for (int var = 0; var < vars2.length; var++) {
+            double value = vars2[var];
+
+            if (counter < (m*k)) {
                 // minutes actually purchased
                 purchasedTime += value;
                 // budget used
-                usedBudget += value * C_ij[counter / K][counter % K];
+                usedBudget += value * instance.cost(counter / k, counter % k);
                 // total number of spectators - converage
-                fullCoverage += value * P_ij[counter / K][counter % K];
+                fullCoverage += value * instance.spectators(counter / k, counter % k);
             }
             counter++;
-
-            // list that contains only basis variables
-            vBasisList += (var.get(GRB.IntAttr.VBasis) == 0 ? 0 : 1) + ", ";
-
-            // necessary to verify if the optimal solution is degenerate
-            if (var.get(GRB.IntAttr.VBasis) != 0 && value == 0)
-                isDegenerate = true;
-
-            // list that contains reduced costs
-            reducedCostsList += var.get(GRB.DoubleAttr.RC) + ", ";
         }
 
-        int t = (M*K);
-        for (GRBConstr constr : model.getConstrs()) {
-            if (t >= (model.getVars().length)-1)
+        // multiple and degenerate optimal solution, decided on the final basis with tolerances, see OptimalFace
+        OptimalFace face = OptimalFace.analyze(ModelBuilder.columns(instance, derived != null), snapshot, numVars,
+                ForkJoinPool.commonPool());
+        event.finish();
+
+        report.header("GRUPPO 10", "Componenti: Baresi, El Koudri");
+
+        event = PhaseEvent.begin("writeFirstQuestion", instance);
+        report.beginQuestion("I", "QUESITO I");
+        report.value("objective", "funzione obiettivo", objVal);
+        report.value("coverage", "copertura raggiunta totale (spettatori)", fullCoverage);
+        report.value("purchased_time", "tempo acquistato (minuti)", roundValue(purchasedTime));
+        report.value("unused_budget", "budget inutilizzato", instance.totalBudget() - usedBudget);
+        report.beginSolution("optimal_solution", "soluzione di base ottima");
+        for (int var = 0; var < vars2.length; var++)
+            report.variable(names2[var], roundValue(vars2[var]));
+        report.endQuestion();
+        event.finish();
+
+        event = PhaseEvent.begin("writeSecondQuestion", instance);
+        report.beginQuestion("II", "QUESITO II");
+        // list that contains only basis variables
+        report.beginList("basis", "variabili in base");
+        for (int var = 0; var < vars2.length; var++)
+            report.item(names2[var], vBasis[var] == 0 ? 0 : 1);
+        report.endList();
+
+        // list that contains reduced costs
+        report.beginList("reduced_costs", "coefficienti di costo ridotto");
+        for (int var = 0; var < vars2.length; var++)
+            report.item(names2[var], reducedCosts[var]);
+        report.endList();
+
+        report.flag("multiple", "soluzione ottima multipla", face.isMultiple());
+        report.flag("degenerate", "soluzione ottima degenere", face.isDegenerate());
+
+        report.beginList("optimal_vertex", "vincoli vertice ottimo");
+        String[] constrNames = model.getConstrNames();
+        int t = (m*k);
+        for (int constr = 0; constr < constrNames.length; constr++) {
+            if (t >= vars2.length-1)
                 break;
-            if (model.getVar(t).get(GRB.DoubleAttr.X) == 0)
-                // constraints of the optimal vertex
-                constrOpVertex += constr.get(GRB.StringAttr.ConstrName) + ", ";
+            if (Math.abs(vars2[t]) <= OptimalFace.PRIMAL_TOL)
+                // constraints of the optimal vertex: zero slack variable, with the tolerance of OptimalFace
+                report.item(constrNames[constr]);
             t++;
         }
+        report.endList();
+        report.endQuestion();
+        event.finish();
+
+        double[] auxValues;
+        String[] auxNames;
+        if (derived == null) {
+            // we create a new model of an auxiliary problem
+            // auxiliary variables are necessary with the aim of finding a feasible solution that is not optimal
+            event = PhaseEvent.begin("auxiliaryModel", instance);
+            LpModel auxModel = ModelBuilder.build(backend, instance, true, true);
+            try {
+                auxModel.update();
+
+                // to optimize our model
+                auxModel.optimize();
+
+                // necessary for question 3
+                auxValues = auxModel.getX();
+                auxNames = auxModel.getVarNames();
+                event.end(auxModel.getIterCount());
+            } finally {
+                auxModel.dispose();
+            }
+        } else {
+            auxValues = derived.getAuxiliaryValues();
+            auxNames = derived.getAuxiliaryNames();
+        }
 
-        // we create a new model of an auxiliary problem
-        model = new GRBModel(model.getEnv());
-
-        // adding x_ij variables
-        GRBVar[][] x_ij = addVariables(model);
-
-        // adding slack surplus variables
-        GRBVar[] s = addSlackSurplusVariables(model);
-
-        // adding auxiliary variables
-        GRBVar[] y = addAuxiliaryVariables(model);
-
-        // adding budget constraints
-        addBudgetConstraints(model, x_ij, s, y, true);
-
-        // adding minimum spectators number
-        addSpectatorsConstraint(model, x_ij, s, y, true);
-
-        // necessary to set the auxiliary variables with the aim of finding a feasible solution that is not optimal
-        setAuxiliaryObjectiveFunction(model, y);
-
-        model.update();
-
-        // to optimize our model
-        model.optimize();
+        event = PhaseEvent.begin("writeThirdQuestion", instance);
+        report.beginQuestion("III", "QUESITO III");
+        report.beginSolution("not_optimal_1", "Prima soluzione ammissibile ma non ottima");
 
-        // necessary for question 3
         counter = 0;
-        GRBVar[] vars1 = new GRBVar[M*K + s.length];
-        for (int i = 0; i < M; i++) {
-            for (int j = 0; j < K; j++) {
-                sols1 += x_ij[i][j].get(GRB.StringAttr.VarName) + " = " + roundValue(x_ij[i][j].get(GRB.DoubleAttr.X)) + "\n";
-                vars1[counter] = x_ij[i][j];
+        double[] vars1 = new double[m*k + slackNum];
+        String[] names1 = new String[m*k + slackNum];
+        for (int i = 0; i < m; i++) {
+            for (int j = 0; j < k; j++) {
+                int x = ModelBuilder.x(instance, i, j);
+                vars1[counter] = auxValues[x];
+                names1[counter] = auxNames[x];
+                report.variable(names1[counter], roundValue(vars1[counter]));
                 counter++;
             }
         }
 
-        for (int i = 0; i < s.length; i++) {
-            vars1[M*K + i] = s[i];
-            sols1 += s[i].get(GRB.StringAttr.VarName) + " = " + roundValue(s[i].get(GRB.DoubleAttr.X)) + "\n";
+        for (int i = 0; i < slackNum; i++) {
+            int s = ModelBuilder.slack(instance, i);
+            vars1[m*k + i] = auxValues[s];
+            names1[m*k + i] = auxNames[s];
+            report.variable(names1[m*k + i], roundValue(vars1[m*k + i]));
         }
 
-        for (GRBVar var : model.getVars()) {
-            sols2 += var.get(GRB.StringAttr.VarName) + " = " + roundValue(var.get(GRB.DoubleAttr.X)) + "\n";
+        report.beginSolution("not_optimal_2", "Seconda soluzione ammissibile ma non ottima");
+        for (int var = 0; var < auxValues.length; var++) {
+            report.variable(auxNames[var], roundValue(auxValues[var]));
         }
 
 
         double[] z = convexCombination(vars1, vars2);
+        report.beginSolution("not_optimal_3", "Terza soluzione ammissibile ma non ottima");
         for (int i = 0; i < z.length; i++)
-            sols3 += vars1[i].get(GRB.StringAttr.VarName) + " = " + roundValue(z[i]) + "\n";
-
-        printHeader();
-        printFirstQuestion(objVal, fullCoverage , purchasedTime, (B_TOT - usedBudget), optimalSols);
-        printSecondQuestion(vBasisList, reducedCostsList, (counterZero > slackNum), isDegenerate, constrOpVertex);
-        printThirdQuestion(sols1, sols2, sols3);
-    }
-
-    private static void printHeader() {
-        System.out.println("\n\n\nGRUPPO 10\n" +
-                "Componenti: Baresi, El Koudri");
-    }
-
-    private static void printFirstQuestion(double objVal, double fullCoverage, double purchasedTime, double unusedBudget, String optimalSols) {
-        String solution = "\n\nQUESITO I:\n" +
-                "funzione obiettivo = " + objVal + "\n" +
-                "copertura raggiunta totale (spettatori) = " + fullCoverage + "\n" +
-                "tempo acquistato (minuti) = " + roundValue(purchasedTime) + "\n" +
-                "budget inutilizzato = " + unusedBudget + "\n" +
-                "soluzione di base ottima:\n" + optimalSols;
-
-        System.out.println(solution);
+            report.variable(names1[i], roundValue(z[i]));
+        report.endQuestion();
+        event.finish();
     }
 
-    private static void printSecondQuestion(String vBasisList, String reducedCostsList, boolean isMultiple, boolean isDegenerate, String constrOpVertex) {
-        String solution = "QUESITO II:\n" +
-                "variabili in base: [" + vBasisList + "]\n" +
-                "coefficienti di costo ridotto: [" + reducedCostsList + "]\n" +
-                "soluzione ottima multipla: " + (isMultiple ? "Si" : "No") + "\n" +
-                "soluzione ottima degenere: " + (isDegenerate ? "Si" : "No") + "\n" +
-                "vincoli vertice ottimo: [" + constrOpVertex + "]";
-
-        System.out.println(solution);
-    }
-
-    private static void printThirdQuestion(String sols1, String sols2 , String sols3) {
-        String solution = "\nQUESITO III:\n" +
-                "Prima soluzione ammissibile ma non ottima:\n" + sols1 +
-                "\nSeconda soluzione ammissibile ma non ottima:\n" + sols2
-                 + "\nTerza soluzione ammissibile ma non ottima:\n" + sols3;
-
-        System.out.println(solution);
-    }
-
-    private static double[] convexCombination(GRBVar[] x, GRBVar[] y) throws GRBException {
+    private static double[] convexCombination(double[] x, double[] y) {
         // in this case we take the midpoint, but it can contain an arbitrary value between 0 and 1
         double lambda = 0.5;
         double[] z = new double[x.length];
 
         for (int i = 0; i < x.length; i++) {
-            z[i] = lambda*x[i].get(GRB.DoubleAttr.X) + (1-lambda)*y[i].get(GRB.DoubleAttr.X);
+            z[i] = lambda*x[i] + (1-lambda)*y[i];
         }
 
         return z;
@@ -432,4 +245,3 @@ public class EntryPoint {
         return Math.round(value * 10000.0)/10000.0;
     }
 }
-
@@ -0,0 +1,302 @@
+package it.unibs.operations_research.gurobi.couple_10;
+
+import it.unibs.operations_research.gurobi.couple_10.instance.Instance;
+import it.unibs.operations_research.gurobi.couple_10.instance.InstanceReader;
+import it.unibs.operations_research.gurobi.couple_10.logging.RunLog;
+import it.unibs.operations_research.gurobi.couple_10.report.ReportWriter;
+import it.unibs.operations_research.gurobi.couple_10.solver.LpBackend;
+import it.unibs.operations_research.gurobi.couple_10.solver.LpModel;
+import it.unibs.operations_research.gurobi.couple_10.solver.SolverException;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Random feasible plans without the solver: coordinate hit-and-run inside the polytope of the plans,
+ *     0 <= x_ij <= τ_ij,  sum_j C_ij x_ij <= β_i,  sum_i C_ij x_ij >= Ω * B_TOT,  sum_ij P_ij x_ij >= S
+ * and, for plans close to the optimum, |sum_ij sign_j P_ij x_ij| <= maxObjective.
+ *
+ * Every step picks two cells and a random direction in their plane, computes the segment of that line that keeps
+ * all the rows satisfied and moves to a uniform point of it. A cell appears in one station row, one slot row, the
+ * spectators row and the imbalance, so with the totals of the rows kept up to date a step costs O(1) whatever the
+ * size of the instance; a sample is taken every "thin" steps (M*K by default). Moving two cells at once lets the
+ * chain leave a vertex where every single cell is blocked, e.g. the optimal plan with the budgets and the coverage
+ * all tight, though slowly: the first BURN_IN_SWEEPS sweeps are not sampled. The chain starts from a known
+ * feasible plan and its samples are uniform in the polytope in the limit.
+ *
+ * Usage: FeasibleSampler [--solver=gurobi|simplex] [--instance=<path>] [--samples=1000] [--thin=<M*K>]
+ *                        [--burn-in=<sweeps>] [--max-objective=<value>] [--seed=<seed>] [--samples-file=<path>]
+ *                        [--report=<path>] [--report-format=text|csv|jsonl] [--log-dir=logs]
+ */
+public class FeasibleSampler {
+    // sweeps (M*K steps each) run before the first sample: from a vertex the chain needs many steps to get inside
+    public static final int BURN_IN_SWEEPS = 1000;
+    // steps between two recomputations of the row totals from x, against the drift of the updates
+    private static final int REFRESH_FREQUENCY = 1 << 20;
+    private static final double TOLERANCE = 1e-6;
+
+    private final Instance instance;
+    private final int m, k, mk;
+    private final int[] minutes, costs, spectators;
+    private final double minSlotBudget, targetCoverage, maxObjective;
+    private final SplittableRandom random;
+
+    // current plan and the totals of its rows
+    private final double[] x;
+    private final double[] stationCost, slotCost;
+    private double coverage, balance;
+    private long steps;
+    // segment of the current step
+    private double lo, hi;
+
+    /**
+     * "start" is a feasible plan (x_ij at i*K + j, further values are ignored) whose imbalance is at most
+     * "maxObjective" (POSITIVE_INFINITY for no limit).
+     */
+    public FeasibleSampler(Instance instance, double[] start, double maxObjective, long seed) {
+        this.instance = instance;
+        m = instance.m();
+        k = instance.k();
+        mk = m * k;
+        minutes = instance.minutes();
+        costs = instance.costs();
+        spectators = instance.spectators();
+        minSlotBudget = instance.minSlotBudget();
+        targetCoverage = instance.coverage();
+        this.maxObjective = maxObjective;
+        random = new SplittableRandom(seed);
+
+        x = new double[mk];
+        for (int c = 0; c < mk; c++)
+            x[c] = Math.max(0., Math.min(minutes[c], start[c]));
+        stationCost = new double[m];
+        slotCost = new double[k];
+        refresh();
+        if (!isFeasible())
+            throw new IllegalArgumentException("the starting plan is not feasible");
+    }
+
+    public static void main(String[] args) throws SolverException, IOException {
+        Instance instance = InstanceReader.read(Paths.get(Gurobi.option(args, "instance", "data/couple_10.csv")));
+        int samples = Integer.parseInt(Gurobi.option(args, "samples", "1000"));
+        int thin = Integer.parseInt(Gurobi.option(args, "thin", Integer.toString(instance.m() * instance.k())));
+        double maxObjective = Double.parseDouble(Gurobi.option(args, "max-objective", "Infinity"));
+        int burnIn = Integer.parseInt(Gurobi.option(args, "burn-in", Integer.toString(BURN_IN_SWEEPS)));
+        long seed = Long.parseLong(Gurobi.option(args, "seed", "1"));
+        String samplesFile = Gurobi.option(args, "samples-file", null);
+
+        // the only solve: the optimal plan is the starting point of the chain
+        double optimum;
+        FeasibleSampler sampler;
+        try (RunLog log = RunLog.open(Paths.get(Gurobi.option(args, "log-dir", "logs")), "FeasibleSampler")) {
+            LpBackend backend = Gurobi.createBackend(Gurobi.option(args, "solver", "gurobi"), log);
+            try {
+                LpModel model = Gurobi.generateModel(backend, instance, false);
+                try {
+                    if (model.getStatus() != LpModel.OPTIMAL)
+                        throw new SolverException("no optimal plan to start from (status " + model.getStatus() + ")");
+                    optimum = model.getObjVal();
+                    sampler = new FeasibleSampler(instance, model.getX(), maxObjective, seed);
+                } finally {
+                    model.dispose();
+                }
+            } finally {
+                // Release the resources associated with the backend, also when the starting plan was refused
+                backend.dispose();
+            }
+        }
+
+        int mk = instance.m() * instance.k();
+        double[] mean = new double[mk];
+        double minObjective = Double.POSITIVE_INFINITY, maxSampled = 0., meanObjective = 0., meanCoverage = 0.;
+        long start = System.nanoTime();
+        sampler.burnIn((long) burnIn * mk);
+        try (BufferedWriter out = samplesFile == null ? null : Files.newBufferedWriter(Paths.get(samplesFile))) {
+            for (int s = 0; s < samples; s++) {
+                double[] plan = sampler.next(thin);
+                double objective = Math.abs(sampler.balance());
+                minObjective = Math.min(minObjective, objective);
+                maxSampled = Math.max(maxSampled, objective);
+                meanObjective += objective / samples;
+                meanCoverage += sampler.coverage() / samples;
+                for (int c = 0; c < mk; c++)
+                    mean[c] += plan[c] / samples;
+                if (out != null) {
+                    // one plan for each line, x_ij at i*K + j
+                    StringBuilder line = new StringBuilder();
+                    for (int c = 0; c < mk; c++)
+                        line.append(c == 0 ? "" : ",").append(plan[c]);
+                    out.write(line.toString());
+                    out.newLine();
+                }
+            }
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        try (ReportWriter report = ReportWriter.open(Gurobi.option(args, "report-format", "text"), Gurobi.option(args, "report", null))) {
+            report.header("GRUPPO 10", "Componenti: Baresi, El Koudri");
+            report.beginQuestion("SAMPLE", "CAMPIONAMENTO DI PIANI AMMISSIBILI");
+            report.value("optimum", "funzione obiettivo ottima", optimum);
+            report.value("samples", "piani campionati", samples);
+            report.value("time", "tempo di campionamento (s)", elapsed);
+            report.value("throughput", "piani al secondo", samples / elapsed);
+            report.value("min_objective", "funzione obiettivo minima", minObjective);
+            report.value("mean_objective", "funzione obiettivo media", meanObjective);
+            report.value("max_objective", "funzione obiettivo massima", maxSampled);
+            report.value("mean_coverage", "copertura media (spettatori)", meanCoverage);
+            report.beginSolution("mean_plan", "piano medio");
+            for (int i = 0; i < instance.m(); i++)
+                for (int j = 0; j < instance.k(); j++)
+                    report.variable("x_" + (i + 1) + "_" + (j + 1), mean[i * instance.k() + j]);
+            report.endQuestion();
+        }
+    }
+
+    /**
+     * Runs "steps" hit-and-run steps and returns a copy of the plan reached (x_ij at i*K + j).
+     */
+    public double[] next(int steps) {
+        for (int s = 0; s < steps; s++)
+            step();
+        return x.clone();
+    }
+
+    // steps whose plans are not returned
+    public void burnIn(long steps) {
+        for (long s = 0; s < steps; s++)
+            step();
+    }
+
+    // imbalance sum_ij sign_j P_ij x_ij of the current plan, its absolute value is the objective
+    public double balance() {
+        return balance;
+    }
+
+    // spectators of the current plan
+    public double coverage() {
+        return coverage;
+    }
+
+    /**
+     * All the variables of the planning model for the plan x: x_ij, the slack variables s_i (see ModelBuilder)
+     * and "aux", the value of the objective.
+     */
+    public static double[] withSlacks(Instance instance, double[] x) {
+        int m = instance.m(), k = instance.k(), mk = m * k;
+        int[] costs = instance.costs(), spectators = instance.spectators();
+        double[] values = new double[mk + m + k + 2];
+        double balance = 0.;
+        for (int c = 0; c < mk; c++) {
+            values[c] = x[c];
+            values[ModelBuilder.slack(instance, c / k)] -= x[c] * costs[c];
+            values[ModelBuilder.slack(instance, m + c % k)] += x[c] * costs[c];
+            values[ModelBuilder.slack(instance, m + k)] += x[c] * spectators[c];
+            balance += (c % k < k / 2 ? 1 : -1) * x[c] * spectators[c];
+        }
+        for (int i = 0; i < m; i++)
+            values[ModelBuilder.slack(instance, i)] += instance.budget(i);
+        for (int j = 0; j < k; j++)
+            values[ModelBuilder.slack(instance, m + j)] -= instance.minSlotBudget();
+        values[ModelBuilder.slack(instance, m + k)] -= instance.coverage();
+        values[mk + m + k + 1] = Math.abs(balance);
+        return values;
+    }
+
+    private void step() {
+        int c = random.nextInt(mk), d = c;
+        // uniform direction in the plane of the two cells; a single cell (M * K == 1) moves along its own axis
+        double u = 1., v = 0.;
+        if (mk > 1) {
+            d = random.nextInt(mk - 1);
+            if (d >= c)
+                d++;
+            double angle = 2. * Math.PI * random.nextDouble();
+            u = Math.cos(angle);
+            v = Math.sin(angle);
+        }
+        int ic = c / k, id = d / k, jc = c % k, jd = d % k;
+
+        // segment x + t (u e_c + v e_d), lo <= t <= hi, allowed by the bounds and the rows of the two cells
+        lo = Double.NEGATIVE_INFINITY;
+        hi = Double.POSITIVE_INFINITY;
+        limit(x[c], u, 0., minutes[c]);
+        limit(x[d], v, 0., minutes[d]);
+        if (ic == id) {
+            limit(stationCost[ic], u * costs[c] + v * costs[d], Double.NEGATIVE_INFINITY, instance.budget(ic));
+        } else {
+            limit(stationCost[ic], u * costs[c], Double.NEGATIVE_INFINITY, instance.budget(ic));
+            limit(stationCost[id], v * costs[d], Double.NEGATIVE_INFINITY, instance.budget(id));
+        }
+        if (jc == jd) {
+            limit(slotCost[jc], u * costs[c] + v * costs[d], minSlotBudget, Double.POSITIVE_INFINITY);
+        } else {
+            limit(slotCost[jc], u * costs[c], minSlotBudget, Double.POSITIVE_INFINITY);
+            limit(slotCost[jd], v * costs[d], minSlotBudget, Double.POSITIVE_INFINITY);
+        }
+        limit(coverage, u * spectators[c] + v * spectators[d], targetCoverage, Double.POSITIVE_INFINITY);
+        double signed = u * sign(c) * spectators[c] + v * sign(d) * spectators[d];
+        if (maxObjective < Double.POSITIVE_INFINITY)
+            limit(balance, signed, -maxObjective, maxObjective);
+        // the segment always contains t = 0, up to rounding
+        lo = Math.min(lo, 0.);
+        hi = Math.max(hi, 0.);
+
+        double t = lo + random.nextDouble() * (hi - lo);
+        move(c, t * u);
+        move(d, t * v);
+
+        if (++steps % REFRESH_FREQUENCY == 0)
+            refresh();
+    }
+
+    // narrows [lo, hi] so that min <= value + t * rate <= max
+    private void limit(double value, double rate, double min, double max) {
+        if (rate > 0.) {
+            lo = Math.max(lo, (min - value) / rate);
+            hi = Math.min(hi, (max - value) / rate);
+        } else if (rate < 0.) {
+            lo = Math.max(lo, (max - value) / rate);
+            hi = Math.min(hi, (min - value) / rate);
+        }
+    }
+
+    private void move(int c, double delta) {
+        x[c] += delta;
+        stationCost[c / k] += delta * costs[c];
+        slotCost[c % k] += delta * costs[c];
+        coverage += delta * spectators[c];
+        balance += sign(c) * delta * spectators[c];
+    }
+
+    private void refresh() {
+        Arrays.fill(stationCost, 0.);
+        Arrays.fill(slotCost, 0.);
+        coverage = balance = 0.;
+        for (int c = 0; c < mk; c++) {
+            stationCost[c / k] += x[c] * costs[c];
+            slotCost[c % k] += x[c] * costs[c];
+            coverage += x[c] * spectators[c];
+            balance += sign(c) * x[c] * spectators[c];
+        }
+    }
+
+    private boolean isFeasible() {
+        for (int i = 0; i < m; i++)
+            if (stationCost[i] > instance.budget(i) + TOLERANCE * (1. + instance.budget(i)))
+                return false;
+        for (int j = 0; j < k; j++)
+            if (slotCost[j] < minSlotBudget - TOLERANCE * (1. + minSlotBudget))
+                return false;
+        return coverage >= targetCoverage - TOLERANCE * (1. + targetCoverage)
+                && Math.abs(balance) <= maxObjective + TOLERANCE * (1. + Math.abs(balance));
+    }
+
+    // sign_j of the balance objective: +1 in the first half of the slots, -1 in the second one
+    private int sign(int c) {
+        return c % k < k / 2 ? 1 : -1;
+    }
+}
@@ -1,7 +1,27 @@
 package it.unibs.operations_research.gurobi.couple_10;
 
-import gurobi.*;
+import it.unibs.operations_research.gurobi.couple_10.cache.CachedResult;
+import it.unibs.operations_research.gurobi.couple_10.cache.ResultCache;
+import it.unibs.operations_research.gurobi.couple_10.instance.Instance;
+import it.unibs.operations_research.gurobi.couple_10.instance.InstanceReader;
+import it.unibs.operations_research.gurobi.couple_10.instance.SparseInstance;
+import it.unibs.operations_research.gurobi.couple_10.logging.RunLog;
+import it.unibs.operations_research.gurobi.couple_10.metrics.*;
+import it.unibs.operations_research.gurobi.couple_10.profiling.PhaseEvent;
+import it.unibs.operations_research.gurobi.couple_10.report.ReportWriter;
+import it.unibs.operations_research.gurobi.couple_10.solver.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Gurobi Project part I.
@@ -10,377 +30,451 @@ import java.util.Arrays;
  * @author El Koudri Chaimaa
  */
 public class Gurobi {
-    // number of television station
-    private static final int M = 10;
-
-    // number of time slots for each television station
-    private static final int K = 8;
-
-    // M == Bi.length() : number of constraints related to the maximum budget for each television station
-    // K : number of constraints related to minimum budget for each time slot
-    // 1 : number of constraint related to minimum total number of spectators (daily)
-    private static final int SLACK_NUM = M + K + 1;
-
-    // minimum daily number of spectators (coverage)
-    private static final int S = 86236;
-
-    // Ω% (Omega) - percentage of the minimum budget to invest in each time slot (2%)
-    private static final double O = 0.02;
-
-    // β_i - maximum budget for the i-th television station
-    private static final int [] B_i = {
-            3356,
-            2632,
-            2867,
-            3215,
-            3103,
-            3449,
-            2825,
-            3398,
-            3158,
-            2657
-    };
-
-    // τ_ij - maximum amount of minutes that can be purchased in each time slot
-    // "i": index to the television station
-    // "j": index to the time slot
-    private static final int [][] T_ij = {
-            {1, 2, 2, 1, 1, 2, 2, 1},
-            {2, 2, 1, 2, 2, 2, 2, 3},
-            {1, 1, 2, 1, 1, 2, 2, 3},
-            {3, 3, 1, 2, 2, 1, 2, 2},
-            {2, 1, 2, 3, 2, 2, 2, 1},
-            {2, 2, 2, 3, 2, 3, 1, 1},
-            {2, 3, 2, 3, 2, 3, 3, 2},
-            {2, 2, 1, 1, 3, 2, 1, 1},
-            {3, 2, 2, 2, 3, 1, 3, 2},
-            {2, 2, 2, 2, 3, 3, 1, 2}
-    };
-
-    // cost euro/minute of each time slot
-    // "i": index to the television station
-    // "j": index to the time slot
-    private static final int [][] C_ij = {
-            {914, 972, 1352, 1299, 1258, 1237, 1276, 1286},
-            {1030, 969, 1073, 1234, 1289, 1107, 1357, 1276},
-            {1270, 1191, 1393, 1112, 1297, 1296, 1244, 1228},
-            {1390, 1121, 1009, 1039, 1107, 993, 1144, 1073},
-            {1237, 1345, 1191, 1235, 954, 1314, 976, 953},
-            {1065, 1012, 1349, 1145, 1087, 938, 1343, 1356},
-            {1235, 970, 998, 900, 1064, 1178, 970, 1056},
-            {1159, 1077, 1330, 1261, 1294, 1382, 1190, 1002},
-            {996, 1137, 1151, 931, 1067, 986, 1014, 1104},
-            {1101, 1354, 1381, 1026, 1374, 986, 1067, 1149}
-    };
-
-    // coverage of spectators (spectators/minute) guaranteed by spending C_ij euro/minute
-    // "i": index to the television station
-    // "j": index to the time slot
-    private static final int [][] P_ij = {
-            {1387, 3382, 3496, 1574, 1292, 1989, 2251, 1314},
-            {919, 3333, 595, 956, 1299, 2485, 3241, 1642},
-            {1546, 2036, 1493, 2429, 2325, 1840, 1124, 3088},
-            {2781, 784, 1133, 1203, 1990, 2333, 1046, 2569},
-            {2308, 3480, 628, 2628, 2606, 384, 3413, 2764},
-            {2348, 392, 3480, 1005, 553, 2536, 2367, 1461},
-            {3014, 931, 3194, 1926, 2482, 2680, 947, 359},
-            {2712, 3405, 680, 2389, 1517, 2085, 953, 3021},
-            {2421, 886, 781, 3246, 3142, 601, 813, 735},
-            {911, 2714, 2837, 3135, 3007, 409, 898, 1598}
-    };
-
-
-    // total budget = sum of maximum budgets of the i-th television station
-    private static final int B_TOT = Arrays.stream(B_i).sum();
-
-    // 2% of the total budget = B_TOT * 0.02
-    private static final double B_PCT = B_TOT*O;
-
+    // instance solved when no "--instance=<path>" option is given (".bin" files use the binary format)
+    private static final String DEFAULT_INSTANCE = "data/couple_10.csv";
+    // "--mode=single": simplex iterations from the feasible basis of the auxiliary problem to the not optimal solution
+    private static final double NOT_OPTIMAL_ITERATIONS = 1;
+    // "--mode=sample": seed of the chain and sweeps allowed to leave the optimal value
+    private static final long SAMPLER_SEED = 10;
+    private static final int SAMPLER_ATTEMPTS = 100;
+    // the parameters set by setParameters, part of the key of the cached results
+    static final String PARAMETERS = "Method=0;Presolve=0";
+    // parameters by size class written by ParameterTuner, used by setParameters when the file exists
+    static final String TUNING_FILE = "tuning.tsv";
+    private static ParameterTable tuning;
     // entry point for our Gurobi Project
-    public static void main(String[] args) throws GRBException {
-        // GRBEve stands for 'Gurobi Environment'
-        // we will add parameters to the environment to solve problems
-        // to set parameters: 'env.set(<parameter>, <value>)'
-        // main parameters are:
-        // GRB.IntParam.Threads         # number of Threads used by Gurobi
-        // GRB.IntParam.Presolve        # operations before the executions of our model - it speedups the execution
-        // GRB.DoubleParam.TimeLimit    # time limit dedicated to Gurobi to solve our problem
-        GRBEnv env = new GRBEnv("gurobi_first_part.log");
+    // "--solver=simplex" runs the pure-Java simplex, no Gurobi license is required
+    // "--instance=<path>" loads another instance (CSV or binary), see InstanceReader
+    // "--report=<path>" writes the answers to a file instead of the standard output
+    // "--report-format=text|csv|jsonl" chooses the format of the answers, see ReportWriter
+    // "--mode=single" takes all the solutions from one model and one simplex run instead of three solves
+    // "--mode=sample" solves once and draws the plans of Question III with FeasibleSampler
+    // "--sparse=true" loads the instance with InstanceReader.readSparse and creates x_ij only for the pairs with
+    // τ_ij > 0, see ModelBuilder; the answers still list every x_ij (not with "--mode=single")
+    // "--metrics-port=<port>" serves the progress of the solves at http://localhost:<port>/metrics
+    // "--alternatives=<max>" also lists up to <max> optimal vertices adjacent to the optimal one, see OptimalFace
+    // "--log-dir=<directory>" keeps the log of the run and the history of the runs there (default "logs"), see RunLog
+    // "--cache=<directory>" answers an instance already solved from the results kept there, "--cache-size=<results>"
+    // bounds them (default 1024), see ResultCache
+    public static void main(String[] args) throws SolverException, IOException {
+        try (RunLog log = RunLog.open(Paths.get(option(args, "log-dir", "logs")), "Gurobi")) {
+            run(args, log);
+        }
+    }
 
-        // setting necessary parameters
-        setParameters(env);
+    private static void run(String[] args, RunLog log) throws SolverException, IOException {
+        // M, K, S, Ω and the B_i, T_ij, C_ij, P_ij tables
+        String path = option(args, "instance", DEFAULT_INSTANCE);
+        SparseInstance sparse = null;
+        Instance instance;
+        if (Boolean.parseBoolean(option(args, "sparse", "false"))) {
+            sparse = InstanceReader.readSparse(Paths.get(path));
+            instance = sparse.toInstance();
+        } else {
+            instance = InstanceReader.read(Paths.get(path));
+        }
+        log.parameter("Instance", path);
+        log.parameter("Sparse", sparse != null);
+
+        // the backend plays the role of the environment: every model is created through it
+        String solver = option(args, "solver", "gurobi");
+        LpBackend backend = createBackend(solver, log);
+        int alternatives = Integer.parseInt(option(args, "alternatives", "0"));
+        String mode = option(args, "mode", "separate"), format = option(args, "report-format", "text");
+        String reportPath = option(args, "report", null), cacheDirectory = option(args, "cache", null);
+
+        MetricsServer metrics = null;
+        try {
+            // null without "--metrics-port"
+            metrics = startMetrics(args, backend, log);
+            if (cacheDirectory != null) {
+                // the whole report comes from the cache, or is kept there once written
+                ResultCache cache = ResultCache.open(Integer.parseInt(option(args, "cache-size", "1024")), Paths.get(cacheDirectory), log);
+                byte[] report = answer(cache, backend, instance, sparse, solver, mode, alternatives, format);
+                log.line(cache.getHits() > 0 ? "Cache hit" : "Cache miss");
+                if (reportPath == null) {
+                    System.out.write(report);
+                    System.out.flush();
+                } else {
+                    Files.write(Paths.get(reportPath), report);
+                }
+            } else {
+                // function to solve all required problems, answers are written to the report while they are computed
+                try (ReportWriter report = ReportWriter.open(format, reportPath)) {
+                    answer(backend, instance, sparse, mode, alternatives, report);
+                }
+            }
+        } finally {
+            if (metrics != null)
+                metrics.close();
+            // Release the resources associated with the backend, also when a solve or the report failed
+            backend.dispose();
+        }
+    }
+
+    /**
+     * Solves all required problems on "backend" and writes the answers to "report" while they are computed.
+     * "mode" is "separate", "single" or "sample", see main. Also used by SolveDaemon for every request.
+     * With "sparse" (null or the pairs of "instance", which is sparse.toInstance()) the models have x_ij only for
+     * the pairs with τ_ij > 0; their solutions are answered at the columns of the model of every cell.
+     * Returns the optimal solution, without report.
+     */
+    static CachedResult answer(LpBackend backend, Instance instance, SparseInstance sparse, String mode, int alternatives,
+                               ReportWriter report) throws SolverException, IOException {
+        if (sparse != null && mode.equals("single"))
+            throw new IllegalArgumentException("sparse models are solved with mode separate or sample, not single");
+        if (mode.equals("single")) {
+            // one model and one simplex run for all the solutions, see DerivedSolutions
+            DerivedSolutions derived = new DerivedSolutions(backend, instance, true);
+            try {
+                derived.solve(NOT_OPTIMAL_ITERATIONS);
+                CachedResult result = CachedResult.of(SolutionSnapshot.take(derived.model()), derived.getIterCount());
+                solve(instance, derived, report, alternatives);
+                return result;
+            } finally {
+                derived.dispose();
+            }
+        }
 
         // a model represents a single optimization problem
         // it contains set of variables, set of constraints, one objective function and others attributes
-        GRBModel model = generateModel(env, false);
-
-        // function to solve all required problems
-        solve(env, model);
-
-        // Release the resources associated with a GRBModel object
-        model.dispose();
-
-        // Release the resources associated with a GRBEnv object
-        env.dispose();
+        // always from scratch: the optimal vertex (Questions I and II) and the iterations Question III stops at
+        // depend on the starting basis, a warm start from another instance would make the report depend on it
+        LpModel model = generateModel(backend, instance, sparse, false);
+        try {
+            double coldIterations = model.getIterCount();
+            SolutionSnapshot snapshot = SolutionSnapshot.take(model);
+            String[] varNames = model.getVarNames();
+            if (sparse != null) {
+                // the missing pairs are nonbasic at 0, as x_ij with τ_ij = 0 in the model of every cell
+                int[] columns = ModelBuilder.denseColumns(sparse, model.numVars());
+                varNames = ModelBuilder.denseNames(sparse, varNames, columns);
+                snapshot = snapshot.scatter(columns, varNames.length);
+            }
+            CachedResult result = CachedResult.of(snapshot, coldIterations);
+            OptimalSolution optimal = extractOptimalSolution(snapshot, varNames, instance, varNames.length);
+            solve(backend, instance, sparse, model, optimal, report, alternatives, mode.equals("sample"), coldIterations);
+            return result;
+        } finally {
+            // Release the resources associated with the model
+            model.dispose();
+        }
     }
 
-    private static void setParameters(GRBEnv env) throws GRBException {
-        // we can set solve method used by Gurobi
-        // '0' stands for "primal simplex"
-        env.set(GRB.IntParam.Method, 0);
-
-        // we choose to disable gurobi presolve option
-        // it is necessary to avoid unexpected changes
-        env.set(GRB.IntParam.Presolve, 0);
+    /**
+     * Report of "instance" in "format" from the cache; on a miss the instance is solved from scratch and its result
+     * is added to the cache, so the report never depends on the instances solved before.
+     */
+    static byte[] answer(ResultCache cache, LpBackend backend, Instance instance, SparseInstance sparse, String solver,
+                         String mode, int alternatives, String format) throws SolverException, IOException {
+        String key = cacheKey(instance, sparse != null, solver, mode, alternatives, format);
+        CachedResult cached = cache.get(key);
+        if (cached != null)
+            return cached.getReport();
+
+        CachedResult result = render(backend, instance, sparse, mode, alternatives, format);
+        cache.put(key, result);
+        return result.getReport();
     }
 
-    private static GRBModel generateModel(GRBEnv env, boolean isAuxiliary) throws GRBException {
-        // a model represents a single optimization problem
-        // it contains set of variables, set of constraints, one objective function and others attributes
-        GRBModel model = new GRBModel(env);
-
-        // adding x_ij variables
-        GRBVar[][] x_ij = addVariables(model);
+    // answer() with the report written in memory, the result holds it
+    static CachedResult render(LpBackend backend, Instance instance, SparseInstance sparse, String mode, int alternatives,
+                               String format) throws SolverException, IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        CachedResult result;
+        try (ReportWriter report = ReportWriter.create(format, new OutputStreamWriter(body, StandardCharsets.UTF_8), true)) {
+            result = answer(backend, instance, sparse, mode, alternatives, report);
+        }
+        return result.withReport(body.toByteArray());
+    }
 
-        // adding slack surplus variables
-        // "s" stands for "slack"
-        GRBVar[] s = addAdditionalVariables(model, "s");
+    // everything the report depends on: the instance, the solver with its parameters and the options of the answers
+    // the sparse model takes another path of the simplex, its report is kept apart
+    static String cacheKey(Instance instance, boolean sparse, String solver, String mode, int alternatives, String format) {
+        String tuned = solver.equals("simplex") || tuning().isEmpty() ? "" : ";tuning=" + tuning();
+        return ResultCache.key(instance, "solver=" + solver + ";" + PARAMETERS + tuned + ";mode=" + mode
+                + (sparse ? ";sparse" : "") + ";alternatives=" + alternatives + ";format=" + format);
+    }
 
-        GRBVar[] y = null;
-        if (isAuxiliary)
-            // required to set auxiliary variables with the aim of finding a feasible solution that is not optimal
-            y = addAdditionalVariables(model, "a");
+    // value of a "--<name>=<value>" command line option
+    public static String option(String[] args, String name, String defaultValue) {
+        for (String arg : args)
+            if (arg.startsWith("--" + name + "="))
+                return arg.substring(name.length() + 3);
+        return defaultValue;
+    }
 
-        // adding budget constraints
-        addBudgetConstraints(model, x_ij, s, y, isAuxiliary);
+    /**
+     * With "--metrics-port=<port>" the progress of every model of the backend is published to a metrics registry,
+     * served in the Prometheus text format until the server is closed. Returns null without the option.
+     * The run log keeps receiving the progress as well.
+     */
+    static MetricsServer startMetrics(String[] args, LpBackend backend, RunLog log) throws IOException {
+        String port = option(args, "metrics-port", null);
+        if (port == null)
+            return null;
+        MetricsRegistry registry = new MetricsRegistry();
+        backend.setProgressListener(ProgressListener.combine(log, new SolverMetrics(registry)));
+        return new MetricsServer(registry, new PrometheusExporter(), Integer.parseInt(port));
+    }
 
-        // adding minimum spectators number
-        addSpectatorsConstraint(model, x_ij, s, y, isAuxiliary);
+    /**
+     * Backend whose solves are written to the run log: the Gurobi console output goes through the message callback
+     * to the background writer of the log instead of a log file of the environment.
+     */
+    static LpBackend createBackend(String solver, RunLog log) throws SolverException {
+        return createBackend(solver, log, SolverParameters.DEFAULT);
+    }
 
-        if (isAuxiliary)
-            setAuxiliaryObjectiveFunction(model, y);
+    // "parameters" in place of the ones of setParameters, e.g. the Threads of each environment of SolveDaemon
+    static LpBackend createBackend(String solver, RunLog log, SolverParameters parameters) throws SolverException {
+        log.parameter("Solver", solver);
+        LpBackend backend;
+        if (solver.equals("simplex"))
+            backend = new SimplexBackend();
         else
-            setObjectiveFunction(model, x_ij);
+            // environment without a log file and without console output, everything reaches the log through the callback
+            backend = setParameters("", parameters, log);
+        backend.setProgressListener(log);
+        return backend;
+    }
 
-        model.update();
-        // to optimize our model
-        model.optimize();
+    // backend without any output, neither log file nor console, e.g. for the workers of ScenarioSweep
+    static LpBackend createSilentBackend(String solver, SolverParameters parameters) throws SolverException {
+        if (solver.equals("simplex"))
+            return new SimplexBackend();
 
-        return model;
+        // GRBEve stands for 'Gurobi Environment'
+        // we will add parameters to the environment to solve problems, see GurobiBackend.create
+        // main parameters are:
+        // GRB.IntParam.Threads         # number of Threads used by Gurobi
+        // GRB.IntParam.Presolve        # operations before the executions of our model - it speedups the execution
+        // GRB.DoubleParam.TimeLimit    # time limit dedicated to Gurobi to solve our problem
+        return setParameters(null, parameters, null);
     }
 
-    private static GRBVar[][] addVariables(GRBModel model) throws GRBException {
-        // "i": index to the television station (0 ... M-1)
-        // "j": index to the time slot (0 ... K-1)
-        GRBVar[][] x_ij = new GRBVar[M][K];
-
-        for (int i=0; i<M; i++) {
-            for (int j = 0; j < K; j++) {
-                // 'addVar' is required to add variables
-                // first parameter represents the 'lower bound | lb' - in that case 0.0
-                // second parameter represents the 'upper bound | ub' - in that case τ_ij
-                // third parameter represents the coefficient of the variable in our objective function
-                // the third parameter set to 0 is temporary, we will change it building objective function
-                // fourth parameter represents the type of the variable
-                // fifth parameter represents the name of the variable
-                x_ij[i][j] = model.addVar(0.0, T_ij[i][j], 0.0, GRB.CONTINUOUS, "x_" + (i + 1) + "_" + (j + 1));
-            }
+    // "log" == null: the parameters are only in the log of the environment
+    // the environment is created by GurobiBackend, the only class that refers to Gurobi: "--solver=simplex" runs
+    // without the Gurobi library
+    private static LpBackend setParameters(String logFile, SolverParameters parameters, RunLog log) throws SolverException {
+        // the phases of the pipeline are JFR events, see PhaseEvent
+        PhaseEvent event = PhaseEvent.begin("setParameters", null);
+        // we can set solve method used by Gurobi
+        // '0' stands for "primal simplex"
+        // we choose to disable gurobi presolve option
+        // it is necessary to avoid unexpected changes
+        // both are the values of SolverParameters.DEFAULT
+        GurobiBackend backend = GurobiBackend.create(logFile, parameters);
+        backend.setParameterTable(tuning());
+        if (log != null) {
+            log.parameter("Method", parameters.method());
+            log.parameter("Presolve", parameters.presolve());
+            if (parameters.threads() != SolverParameters.DEFAULT.threads())
+                log.parameter("Threads", parameters.threads());
+            // the models of a tuned size class replace them when they are optimized, see GurobiModel
+            if (!tuning().isEmpty())
+                log.parameter("Tuning", tuning());
         }
-
-        return x_ij;
+        event.finish();
+        return backend;
     }
 
-    // used to add slack variables and auxiliary variables
-    private static GRBVar[] addAdditionalVariables(GRBModel model, String baseVarName) throws GRBException {
-        GRBVar[] vars = new GRBVar[SLACK_NUM];
-
-        for (int i = 0; i < (M + K + 1); i++)
-            vars[i] = model.addVar(0.0, GRB.INFINITY, 0.0, GRB.CONTINUOUS, baseVarName + "_" + i);
-
-        return vars;
+    /**
+     * Parameters by size class of TUNING_FILE in the working directory, read once; empty when the file does not
+     * exist, so every model keeps the parameters of setParameters.
+     */
+    static synchronized ParameterTable tuning() {
+        if (tuning == null) {
+            Path path = Paths.get(TUNING_FILE);
+            try {
+                tuning = Files.exists(path) ? ParameterTable.read(path) : new ParameterTable();
+            } catch (IOException e) {
+                throw new UncheckedIOException("unable to read the tuned parameters", e);
+            }
+        }
+        return tuning;
     }
 
-    // y array contains variables only if "isAuxiliary" == true, we use it to solve an auxiliary problem
-    private static void addBudgetConstraints(GRBModel model, GRBVar[][] x_ij, GRBVar[] s, GRBVar[] y, boolean isAuxiliary) throws GRBException {
-        GRBLinExpr expr;
+    static LpModel generateModel(LpBackend backend, Instance instance, boolean isAuxiliary) throws SolverException {
+        return generateModel(backend, instance, null, isAuxiliary);
+    }
 
-        // maximum budget for each television station
-        for (int i = 0; i < M; i++) {
-            expr = new GRBLinExpr();
-            for (int j = 0; j < K; j++) {
-                expr.addTerm(C_ij[i][j], x_ij[i][j]);
-            }
-            // adding slack
-            expr.addTerm(1, s[i]);
-            model.addConstr(expr, GRB.EQUAL, B_i[i], "c_max_budget_" + (i+1));
+    // "sparse" != null builds the model of its pairs only, "instance" is sparse.toInstance()
+    static LpModel generateModel(LpBackend backend, Instance instance, SparseInstance sparse, boolean isAuxiliary) throws SolverException {
+        // a model represents a single optimization problem
+        // it contains set of variables, set of constraints, one objective function and others attributes
+        // variables, constraints and objective function are added with a few bulk calls, see ModelBuilder
+        LpModel model = sparse == null ? ModelBuilder.build(backend, instance, isAuxiliary, true)
+                : ModelBuilder.build(backend, sparse, isAuxiliary, true);
+
+        try {
+            PhaseEvent event = PhaseEvent.begin("optimize", instance);
+            model.update();
+            // to optimize our model
+            model.optimize();
+            event.end(model.getIterCount());
+        } catch (SolverException | RuntimeException e) {
+            // the caller only disposes the models it receives
+            model.dispose();
+            throw e;
         }
 
-        // minimum budget for each time slot
-        for (int j = 0; j < K; j++) {
-            expr = new GRBLinExpr();
-            for (int i = 0; i < M; i++) {
-                expr.addTerm(C_ij[i][j], x_ij[i][j]);
-            }
-            // adding slack
-            expr.addTerm(-1.0, s[M+j]);
-            if (isAuxiliary)
-                expr.addTerm(1.0, y[M+j]);
-            model.addConstr(expr, GRB.EQUAL, B_PCT, "c_min_budget_" + (j+1));
-        }
+        return model;
     }
 
-    // y array contains variables only if "isAuxiliary" == true, we use it to solve an auxiliary problem
-    private static void addSpectatorsConstraint(GRBModel model, GRBVar[][] x_ij, GRBVar[] s, GRBVar[] y, boolean isAuxiliary) throws GRBException {
-        GRBLinExpr expr = new GRBLinExpr();
+    // "optimal" comes from "model", at the columns of the model of every cell when "sparse" != null
+    private static void solve(LpBackend backend, Instance instance, SparseInstance sparse, LpModel model, OptimalSolution optimal,
+                              ReportWriter report, int alternatives, boolean sampled, double coldIterations) throws SolverException, IOException {
+        int numVars = optimal.varNames.length;
+
+        // answers are written as soon as they are available, the model still holds the optimal solution
+        report.header("GRUPPO 10", "Componenti: Baresi, El Koudri");
+        writeFirstQuestion(report, instance, optimal);
+        writeSecondQuestion(report, instance, model, optimal);
+        if (alternatives > 0)
+            writeAlternatives(report, optimal, alternatives);
+
+        report.beginQuestion("III", "QUESITO III");
+        if (sampled) {
+            writeSampledSolutions(report, instance, optimal);
+            report.endQuestion();
+            return;
+        }
 
-        for (int i = 0; i < M; i++) {
-            for (int j = 0; j < K; j++) {
-                expr.addTerm(P_ij[i][j], x_ij[i][j]);
+        // we can arbitrary set iterationLimit (< of previous iterationCount) to get feasible but not optimal solution
+        // in that case we set iterationLimit = IterCount/2 (of previous solution)
+        LpModel notOptimalModel = generateNotOptimalVars(model, coldIterations/2);
+        double[] varsValues = notOptimalModel.getX();
+        if (sparse != null)
+            varsValues = ModelBuilder.denseValues(sparse, varsValues, ModelBuilder.denseColumns(sparse, varsValues.length));
+        double[] notOptimalVarsValues = new double[numVars];
+        writeSolution(report, "not_optimal_1", "Prima soluzione ammissibile ma non ottima", optimal.varNames, varsValues);
+
+        // we create a new model of an auxiliary problem
+        PhaseEvent event = PhaseEvent.begin("auxiliaryModel", instance);
+        LpModel auxModel = generateModel(backend, instance, sparse, true);
+        double auxIterations;
+        try {
+            auxIterations = auxModel.getIterCount();
+            String[] auxNames = auxModel.getVarNames();
+            double[] auxValues = auxModel.getX();
+            if (sparse != null) {
+                int[] columns = ModelBuilder.denseColumns(sparse, auxValues.length);
+                auxNames = ModelBuilder.denseNames(sparse, auxNames, columns);
+                auxValues = ModelBuilder.denseValues(sparse, auxValues, columns);
             }
+            writeSolution(report, "not_optimal_2", "Seconda soluzione ammissibile ma non ottima", auxNames, auxValues);
+        } finally {
+            auxModel.dispose();
         }
-        expr.addTerm(-1.0, s[M+K]);
-        if (isAuxiliary)
-            expr.addTerm(1.0, y[M+K]);
-        model.addConstr(expr, GRB.EQUAL, S, "c_spectators");
-    }
+        event.end(auxIterations);
 
-    private static void setObjectiveFunction(GRBModel model, GRBVar[][] x_ij) throws GRBException {
-        // 'GRBLinExpr' is used to build our function
-        // 'model.setObjective(...)' sets our expression as objective function
-        GRBLinExpr sum = new GRBLinExpr();
-        GRBLinExpr reverse_sum = new GRBLinExpr();
+        double[] z = convexCombination(varsValues, notOptimalVarsValues);
+        writeSolution(report, "not_optimal_3", "Terza soluzione ammissibile ma non ottima", optimal.varNames, z);
 
-        // 1.0 indicates the coefficient of the aux_var in our objective function
-        GRBVar aux_var = model.addVar(0.0, GRB.INFINITY, 0.0, GRB.CONTINUOUS, "aux");
+        report.endQuestion();
+    }
 
-        for (int i = 0; i < M; i++) {
-            for (int j = 0; j < K; j++) {
-                int sign = (j < (K/2) ? 1 : -1);
-                sum.addTerm(sign * P_ij[i][j], x_ij[i][j]);
-                reverse_sum.addTerm((-1 * sign) * P_ij[i][j], x_ij[i][j]);
-            }
-        }
+    // same answers of solve(), the solutions have already been computed by derived.solve()
+    private static void solve(Instance instance, DerivedSolutions derived, ReportWriter report, int alternatives) throws SolverException, IOException {
+        OptimalSolution optimal = extractOptimalSolution(derived.model(), instance, derived.numVars());
 
-        model.addConstr(aux_var, GRB.GREATER_EQUAL, sum, "c_aux1");
-        model.addConstr(aux_var, GRB.GREATER_EQUAL, reverse_sum, "c_aux2");
+        report.header("GRUPPO 10", "Componenti: Baresi, El Koudri");
+        writeFirstQuestion(report, instance, optimal);
+        writeSecondQuestion(report, instance, derived.model(), optimal);
+        if (alternatives > 0)
+            writeAlternatives(report, optimal, alternatives);
 
-        GRBLinExpr objFunc = new GRBLinExpr();
-        objFunc.addTerm(1.0, aux_var);
+        report.beginQuestion("III", "QUESITO III");
+        double[] notOptimalVarsValues = derived.getNotOptimalValues();
+        writeSolution(report, "not_optimal_1", "Prima soluzione ammissibile ma non ottima", optimal.varNames, notOptimalVarsValues);
+        writeSolution(report, "not_optimal_2", "Seconda soluzione ammissibile ma non ottima",
+                derived.getAuxiliaryNames(), derived.getAuxiliaryValues());
 
-        model.setObjective(objFunc, GRB.MINIMIZE);
+        // midpoint of the optimal solution and the first one, feasible because both are
+        double[] varsValues = Arrays.copyOf(optimal.snapshot.getX(), derived.numVars());
+        double[] z = convexCombination(varsValues, notOptimalVarsValues);
+        writeSolution(report, "not_optimal_3", "Terza soluzione ammissibile ma non ottima", optimal.varNames, z);
+        report.endQuestion();
     }
 
-    private static void setAuxiliaryObjectiveFunction(GRBModel model, GRBVar[] y) throws GRBException {
-        // 'GRBLinExpr' is used to build our function
-        // 'model.setObjective(...)' sets our expression as objective function
-        // auxiliary objective function is necessary to find a feasible but not optimal solution
-        GRBLinExpr obj = new GRBLinExpr();
+    // values of the optimal solution required by Questions I and II
+    static class OptimalSolution {
+        double objVal, fullCoverage, purchasedTime, usedBudget;
+        boolean isMultiple, isDegenerate;
+        String[] varNames;
+        // values, reduced costs and basis of every variable
+        SolutionSnapshot snapshot;
+        // multiplicity and degeneracy of the final basis, with tolerances
+        OptimalFace face;
+    }
 
-        for (int i = 0; i < M; i++) {
-            for (int j = 0; j < K; j++) {
-                obj.addTerm(1.0, y[i]);
-            }
-        }
+    static OptimalSolution extractOptimalSolution(LpModel model, Instance instance) throws SolverException {
+        return extractOptimalSolution(model, instance, model.numVars());
+    }
 
-        model.setObjective(obj);
-        model.set(GRB.IntAttr.ModelSense, GRB.MINIMIZE);
+    // only the first "numVars" variables belong to the original problem (the a_i of DerivedSolutions follow them)
+    static OptimalSolution extractOptimalSolution(LpModel model, Instance instance, int numVars) throws SolverException {
+        // results are copied with one call for each attribute, the analysis runs on the arrays
+        // 'X' contains the values of the variables in current solution
+        // 'VBasis' tells which variables are in the basis, 'RC' contains their reduced costs
+        // 'ObjVal' contains the value of the objective function in current solution
+        return extractOptimalSolution(SolutionSnapshot.take(model), model.getVarNames(), instance, numVars);
     }
 
-    private static void solve(GRBEnv env, GRBModel model) throws GRBException {
-        double objVal, fullCoverage = 0., purchasedTime = 0., usedBudget = 0.;
-        String optimalSols = "", vBasisList = "", reducedCostsList = "", constrOpVertex = "", sols1 = "", sols2 = "", sols3 = "";
-        boolean isMultiple = false, isDegenerate = false;
-
-        // results can be analyzed with '<constraint>.get(...)' or 'model.get(...)'
-        // result of optimization is contained in 'Status' attribute
-        // 'GRB.StringAttr.VarName' is the name of the variable
-        // 'GRB.DoubleAttr.X' contains the value of the variable in current solution
-        // 'GRB.DoubleAttr.ObjVal' contains the value of the objective function in current solution
-        objVal = model.get(GRB.DoubleAttr.ObjVal);
-
-        GRBVar[] vars = model.getVars();
-        double[] varsValues = new double[vars.length];
-        for (int i = 0; i < vars.length-1; i++) {
-            GRBVar var = vars[i];
-            String varName = var.get(GRB.StringAttr.VarName);
-            double varValue = var.get(GRB.DoubleAttr.X);
-            varsValues[i] = varValue;
-
-            // optimal solutions list required by Question I
-            optimalSols += varName + " = " + roundValue(varValue) + "\n";
+    // "snapshot" and "varNames" of a model built by ModelBuilder.build for "instance"
+    static OptimalSolution extractOptimalSolution(SolutionSnapshot snapshot, String[] varNames, Instance instance,
+                                                  int numVars) throws SolverException {
+        PhaseEvent event = PhaseEvent.begin("extractOptimalSolution", instance);
+        int m = instance.m(), k = instance.k();
+        OptimalSolution optimal = new OptimalSolution();
+
+        optimal.snapshot = snapshot;
+        optimal.objVal = snapshot.getObjVal();
+        optimal.varNames = Arrays.copyOf(varNames, numVars);
 
+        double[] x = snapshot.getX();
+        int[] costs = instance.costs(), spectators = instance.spectators();
+        for (int i = 0; i < numVars-1; i++) {
             // values required by Question I
-            if (i < (M*K)) {
+            if (i < (m*k)) {
                 // minutes actually purchased
-                purchasedTime += varValue;
+                optimal.purchasedTime += x[i];
                 // budget used
-                usedBudget += varValue * C_ij[i / K][i % K];
+                optimal.usedBudget += x[i] * costs[i];
                 // total number of spectators - converage
-                fullCoverage += varValue * P_ij[i / K][i % K];
-            }
-
-            // list that will contain only basis variables
-            vBasisList += (var.get(GRB.IntAttr.VBasis) == 0 ? 0 : 1) + ", ";
-
-            // necessary to verify if the optimal solution is degenerate
-            if (var.get(GRB.IntAttr.VBasis) != 0) {
-                if (varValue == 0) isDegenerate = true;
-            } else if (var.get(GRB.DoubleAttr.RC) == 0) {
-                isMultiple = true;
+                optimal.fullCoverage += x[i] * spectators[i];
             }
-
-            // list that will contain reduced costs
-            reducedCostsList += var.get(GRB.DoubleAttr.RC) + ", ";
-        }
-
-        GRBConstr[] constrs = model.getConstrs();
-        for (int i = M*K; i < (M*K + constrs.length-1); i++) {
-            if (model.getVar(i).get(GRB.DoubleAttr.X) == 0)
-                // constraints of the optimal vertex
-                constrOpVertex += constrs[i - M*K].get(GRB.StringAttr.ConstrName) + ", ";
-        }
-
-        // we can arbitrary set iterationLimit (< of previous iterationCount) to get feasible but not optimal solution
-        // in that case we set iterationLimit = IterCount/2 (of previous solution)
-        GRBVar[] notOptimalVars = generateNotOptimalVars(model, model.get(GRB.DoubleAttr.IterCount)/2);
-        double[] notOptimalVarsValues = new double[vars.length];
-        for (int i = 0; i < notOptimalVars.length; i++) {
-            varsValues[i] = notOptimalVars[i].get(GRB.DoubleAttr.X);
-            sols1 += notOptimalVars[i].get(GRB.StringAttr.VarName) + " = " + roundValue(notOptimalVars[i].get(GRB.DoubleAttr.X)) + "\n";
         }
 
-        // we create a new model of an auxiliary problem
-        model = generateModel(env, true);
-
-        for (GRBVar var : model.getVars()) {
-            sols2 += var.get(GRB.StringAttr.VarName) + " = " + roundValue(var.get(GRB.DoubleAttr.X)) + "\n";
-        }
+        // degenerate: a basic variable at one of its bounds, multiple: a pivot on a zero reduced cost column reaches
+        // another optimal vertex; both with tolerances, "== 0" misses values like 1e-12 on large instances
+        optimal.face = OptimalFace.analyze(ModelBuilder.columns(instance, snapshot.numVars() > numVars), snapshot,
+                numVars, ForkJoinPool.commonPool());
+        optimal.isDegenerate = optimal.face.isDegenerate();
+        optimal.isMultiple = optimal.face.isMultiple();
+        event.finish();
 
-        double[] z = convexCombination(varsValues, notOptimalVarsValues);
-        for (int i = 0; i < z.length; i++)
-            sols3 += vars[i].get(GRB.StringAttr.VarName) + " = " + roundValue(z[i]) + "\n";
-
-        printHeader();
-        printFirstQuestion(objVal, fullCoverage , purchasedTime, (B_TOT - usedBudget), optimalSols);
-        printSecondQuestion(vBasisList, reducedCostsList, isMultiple, isDegenerate, constrOpVertex);
-        printThirdQuestion(sols1, sols2, sols3);
+        return optimal;
     }
 
-    private static GRBVar[] generateNotOptimalVars(GRBModel model, double iterationLimit) throws GRBException {
+    static LpModel generateNotOptimalVars(LpModel model, double iterationLimit) throws SolverException {
+        PhaseEvent event = PhaseEvent.begin("generateNotOptimalVars", null);
         model.reset();
 
         // by setting the IterationLimit to a value less than the number of iterations required for the optimal
         // solution, we will obtain a feasible but not optimal solution
-        model.set(GRB.DoubleParam.IterationLimit, iterationLimit);
+        model.setIterationLimit(iterationLimit);
 
         model.update();
         // to optimize our model
         model.optimize();
+        event.end(model.getIterCount());
 
-        return model.getVars();
+        return model;
     }
 
-    private static double[] convexCombination(double[] x, double[] y) {
+    static double[] convexCombination(double[] x, double[] y) {
         // in this case we take the midpoint, but it can contain an arbitrary value between 0 and 1
         double lambda = 0.5;
         double[] z = new double[x.length];
@@ -394,41 +488,101 @@ public class Gurobi {
         return z;
     }
 
-    // methods for printing answers to project questions
-    private static void printHeader() {
-        System.out.println("\n\n\nGRUPPO 10\n" +
-                "Componenti: Baresi, El Koudri");
+    // methods for writing answers to project questions
+    static void writeFirstQuestion(ReportWriter report, Instance instance, OptimalSolution optimal) throws IOException {
+        PhaseEvent event = PhaseEvent.begin("writeFirstQuestion", instance);
+        report.beginQuestion("I", "QUESITO I");
+        report.value("objective", "funzione obiettivo", optimal.objVal);
+        report.value("coverage", "copertura raggiunta totale (spettatori)", optimal.fullCoverage);
+        report.value("purchased_time", "tempo acquistato (minuti)", roundValue(optimal.purchasedTime));
+        report.value("unused_budget", "budget inutilizzato", instance.totalBudget() - optimal.usedBudget);
+
+        // optimal solutions list, without "aux"
+        report.beginSolution("optimal_solution", "soluzione di base ottima");
+        for (int i = 0; i < optimal.varNames.length-1; i++)
+            report.variable(optimal.varNames[i], roundValue(optimal.snapshot.getX()[i]));
+        report.endQuestion();
+        event.finish();
     }
 
-    private static void printFirstQuestion(double objVal, double fullCoverage, double purchasedTime, double unusedBudget, String optimalSols) {
-        String solution = "\n\nQUESITO I:\n" +
-                "funzione obiettivo = " + objVal + "\n" +
-                "copertura raggiunta totale (spettatori) = " + fullCoverage + "\n" +
-                "tempo acquistato (minuti) = " + roundValue(purchasedTime) + "\n" +
-                "budget inutilizzato = " + unusedBudget + "\n" +
-                "soluzione di base ottima:\n" + optimalSols;
-
-        System.out.println(solution);
+    // "model" must still hold the optimal solution: the names of the constraints are read from it
+    static void writeSecondQuestion(ReportWriter report, Instance instance, LpModel model, OptimalSolution optimal) throws IOException, SolverException {
+        int mk = instance.m() * instance.k(), numVars = optimal.varNames.length;
+        double[] x = optimal.snapshot.getX(), rc = optimal.snapshot.getRC();
+        int[] vBasis = optimal.snapshot.getVBasis();
+        PhaseEvent event = PhaseEvent.begin("writeSecondQuestion", instance);
+        report.beginQuestion("II", "QUESITO II");
+
+        // list that will contain only basis variables
+        report.beginList("basis", "variabili in base");
+        for (int i = 0; i < numVars-1; i++)
+            report.item(optimal.varNames[i], vBasis[i] == 0 ? 0 : 1);
+        report.endList();
+
+        // list that will contain reduced costs
+        report.beginList("reduced_costs", "coefficienti di costo ridotto");
+        for (int i = 0; i < numVars-1; i++)
+            report.item(optimal.varNames[i], rc[i]);
+        report.endList();
+
+        report.flag("multiple", "soluzione ottima multipla", optimal.isMultiple);
+        report.flag("degenerate", "soluzione ottima degenere", optimal.isDegenerate);
+
+        // constraints of the optimal vertex: the ones whose slack variable is zero (c_aux1 goes with "aux"), within
+        // the primal tolerance of OptimalFace, the simplex can leave values like 1e-12
+        report.beginList("optimal_vertex", "vincoli vertice ottimo");
+        String[] constrNames = model.getConstrNames();
+        for (int i = mk; i < (mk + constrNames.length-1); i++) {
+            if (Math.abs(x[i]) <= OptimalFace.PRIMAL_TOL)
+                report.item(constrNames[i - mk]);
+        }
+        report.endList();
+        report.endQuestion();
+        event.finish();
     }
 
-    private static void printSecondQuestion(String vBasisList, String reducedCostsList, boolean isMultiple, boolean isDegenerate, String constrOpVertex) {
-        String solution = "QUESITO II:\n" +
-                "variabili in base: [" + vBasisList + "]\n" +
-                "coefficienti di costo ridotto: [" + reducedCostsList + "]\n" +
-                "soluzione ottima multipla: " + (isMultiple ? "Si" : "No") + "\n" +
-                "soluzione ottima degenere: " + (isDegenerate ? "Si" : "No") + "\n" +
-                "vincoli vertice ottimo: [" + constrOpVertex + "]";
-
-        System.out.println(solution);
+    // three plans of a hit-and-run chain started from the optimal one, each worse than the optimum
+    private static void writeSampledSolutions(ReportWriter report, Instance instance, OptimalSolution optimal) throws IOException {
+        PhaseEvent event = PhaseEvent.begin("sampleNotOptimalVars", instance);
+        int mk = instance.m() * instance.k();
+        FeasibleSampler sampler = new FeasibleSampler(instance, optimal.snapshot.getX(), Double.POSITIVE_INFINITY, SAMPLER_SEED);
+        sampler.burnIn((long) FeasibleSampler.BURN_IN_SWEEPS * mk);
+        String[] labels = {"Prima", "Seconda", "Terza"};
+        for (int n = 0; n < labels.length; n++) {
+            double[] plan = sampler.next(mk);
+            // a step may leave the objective unchanged, e.g. when the optimal plan is the only one
+            for (int attempt = 0; attempt < SAMPLER_ATTEMPTS && Math.abs(sampler.balance()) <= optimal.objVal + 1e-6; attempt++)
+                plan = sampler.next(mk);
+            writeSolution(report, "not_optimal_" + (n + 1), labels[n] + " soluzione ammissibile ma non ottima",
+                    optimal.varNames, FeasibleSampler.withSlacks(instance, plan));
+        }
+        event.finish();
     }
 
-    private static void printThirdQuestion(String sols1, String sols2 , String sols3) {
-        String solution = "\nQUESITO III:\n" +
-                "Prima soluzione ammissibile ma non ottima:\n" + sols1 +
-                "\nSeconda soluzione ammissibile ma non ottima:\n" + sols2
-                + "\nTerza soluzione ammissibile ma non ottima:\n" + sols3;
+    // optimal vertices adjacent to the optimal one, each reached by a pivot on a zero reduced cost column
+    static void writeAlternatives(ReportWriter report, OptimalSolution optimal, int max) throws IOException {
+        PhaseEvent event = PhaseEvent.begin("writeAlternatives", null);
+        report.beginQuestion("II-ALT", "SOLUZIONI OTTIME ALTERNATIVE");
+        List<OptimalFace.Vertex> vertices = optimal.face.alternatives(ForkJoinPool.commonPool(), max);
+        report.value("alternatives", "vertici ottimi adiacenti", vertices.size());
+        int n = 0;
+        for (OptimalFace.Vertex vertex : vertices) {
+            n++;
+            // along a ray of the optimal face the values are a direction
+            report.beginSolution("alternative_" + n, (vertex.isRay() ? "direzione ottima " : "vertice ottimo ") + n);
+            for (int i = 0; i < optimal.varNames.length - 1; i++)
+                report.variable(optimal.varNames[i], roundValue(vertex.getValues()[i]));
+        }
+        report.endQuestion();
+        event.finish();
+    }
 
-        System.out.println(solution);
+    static void writeSolution(ReportWriter report, String key, String label, String[] varNames, double[] values) throws IOException {
+        PhaseEvent event = PhaseEvent.begin("writeSolution", null);
+        report.beginSolution(key, label);
+        for (int i = 0; i < values.length; i++)
+            report.variable(varNames[i], roundValue(values[i]));
+        event.finish();
     }
 
     private static double roundValue(double value) {
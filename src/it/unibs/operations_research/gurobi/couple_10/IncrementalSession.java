@@ -0,0 +1,174 @@
+package it.unibs.operations_research.gurobi.couple_10;
+
+import it.unibs.operations_research.gurobi.couple_10.instance.Instance;
+import it.unibs.operations_research.gurobi.couple_10.solver.*;
+
+/**
+ * Re-optimization of the planning model after small changes: station budgets, the coverage target, prices and
+ * available minutes are changed in place on the model built by {@link ModelBuilder}, and each solve starts from
+ * the VBasis / CBasis of the previous one instead of rebuilding and solving from scratch.
+ *
+ * When "compareWithCold" is true every reoptimize() also solves the changed model from scratch,
+ * so the result reports how many simplex iterations the warm start saved.
+ */
+public class IncrementalSession {
+    private final Instance instance;
+    private final LpModel model;
+    private final boolean compareWithCold;
+
+    // current budgets and Ω, the minimum budget of each time slot is Ω * (sum of the budgets)
+    private final double[] budgets;
+    private double totalBudget;
+    private double omega;
+
+    // basis of the last optimal solve
+    private final int[] vBasis, cBasis;
+
+    public IncrementalSession(LpBackend backend, Instance instance, boolean compareWithCold) throws SolverException {
+        this.instance = instance;
+        this.compareWithCold = compareWithCold;
+        model = ModelBuilder.build(backend, instance, false, false);
+
+        budgets = new double[instance.m()];
+        for (int i = 0; i < budgets.length; i++)
+            budgets[i] = instance.budget(i);
+        totalBudget = instance.totalBudget();
+        omega = instance.omega();
+
+        vBasis = new int[model.numVars()];
+        cBasis = new int[model.numConstrs()];
+
+        model.update();
+        // first solve, it is necessarily cold
+        model.optimize();
+        saveBasis();
+    }
+
+    public LpModel model() {
+        return model;
+    }
+
+    public double totalBudget() {
+        return totalBudget;
+    }
+
+    // β_i, it also moves the minimum budget of every time slot (Ω * B_TOT)
+    public void setBudget(int i, double budget) throws SolverException {
+        totalBudget += budget - budgets[i];
+        budgets[i] = budget;
+        model.setRHS(ModelBuilder.maxBudgetConstr(i), budget);
+        setMinSlotBudget();
+    }
+
+    // every β_i becomes factor * (β_i of the instance)
+    public void scaleBudgets(double factor) throws SolverException {
+        totalBudget = 0;
+        for (int i = 0; i < budgets.length; i++) {
+            budgets[i] = factor * instance.budget(i);
+            totalBudget += budgets[i];
+            model.setRHS(ModelBuilder.maxBudgetConstr(i), budgets[i]);
+        }
+        setMinSlotBudget();
+    }
+
+    // Ω as a fraction (0.02 stands for 2%)
+    public void setOmega(double omega) throws SolverException {
+        this.omega = omega;
+        setMinSlotBudget();
+    }
+
+    private void setMinSlotBudget() throws SolverException {
+        for (int j = 0; j < instance.k(); j++)
+            model.setRHS(ModelBuilder.minBudgetConstr(instance, j), totalBudget * omega);
+    }
+
+    // S
+    public void setCoverage(double coverage) throws SolverException {
+        model.setRHS(ModelBuilder.spectatorsConstr(instance), coverage);
+    }
+
+    // C_ij, it appears in the budget constraint of the station and in the one of the time slot
+    public void setCost(int i, int j, double cost) throws SolverException {
+        int x = ModelBuilder.x(instance, i, j);
+        model.chgCoeff(ModelBuilder.maxBudgetConstr(i), x, cost);
+        model.chgCoeff(ModelBuilder.minBudgetConstr(instance, j), x, cost);
+    }
+
+    // τ_ij
+    public void setMinutes(int i, int j, double minutes) throws SolverException {
+        model.setUB(ModelBuilder.x(instance, i, j), minutes);
+    }
+
+    public Result reoptimize() throws SolverException {
+        double coldIterations = -1;
+        if (compareWithCold) {
+            // same model solved without a starting basis
+            model.reset();
+            model.update();
+            model.optimize();
+            coldIterations = model.getIterCount();
+        }
+
+        model.setBasis(vBasis, cBasis);
+        model.update();
+        model.optimize();
+
+        int status = model.getStatus();
+        Result result = new Result(status, status == LpModel.OPTIMAL ? model.getObjVal() : Double.NaN,
+                model.getIterCount(), coldIterations);
+        saveBasis();
+        return result;
+    }
+
+    public void dispose() {
+        model.dispose();
+    }
+
+    // a basis that is not optimal (infeasible model, iteration limit) is not a good starting point
+    private void saveBasis() throws SolverException {
+        if (model.getStatus() != LpModel.OPTIMAL)
+            return;
+        System.arraycopy(model.getVBasis(), 0, vBasis, 0, vBasis.length);
+        System.arraycopy(model.getCBasis(), 0, cBasis, 0, cBasis.length);
+    }
+
+    public static class Result {
+        private final int status;
+        private final double objVal, warmIterations, coldIterations;
+
+        Result(int status, double objVal, double warmIterations, double coldIterations) {
+            this.status = status;
+            this.objVal = objVal;
+            this.warmIterations = warmIterations;
+            this.coldIterations = coldIterations;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        // NaN when the changed model has no optimal solution
+        public double getObjVal() {
+            return objVal;
+        }
+
+        public double getWarmIterations() {
+            return warmIterations;
+        }
+
+        // -1 when the session does not compare with a cold solve
+        public double getColdIterations() {
+            return coldIterations;
+        }
+
+        public double getSavedIterations() {
+            return coldIterations < 0 ? Double.NaN : coldIterations - warmIterations;
+        }
+
+        @Override
+        public String toString() {
+            return "status " + status + ", objective " + objVal + ", iterations " + warmIterations
+                    + (coldIterations < 0 ? "" : " (cold " + coldIterations + ", saved " + getSavedIterations() + ")");
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package it.unibs.operations_research.gurobi.couple_10;
+
+import it.unibs.operations_research.gurobi.couple_10.instance.Instance;
+import it.unibs.operations_research.gurobi.couple_10.instance.InstanceReader;
+import it.unibs.operations_research.gurobi.couple_10.logging.RunLog;
+import it.unibs.operations_research.gurobi.couple_10.metrics.MetricsServer;
+import it.unibs.operations_research.gurobi.couple_10.report.ReportWriter;
+import it.unibs.operations_research.gurobi.couple_10.solver.*;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.stream.IntStream;
+
+/**
+ * Plan in whole minutes: the model of the project, same constraints and same min-max balance objective,
+ * with integer x_ij.
+ *
+ * The continuous relaxation is solved first; its solution is rounded to whole minutes and repaired
+ * (station budgets, minimum budget of every slot, coverage) to get a feasible plan that seeds the MIP as
+ * MIP start, so the solver has an incumbent from the first node and the gap and time limits stop it early
+ * with a good plan.
+ *
+ * Usage: IntegerPlanner [--solver=gurobi|simplex] [--instance=<path>] [--gap=0.01] [--time-limit=10]
+ *                       [--report=<path>] [--report-format=text|csv|jsonl] [--metrics-port=<port>]
+ *                       [--log-dir=logs]
+ */
+public class IntegerPlanner {
+    private final Instance instance;
+    private final LpModel model;
+    private double relaxationObjVal = Double.NaN;
+    private boolean startAccepted;
+
+    public IntegerPlanner(LpBackend backend, Instance instance) throws SolverException {
+        this.instance = instance;
+        model = ModelBuilder.build(backend, instance, false, true);
+    }
+
+    public static void main(String[] args) throws SolverException, IOException {
+        try (RunLog log = RunLog.open(Paths.get(Gurobi.option(args, "log-dir", "logs")), "IntegerPlanner")) {
+            run(args, log);
+        }
+    }
+
+    private static void run(String[] args, RunLog log) throws SolverException, IOException {
+        String path = Gurobi.option(args, "instance", "data/couple_10.csv");
+        Instance instance = InstanceReader.read(Paths.get(path));
+        log.parameter("Instance", path);
+        LpBackend backend = Gurobi.createBackend(Gurobi.option(args, "solver", "gurobi"), log);
+        double gap = Double.parseDouble(Gurobi.option(args, "gap", "0.01"));
+        double timeLimit = Double.parseDouble(Gurobi.option(args, "time-limit", "10"));
+        log.parameter("MIPGap", gap);
+        log.parameter("TimeLimit", timeLimit);
+
+        MetricsServer metrics = null;
+        try {
+            // null without "--metrics-port"
+            metrics = Gurobi.startMetrics(args, backend, log);
+            IntegerPlanner planner = new IntegerPlanner(backend, instance);
+            try {
+                long start = System.nanoTime();
+                int status = planner.solve(gap, timeLimit);
+                double elapsed = (System.nanoTime() - start) / 1e9;
+
+                try (ReportWriter report = ReportWriter.open(Gurobi.option(args, "report-format", "text"), Gurobi.option(args, "report", null))) {
+                    planner.write(report, status, elapsed);
+                }
+            } finally {
+                planner.dispose();
+            }
+        } finally {
+            if (metrics != null)
+                metrics.close();
+            // Release the resources associated with the backend, also when the solve or the report failed
+            backend.dispose();
+        }
+    }
+
+    /**
+     * Solves the relaxation, seeds the MIP with its repaired rounding and solves the MIP; "timeLimit" bounds both.
+     * Returns the status of the MIP, or of the relaxation when it is not optimal.
+     */
+    public int solve(double gap, double timeLimit) throws SolverException {
+        int mk = instance.m() * instance.k();
+        long start = System.nanoTime();
+
+        model.setTimeLimit(timeLimit);
+        model.update();
+        model.optimize();
+        if (model.getStatus() != LpModel.OPTIMAL)
+            return model.getStatus();
+        relaxationObjVal = model.getObjVal();
+
+        double[] rounded = roundedStart(instance, model.getX(), model.numVars());
+        model.setVTypes(0, mk, LpModel.INTEGER);
+        if (rounded != null)
+            model.setStart(rounded);
+        startAccepted = rounded != null;
+        model.setMIPGap(gap);
+        model.setTimeLimit(Math.max(0, timeLimit - (System.nanoTime() - start) / 1e9));
+        model.update();
+        model.optimize();
+        return model.getStatus();
+    }
+
+    public LpModel model() {
+        return model;
+    }
+
+    public double getRelaxationObjVal() {
+        return relaxationObjVal;
+    }
+
+    // false when the rounding could not be repaired and the MIP started without an incumbent
+    public boolean hasStart() {
+        return startAccepted;
+    }
+
+    public void dispose() {
+        model.dispose();
+    }
+
+    private void write(ReportWriter report, int status, double elapsed) throws IOException, SolverException {
+        int m = instance.m(), k = instance.k(), mk = m * k;
+        report.header("GRUPPO 10", "Componenti: Baresi, El Koudri");
+        report.beginQuestion("MIP", "PIANO IN MINUTI INTERI");
+        report.value("status", "stato", status);
+        report.value("relaxation", "rilassamento continuo", relaxationObjVal);
+        report.flag("mip_start", "soluzione iniziale arrotondata", startAccepted);
+        report.value("time", "tempo di soluzione (s)", elapsed);
+        // stopped by the time limit before the first integer plan, when the rounding could not be repaired
+        boolean incumbent = (status == LpModel.OPTIMAL || status == LpModel.TIME_LIMIT) && model.getSolCount() > 0;
+        report.flag("incumbent", "soluzione intera trovata", incumbent);
+        if (!incumbent) {
+            report.endQuestion();
+            return;
+        }
+
+        double[] x = model.getX();
+        double purchasedTime = 0, usedBudget = 0, fullCoverage = 0;
+        for (int c = 0; c < mk; c++) {
+            purchasedTime += x[c];
+            usedBudget += x[c] * instance.costs()[c];
+            fullCoverage += x[c] * instance.spectators()[c];
+        }
+        report.value("objective", "funzione obiettivo", model.getObjVal());
+        report.value("bound", "limite inferiore", model.getObjBound());
+        report.value("gap", "gap", model.getMIPGap());
+        report.value("coverage", "copertura raggiunta totale (spettatori)", fullCoverage);
+        report.value("purchased_time", "tempo acquistato (minuti)", purchasedTime);
+        report.value("unused_budget", "budget inutilizzato", instance.totalBudget() - usedBudget);
+
+        String[] names = model.getVarNames();
+        report.beginSolution("integer_solution", "soluzione intera");
+        for (int c = 0; c < mk; c++)
+            report.variable(names[c], x[c]);
+        report.endQuestion();
+    }
+
+    /**
+     * Rounds the x_ij of the relaxation down to whole minutes, which keeps every station within its budget,
+     * and repairs what the rounding lost:
+     * 1. slots under their minimum budget buy minutes, the ones with more spectators per euro first;
+     * 2. while the coverage is short, minutes with the most spectators per euro are bought, from the half of
+     *    the slots that reduces the imbalance |sum_ij sign_j P_ij x_ij| whenever possible.
+     * When a station has no budget left for a minute, it gives back minutes with fewer spectators per euro
+     * (from slots that stay above their minimum) to make room for it.
+     * Slack variables and "aux" follow from x. Returns null if the plan cannot be repaired.
+     */
+    static double[] roundedStart(Instance instance, double[] relaxation, int numVars) {
+        int m = instance.m(), k = instance.k(), mk = m * k;
+        Rounding rounding = new Rounding(instance);
+        for (int c = 0; c < mk; c++)
+            rounding.add(c, Math.max(0, Math.min(instance.minutes()[c], (long) Math.floor(relaxation[c] + 1e-6))));
+
+        if (!rounding.repairSlots() || !rounding.repairCoverage())
+            return null;
+
+        double[] start = new double[numVars];
+        for (int c = 0; c < mk; c++)
+            start[c] = rounding.x[c];
+        for (int i = 0; i < m; i++)
+            start[ModelBuilder.slack(instance, i)] = instance.budget(i) - rounding.stationCost[i];
+        for (int j = 0; j < k; j++)
+            start[ModelBuilder.slack(instance, m + j)] = rounding.slotCost[j] - instance.minSlotBudget();
+        start[ModelBuilder.slack(instance, m + k)] = rounding.coverage - instance.coverage();
+        start[ModelBuilder.slack(instance, m + k) + 1] = Math.abs(rounding.balance);
+        return start;
+    }
+
+    // integer plan under repair, with the totals of every station and slot
+    private static final class Rounding {
+        private final Instance instance;
+        private final int k;
+        private final int[] minutes, costs, spectators;
+        private final double minSlotBudget;
+
+        private final long[] x;
+        private final double[] stationCost, slotCost;
+        private double coverage, balance;
+
+        // all the cells by spectators per euro, best first
+        private final int[] order;
+
+        Rounding(Instance instance) {
+            this.instance = instance;
+            k = instance.k();
+            minutes = instance.minutes();
+            costs = instance.costs();
+            spectators = instance.spectators();
+            minSlotBudget = instance.minSlotBudget();
+            x = new long[instance.m() * k];
+            stationCost = new double[instance.m()];
+            slotCost = new double[k];
+            order = IntStream.range(0, x.length).boxed()
+                    .sorted(Comparator.comparingDouble((Integer c) -> -ratio(c)))
+                    .mapToInt(Integer::intValue).toArray();
+        }
+
+        boolean repairSlots() {
+            for (int c : order) {
+                int j = c % k;
+                while (slotCost[j] < minSlotBudget && x[c] < minutes[c] && fit(c, j, Double.POSITIVE_INFINITY) >= 0)
+                    add(c, 1);
+            }
+            for (int j = 0; j < k; j++)
+                if (slotCost[j] < minSlotBudget)
+                    return false;
+            return true;
+        }
+
+        boolean repairCoverage() {
+            // one pointer for each half of the slots, half 0 has sign +1 and half 1 sign -1
+            int[] next = new int[2];
+            while (coverage < instance.coverage()) {
+                // a positive balance is reduced by half 1
+                int half = balance > 0 ? 1 : 0;
+                int c = nextCell(next, half);
+                if (c < 0)
+                    c = nextCell(next, 1 - half);
+                if (c >= 0) {
+                    add(c, 1);
+                } else if (!swap()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // first cell of the given half, in "order", that can buy one minute without giving back others
+        private int nextCell(int[] next, int half) {
+            for (; next[half] < order.length; next[half]++) {
+                int c = order[next[half]];
+                if ((sign(c) > 0 ? 0 : 1) == half && x[c] < minutes[c] && room(c / k) >= costs[c])
+                    return c;
+            }
+            return -1;
+        }
+
+        // buys the best minute that gains spectators by giving back worse minutes of the same station
+        private boolean swap() {
+            for (int c : order) {
+                if (x[c] >= minutes[c])
+                    continue;
+                long[] saved = x.clone();
+                double lost = fit(c, -1, ratio(c));
+                if (lost >= 0 && spectators[c] > lost) {
+                    add(c, 1);
+                    return true;
+                }
+                // not worth it: the minutes given back are bought again
+                for (int d = c / k * k; d < c / k * k + k; d++)
+                    add(d, saved[d] - x[d]);
+            }
+            return false;
+        }
+
+        /**
+         * Makes room for one minute of cell c in its station, giving back minutes whose ratio is below "maxRatio"
+         * from slots other than "slot" that stay above their minimum budget.
+         * Returns the spectators given back, -1 if there is not enough room (some minutes may have been given back).
+         */
+        private double fit(int c, int slot, double maxRatio) {
+            int i = c / k;
+            double lost = 0;
+            for (int p = order.length - 1; p >= 0 && room(i) < costs[c]; p--) {
+                int d = order[p];
+                if (d / k != i || d % k == slot || d == c || ratio(d) >= maxRatio)
+                    continue;
+                while (x[d] > 0 && room(i) < costs[c] && slotCost[d % k] - costs[d] >= minSlotBudget) {
+                    add(d, -1);
+                    lost += spectators[d];
+                }
+            }
+            return room(i) >= costs[c] ? lost : -1;
+        }
+
+        private double room(int i) {
+            return instance.budget(i) - stationCost[i];
+        }
+
+        private void add(int c, long minutes) {
+            x[c] += minutes;
+            stationCost[c / k] += minutes * costs[c];
+            slotCost[c % k] += minutes * costs[c];
+            coverage += minutes * spectators[c];
+            balance += sign(c) * minutes * spectators[c];
+        }
+
+        // sign_j of the balance objective: +1 in the first half of the slots, -1 in the second one
+        private int sign(int c) {
+            return c % k < k / 2 ? 1 : -1;
+        }
+
+        private double ratio(int c) {
+            return costs[c] == 0 ? Double.POSITIVE_INFINITY : (double) spectators[c] / costs[c];
+        }
+    }
+}
@@ -0,0 +1,573 @@
+package it.unibs.operations_research.gurobi.couple_10;
+
+import it.unibs.operations_research.gurobi.couple_10.instance.Instance;
+import it.unibs.operations_research.gurobi.couple_10.instance.InstanceReader;
+import it.unibs.operations_research.gurobi.couple_10.report.ReportWriter;
+import it.unibs.operations_research.gurobi.couple_10.solver.LpModel;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Lagrangian decomposition of the planning model over the television stations, for catalogues too large for one LP.
+ *
+ * The budget row of station i only involves x_i1..x_iK: the K minimum budget rows (multipliers μ_j >= 0),
+ * the spectators row (ν >= 0) and the two rows of "aux" (λ1, λ2 >= 0 with λ1 + λ2 <= 1, otherwise "aux" is
+ * unbounded) are relaxed, and the Lagrangian splits into M station subproblems
+ *     min sum_j r_ij x_ij   s.t.  sum_j C_ij x_ij <= β_i,  0 <= x_ij <= τ_ij
+ * with r_ij = -μ_j C_ij - ν P_ij + (λ1 - λ2) sign_j P_ij. Each one is a continuous knapsack with a single row,
+ * solved exactly by the greedy on r_ij / C_ij; the subproblems run in parallel on a fork-join pool.
+ *
+ * Multipliers follow a projected subgradient method with Polyak steps. The plan is recovered from the average of
+ * the subproblem solutions (weighted by the step lengths), which tends to the LP optimum, repaired to be feasible:
+ * slots under their minimum budget and a short coverage are refilled, then the imbalance is reduced. The first
+ * recovery also repairs the plan with the most spectators and no imbalance, found by pricing the imbalance row
+ * alone with the same subproblems. Two repaired plans with imbalances of opposite sign are mixed into a plan with
+ * no imbalance. The best dual value is a lower bound of the LP optimum, the recovered plan an upper bound.
+ *
+ * Usage: LagrangianDecomposition [--instance=<path>] [--iterations=300] [--workers=<cores>]
+ *                                [--report=<path>] [--report-format=text|csv|jsonl]
+ */
+public class LagrangianDecomposition {
+    // stations solved by one fork-join task
+    private static final int CHUNK = 256;
+    // iterations between two primal recoveries
+    private static final int RECOVERY_FREQUENCY = 10;
+    // Polyak step factor: starting value, halved after STALL_LIMIT iterations without a better bound, stop below MIN_THETA
+    private static final double START_THETA = 2.;
+    private static final int STALL_LIMIT = 20;
+    private static final double MIN_THETA = 1e-4;
+    private static final double TOLERANCE = 1e-6;
+    // passes of the imbalance repair
+    private static final int BALANCE_ROUNDS = 50;
+    // bisection steps on the price of the imbalance in balancedPlan()
+    private static final int BISECTION_STEPS = 40;
+
+    private final Instance instance;
+    private final ForkJoinPool pool;
+    private final int m, k;
+    private final int[] minutes, costs, spectators;
+    // all the cells by spectators per euro, worst first, and the same order station by station (K cells each)
+    private final int[] order, stationOrder;
+
+    // multipliers: μ_j of the slots, ν of the spectators row, λ1 and λ2 of c_aux1 and c_aux2
+    private final double[] mu;
+    private double nu, lambda1, lambda2;
+
+    // weighted average of the subproblem solutions
+    private final double[] average;
+    private double averageWeight;
+
+    public LagrangianDecomposition(Instance instance, ForkJoinPool pool) {
+        this.instance = instance;
+        this.pool = pool;
+        m = instance.m();
+        k = instance.k();
+        minutes = instance.minutes();
+        costs = instance.costs();
+        spectators = instance.spectators();
+        order = ratioOrder();
+        stationOrder = new int[order.length];
+        int[] next = new int[m];
+        for (int c : order)
+            stationOrder[c / k * k + next[c / k]++] = c;
+        mu = new double[k];
+        average = new double[m * k];
+    }
+
+    public static void main(String[] args) throws IOException {
+        Instance instance = InstanceReader.read(Paths.get(Gurobi.option(args, "instance", "data/couple_10.csv")));
+        int iterations = Integer.parseInt(Gurobi.option(args, "iterations", "300"));
+        int workers = Integer.parseInt(Gurobi.option(args, "workers", Integer.toString(Runtime.getRuntime().availableProcessors())));
+
+        ForkJoinPool pool = new ForkJoinPool(workers);
+        long start = System.nanoTime();
+        Result result = new LagrangianDecomposition(instance, pool).solve(iterations);
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        pool.shutdown();
+
+        try (ReportWriter report = ReportWriter.open(Gurobi.option(args, "report-format", "text"), Gurobi.option(args, "report", null))) {
+            write(report, instance, result, elapsed);
+        }
+    }
+
+    /**
+     * Runs at most "maxIterations" subgradient iterations, it stops earlier when the bounds meet or the step vanishes.
+     * The status is OPTIMAL when the gap is closed, ITERATION_LIMIT when a plan was recovered but the gap is open,
+     * INFEASIBLE when no feasible plan could be recovered.
+     */
+    public Result solve(int maxIterations) {
+        double lowerBound = Double.NEGATIVE_INFINITY, upperBound = Double.POSITIVE_INFINITY;
+        double[] plan = null, positive = null, negative = null;
+        double theta = START_THETA, weight = 1.;
+        int stall = 0, iteration = 0;
+        double minSlotBudget = instance.minSlotBudget(), coverage = instance.coverage();
+
+        while (iteration < maxIterations && theta >= MIN_THETA) {
+            iteration++;
+            averageWeight += weight;
+            // slot costs (K), coverage, balance and sum r x of the subproblem solutions
+            double[] sums = pool.invoke(new Subproblems(0, m, mu, nu, lambda1 - lambda2, average, weight / averageWeight));
+
+            double dual = sums[k + 2] + nu * coverage;
+            for (int j = 0; j < k; j++)
+                dual += mu[j] * minSlotBudget;
+            if (lowerBound == Double.NEGATIVE_INFINITY || dual > lowerBound + TOLERANCE * (1. + Math.abs(lowerBound))) {
+                lowerBound = dual;
+                stall = 0;
+            } else if (++stall >= STALL_LIMIT) {
+                theta /= 2.;
+                stall = 0;
+            }
+
+            if (iteration == 1 || iteration % RECOVERY_FREQUENCY == 0) {
+                // the first recovery also repairs the plan with the most spectators and no imbalance
+                double[][] candidates = iteration == 1 ? new double[][]{recover(average), recover(balancedPlan())}
+                        : new double[][]{recover(average)};
+                for (double[] candidate : candidates) {
+                    if (candidate == null)
+                        continue;
+                    // best plans with a positive and a negative imbalance
+                    double balance = candidate[m * k];
+                    if (balance >= 0. && (positive == null || balance < positive[m * k]))
+                        positive = candidate;
+                    if (balance <= 0. && (negative == null || balance > negative[m * k]))
+                        negative = candidate;
+                }
+                double[] best = combine(positive, negative);
+                if (best != null && Math.abs(best[m * k]) < upperBound) {
+                    upperBound = Math.abs(best[m * k]);
+                    plan = best;
+                }
+            }
+            if (plan != null && upperBound - lowerBound <= TOLERANCE * (1. + Math.abs(upperBound)))
+                break;
+
+            // subgradient of the dual function
+            double[] gradient = new double[k + 3];
+            double norm = 0.;
+            for (int j = 0; j < k; j++)
+                gradient[j] = minSlotBudget - sums[j];
+            gradient[k] = coverage - sums[k];
+            gradient[k + 1] = sums[k + 1];
+            gradient[k + 2] = -sums[k + 1];
+            for (double g : gradient)
+                norm += g * g;
+            if (norm == 0.)
+                break;
+
+            // until a plan is known the target is a little above the current value
+            double target = upperBound < Double.POSITIVE_INFINITY ? upperBound : dual + 0.1 * (1. + Math.abs(dual));
+            double step = theta * Math.max(target - dual, TOLERANCE) / norm;
+            for (int j = 0; j < k; j++)
+                mu[j] = Math.max(0., mu[j] + step * gradient[j]);
+            nu = Math.max(0., nu + step * gradient[k]);
+            projectLambda(lambda1 + step * gradient[k + 1], lambda2 + step * gradient[k + 2]);
+            // the next solution enters the average with the length of the step that produced it
+            weight = step * Math.sqrt(norm);
+        }
+
+        if (plan == null)
+            return new Result(LpModel.INFEASIBLE, lowerBound, Double.NaN, null, iteration);
+        boolean closed = upperBound - lowerBound <= TOLERANCE * (1. + Math.abs(upperBound));
+        return new Result(closed ? LpModel.OPTIMAL : LpModel.ITERATION_LIMIT, lowerBound, upperBound,
+                Arrays.copyOf(plan, m * k), iteration);
+    }
+
+    /**
+     * Convex combination of two feasible plans with imbalances of opposite sign whose imbalance is zero, it is
+     * feasible because every constraint is linear. With only one plan, that plan.
+     */
+    private double[] combine(double[] positive, double[] negative) {
+        if (positive == null || negative == null)
+            return positive != null ? positive : negative;
+        int mk = m * k;
+        double bp = positive[mk], bn = negative[mk];
+        if (bp - bn <= TOLERANCE)
+            return Math.abs(bp) <= Math.abs(bn) ? positive : negative;
+        double t = -bn / (bp - bn);
+        double[] plan = new double[mk + 1];
+        for (int c = 0; c < mk; c++)
+            plan[c] = t * positive[c] + (1. - t) * negative[c];
+        for (int c = 0; c < mk; c++)
+            plan[mk] += sign(c) * plan[c] * spectators[c];
+        return plan;
+    }
+
+    /**
+     * Plan with the most spectators and no imbalance within the station budgets, slots are ignored: only the row
+     * of the imbalance is priced (λ, with ν = 1 and μ = 0), so the subproblems buy the most spectators weighting
+     * the two halves by 1 - λ and 1 + λ. The imbalance decreases with λ, a bisection finds the λ where it changes
+     * sign and the two plans on its sides are mixed into one with no imbalance.
+     */
+    private double[] balancedPlan() {
+        double[] noSlots = new double[k];
+        double[] low = new double[m * k], high = new double[m * k];
+        double balanceLow = pool.invoke(new Subproblems(0, m, noSlots, 1., -1., low, 1.))[k + 1];
+        double balanceHigh = pool.invoke(new Subproblems(0, m, noSlots, 1., 1., high, 1.))[k + 1];
+        double lambdaLow = -1., lambdaHigh = 1.;
+        for (int step = 0; step < BISECTION_STEPS && balanceLow > 0. && balanceHigh < 0.; step++) {
+            double lambda = (lambdaLow + lambdaHigh) / 2.;
+            double[] values = new double[m * k];
+            double balance = pool.invoke(new Subproblems(0, m, noSlots, 1., lambda, values, 1.))[k + 1];
+            if (balance >= 0.) {
+                lambdaLow = lambda;
+                low = values;
+                balanceLow = balance;
+            } else {
+                lambdaHigh = lambda;
+                high = values;
+                balanceHigh = balance;
+            }
+        }
+        if (balanceLow <= 0.)
+            return low;
+        if (balanceHigh >= 0.)
+            return high;
+        double t = -balanceHigh / (balanceLow - balanceHigh);
+        double[] plan = new double[m * k];
+        for (int c = 0; c < plan.length; c++)
+            plan[c] = t * low[c] + (1. - t) * high[c];
+        return plan;
+    }
+
+    // projection on λ1, λ2 >= 0, λ1 + λ2 <= 1
+    private void projectLambda(double l1, double l2) {
+        l1 = Math.max(0., l1);
+        l2 = Math.max(0., l2);
+        if (l1 + l2 > 1.) {
+            // closest point of the segment λ1 + λ2 = 1
+            l1 = Math.min(1., Math.max(0., (l1 - l2 + 1.) / 2.));
+            l2 = 1. - l1;
+        }
+        lambda1 = l1;
+        lambda2 = l2;
+    }
+
+    /**
+     * Subproblems of the stations in [from, to) for the multipliers μ, ν and λ = λ1 - λ2, returns their slot costs,
+     * coverage, balance and Lagrangian value. The solutions enter "target" with weight "share" (1 overwrites it).
+     */
+    private final class Subproblems extends RecursiveTask<double[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final int from, to;
+        private final double[] mu, target;
+        private final double nu, lambda, share;
+
+        Subproblems(int from, int to, double[] mu, double nu, double lambda, double[] target, double share) {
+            this.from = from;
+            this.to = to;
+            this.mu = mu;
+            this.nu = nu;
+            this.lambda = lambda;
+            this.target = target;
+            this.share = share;
+        }
+
+        @Override
+        protected double[] compute() {
+            if (to - from > CHUNK) {
+                int middle = (from + to) >>> 1;
+                Subproblems left = new Subproblems(from, middle, mu, nu, lambda, target, share);
+                left.fork();
+                double[] right = new Subproblems(middle, to, mu, nu, lambda, target, share).compute();
+                double[] sums = left.join();
+                for (int s = 0; s < sums.length; s++)
+                    sums[s] += right[s];
+                return sums;
+            }
+
+            double[] sums = new double[k + 3];
+            double[] reduced = new double[k], values = new double[k];
+            long[] keys = new long[k];
+            for (int i = from; i < to; i++) {
+                int base = i * k, candidates = 0;
+                for (int j = 0; j < k; j++) {
+                    int c = base + j;
+                    reduced[j] = -mu[j] * costs[c] - nu * spectators[c] + lambda * sign(c) * spectators[c];
+                    values[j] = 0.;
+                    if (reduced[j] < 0.)
+                        // most negative reduced cost per euro first
+                        keys[candidates++] = (long) sortable(costs[c] == 0 ? Float.NEGATIVE_INFINITY : (float) (reduced[j] / costs[c])) << 32 | j;
+                }
+                Arrays.sort(keys, 0, candidates);
+
+                double room = instance.budget(i);
+                for (int p = 0; p < candidates && room > 0.; p++) {
+                    int j = (int) keys[p], c = base + j;
+                    values[j] = costs[c] == 0 ? minutes[c] : Math.min(minutes[c], room / costs[c]);
+                    room -= values[j] * costs[c];
+                }
+
+                for (int j = 0; j < k; j++) {
+                    int c = base + j;
+                    double value = values[j];
+                    target[c] += share * (value - target[c]);
+                    sums[j] += value * costs[c];
+                    sums[k] += value * spectators[c];
+                    sums[k + 1] += sign(c) * value * spectators[c];
+                    sums[k + 2] += reduced[j] * value;
+                }
+            }
+            return sums;
+        }
+    }
+
+    // int bits of a float that sort like the float, also the negative ones
+    private static int sortable(float value) {
+        int bits = Float.floatToIntBits(value);
+        return bits ^ (bits >> 31 & 0x7fffffff);
+    }
+
+    /**
+     * Feasible plan near "start" (within the station budgets): minutes are added to slots under their minimum budget
+     * and to the coverage (best spectators per euro first, from the half that reduces the imbalance when possible),
+     * then the imbalance is reduced by adding minutes to the lighter half, removing them from the heavier one and
+     * moving budget from the heavier half to the lighter one inside the stations.
+     * Returns x followed by the imbalance sum_ij sign_j P_ij x_ij, null if the plan cannot be repaired.
+     */
+    private double[] recover(double[] start) {
+        int mk = m * k;
+        double[] plan = Arrays.copyOf(start, mk + 1);
+        double[] stationCost = new double[m], slotCost = new double[k];
+        double coverage = 0., balance = 0.;
+        for (int c = 0; c < mk; c++) {
+            stationCost[c / k] += plan[c] * costs[c];
+            slotCost[c % k] += plan[c] * costs[c];
+            coverage += plan[c] * spectators[c];
+            balance += sign(c) * plan[c] * spectators[c];
+        }
+        double minSlotBudget = instance.minSlotBudget(), target = instance.coverage();
+
+        // 1. slots under their minimum budget
+        for (int p = mk - 1; p >= 0; p--) {
+            int c = order[p], i = c / k, j = c % k;
+            if (slotCost[j] >= minSlotBudget || costs[c] == 0)
+                continue;
+            double delta = Math.min(minutes[c] - plan[c], Math.min(instance.budget(i) - stationCost[i], minSlotBudget - slotCost[j]) / costs[c]);
+            if (delta <= 0.)
+                continue;
+            plan[c] += delta;
+            stationCost[i] += delta * costs[c];
+            slotCost[j] += delta * costs[c];
+            coverage += delta * spectators[c];
+            balance += sign(c) * delta * spectators[c];
+        }
+
+        // 2. coverage, first without increasing the imbalance, then from any slot
+        for (int pass = 0; pass < 2 && coverage < target; pass++) {
+            for (int p = mk - 1; p >= 0 && coverage < target; p--) {
+                int c = order[p], i = c / k;
+                double limit = Math.min(minutes[c] - plan[c], (target - coverage) / spectators[c]);
+                if (costs[c] > 0)
+                    limit = Math.min(limit, (instance.budget(i) - stationCost[i]) / costs[c]);
+                if (pass == 0)
+                    limit = sign(c) * balance < 0. ? Math.min(limit, Math.abs(balance) / spectators[c]) : 0.;
+                if (limit <= 0.)
+                    continue;
+                plan[c] += limit;
+                stationCost[i] += limit * costs[c];
+                slotCost[c % k] += limit * costs[c];
+                coverage += limit * spectators[c];
+                balance += sign(c) * limit * spectators[c];
+            }
+        }
+
+        // the stations are out of budget: inside each station euros move from the worst cells to the best ones,
+        // as long as the slots keep their minimum budget
+        for (int i = 0; i < m && coverage < target; i++) {
+            int low = i * k, high = i * k + k - 1;
+            while (low < high && coverage < target) {
+                int from = stationOrder[low], to = stationOrder[high];
+                double rFrom = (double) spectators[from] / costs[from], rTo = (double) spectators[to] / costs[to];
+                if (costs[from] == 0 || plan[from] <= 0. || slotCost[from % k] <= minSlotBudget) {
+                    low++;
+                    continue;
+                }
+                if (costs[to] == 0 || plan[to] >= minutes[to]) {
+                    high--;
+                    continue;
+                }
+                if (rTo <= rFrom)
+                    break;
+                double euros = Math.min(Math.min(plan[from] * costs[from], (minutes[to] - plan[to]) * costs[to]),
+                        Math.min(slotCost[from % k] - minSlotBudget, (target - coverage) / (rTo - rFrom)));
+                plan[from] -= euros / costs[from];
+                plan[to] += euros / costs[to];
+                slotCost[from % k] -= euros;
+                slotCost[to % k] += euros;
+                coverage += (rTo - rFrom) * euros;
+                balance += (sign(to) * rTo - sign(from) * rFrom) * euros;
+            }
+        }
+
+        double slack = TOLERANCE * (1. + minSlotBudget);
+        for (int j = 0; j < k; j++)
+            if (slotCost[j] < minSlotBudget - slack)
+                return null;
+        if (coverage < target - TOLERANCE * (1. + target))
+            return null;
+
+        // 3. imbalance, a few rounds: the budget freed in the heavier half is spent again in the lighter one
+        for (int round = 0; round < BALANCE_ROUNDS && Math.abs(balance) > TOLERANCE; round++) {
+            double before = Math.abs(balance);
+            // more spectators in the lighter half while the stations have budget left
+            for (int p = mk - 1; p >= 0 && Math.abs(balance) > TOLERANCE; p--) {
+                int c = order[p], i = c / k;
+                if (sign(c) * balance >= 0.)
+                    continue;
+                double delta = Math.min(minutes[c] - plan[c], Math.abs(balance) / spectators[c]);
+                if (costs[c] > 0)
+                    delta = Math.min(delta, (instance.budget(i) - stationCost[i]) / costs[c]);
+                if (delta <= 0.)
+                    continue;
+                plan[c] += delta;
+                stationCost[i] += delta * costs[c];
+                slotCost[c % k] += delta * costs[c];
+                coverage += delta * spectators[c];
+                balance += sign(c) * delta * spectators[c];
+            }
+            // then fewer spectators in the heavier half, as long as slots and coverage keep their minimum
+            for (int p = 0; p < mk && Math.abs(balance) > TOLERANCE; p++) {
+                int c = order[p], j = c % k;
+                if (sign(c) * balance <= 0. || plan[c] <= 0.)
+                    continue;
+                double delta = Math.min(plan[c], Math.min(Math.abs(balance), coverage - target) / spectators[c]);
+                if (costs[c] > 0)
+                    delta = Math.min(delta, (slotCost[j] - minSlotBudget) / costs[c]);
+                if (delta <= 0.)
+                    continue;
+                plan[c] -= delta;
+                stationCost[c / k] -= delta * costs[c];
+                slotCost[j] -= delta * costs[c];
+                coverage -= delta * spectators[c];
+                balance -= sign(c) * delta * spectators[c];
+            }
+
+            // swaps inside a station: euros move from a cell of the heavier half to one of the lighter half, both
+            // moves reduce the imbalance; the coverage lost (if any) is bounded by its surplus
+            for (int i = 0; i < m && Math.abs(balance) > TOLERANCE; i++) {
+                for (int h = i * k; h < i * k + k && Math.abs(balance) > TOLERANCE; h++) {
+                    if (sign(h) * balance <= 0. || plan[h] <= 0. || costs[h] == 0)
+                        continue;
+                    for (int l = i * k; l < i * k + k && plan[h] > 0. && Math.abs(balance) > TOLERANCE; l++) {
+                        if (sign(l) * balance >= 0. || plan[l] >= minutes[l] || costs[l] == 0)
+                            continue;
+                        double rh = (double) spectators[h] / costs[h], rl = (double) spectators[l] / costs[l];
+                        double euros = Math.min(Math.min(plan[h] * costs[h], (minutes[l] - plan[l]) * costs[l]),
+                                Math.min(slotCost[h % k] - minSlotBudget, Math.abs(balance) / (rh + rl)));
+                        if (rh > rl)
+                            euros = Math.min(euros, (coverage - target) / (rh - rl));
+                        if (euros <= 0.)
+                            continue;
+                        plan[h] -= euros / costs[h];
+                        plan[l] += euros / costs[l];
+                        slotCost[h % k] -= euros;
+                        slotCost[l % k] += euros;
+                        coverage += (rl - rh) * euros;
+                        balance -= Math.signum(balance) * (rh + rl) * euros;
+                    }
+                }
+            }
+            if (Math.abs(balance) > before - TOLERANCE)
+                break;
+        }
+
+        plan[mk] = balance;
+        return plan;
+    }
+
+    // sign_j of the balance objective: +1 in the first half of the slots, -1 in the second one
+    private int sign(int c) {
+        return c % k < k / 2 ? 1 : -1;
+    }
+
+    // cells sorted by P_ij / C_ij, a sort of primitive keys (ratio bits, then cell) to stay fast with millions of cells
+    private int[] ratioOrder() {
+        long[] keys = new long[m * k];
+        for (int c = 0; c < keys.length; c++) {
+            float ratio = costs[c] == 0 ? Float.MAX_VALUE : (float) spectators[c] / costs[c];
+            // the bits of non-negative floats sort like the floats
+            keys[c] = (long) Float.floatToIntBits(ratio) << 32 | c;
+        }
+        Arrays.sort(keys);
+        int[] cells = new int[keys.length];
+        for (int p = 0; p < keys.length; p++)
+            cells[p] = (int) keys[p];
+        return cells;
+    }
+
+    private static void write(ReportWriter report, Instance instance, Result result, double elapsed) throws IOException {
+        int m = instance.m(), k = instance.k();
+        report.header("GRUPPO 10", "Componenti: Baresi, El Koudri");
+        report.beginQuestion("LD", "DECOMPOSIZIONE LAGRANGIANA");
+        report.value("status", "stato", result.getStatus());
+        report.value("iterations", "iterazioni", result.getIterations());
+        report.value("time", "tempo di soluzione (s)", elapsed);
+        report.value("bound", "limite inferiore", result.getLowerBound());
+        double[] plan = result.getPlan();
+        if (plan == null) {
+            report.endQuestion();
+            return;
+        }
+
+        double purchasedTime = 0, usedBudget = 0, fullCoverage = 0;
+        for (int c = 0; c < plan.length; c++) {
+            purchasedTime += plan[c];
+            usedBudget += plan[c] * instance.costs()[c];
+            fullCoverage += plan[c] * instance.spectators()[c];
+        }
+        report.value("objective", "funzione obiettivo", result.getObjVal());
+        report.value("coverage", "copertura raggiunta totale (spettatori)", fullCoverage);
+        report.value("purchased_time", "tempo acquistato (minuti)", purchasedTime);
+        report.value("unused_budget", "budget inutilizzato", instance.totalBudget() - usedBudget);
+
+        report.beginSolution("plan", "piano recuperato");
+        for (int i = 0; i < m; i++)
+            for (int j = 0; j < k; j++)
+                report.variable("x_" + (i + 1) + "_" + (j + 1), plan[i * k + j]);
+        report.endQuestion();
+    }
+
+    public static class Result {
+        private final int status;
+        private final double lowerBound, objVal;
+        private final double[] plan;
+        private final int iterations;
+
+        Result(int status, double lowerBound, double objVal, double[] plan, int iterations) {
+            this.status = status;
+            this.lowerBound = lowerBound;
+            this.objVal = objVal;
+            this.plan = plan;
+            this.iterations = iterations;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        // best value of the dual function, a lower bound of the LP optimum
+        public double getLowerBound() {
+            return lowerBound;
+        }
+
+        // imbalance of the recovered plan, NaN without a plan
+        public double getObjVal() {
+            return objVal;
+        }
+
+        // x_ij at i*K + j, null when no feasible plan was recovered
+        public double[] getPlan() {
+            return plan;
+        }
+
+        public int getIterations() {
+            return iterations;
+        }
+    }
+}
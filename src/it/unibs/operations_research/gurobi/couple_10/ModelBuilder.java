@@ -0,0 +1,836 @@
+package it.unibs.operations_research.gurobi.couple_10;
+
+import it.unibs.operations_research.gurobi.couple_10.instance.Instance;
+import it.unibs.operations_research.gurobi.couple_10.instance.SparseInstance;
+import it.unibs.operations_research.gurobi.couple_10.profiling.PhaseEvent;
+import it.unibs.operations_research.gurobi.couple_10.solver.*;
+
+import java.util.Arrays;
+
+/**
+ * Builds the planning model with a few bulk calls: every block of variables is added with one 'addVars'
+ * and every group of constraints with one 'addConstrs', using coefficient arrays prepared in advance.
+ *
+ * Variables are laid out as follows (the same order used by the answers to the project questions):
+ * x_ij at i*K + j, the M + K + 1 slack variables s_i after them, the M + K + 1 auxiliary variables a_i
+ * (auxiliary problem only) and finally "aux" (original problem only).
+ * Constraints: the M maximum budget rows, the K minimum budget rows, the spectators row, then c_aux1 and c_aux2.
+ */
+public final class ModelBuilder {
+    private ModelBuilder() {
+    }
+
+    // index of x_ij
+    public static int x(Instance instance, int i, int j) {
+        return i * instance.k() + j;
+    }
+
+    // index of the i-th slack variable s_i
+    public static int slack(Instance instance, int i) {
+        return instance.m() * instance.k() + i;
+    }
+
+    // index of the maximum budget constraint of the i-th television station
+    public static int maxBudgetConstr(int i) {
+        return i;
+    }
+
+    // index of the minimum budget constraint of the j-th time slot
+    public static int minBudgetConstr(Instance instance, int j) {
+        return instance.m() + j;
+    }
+
+    // index of the minimum spectators constraint
+    public static int spectatorsConstr(Instance instance) {
+        return instance.m() + instance.k();
+    }
+
+    // "names" == false leaves the default names to the solver, it saves one String for each variable
+    public static LpModel build(LpBackend backend, Instance instance, boolean isAuxiliary, boolean names) throws SolverException {
+        LpModel model = backend.newModel();
+        int m = instance.m(), k = instance.k(), mk = m * k, extra = m + k + 1;
+
+        // every phase is a JFR event, see PhaseEvent
+        PhaseEvent event = PhaseEvent.begin("addVariables", instance);
+        // x_ij variables, τ_ij is the upper bound
+        double[] ub = new double[mk];
+        int[] minutes = instance.minutes();
+        for (int c = 0; c < mk; c++)
+            ub[c] = minutes[c];
+        model.addVars(mk, null, ub, null, null, names ? xNames(m, k) : null);
+        event.finish();
+
+        event = PhaseEvent.begin("addAdditionalVariables", instance);
+        // slack surplus variables
+        int s = model.addVars(extra, null, null, null, null, names ? names("s", extra) : null);
+
+        int y = -1;
+        if (isAuxiliary)
+            // required to set auxiliary variables with the aim of finding a feasible solution that is not optimal
+            y = model.addVars(extra, null, null, null, null, names ? names("a", extra) : null);
+
+        int aux = -1;
+        if (!isAuxiliary)
+            aux = model.addVar(0.0, LpModel.INFINITY, 0.0, LpModel.CONTINUOUS, names ? "aux" : null);
+        event.finish();
+
+        event = PhaseEvent.begin("addBudgetConstraints", instance);
+        addBudgetConstraints(model, instance, s, y, names);
+        event.finish();
+
+        event = PhaseEvent.begin("addSpectatorsConstraint", instance);
+        addSpectatorsConstraint(model, instance, s, y, names);
+        event.finish();
+
+        event = PhaseEvent.begin("setObjectiveFunction", instance);
+        if (isAuxiliary) {
+            model.setObjective(auxiliaryObjective(instance, y), LpModel.MINIMIZE);
+        } else {
+            addObjectiveConstraints(model, instance, aux, names);
+            model.setObjective(objective(aux), LpModel.MINIMIZE);
+        }
+        event.finish();
+
+        return model;
+    }
+
+    /**
+     * Same model as build() for a sparse catalogue: one x_ij for each available pair only, at its entry e of the
+     * {@link SparseInstance}, so variables and terms grow with the pairs instead of with M * K. The slack variables
+     * follow at entries() + i, then the a_i (auxiliary problem) or "aux"; the constraints have the same indices as in
+     * build().
+     */
+    public static LpModel build(LpBackend backend, SparseInstance instance, boolean isAuxiliary, boolean names) throws SolverException {
+        LpModel model = backend.newModel();
+        int m = instance.m(), k = instance.k(), entries = instance.entries(), extra = m + k + 1;
+        int[] stationStart = instance.stationStart(), slots = instance.slots(), minutes = instance.minutes();
+        int[] costs = instance.costs(), spectators = instance.spectators();
+
+        // the same phases as build(), every phase is a JFR event, see PhaseEvent
+        PhaseEvent event = PhaseEvent.begin("addVariables", m, k);
+        double[] ub = new double[entries];
+        String[] xNames = names ? new String[entries] : null;
+        for (int i = 0; i < m; i++) {
+            for (int e = stationStart[i]; e < stationStart[i + 1]; e++) {
+                ub[e] = minutes[e];
+                if (names)
+                    xNames[e] = "x_" + (i + 1) + "_" + (slots[e] + 1);
+            }
+        }
+        model.addVars(entries, null, ub, null, null, xNames);
+        event.finish();
+
+        event = PhaseEvent.begin("addAdditionalVariables", m, k);
+        int s = model.addVars(extra, null, null, null, null, names ? names("s", extra) : null);
+        int y = isAuxiliary ? model.addVars(extra, null, null, null, null, names ? names("a", extra) : null) : -1;
+        int aux = isAuxiliary ? -1 : model.addVar(0.0, LpModel.INFINITY, 0.0, LpModel.CONTINUOUS, names ? "aux" : null);
+        event.finish();
+
+        event = PhaseEvent.begin("addBudgetConstraints", m, k);
+        // the pairs of each slot, by station: a counting sort of the entries
+        int[] slotStart = new int[k + 1];
+        for (int e = 0; e < entries; e++)
+            slotStart[slots[e] + 1]++;
+        for (int j = 0; j < k; j++)
+            slotStart[j + 1] += slotStart[j];
+        int[] bySlot = new int[entries], next = Arrays.copyOf(slotStart, k);
+        for (int e = 0; e < entries; e++)
+            bySlot[next[slots[e]]++] = e;
+
+        // station rows, then slot rows
+        int rows = m + k;
+        int[] rowStart = new int[rows + 1];
+        int[] vars = new int[entries + m + entries + k * (isAuxiliary ? 2 : 1)];
+        double[] coeffs = new double[vars.length];
+        char[] senses = new char[rows];
+        double[] rhs = new double[rows];
+        int t = 0, r = 0;
+        for (int i = 0; i < m; i++, r++) {
+            for (int e = stationStart[i]; e < stationStart[i + 1]; e++, t++) {
+                vars[t] = e;
+                coeffs[t] = costs[e];
+            }
+            vars[t] = s + i;
+            coeffs[t++] = 1.0;
+            senses[r] = LpModel.EQUAL;
+            rhs[r] = instance.budget(i);
+            rowStart[r + 1] = t;
+        }
+        for (int j = 0; j < k; j++, r++) {
+            for (int p = slotStart[j]; p < slotStart[j + 1]; p++, t++) {
+                vars[t] = bySlot[p];
+                coeffs[t] = costs[bySlot[p]];
+            }
+            vars[t] = s + m + j;
+            coeffs[t++] = -1.0;
+            if (y >= 0) {
+                vars[t] = y + m + j;
+                coeffs[t++] = 1.0;
+            }
+            senses[r] = LpModel.EQUAL;
+            rhs[r] = instance.minSlotBudget();
+            rowStart[r + 1] = t;
+        }
+        String[] constrNames = null;
+        if (names) {
+            constrNames = new String[rows];
+            for (int i = 0; i < m; i++)
+                constrNames[i] = "c_max_budget_" + (i + 1);
+            for (int j = 0; j < k; j++)
+                constrNames[m + j] = "c_min_budget_" + (j + 1);
+        }
+        model.addConstrs(rows, rowStart, vars, coeffs, senses, rhs, constrNames);
+        event.finish();
+
+        event = PhaseEvent.begin("addSpectatorsConstraint", m, k);
+        vars = new int[entries + (isAuxiliary ? 2 : 1)];
+        coeffs = new double[vars.length];
+        t = 0;
+        for (int e = 0; e < entries; e++, t++) {
+            vars[t] = e;
+            coeffs[t] = spectators[e];
+        }
+        vars[t] = s + m + k;
+        coeffs[t++] = -1.0;
+        if (y >= 0) {
+            vars[t] = y + m + k;
+            coeffs[t++] = 1.0;
+        }
+        model.addConstrs(1, new int[]{0, t}, vars, coeffs, new char[]{LpModel.EQUAL}, new double[]{instance.coverage()},
+                names ? new String[]{"c_spectators"} : null);
+        event.finish();
+
+        event = PhaseEvent.begin("setObjectiveFunction", m, k);
+        if (isAuxiliary) {
+            LinExpr obj = new LinExpr();
+            for (int i = 0; i < m; i++)
+                obj.addTerm(k, y + i);
+            model.setObjective(obj, LpModel.MINIMIZE);
+        } else {
+            // c_aux1 and c_aux2: aux - sum >= 0 and aux + sum >= 0, sign_j = 1 in the first half of the slots
+            rowStart = new int[3];
+            vars = new int[2 * (entries + 1)];
+            coeffs = new double[vars.length];
+            t = 0;
+            for (int sign = -1, row = 0; sign <= 1; sign += 2, row++) {
+                vars[t] = aux;
+                coeffs[t++] = 1.0;
+                for (int e = 0; e < entries; e++, t++) {
+                    vars[t] = e;
+                    coeffs[t] = sign * (slots[e] < k / 2 ? spectators[e] : -spectators[e]);
+                }
+                rowStart[row + 1] = t;
+            }
+            model.addConstrs(2, rowStart, vars, coeffs, new char[]{LpModel.GREATER_EQUAL, LpModel.GREATER_EQUAL},
+                    new double[2], names ? new String[]{"c_aux1", "c_aux2"} : null);
+            model.setObjective(objective(aux), LpModel.MINIMIZE);
+        }
+        event.finish();
+
+        return model;
+    }
+
+    /**
+     * Column of build() for each of the "numVars" variables of the model of build(LpBackend, SparseInstance, ...):
+     * x_ij of entry e at i*K + j, the variables after the pairs M*K - entries() columns later.
+     */
+    public static int[] denseColumns(SparseInstance instance, int numVars) {
+        int k = instance.k(), entries = instance.entries(), shift = instance.m() * k - entries;
+        int[] stationStart = instance.stationStart(), slots = instance.slots();
+        int[] columns = new int[numVars];
+        for (int i = 0; i < instance.m(); i++)
+            for (int e = stationStart[i]; e < stationStart[i + 1]; e++)
+                columns[e] = i * k + slots[e];
+        for (int v = entries; v < numVars; v++)
+            columns[v] = v + shift;
+        return columns;
+    }
+
+    // "values" of the sparse model at the columns of build(), 0 for the missing pairs
+    public static double[] denseValues(SparseInstance instance, double[] values, int[] columns) {
+        double[] dense = new double[values.length + instance.m() * instance.k() - instance.entries()];
+        for (int v = 0; v < values.length; v++)
+            dense[columns[v]] = values[v];
+        return dense;
+    }
+
+    // "names" of the sparse model at the columns of build(), x_ij for the missing pairs
+    public static String[] denseNames(SparseInstance instance, String[] names, int[] columns) {
+        int mk = instance.m() * instance.k();
+        String[] dense = Arrays.copyOf(xNames(instance.m(), instance.k()), names.length + mk - instance.entries());
+        for (int v = 0; v < names.length; v++)
+            dense[columns[v]] = names[v];
+        return dense;
+    }
+
+    /**
+     * Same problem as build() with isAuxiliary == false, with |sum_ij ±P_ij x_ij| split instead of bounded by "aux":
+     *     sum_ij ±P_ij x_ij - aux_pos + aux_neg = 0,     minimize aux_pos + aux_neg,
+     * a single equality row c_aux in place of c_aux1 and c_aux2. x_ij, the slack variables and the budget and
+     * spectators rows have the same indices as in build(), aux_pos and aux_neg follow the slack variables.
+     * Same optimal value, a different path of the simplex.
+     */
+    public static LpModel buildSplit(LpBackend backend, Instance instance, boolean names) throws SolverException {
+        LpModel model = backend.newModel();
+        int m = instance.m(), k = instance.k(), mk = m * k, extra = m + k + 1;
+        int[] minutes = instance.minutes(), spectators = instance.spectators();
+
+        double[] ub = new double[mk];
+        for (int c = 0; c < mk; c++)
+            ub[c] = minutes[c];
+        model.addVars(mk, null, ub, null, null, names ? xNames(m, k) : null);
+        int s = model.addVars(extra, null, null, null, null, names ? names("s", extra) : null);
+        int split = model.addVars(2, null, null, null, null, names ? new String[]{"aux_pos", "aux_neg"} : null);
+
+        addBudgetConstraints(model, instance, s, -1, names);
+        addSpectatorsConstraint(model, instance, s, -1, names);
+
+        int[] vars = new int[mk + 2];
+        double[] coeffs = new double[mk + 2];
+        for (int c = 0; c < mk; c++) {
+            vars[c] = c;
+            coeffs[c] = c % k < k / 2 ? spectators[c] : -spectators[c];
+        }
+        vars[mk] = split;
+        coeffs[mk] = -1.0;
+        vars[mk + 1] = split + 1;
+        coeffs[mk + 1] = 1.0;
+        model.addConstrs(1, new int[]{0, mk + 2}, vars, coeffs, new char[]{LpModel.EQUAL}, new double[1],
+                names ? new String[]{"c_aux"} : null);
+
+        LinExpr obj = new LinExpr();
+        obj.addTerm(1.0, split);
+        obj.addTerm(1.0, split + 1);
+        model.setObjective(obj, LpModel.MINIMIZE);
+        return model;
+    }
+
+    /**
+     * Adds the M + K + 1 auxiliary variables a_i to a model built with isAuxiliary == false, after "aux":
+     * a_(M+j) enters the minimum budget row of slot j and a_(M+K) the spectators row, as in the auxiliary problem.
+     * The indices of the original variables do not change. Returns the index of a_0.
+     */
+    public static int addArtificials(LpModel model, Instance instance, boolean names) throws SolverException {
+        int m = instance.m(), k = instance.k(), extra = m + k + 1;
+        int y = model.addVars(extra, null, null, null, null, names ? names("a", extra) : null);
+        // j == K is the spectators row
+        for (int j = 0; j <= k; j++)
+            model.chgCoeff(minBudgetConstr(instance, j), y + m + j, 1.0);
+        return y;
+    }
+
+    /**
+     * Makes the spectators row of a model built with isAuxiliary == false robust to budgeted uncertainty
+     * (Bertsimas and Sim): each P_ij may fall by up to D_ij = deviations[i*K + j], at most Γ = "gamma" of them at the
+     * same time (a fractional Γ lets one more fall by a fraction of its deviation). The worst case,
+     *     max { sum_(ij in U) D_ij x_ij : |U| <= Γ },
+     * is replaced by its LP dual, so the model stays an LP: with z >= 0 and p_ij >= 0
+     *     sum_ij P_ij x_ij - Γ z - sum_ij p_ij - s_(M+K) = S,     p_ij + z - D_ij x_ij >= 0.
+     * The protection Γ z + sum_ij p_ij is a variable of its own ("protection", in the spectators row with -1), so the
+     * rows already added are changed by a single coefficient. Cells with D_ij == 0 or τ_ij == 0 get no p_ij.
+     * Variables z, p_ij and "protection" and the rows c_robust_i_j and c_protection follow the existing ones, whose
+     * indices do not change. Returns the index of z.
+     */
+    public static int addRobustCoverage(LpModel model, Instance instance, int[] deviations, double gamma, boolean names) throws SolverException {
+        int m = instance.m(), k = instance.k(), mk = m * k;
+        int[] minutes = instance.minutes();
+        int uncertain = 0;
+        for (int c = 0; c < mk; c++)
+            if (deviations[c] > 0 && minutes[c] > 0)
+                uncertain++;
+        int[] cells = new int[uncertain];
+        String[] pNames = names ? new String[uncertain] : null;
+        for (int c = 0, u = 0; c < mk; c++) {
+            if (deviations[c] > 0 && minutes[c] > 0) {
+                cells[u] = c;
+                if (names)
+                    pNames[u] = "p_" + (c / k + 1) + "_" + (c % k + 1);
+                u++;
+            }
+        }
+
+        int z = model.addVar(0.0, LpModel.INFINITY, 0.0, LpModel.CONTINUOUS, names ? "z" : null);
+        int p = model.addVars(uncertain, null, null, null, null, pNames);
+        int protection = model.addVar(0.0, LpModel.INFINITY, 0.0, LpModel.CONTINUOUS, names ? "protection" : null);
+
+        // p_ij + z - D_ij x_ij >= 0, then protection - Γ z - sum_ij p_ij = 0
+        int rows = uncertain + 1;
+        int[] rowStart = new int[rows + 1];
+        int[] vars = new int[3 * uncertain + uncertain + 2];
+        double[] coeffs = new double[vars.length];
+        char[] senses = new char[rows];
+        int e = 0;
+        for (int u = 0; u < uncertain; u++) {
+            vars[e] = p + u;
+            coeffs[e++] = 1.0;
+            vars[e] = z;
+            coeffs[e++] = 1.0;
+            vars[e] = cells[u];
+            coeffs[e++] = -deviations[cells[u]];
+            senses[u] = LpModel.GREATER_EQUAL;
+            rowStart[u + 1] = e;
+        }
+        vars[e] = protection;
+        coeffs[e++] = 1.0;
+        vars[e] = z;
+        coeffs[e++] = -gamma;
+        for (int u = 0; u < uncertain; u++) {
+            vars[e] = p + u;
+            coeffs[e++] = -1.0;
+        }
+        senses[uncertain] = LpModel.EQUAL;
+        rowStart[rows] = e;
+
+        String[] constrNames = null;
+        if (names) {
+            constrNames = new String[rows];
+            for (int u = 0; u < uncertain; u++)
+                constrNames[u] = "c_robust_" + (cells[u] / k + 1) + "_" + (cells[u] % k + 1);
+            constrNames[uncertain] = "c_protection";
+        }
+        model.addConstrs(rows, rowStart, vars, coeffs, senses, new double[rows], constrNames);
+        model.chgCoeff(spectatorsConstr(instance), protection, -1.0);
+        return z;
+    }
+
+    // index of "aux" in the restricted master problem of buildMaster
+    public static int masterAux(Instance instance) {
+        return instance.m() + instance.k() + 1;
+    }
+
+    // index of the first artificial variable of buildMaster, the K + 1 of them follow in row order
+    public static int masterArtificial(Instance instance) {
+        return instance.m() + instance.k() + 2;
+    }
+
+    /**
+     * Restricted master problem of column generation: the rows of the model built with isAuxiliary == false, with
+     * the same indices, but no x_ij column (add them with addColumns). Variables: the M + K + 1 slack variables s_i,
+     * "aux", then the K + 1 artificial variables a_(M+j) of the minimum budget rows and of the spectators row, which
+     * keep the problem feasible until enough columns are added. The objective is left to the caller.
+     */
+    public static LpModel buildMaster(LpBackend backend, Instance instance, boolean names) throws SolverException {
+        LpModel model = backend.newModel();
+        int m = instance.m(), k = instance.k(), extra = m + k + 1;
+        int s = model.addVars(extra, null, null, null, null, names ? names("s", extra) : null);
+        int aux = model.addVar(0.0, LpModel.INFINITY, 0.0, LpModel.CONTINUOUS, names ? "aux" : null);
+        int y = model.addVars(k + 1, null, null, null, null, names ? names("a", k + 1) : null);
+
+        // s_i = β_i, -s_(M+j) + a_j = Ω * B_TOT, -s_(M+K) + a_K = S, aux >= 0 twice
+        int rows = extra + 2;
+        int[] rowStart = new int[rows + 1];
+        int[] vars = new int[m + 2 * (k + 1) + 2];
+        double[] coeffs = new double[vars.length];
+        char[] senses = new char[rows];
+        double[] rhs = new double[rows];
+        int e = 0;
+        for (int r = 0; r < extra; r++) {
+            vars[e] = s + r;
+            coeffs[e++] = r < m ? 1.0 : -1.0;
+            if (r >= m) {
+                vars[e] = y + r - m;
+                coeffs[e++] = 1.0;
+            }
+            senses[r] = LpModel.EQUAL;
+            rhs[r] = r < m ? instance.budget(r) : r < m + k ? instance.minSlotBudget() : instance.coverage();
+            rowStart[r + 1] = e;
+        }
+        for (int r = extra; r < rows; r++) {
+            vars[e] = aux;
+            coeffs[e++] = 1.0;
+            senses[r] = LpModel.GREATER_EQUAL;
+            rowStart[r + 1] = e;
+        }
+
+        String[] constrNames = null;
+        if (names) {
+            constrNames = new String[rows];
+            for (int i = 0; i < m; i++)
+                constrNames[i] = "c_max_budget_" + (i + 1);
+            for (int j = 0; j < k; j++)
+                constrNames[m + j] = "c_min_budget_" + (j + 1);
+            constrNames[m + k] = "c_spectators";
+            constrNames[m + k + 1] = "c_aux1";
+            constrNames[m + k + 2] = "c_aux2";
+        }
+        model.addConstrs(rows, rowStart, vars, coeffs, senses, rhs, constrNames);
+        return model;
+    }
+
+    /**
+     * Adds the x_ij columns of cells[0 .. count-1] (cell i*K + j) to a model of buildMaster, with their terms in the
+     * station row, in the slot row, in the spectators row and in the two aux rows. Returns the index of the first one,
+     * the others follow in order.
+     */
+    public static int addColumns(LpModel model, Instance instance, int[] cells, int count, boolean names) throws SolverException {
+        int k = instance.k();
+        int[] minutes = instance.minutes(), costs = instance.costs(), spectators = instance.spectators();
+        double[] ub = new double[count];
+        String[] varNames = names ? new String[count] : null;
+        for (int n = 0; n < count; n++) {
+            ub[n] = minutes[cells[n]];
+            if (names)
+                varNames[n] = "x_" + (cells[n] / k + 1) + "_" + (cells[n] % k + 1);
+        }
+
+        // the 5 terms of every column, added with the variables in a single call
+        int spectatorsRow = spectatorsConstr(instance);
+        int[] colStart = new int[count + 1], constrs = new int[5 * count];
+        double[] coeffs = new double[5 * count];
+        for (int n = 0, e = 0; n < count; n++) {
+            int c = cells[n];
+            double coeff = c % k < k / 2 ? spectators[c] : -spectators[c];
+            constrs[e] = maxBudgetConstr(c / k);
+            coeffs[e++] = costs[c];
+            constrs[e] = minBudgetConstr(instance, c % k);
+            coeffs[e++] = costs[c];
+            constrs[e] = spectatorsRow;
+            coeffs[e++] = spectators[c];
+            constrs[e] = spectatorsRow + 1;
+            coeffs[e++] = -coeff;
+            constrs[e] = spectatorsRow + 2;
+            coeffs[e++] = coeff;
+            colStart[n + 1] = e;
+        }
+        return model.addVars(count, null, ub, null, null, varNames, colStart, constrs, coeffs);
+    }
+
+    // variables of one day of a multi-day model: x_ij, K + 1 surplus variables and aux
+    private static int dayBlock(Instance instance) {
+        return instance.m() * instance.k() + instance.k() + 2;
+    }
+
+    // index of x_ij of day "day" in the model of buildDays
+    public static int dayX(Instance instance, int day, int i, int j) {
+        return day * dayBlock(instance) + i * instance.k() + j;
+    }
+
+    // index of aux of day "day" in the model of buildDays
+    public static int dayAux(Instance instance, int day) {
+        return (day + 1) * dayBlock(instance) - 1;
+    }
+
+    // index of the spectators constraint of day "day" in the model of buildDays
+    public static int daySpectatorsConstr(Instance instance, int day) {
+        return instance.m() + day * (instance.k() + 3) + instance.k();
+    }
+
+    /**
+     * Planning model of "days" days with K slots each, the instance describing a single day: every day has its own
+     * minimum budget rows, its spectators row (S = coverages[day]) and its aux rows, while the budget of each
+     * station is shared by all the days: sum_d sum_j C_ij x_ijd + s_i = budgets[i]. The objective is the sum of
+     * the aux of the days.
+     *
+     * Variables: for each day x_ij at day * (MK + K + 2) + i*K + j, the surplus variables of its K slot rows and of
+     * its spectators row, its aux; then the M slack variables of the station rows. Constraints: the M station rows
+     * (same indices as in the single day model, see maxBudgetConstr), then for each day its K slot rows, its
+     * spectators row, c_aux1 and c_aux2.
+     */
+    public static LpModel buildDays(LpBackend backend, Instance instance, int days, double[] coverages, double[] budgets,
+                                    boolean names) throws SolverException {
+        LpModel model = backend.newModel();
+        int m = instance.m(), k = instance.k(), mk = m * k, block = dayBlock(instance);
+        int[] minutes = instance.minutes(), costs = instance.costs(), spectators = instance.spectators();
+
+        double[] ub = new double[days * block];
+        Arrays.fill(ub, LpModel.INFINITY);
+        String[] varNames = names ? new String[ub.length] : null;
+        for (int d = 0; d < days; d++) {
+            for (int c = 0; c < mk; c++)
+                ub[d * block + c] = minutes[c];
+            if (names) {
+                for (int c = 0; c < mk; c++)
+                    varNames[d * block + c] = "x_" + (c / k + 1) + "_" + (c % k + 1) + "_" + (d + 1);
+                for (int j = 0; j <= k; j++)
+                    varNames[d * block + mk + j] = "s_" + (m + j) + "_" + (d + 1);
+                varNames[d * block + mk + k + 1] = "aux_" + (d + 1);
+            }
+        }
+        model.addVars(ub.length, null, ub, null, null, varNames);
+        int s = model.addVars(m, null, null, null, null, names ? names("s", m) : null);
+
+        // station rows: M rows of days * K terms and the slack
+        int rows = m + days * (k + 3);
+        int[] rowStart = new int[rows + 1];
+        int[] vars = new int[m * (days * k + 1) + days * (mk + k + mk + 1 + 2 * (mk + 1))];
+        double[] coeffs = new double[vars.length];
+        char[] senses = new char[rows];
+        double[] rhs = new double[rows];
+        int e = 0, r = 0;
+        for (int i = 0; i < m; i++, r++) {
+            for (int d = 0; d < days; d++) {
+                for (int j = 0; j < k; j++, e++) {
+                    vars[e] = d * block + i * k + j;
+                    coeffs[e] = costs[i * k + j];
+                }
+            }
+            vars[e] = s + i;
+            coeffs[e++] = 1.0;
+            senses[r] = LpModel.EQUAL;
+            rhs[r] = budgets[i];
+            rowStart[r + 1] = e;
+        }
+
+        double minSlotBudget = instance.minSlotBudget();
+        for (int d = 0; d < days; d++) {
+            int x = d * block, aux = x + block - 1;
+            // minimum budget of each slot: sum_i C_ij x_ijd - s_(M+j)d = Ω * B_TOT
+            for (int j = 0; j < k; j++, r++) {
+                for (int i = 0; i < m; i++, e++) {
+                    vars[e] = x + i * k + j;
+                    coeffs[e] = costs[i * k + j];
+                }
+                vars[e] = x + mk + j;
+                coeffs[e++] = -1.0;
+                senses[r] = LpModel.EQUAL;
+                rhs[r] = minSlotBudget;
+                rowStart[r + 1] = e;
+            }
+            // spectators of the day: sum_ij P_ij x_ijd - s_(M+K)d = S_d
+            for (int c = 0; c < mk; c++, e++) {
+                vars[e] = x + c;
+                coeffs[e] = spectators[c];
+            }
+            vars[e] = x + mk + k;
+            coeffs[e++] = -1.0;
+            senses[r] = LpModel.EQUAL;
+            rhs[r++] = coverages[d];
+            rowStart[r] = e;
+            // aux_d - sum >= 0 and aux_d + sum >= 0, as in addObjectiveConstraints
+            for (int sign = -1; sign <= 1; sign += 2, r++) {
+                vars[e] = aux;
+                coeffs[e++] = 1.0;
+                for (int c = 0; c < mk; c++, e++) {
+                    vars[e] = x + c;
+                    coeffs[e] = sign * (c % k < k / 2 ? spectators[c] : -spectators[c]);
+                }
+                senses[r] = LpModel.GREATER_EQUAL;
+                rowStart[r + 1] = e;
+            }
+        }
+
+        String[] constrNames = null;
+        if (names) {
+            constrNames = new String[rows];
+            for (int i = 0; i < m; i++)
+                constrNames[i] = "c_max_budget_" + (i + 1);
+            for (int d = 0; d < days; d++) {
+                int first = m + d * (k + 3);
+                for (int j = 0; j < k; j++)
+                    constrNames[first + j] = "c_min_budget_" + (j + 1) + "_" + (d + 1);
+                constrNames[first + k] = "c_spectators_" + (d + 1);
+                constrNames[first + k + 1] = "c_aux1_" + (d + 1);
+                constrNames[first + k + 2] = "c_aux2_" + (d + 1);
+            }
+        }
+        model.addConstrs(rows, rowStart, vars, coeffs, senses, rhs, constrNames);
+
+        LinExpr obj = new LinExpr();
+        for (int d = 0; d < days; d++)
+            obj.addTerm(1.0, dayAux(instance, d));
+        model.setObjective(obj, LpModel.MINIMIZE);
+        return model;
+    }
+
+    /**
+     * Constraint matrix of the model built with isAuxiliary == false, by columns, e.g. to analyze its final basis
+     * (see OptimalFace). With "artificials" the a_i of {@link #addArtificials} follow "aux", fixed at 0 as in the
+     * optimal phase of DerivedSolutions.
+     */
+    public static ColumnMatrix columns(Instance instance, boolean artificials) {
+        int m = instance.m(), k = instance.k(), mk = m * k, extra = m + k + 1;
+        int rows = m + k + 3, n = mk + extra + 1 + (artificials ? extra : 0);
+        int[] costs = instance.costs(), spectators = instance.spectators(), minutes = instance.minutes();
+        int spectatorsRow = spectatorsConstr(instance), aux1 = spectatorsRow + 1, aux2 = spectatorsRow + 2;
+
+        int[] colStart = new int[n + 1];
+        int[] rowIdx = new int[5 * mk + extra + 2 + (artificials ? k + 1 : 0)];
+        double[] val = new double[rowIdx.length];
+        double[] lb = new double[n], ub = new double[n];
+        Arrays.fill(ub, Double.POSITIVE_INFINITY);
+        int e = 0, col = 0;
+
+        // x_ij: station row, slot row, spectators row, c_aux1 and c_aux2
+        for (int c = 0; c < mk; c++, col++) {
+            double coeff = c % k < k / 2 ? spectators[c] : -spectators[c];
+            int[] r = {maxBudgetConstr(c / k), minBudgetConstr(instance, c % k), spectatorsRow, aux1, aux2};
+            double[] v = {costs[c], costs[c], spectators[c], -coeff, coeff};
+            for (int t = 0; t < r.length; t++, e++) {
+                rowIdx[e] = r[t];
+                val[e] = v[t];
+            }
+            ub[col] = minutes[c];
+            colStart[col + 1] = e;
+        }
+        // s_i: +1 in the station rows, -1 in the slot rows and in the spectators row
+        for (int i = 0; i < extra; i++, col++, e++) {
+            rowIdx[e] = i;
+            val[e] = i < m ? 1.0 : -1.0;
+            colStart[col + 1] = e + 1;
+        }
+        // "aux"
+        rowIdx[e] = aux1;
+        val[e++] = 1.0;
+        rowIdx[e] = aux2;
+        val[e++] = 1.0;
+        colStart[++col] = e;
+        if (artificials) {
+            // a_i of the stations have no terms, a_(M+j) enters the row M + j
+            for (int i = 0; i < extra; i++, col++) {
+                if (i >= m) {
+                    rowIdx[e] = i;
+                    val[e++] = 1.0;
+                }
+                ub[col] = 0.0;
+                colStart[col + 1] = e;
+            }
+        }
+
+        char[] senses = new char[rows];
+        Arrays.fill(senses, LpModel.EQUAL);
+        senses[aux1] = senses[aux2] = LpModel.GREATER_EQUAL;
+        return new ColumnMatrix(rows, colStart, rowIdx, val, lb, ub, senses);
+    }
+
+    // auxiliary objective function is necessary to find a feasible but not optimal solution
+    // each y_i (i < M) appears K times in the sum, so its coefficient is K
+    static LinExpr auxiliaryObjective(Instance instance, int y) {
+        LinExpr obj = new LinExpr();
+        for (int i = 0; i < instance.m(); i++)
+            obj.addTerm(instance.k(), y + i);
+        return obj;
+    }
+
+    // phase I of DerivedSolutions: every a_i, so its optimum is 0 exactly when the original problem is feasible
+    // (the a_i of the stations are in no row, they stay at 0)
+    static LinExpr phaseOneObjective(Instance instance, int y) {
+        int extra = instance.m() + instance.k() + 1;
+        LinExpr obj = new LinExpr(extra);
+        for (int i = 0; i < extra; i++)
+            obj.addTerm(1.0, y + i);
+        return obj;
+    }
+
+    // minimize "aux"
+    static LinExpr objective(int aux) {
+        LinExpr obj = new LinExpr();
+        obj.addTerm(1.0, aux);
+        return obj;
+    }
+
+    // budget constraints of stations and time slots, y < 0 when the model is not auxiliary
+    private static void addBudgetConstraints(LpModel model, Instance instance, int s, int y, boolean names) throws SolverException {
+        int m = instance.m(), k = instance.k(), mk = m * k;
+        int[] costs = instance.costs();
+        int rows = m + k, extraTerms = y < 0 ? 0 : 1;
+
+        int[] rowStart = new int[rows + 1];
+        int[] vars = new int[mk + m + (mk + k * (1 + extraTerms))];
+        double[] coeffs = new double[vars.length];
+        char[] senses = new char[rows];
+        double[] rhs = new double[rows];
+        int e = 0, r = 0;
+
+        // maximum budget for each television station: sum_j C_ij x_ij + s_i = β_i
+        for (int i = 0; i < m; i++, r++) {
+            for (int j = 0; j < k; j++, e++) {
+                vars[e] = i * k + j;
+                coeffs[e] = costs[i * k + j];
+            }
+            vars[e] = s + i;
+            coeffs[e++] = 1.0;
+            senses[r] = LpModel.EQUAL;
+            rhs[r] = instance.budget(i);
+            rowStart[r + 1] = e;
+        }
+
+        // minimum budget for each time slot: sum_i C_ij x_ij - s_(M+j) (+ a_(M+j)) = Ω * B_TOT
+        double minSlotBudget = instance.minSlotBudget();
+        for (int j = 0; j < k; j++, r++) {
+            for (int i = 0; i < m; i++, e++) {
+                vars[e] = i * k + j;
+                coeffs[e] = costs[i * k + j];
+            }
+            vars[e] = s + m + j;
+            coeffs[e++] = -1.0;
+            if (y >= 0) {
+                vars[e] = y + m + j;
+                coeffs[e++] = 1.0;
+            }
+            senses[r] = LpModel.EQUAL;
+            rhs[r] = minSlotBudget;
+            rowStart[r + 1] = e;
+        }
+
+        String[] constrNames = null;
+        if (names) {
+            constrNames = new String[rows];
+            for (int i = 0; i < m; i++)
+                constrNames[i] = "c_max_budget_" + (i + 1);
+            for (int j = 0; j < k; j++)
+                constrNames[m + j] = "c_min_budget_" + (j + 1);
+        }
+
+        model.addConstrs(rows, rowStart, vars, coeffs, senses, rhs, constrNames);
+    }
+
+    // minimum spectators number: sum_ij P_ij x_ij - s_(M+K) (+ a_(M+K)) = S
+    private static void addSpectatorsConstraint(LpModel model, Instance instance, int s, int y, boolean names) throws SolverException {
+        int m = instance.m(), k = instance.k(), mk = m * k;
+        int[] spectators = instance.spectators();
+
+        int[] vars = new int[mk + 1 + (y < 0 ? 0 : 1)];
+        double[] coeffs = new double[vars.length];
+        for (int c = 0; c < mk; c++) {
+            vars[c] = c;
+            coeffs[c] = spectators[c];
+        }
+        vars[mk] = s + m + k;
+        coeffs[mk] = -1.0;
+        if (y >= 0) {
+            vars[mk + 1] = y + m + k;
+            coeffs[mk + 1] = 1.0;
+        }
+
+        model.addConstrs(1, new int[]{0, vars.length}, vars, coeffs, new char[]{LpModel.EQUAL},
+                new double[]{instance.coverage()}, names ? new String[]{"c_spectators"} : null);
+    }
+
+    // aux >= |sum_ij sign_j P_ij x_ij|, with sign_j = 1 in the first half of the slots and -1 in the second one
+    // the two rows share the same coefficients with opposite signs, they are computed only once
+    private static void addObjectiveConstraints(LpModel model, Instance instance, int aux, boolean names) throws SolverException {
+        int m = instance.m(), k = instance.k(), mk = m * k, terms = mk + 1;
+        int[] spectators = instance.spectators();
+
+        int[] vars = new int[2 * terms];
+        double[] coeffs = new double[2 * terms];
+        vars[0] = vars[terms] = aux;
+        coeffs[0] = coeffs[terms] = 1.0;
+        for (int c = 0; c < mk; c++) {
+            double coeff = c % k < k / 2 ? spectators[c] : -spectators[c];
+            vars[1 + c] = vars[terms + 1 + c] = c;
+            // aux - sum >= 0 and aux + sum >= 0
+            coeffs[1 + c] = -coeff;
+            coeffs[terms + 1 + c] = coeff;
+        }
+
+        model.addConstrs(2, new int[]{0, terms, 2 * terms}, vars, coeffs,
+                new char[]{LpModel.GREATER_EQUAL, LpModel.GREATER_EQUAL}, new double[2],
+                names ? new String[]{"c_aux1", "c_aux2"} : null);
+    }
+
+    private static String[] xNames(int m, int k) {
+        String[] names = new String[m * k];
+        for (int i = 0; i < m; i++)
+            for (int j = 0; j < k; j++)
+                names[i * k + j] = "x_" + (i + 1) + "_" + (j + 1);
+        return names;
+    }
+
+    private static String[] names(String base, int count) {
+        String[] names = new String[count];
+        for (int i = 0; i < count; i++)
+            names[i] = base + "_" + i;
+        return names;
+    }
+}
@@ -0,0 +1,257 @@
+package it.unibs.operations_research.gurobi.couple_10;
+
+import it.unibs.operations_research.gurobi.couple_10.instance.Instance;
+import it.unibs.operations_research.gurobi.couple_10.instance.InstanceGenerator;
+import it.unibs.operations_research.gurobi.couple_10.instance.InstanceReader;
+import it.unibs.operations_research.gurobi.couple_10.solver.*;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Chooses the Gurobi parameters (Method, Presolve, Threads and, for the barrier, Crossover) of every size class of
+ * models (see {@link ParameterTable}) and writes them to the file read by Gurobi.setParameters.
+ *
+ * Every configuration solves the planning model of every instance of the corpus "--repeats" times from scratch,
+ * after a warm-up solve. A configuration is discarded for a size class when one of its solves is not optimal, ends
+ * without a basis or finds another objective value. Times are divided by the median time of the parameters of
+ * setParameters (the baseline) on the same instance, so the instances of a class can be pooled, and every
+ * configuration is compared with the baseline by a one-sided Mann-Whitney U test, Bonferroni-corrected over the
+ * configurations. The winner of a class is the significantly faster configuration with the lowest geometric mean
+ * of the normalized times; without one the class keeps the baseline and gets no entry.
+ *
+ * "--corpus" lists instance files or sizes "MxK", a size stands for the synthetic instances of seeds 1 .. "--seeds".
+ * Only Gurobi has parameters, the pure-Java simplex has nothing to tune.
+ *
+ * Usage: ParameterTuner [--corpus=10x8,100x24,300x48,1000x96] [--seeds=3] [--repeats=7] [--alpha=0.05]
+ *                       [--threads=1,<cores>] [--time-limit=60] [--output=tuning.tsv]
+ */
+public class ParameterTuner {
+    public static void main(String[] args) throws SolverException, IOException {
+        String corpus = Gurobi.option(args, "corpus", "10x8,100x24,300x48,1000x96");
+        List<Instance> instances = corpus(corpus, Integer.parseInt(Gurobi.option(args, "seeds", "3")));
+        int repeats = Integer.parseInt(Gurobi.option(args, "repeats", "7"));
+        double alpha = Double.parseDouble(Gurobi.option(args, "alpha", "0.05"));
+        double timeLimit = Double.parseDouble(Gurobi.option(args, "time-limit", "60"));
+        int[] threads = Arrays.stream(Gurobi.option(args, "threads", "1," + Runtime.getRuntime().availableProcessors())
+                .split(",")).mapToInt(Integer::parseInt).distinct().toArray();
+        String output = Gurobi.option(args, "output", Gurobi.TUNING_FILE);
+        List<SolverParameters> grid = grid(threads);
+
+        // the environment holds the parameters of setParameters, every configuration is set on the model
+        LpBackend backend = GurobiBackend.create("", SolverParameters.DEFAULT);
+
+        Map<String, SizeClass> classes = new TreeMap<>();
+        try {
+            for (Instance instance : instances) {
+                GurobiModel model = (GurobiModel) ModelBuilder.build(backend, instance, false, false);
+                try {
+                    model.update();
+                    model.setTimeLimit(timeLimit);
+                    String name = ParameterTable.sizeClass(model.numVars());
+                    System.out.printf("%s: %dx%d, %d variables%n", name, instance.m(), instance.k(), model.numVars());
+
+                    double[] baseline = time(model, grid.get(0), repeats, Double.NaN);
+                    if (baseline == null) {
+                        System.out.println("  skipped, the baseline has no optimal solution");
+                        continue;
+                    }
+                    double objective = model.getObjVal(), reference = median(baseline);
+                    SizeClass sizeClass = classes.computeIfAbsent(name, c -> new SizeClass(grid.size()));
+                    sizeClass.instances++;
+                    sizeClass.add(0, baseline, reference);
+                    for (int c = 1; c < grid.size(); c++) {
+                        double[] times = time(model, grid.get(c), repeats, objective);
+                        if (times == null)
+                            sizeClass.discarded[c] = true;
+                        else
+                            sizeClass.add(c, times, reference);
+                    }
+                } finally {
+                    model.dispose();
+                }
+            }
+        } finally {
+            // Release the resources associated with the backend, also when a solve failed
+            backend.dispose();
+        }
+
+        ParameterTable table = new ParameterTable();
+        List<String> comments = new ArrayList<>();
+        comments.add("ParameterTuner " + LocalDate.now() + ": corpus " + corpus + ", " + repeats + " runs, alpha " + alpha
+                + " (Bonferroni over " + (grid.size() - 1) + " configurations)");
+        for (Map.Entry<String, SizeClass> entry : classes.entrySet()) {
+            SizeClass sizeClass = entry.getValue();
+            int winner = choose(entry.getKey(), sizeClass, grid, alpha / (grid.size() - 1));
+            if (winner > 0) {
+                table.put(entry.getKey(), grid.get(winner));
+                comments.add(String.format(Locale.ROOT, "%s: %d instances, %s, speedup %.2f, p = %.2g", entry.getKey(),
+                        sizeClass.instances, grid.get(winner), 1 / sizeClass.geometricMean(winner), sizeClass.p[winner]));
+            } else {
+                comments.add(String.format(Locale.ROOT, "%s: %d instances, no configuration significantly faster than %s",
+                        entry.getKey(), sizeClass.instances, SolverParameters.DEFAULT));
+            }
+        }
+        table.write(Paths.get(output), comments);
+        System.out.println("Written " + output);
+    }
+
+    // instance files and sizes "MxK", see the class comment
+    private static List<Instance> corpus(String corpus, int seeds) throws IOException {
+        List<Instance> instances = new ArrayList<>();
+        for (String entry : corpus.split(",")) {
+            if (entry.matches("\\d+x\\d+")) {
+                int m = Integer.parseInt(entry.substring(0, entry.indexOf('x')));
+                int k = Integer.parseInt(entry.substring(entry.indexOf('x') + 1));
+                for (int seed = 1; seed <= seeds; seed++)
+                    instances.add(InstanceGenerator.generate(m, k, seed));
+            } else {
+                instances.add(InstanceReader.read(Paths.get(entry)));
+            }
+        }
+        return instances;
+    }
+
+    // the baseline first; Crossover only changes the barrier, 0 is never tried since it leaves no basis
+    private static List<SolverParameters> grid(int[] threads) {
+        List<SolverParameters> grid = new ArrayList<>();
+        grid.add(SolverParameters.DEFAULT);
+        for (int method : new int[]{-1, 0, 1, 2})
+            for (int presolve : new int[]{-1, 0})
+                for (int thread : threads)
+                    for (int crossover : method == 2 ? new int[]{-1, 1, 2} : new int[]{-1}) {
+                        SolverParameters parameters = new SolverParameters(method, presolve, thread, crossover);
+                        if (!parameters.equals(SolverParameters.DEFAULT))
+                            grid.add(parameters);
+                    }
+        return grid;
+    }
+
+    /**
+     * Times (ms) of "repeats" solves from scratch with "parameters", after a warm-up solve; null when a solve is not
+     * optimal, or the last one has no basis or an objective value other than "objective" (NaN: any).
+     */
+    private static double[] time(GurobiModel model, SolverParameters parameters, int repeats, double objective) throws SolverException {
+        model.setParameters(parameters);
+        double[] times = new double[repeats];
+        for (int run = -1; run < repeats; run++) {
+            // without reset() the next solve would start from the optimal basis
+            model.reset();
+            long start = System.nanoTime();
+            model.optimize();
+            long elapsed = System.nanoTime() - start;
+            if (model.getStatus() != LpModel.OPTIMAL)
+                return null;
+            if (run >= 0)
+                times[run] = elapsed / 1e6;
+        }
+        if (!Double.isNaN(objective) && Math.abs(model.getObjVal() - objective) > 1e-6 * (1 + Math.abs(objective)))
+            return null;
+        try {
+            model.getVBasis();
+        } catch (SolverException e) {
+            return null;
+        }
+        return times;
+    }
+
+    // index in "grid" of the winner of the class, 0 for the baseline; prints the comparison
+    private static int choose(String name, SizeClass sizeClass, List<SolverParameters> grid, double threshold) {
+        System.out.printf("%n%s (%d instances)%n%-45s %10s %12s%n", name, sizeClass.instances, "parameters", "speedup", "p");
+        double[] baseline = sizeClass.samples(0);
+        int winner = 0;
+        for (int c = 1; c < grid.size(); c++) {
+            if (sizeClass.discarded[c]) {
+                System.out.printf("%-45s %10s %12s%n", grid.get(c), "-", "-");
+                continue;
+            }
+            sizeClass.p[c] = mannWhitney(sizeClass.samples(c), baseline);
+            double mean = sizeClass.geometricMean(c);
+            System.out.printf(Locale.ROOT, "%-45s %10.2f %12.2g%n", grid.get(c), 1 / mean, sizeClass.p[c]);
+            if (sizeClass.p[c] < threshold && mean < 1 && (winner == 0 || mean < sizeClass.geometricMean(winner)))
+                winner = c;
+        }
+        return winner;
+    }
+
+    /**
+     * p-value of the one-sided Mann-Whitney U test that "candidate" tends to be smaller than "baseline", normal
+     * approximation with continuity and tie corrections.
+     */
+    static double mannWhitney(double[] candidate, double[] baseline) {
+        int n1 = candidate.length, n2 = baseline.length, n = n1 + n2;
+        double[] values = new double[n];
+        System.arraycopy(candidate, 0, values, 0, n1);
+        System.arraycopy(baseline, 0, values, n1, n2);
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++)
+            order[i] = i;
+        Arrays.sort(order, Comparator.comparingDouble(i -> values[i]));
+
+        // average ranks of the ties, rank sum of the candidate
+        double rankSum = 0, ties = 0;
+        for (int first = 0; first < n; ) {
+            int last = first;
+            while (last + 1 < n && values[order[last + 1]] == values[order[first]])
+                last++;
+            double rank = (first + last) / 2.0 + 1, t = last - first + 1;
+            for (int i = first; i <= last; i++)
+                if (order[i] < n1)
+                    rankSum += rank;
+            ties += t * t * t - t;
+            first = last + 1;
+        }
+
+        double u = rankSum - n1 * (n1 + 1) / 2.0, mean = n1 * (double) n2 / 2;
+        double variance = n1 * (double) n2 / 12 * (n + 1 - ties / ((double) n * (n - 1)));
+        if (variance <= 0)
+            return 1;
+        return normal((u - mean + 0.5) / Math.sqrt(variance));
+    }
+
+    // standard normal distribution function, from erfc with fractional error below 1.2e-7 (Numerical Recipes)
+    private static double normal(double z) {
+        double x = Math.abs(z) / Math.sqrt(2), t = 1 / (1 + 0.5 * x);
+        double erfc = t * Math.exp(-x * x - 1.26551223 + t * (1.00002368 + t * (0.37409196 + t * (0.09678418
+                + t * (-0.18628806 + t * (0.27886807 + t * (-1.13520398 + t * (1.48851587 + t * (-0.82215223
+                + t * 0.17087277)))))))));
+        return z >= 0 ? 1 - erfc / 2 : erfc / 2;
+    }
+
+    private static double median(double[] times) {
+        double[] sorted = times.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    // normalized times of every configuration on the instances of a size class
+    private static final class SizeClass {
+        private int instances;
+        private final List<List<Double>> samples = new ArrayList<>();
+        private final boolean[] discarded;
+        private final double[] p;
+
+        private SizeClass(int configurations) {
+            for (int c = 0; c < configurations; c++)
+                samples.add(new ArrayList<>());
+            discarded = new boolean[configurations];
+            p = new double[configurations];
+        }
+
+        // times of configuration "c" on one instance, divided by the median time of the baseline on it
+        private void add(int c, double[] times, double reference) {
+            for (double time : times)
+                samples.get(c).add(time / reference);
+        }
+
+        private double[] samples(int c) {
+            return samples.get(c).stream().mapToDouble(Double::doubleValue).toArray();
+        }
+
+        private double geometricMean(int c) {
+            return Math.exp(samples.get(c).stream().mapToDouble(Math::log).average().orElse(0));
+        }
+    }
+}
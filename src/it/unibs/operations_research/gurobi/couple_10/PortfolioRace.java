@@ -0,0 +1,314 @@
+package it.unibs.operations_research.gurobi.couple_10;
+
+import it.unibs.operations_research.gurobi.couple_10.instance.Instance;
+import it.unibs.operations_research.gurobi.couple_10.instance.InstanceReader;
+import it.unibs.operations_research.gurobi.couple_10.logging.RunLog;
+import it.unibs.operations_research.gurobi.couple_10.report.ReportWriter;
+import it.unibs.operations_research.gurobi.couple_10.solver.*;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Races several strategies for the planning model of the same instance, each on its own backend (a Gurobi
+ * environment of its own) and thread: the first one that proves an optimum wins, the others are stopped with
+ * terminate() and the result of the winner is returned. The latency of the race is about the one of the fastest
+ * strategy on each instance, whichever it is.
+ *
+ * Strategies ({@link Variant}): primal simplex as in setParameters, dual simplex and barrier (with crossover) on the
+ * model of ModelBuilder.build, primal simplex on the split formulation of ModelBuilder.buildSplit. The pure-Java
+ * simplex has only the primal method: with "--solver=simplex" the race is between the two formulations.
+ * The cores are shared, every Gurobi strategy gets Threads = cores / strategies (at least 1).
+ *
+ * With "--single=true" every strategy is also solved alone, with all the cores, to compare its time with the race;
+ * every strategy is solved once more before, untimed, so that the race does not pay alone for the cold JVM.
+ *
+ * Usage: PortfolioRace [--solver=gurobi|simplex] [--instance=<path>] [--variants=primal,dual,barrier,split]
+ *                      [--single=false] [--report=<path>] [--report-format=text|csv|jsonl] [--log-dir=logs]
+ */
+public class PortfolioRace {
+    public enum Variant {
+        PRIMAL(0, false), DUAL(1, false), BARRIER(2, false), SPLIT(0, true);
+
+        // Gurobi Method, on the model of build() or of buildSplit()
+        private final int method;
+        private final boolean split;
+
+        Variant(int method, boolean split) {
+            this.method = method;
+            this.split = split;
+        }
+
+        // the pure-Java simplex runs the primal simplex only
+        public boolean needsGurobi() {
+            return method != 0;
+        }
+    }
+
+    private final Instance instance;
+    private final List<Variant> variants;
+    private final List<LpBackend> backends;
+    private final int threads;
+    // the model of every strategy while it can be terminated, guarded by itself
+    private final LpModel[] models;
+    private volatile boolean cancelled;
+
+    /**
+     * "backends" holds one backend for each variant, Gurobi environments with the parameters of setParameters;
+     * "threads" is the Threads parameter of every Gurobi model.
+     */
+    public PortfolioRace(Instance instance, List<Variant> variants, List<LpBackend> backends, int threads) {
+        if (variants.isEmpty() || variants.size() != backends.size())
+            throw new IllegalArgumentException("a backend is required for each of the " + variants.size() + " variants");
+        this.instance = instance;
+        this.variants = variants;
+        this.backends = backends;
+        this.threads = threads;
+        models = new LpModel[variants.size()];
+    }
+
+    public static void main(String[] args) throws SolverException, IOException, InterruptedException {
+        try (RunLog log = RunLog.open(Paths.get(Gurobi.option(args, "log-dir", "logs")), "PortfolioRace")) {
+            run(args, log);
+        }
+    }
+
+    private static void run(String[] args, RunLog log) throws SolverException, IOException, InterruptedException {
+        String path = Gurobi.option(args, "instance", "data/couple_10.csv");
+        Instance instance = InstanceReader.read(Paths.get(path));
+        log.parameter("Instance", path);
+        String solver = Gurobi.option(args, "solver", "gurobi");
+        log.parameter("Solver", solver);
+        boolean single = Boolean.parseBoolean(Gurobi.option(args, "single", "false"));
+
+        List<Variant> variants = new ArrayList<>();
+        for (String name : Gurobi.option(args, "variants", "primal,dual,barrier,split").split(",")) {
+            Variant variant = Variant.valueOf(name.trim().toUpperCase());
+            if (solver.equals("simplex") && variant.needsGurobi())
+                log.line("Variant " + name + " skipped, it requires Gurobi");
+            else
+                variants.add(variant);
+        }
+        int cores = Runtime.getRuntime().availableProcessors();
+        List<LpBackend> backends = new ArrayList<>();
+        Result race;
+        double[] singleTimes = new double[variants.size()];
+        try {
+            for (int v = 0; v < variants.size(); v++)
+                backends.add(createBackend(solver));
+            log.parameter("Threads", Math.max(1, cores / variants.size()));
+
+            if (single) {
+                // warm-up: class loading and JIT of building and solving every strategy, before any time is taken
+                for (int v = 0; v < variants.size(); v++)
+                    new PortfolioRace(instance, List.of(variants.get(v)), List.of(backends.get(v)), cores).race();
+            }
+            race = new PortfolioRace(instance, variants, backends, Math.max(1, cores / variants.size())).race();
+            if (single) {
+                for (int v = 0; v < variants.size(); v++)
+                    singleTimes[v] = new PortfolioRace(instance, List.of(variants.get(v)), List.of(backends.get(v)), cores).race().time;
+            }
+        } finally {
+            // every backend is released, also when the race or another dispose failed
+            dispose(backends, 0);
+        }
+
+        try (ReportWriter report = ReportWriter.open(Gurobi.option(args, "report-format", "text"), Gurobi.option(args, "report", null))) {
+            report.header("GRUPPO 10", "Componenti: Baresi, El Koudri");
+            report.beginQuestion("PR", "CORSA DI CONFIGURAZIONI");
+            report.value("status", "stato", race.getStatus());
+            report.value("objective", "funzione obiettivo", race.objVal);
+            report.value("time", "tempo della corsa (ms)", race.time);
+            report.beginList("winner", "configurazione vincente");
+            if (race.winner != null)
+                report.item(race.winner.name().toLowerCase());
+            report.endList();
+            report.beginList("variant_status", "stato di ogni configurazione");
+            for (int v = 0; v < variants.size(); v++)
+                report.item(variants.get(v).name().toLowerCase(), (long) race.statuses[v]);
+            report.endList();
+            if (single) {
+                report.beginList("single_time", "tempo di ogni configurazione da sola (ms)");
+                for (int v = 0; v < variants.size(); v++)
+                    report.item(variants.get(v).name().toLowerCase(), singleTimes[v]);
+                report.endList();
+            }
+            if (race.winner != null) {
+                report.beginSolution("plan", "soluzione della configurazione vincente");
+                for (int c = 0; c < race.x.length; c++)
+                    report.variable("x_" + (c / instance.k() + 1) + "_" + (c % instance.k() + 1), race.x[c]);
+            }
+            report.endQuestion();
+        }
+    }
+
+    // a backend of its own for every strategy, without log: the strategies run at the same time
+    static LpBackend createBackend(String solver) throws SolverException {
+        if (solver.equals("simplex"))
+            return new SimplexBackend();
+        return GurobiBackend.create("", SolverParameters.DEFAULT);
+    }
+
+    /**
+     * Runs the race, see the class comment. When no strategy proves an optimum the result has no winner and the
+     * status of the last strategy; a failure is thrown only when every strategy failed.
+     */
+    public Result race() throws SolverException, InterruptedException {
+        int count = variants.size();
+        ExecutorService executor = Executors.newFixedThreadPool(count, runnable -> {
+            Thread thread = new Thread(runnable, "portfolio-race");
+            thread.setDaemon(true);
+            return thread;
+        });
+        CompletionService<Result> completion = new ExecutorCompletionService<>(executor);
+        List<Future<Result>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int v = 0; v < count; v++) {
+            int variant = v;
+            futures.add(completion.submit(() -> solve(variant, start)));
+        }
+
+        Result result = new Result(count);
+        for (int finished = 0; finished < count && result.winner == null; finished++) {
+            try {
+                Result outcome = completion.take().get();
+                if (outcome.status == LpModel.OPTIMAL) {
+                    result.winner = outcome.winner;
+                    result.objVal = outcome.objVal;
+                    result.x = outcome.x;
+                    result.time = outcome.time;
+                }
+            } catch (ExecutionException e) {
+                // another strategy can still win
+            }
+        }
+
+        // a model may not be optimizing yet when it is terminated: ask again until its thread returns
+        cancelled = true;
+        SolverException failure = null;
+        int failures = 0;
+        for (int v = 0; v < count; v++) {
+            Future<Result> future = futures.get(v);
+            while (!future.isDone()) {
+                synchronized (models) {
+                    if (models[v] != null)
+                        models[v].terminate();
+                }
+                try {
+                    future.get(1, TimeUnit.MILLISECONDS);
+                } catch (ExecutionException | TimeoutException e) {
+                    // checked below, once the thread has returned
+                }
+            }
+            try {
+                result.statuses[v] = future.get().status;
+                if (result.winner == null)
+                    result.status = result.statuses[v];
+            } catch (ExecutionException e) {
+                failures++;
+                if (failure == null)
+                    failure = e.getCause() instanceof SolverException ? (SolverException) e.getCause()
+                            : new SolverException("strategy " + variants.get(v) + " failed", e.getCause());
+            }
+        }
+        executor.shutdown();
+
+        if (failures == count)
+            throw failure;
+        if (result.winner != null)
+            result.status = LpModel.OPTIMAL;
+        return result;
+    }
+
+    // disposes backends from "from" on, each one also when a previous dispose() threw
+    private static void dispose(List<LpBackend> backends, int from) throws SolverException {
+        if (from == backends.size())
+            return;
+        try {
+            backends.get(from).dispose();
+        } finally {
+            dispose(backends, from + 1);
+        }
+    }
+
+    // the strategy "v" alone; the winner of its result is the strategy itself
+    private Result solve(int v, long start) throws SolverException {
+        Variant variant = variants.get(v);
+        LpModel model = variant.split ? ModelBuilder.buildSplit(backends.get(v), instance, false)
+                : ModelBuilder.build(backends.get(v), instance, false, false);
+        try {
+            // ignored by the pure-Java simplex
+            model.setParameters(new SolverParameters(variant.method, SolverParameters.DEFAULT.presolve(), threads, -1));
+            model.update();
+            synchronized (models) {
+                models[v] = model;
+            }
+
+            Result result = new Result(1);
+            result.winner = variant;
+            if (!cancelled)
+                model.optimize();
+            result.status = model.getStatus();
+            result.time = (System.nanoTime() - start) / 1e6;
+            if (result.status == LpModel.OPTIMAL) {
+                result.objVal = model.getObjVal();
+                // x_ij have the same indices in both formulations
+                double[] x = model.getX();
+                result.x = new double[instance.m() * instance.k()];
+                System.arraycopy(x, 0, result.x, 0, result.x.length);
+            }
+            return result;
+        } finally {
+            // unpublished before it is disposed, no terminate() reaches a disposed model
+            synchronized (models) {
+                models[v] = null;
+            }
+            model.dispose();
+        }
+    }
+
+    public static final class Result {
+        private Variant winner;
+        private int status = LpModel.LOADED;
+        private double objVal = Double.NaN, time;
+        private double[] x;
+        // status of every strategy, INTERRUPTED for the ones stopped, LOADED for the ones stopped before optimize()
+        private final int[] statuses;
+
+        private Result(int variants) {
+            statuses = new int[variants];
+            Arrays.fill(statuses, LpModel.LOADED);
+        }
+
+        // null when no strategy proved an optimum
+        public Variant getWinner() {
+            return winner;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        public double getObjVal() {
+            return objVal;
+        }
+
+        // ms from the start of the race to the optimum of the winner, building the models included
+        public double getTime() {
+            return time;
+        }
+
+        // x_ij at i*K + j
+        public double[] getX() {
+            return x;
+        }
+
+        public int[] getStatuses() {
+            return statuses;
+        }
+    }
+}
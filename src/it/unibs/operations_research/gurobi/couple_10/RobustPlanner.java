@@ -0,0 +1,170 @@
+package it.unibs.operations_research.gurobi.couple_10;
+
+import it.unibs.operations_research.gurobi.couple_10.instance.Instance;
+import it.unibs.operations_research.gurobi.couple_10.instance.InstanceReader;
+import it.unibs.operations_research.gurobi.couple_10.logging.RunLog;
+import it.unibs.operations_research.gurobi.couple_10.report.ReportWriter;
+import it.unibs.operations_research.gurobi.couple_10.solver.*;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ * Plans whose coverage holds when the spectators P_ij are lower than estimated: at most Γ of them fall by their
+ * deviation D_ij (section D of the instance, or "--deviation" times P_ij when the instance has none), see
+ * ModelBuilder.addRobustCoverage.
+ *
+ * For the nominal model and for every Γ of the range the report shows objective, coverage in the worst case of
+ * its own Γ (the guarantee of the plan, at least S when it is optimal) and in the worst case of the largest Γ of the
+ * range (to compare the plans), solve time (median of "--repeats" solves from scratch) and simplex iterations:
+ * Γ = 0 is the nominal model with the extra rows, a large Γ protects against every cell at once.
+ *
+ * Usage: RobustPlanner [--solver=gurobi|simplex] [--instance=<path>] [--gamma=0:8:1] [--deviation=0.1]
+ *                      [--repeats=5] [--report=<path>] [--report-format=text|csv|jsonl] [--log-dir=logs]
+ */
+public class RobustPlanner {
+    public static void main(String[] args) throws SolverException, IOException {
+        try (RunLog log = RunLog.open(Paths.get(Gurobi.option(args, "log-dir", "logs")), "RobustPlanner")) {
+            run(args, log);
+        }
+    }
+
+    private static void run(String[] args, RunLog log) throws SolverException, IOException {
+        String path = Gurobi.option(args, "instance", "data/couple_10.csv");
+        Instance instance = InstanceReader.read(Paths.get(path));
+        log.parameter("Instance", path);
+        double[] gammas = ScenarioSweep.range(Gurobi.option(args, "gamma", "0:8:1"));
+        int[] deviations = deviations(instance, Double.parseDouble(Gurobi.option(args, "deviation", "0.1")));
+        int repeats = Integer.parseInt(Gurobi.option(args, "repeats", "5"));
+        if (repeats < 1)
+            throw new IllegalArgumentException("--repeats must be positive (repeats = " + repeats + ")");
+        LpBackend backend = Gurobi.createBackend(Gurobi.option(args, "solver", "gurobi"), log);
+
+        try {
+            // Γ = NaN is the nominal model
+            double[] rows = new double[gammas.length + 1];
+            rows[0] = Double.NaN;
+            System.arraycopy(gammas, 0, rows, 1, gammas.length);
+            Solve[] solves = new Solve[rows.length];
+            for (int r = 0; r < rows.length; r++)
+                solves[r] = solve(backend, instance, deviations, rows[r], gammas[gammas.length - 1], repeats);
+
+            try (ReportWriter report = ReportWriter.open(Gurobi.option(args, "report-format", "text"), Gurobi.option(args, "report", null))) {
+                report.header("GRUPPO 10", "Componenti: Baresi, El Koudri");
+                report.beginQuestion("ROB", "COPERTURA ROBUSTA");
+                report.value("coverage", "copertura richiesta S", instance.coverage());
+                report.value("uncertain_cells", "celle con deviazione", Arrays.stream(deviations).filter(d -> d > 0).count());
+                report.beginList("status", "stato");
+                for (int r = 0; r < rows.length; r++)
+                    report.item(label(rows[r]), solves[r].status);
+                report.endList();
+                report.beginList("objective", "funzione obiettivo");
+                for (int r = 0; r < rows.length; r++)
+                    report.item(label(rows[r]), solves[r].objVal);
+                report.endList();
+                report.beginList("nominal_coverage", "copertura stimata");
+                for (int r = 0; r < rows.length; r++)
+                    report.item(label(rows[r]), solves[r].coverage);
+                report.endList();
+                report.beginList("worst_case_coverage", "copertura nel caso peggiore del proprio Γ");
+                for (int r = 0; r < rows.length; r++)
+                    report.item(label(rows[r]), solves[r].worstCase);
+                report.endList();
+                report.beginList("max_gamma_worst_case_coverage", "copertura nel caso peggiore con Γ = " + gammas[gammas.length - 1]);
+                for (int r = 0; r < rows.length; r++)
+                    report.item(label(rows[r]), solves[r].maxGammaWorstCase);
+                report.endList();
+                report.beginList("solve_time", "tempo di soluzione, mediana (ms)");
+                for (int r = 0; r < rows.length; r++)
+                    report.item(label(rows[r]), solves[r].time);
+                report.endList();
+                report.beginList("iterations", "iterazioni");
+                for (int r = 0; r < rows.length; r++)
+                    report.item(label(rows[r]), solves[r].iterations);
+                report.endList();
+                report.endQuestion();
+            }
+        } finally {
+            // Release the resources associated with the backend, also when a solve or the report failed
+            backend.dispose();
+        }
+    }
+
+    // D_ij of the instance, otherwise "fraction" of P_ij
+    public static int[] deviations(Instance instance, double fraction) {
+        if (instance.deviations() != null)
+            return instance.deviations();
+        int[] spectators = instance.spectators(), deviations = new int[spectators.length];
+        for (int c = 0; c < spectators.length; c++)
+            deviations[c] = (int) Math.round(fraction * spectators[c]);
+        return deviations;
+    }
+
+    /**
+     * Spectators of plan "x" when the Γ cells that lose the most fall by their deviation (the last one by the
+     * fractional part of Γ).
+     */
+    public static double worstCaseCoverage(Instance instance, double[] x, int[] deviations, double gamma) {
+        int mk = instance.m() * instance.k();
+        int[] spectators = instance.spectators();
+        double coverage = 0;
+        double[] losses = new double[mk];
+        for (int c = 0; c < mk; c++) {
+            coverage += spectators[c] * x[c];
+            losses[c] = deviations[c] * x[c];
+        }
+        Arrays.sort(losses);
+        int whole = (int) Math.min(Math.floor(gamma), mk);
+        for (int t = 0; t < whole; t++)
+            coverage -= losses[mk - 1 - t];
+        if (whole < mk)
+            coverage -= (gamma - whole) * losses[mk - 1 - whole];
+        return coverage;
+    }
+
+    // "gamma" == NaN solves the nominal model (Γ = 0), every plan is also measured against the worst case of "maxGamma"
+    private static Solve solve(LpBackend backend, Instance instance, int[] deviations, double gamma, double maxGamma,
+                               int repeats) throws SolverException {
+        LpModel model = ModelBuilder.build(backend, instance, false, true);
+        try {
+            if (!Double.isNaN(gamma))
+                ModelBuilder.addRobustCoverage(model, instance, deviations, gamma, true);
+            model.update();
+
+            double[] times = new double[repeats];
+            for (int r = 0; r < repeats; r++) {
+                // every solve from scratch, as the first one
+                model.reset();
+                long start = System.nanoTime();
+                model.optimize();
+                times[r] = (System.nanoTime() - start) / 1e6;
+            }
+            Arrays.sort(times);
+
+            Solve solve = new Solve();
+            solve.status = model.getStatus();
+            solve.iterations = model.getIterCount();
+            solve.time = times[repeats / 2];
+            if (solve.status == LpModel.OPTIMAL) {
+                double[] x = model.getX();
+                solve.objVal = model.getObjVal();
+                solve.coverage = worstCaseCoverage(instance, x, deviations, 0);
+                solve.worstCase = worstCaseCoverage(instance, x, deviations, Double.isNaN(gamma) ? 0 : gamma);
+                solve.maxGammaWorstCase = worstCaseCoverage(instance, x, deviations, maxGamma);
+            }
+            return solve;
+        } finally {
+            model.dispose();
+        }
+    }
+
+    private static String label(double gamma) {
+        return Double.isNaN(gamma) ? "nominale" : "Γ = " + gamma;
+    }
+
+    private static final class Solve {
+        int status;
+        double objVal = Double.NaN, coverage = Double.NaN, worstCase = Double.NaN, maxGammaWorstCase = Double.NaN, time, iterations;
+    }
+}
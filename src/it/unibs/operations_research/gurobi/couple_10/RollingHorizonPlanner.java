@@ -0,0 +1,229 @@
+package it.unibs.operations_research.gurobi.couple_10;
+
+import it.unibs.operations_research.gurobi.couple_10.instance.Instance;
+import it.unibs.operations_research.gurobi.couple_10.instance.InstanceReader;
+import it.unibs.operations_research.gurobi.couple_10.logging.RunLog;
+import it.unibs.operations_research.gurobi.couple_10.report.ReportWriter;
+import it.unibs.operations_research.gurobi.couple_10.solver.*;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * Plans "--days" days of K slots each, the instance describing a single day: day d must reach the coverage
+ * S * profile[d mod length] ("--profile", e.g. a week "1,1,1,1,1.02,0.95,0.9"), while the budget β_i of each
+ * station is a daily average that can be moved between days, i.e. the station spends at most days * β_i.
+ *
+ * Rolling horizon: the model of ModelBuilder.buildDays covers a window of "--window" days, it is solved, its first
+ * day is committed and the window moves forward by one day. The window model is never rebuilt: the day blocks
+ * are reused in turn, the block of the committed day becomes the last day of the next window, so only its
+ * spectators row and the M station rows change their right-hand side and every solve starts from the basis of
+ * the previous one. The station rows of the window starting at day t allow (t + window) * β_i minus what the
+ * committed days already spent, the days after the window keep their β_i. The last window commits all its days.
+ *
+ * With "--full=true" (default) the whole horizon is also solved at once, the report compares time, iterations and
+ * objective of the two plans.
+ *
+ * Usage: RollingHorizonPlanner [--solver=gurobi|simplex] [--instance=<path>] [--days=30] [--window=7]
+ *                              [--profile=1] [--full=true] [--report=<path>] [--report-format=text|csv|jsonl]
+ *                              [--log-dir=logs]
+ */
+public class RollingHorizonPlanner {
+    public static void main(String[] args) throws SolverException, IOException {
+        try (RunLog log = RunLog.open(Paths.get(Gurobi.option(args, "log-dir", "logs")), "RollingHorizonPlanner")) {
+            run(args, log);
+        }
+    }
+
+    private static void run(String[] args, RunLog log) throws SolverException, IOException {
+        String path = Gurobi.option(args, "instance", "data/couple_10.csv");
+        Instance instance = InstanceReader.read(Paths.get(path));
+        log.parameter("Instance", path);
+        int days = Integer.parseInt(Gurobi.option(args, "days", "30"));
+        int window = Math.min(days, Integer.parseInt(Gurobi.option(args, "window", "7")));
+        double[] coverages = coverages(instance, days, Gurobi.option(args, "profile", "1"));
+        boolean full = Boolean.parseBoolean(Gurobi.option(args, "full", "true"));
+        LpBackend backend = Gurobi.createBackend(Gurobi.option(args, "solver", "gurobi"), log);
+
+        try {
+            Plan rolling = rolling(backend, instance, coverages, window);
+            Plan whole = full ? full(backend, instance, coverages) : null;
+
+            try (ReportWriter report = ReportWriter.open(Gurobi.option(args, "report-format", "text"), Gurobi.option(args, "report", null))) {
+                report.header("GRUPPO 10", "Componenti: Baresi, El Koudri");
+                report.beginQuestion("RH", "PIANIFICAZIONE SU PIÙ GIORNI");
+                report.value("days", "giorni", days);
+                report.value("window", "giorni della finestra", window);
+                report.value("status", "stato", rolling.status);
+                report.value("objective", "funzione obiettivo", rolling.objective);
+                report.value("solves", "finestre risolte", rolling.solves);
+                report.value("iterations", "iterazioni", rolling.iterations);
+                report.value("time", "tempo (ms)", rolling.time);
+                if (whole != null) {
+                    report.value("full_status", "stato dell'orizzonte intero", whole.status);
+                    report.value("full_objective", "funzione obiettivo dell'orizzonte intero", whole.objective);
+                    report.value("full_iterations", "iterazioni dell'orizzonte intero", whole.iterations);
+                    report.value("full_time", "tempo dell'orizzonte intero (ms)", whole.time);
+                }
+                report.beginList("day_objective", "aux di ogni giorno");
+                for (int d = 0; d < rolling.committed; d++)
+                    report.item(Integer.toString(d + 1), rolling.dayObjective[d]);
+                report.endList();
+                report.beginList("day_coverage", "spettatori di ogni giorno");
+                for (int d = 0; d < rolling.committed; d++)
+                    report.item(Integer.toString(d + 1), rolling.dayCoverage[d]);
+                report.endList();
+                report.beginList("spent", "spesa di ogni emittente sull'orizzonte");
+                for (int i = 0; i < instance.m(); i++)
+                    report.item(Integer.toString(i + 1), rolling.spent[i]);
+                report.endList();
+                report.endQuestion();
+            }
+        } finally {
+            // Release the resources associated with the backend, also when a solve or the report failed
+            backend.dispose();
+        }
+    }
+
+    // S of every day, the factors of "profile" (comma separated) repeat over the days
+    static double[] coverages(Instance instance, int days, String profile) {
+        String[] factors = profile.split(",");
+        double[] coverages = new double[days];
+        for (int d = 0; d < days; d++)
+            coverages[d] = instance.coverage() * Double.parseDouble(factors[d % factors.length].trim());
+        return coverages;
+    }
+
+    /**
+     * Rolling-horizon plan of coverages.length days with windows of "window" days, see the class comment.
+     * When a window has no optimal solution the plan stops there: "committed" tells how many days it covers.
+     */
+    public static Plan rolling(LpBackend backend, Instance instance, double[] coverages, int window) throws SolverException {
+        int m = instance.m(), k = instance.k(), days = coverages.length;
+        Plan plan = new Plan(instance, days);
+        long start = System.nanoTime();
+
+        double[] budgets = new double[m];
+        for (int i = 0; i < m; i++)
+            budgets[i] = (double) window * instance.budget(i);
+        // block b holds the day d of the window with d mod window == b
+        double[] first = new double[window];
+        System.arraycopy(coverages, 0, first, 0, window);
+        LpModel model = ModelBuilder.buildDays(backend, instance, window, first, budgets, false);
+        try {
+            model.update();
+
+            for (int t = 0; t + window <= days; t++) {
+                // in-place changes only, the model starts from the basis of the previous window
+                model.optimize();
+                plan.solves++;
+                plan.iterations += model.getIterCount();
+                plan.status = model.getStatus();
+                if (plan.status != LpModel.OPTIMAL)
+                    break;
+
+                double[] x = model.getX();
+                boolean last = t + window == days;
+                for (int d = t; d < (last ? days : t + 1); d++)
+                    plan.commit(instance, d, d % window, x);
+                if (last)
+                    break;
+
+                // the block of day t becomes day t + window
+                model.setRHS(ModelBuilder.daySpectatorsConstr(instance, t % window), coverages[t + window]);
+                for (int i = 0; i < m; i++)
+                    model.setRHS(ModelBuilder.maxBudgetConstr(i), (double) (t + 1 + window) * instance.budget(i) - plan.spent[i]);
+                model.update();
+            }
+        } finally {
+            model.dispose();
+        }
+        plan.time = (System.nanoTime() - start) / 1e6;
+        return plan;
+    }
+
+    // the whole horizon in a single model, solved from scratch
+    public static Plan full(LpBackend backend, Instance instance, double[] coverages) throws SolverException {
+        int m = instance.m(), days = coverages.length;
+        Plan plan = new Plan(instance, days);
+        long start = System.nanoTime();
+
+        double[] budgets = new double[m];
+        for (int i = 0; i < m; i++)
+            budgets[i] = (double) days * instance.budget(i);
+        LpModel model = ModelBuilder.buildDays(backend, instance, days, coverages, budgets, false);
+        try {
+            model.update();
+            model.optimize();
+            plan.solves = 1;
+            plan.iterations = model.getIterCount();
+            plan.status = model.getStatus();
+            if (plan.status == LpModel.OPTIMAL) {
+                double[] x = model.getX();
+                for (int d = 0; d < days; d++)
+                    plan.commit(instance, d, d, x);
+            }
+        } finally {
+            model.dispose();
+        }
+        plan.time = (System.nanoTime() - start) / 1e6;
+        return plan;
+    }
+
+    public static final class Plan {
+        // status of the last solve, the plan covers days 0 .. committed - 1
+        private int status = LpModel.LOADED, committed, solves;
+        private double objective, iterations, time;
+        private final double[] dayObjective, dayCoverage, spent;
+        // x_ijd at d*M*K + i*K + j
+        private final double[] x;
+
+        private Plan(Instance instance, int days) {
+            dayObjective = new double[days];
+            dayCoverage = new double[days];
+            spent = new double[instance.m()];
+            x = new double[days * instance.m() * instance.k()];
+        }
+
+        // day "day" is block "block" of the values "values" of a buildDays model
+        private void commit(Instance instance, int day, int block, double[] values) {
+            int m = instance.m(), k = instance.k(), mk = m * k;
+            int[] costs = instance.costs(), spectators = instance.spectators();
+            for (int c = 0; c < mk; c++) {
+                double value = values[ModelBuilder.dayX(instance, block, c / k, c % k)];
+                x[day * mk + c] = value;
+                spent[c / k] += costs[c] * value;
+                dayCoverage[day] += spectators[c] * value;
+            }
+            dayObjective[day] = values[ModelBuilder.dayAux(instance, block)];
+            objective += dayObjective[day];
+            committed = day + 1;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        public int getCommitted() {
+            return committed;
+        }
+
+        // sum of the aux of the committed days
+        public double getObjective() {
+            return objective;
+        }
+
+        public double getIterations() {
+            return iterations;
+        }
+
+        // ms, building the models included
+        public double getTime() {
+            return time;
+        }
+
+        public double[] getX() {
+            return x;
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package it.unibs.operations_research.gurobi.couple_10;
+
+import it.unibs.operations_research.gurobi.couple_10.instance.Instance;
+import it.unibs.operations_research.gurobi.couple_10.instance.InstanceReader;
+import it.unibs.operations_research.gurobi.couple_10.solver.*;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * What-if analysis over a grid of scenarios: coverage target S, Ω and a factor applied to every budget β_i.
+ *
+ * The grid is visited in "snake" order, so consecutive scenarios differ in a single value, and it is cut in
+ * contiguous chunks. A bounded pool of workers takes the chunks one at a time; each worker owns its environment
+ * and one model, whose right-hand sides are changed in place, so every scenario warm-starts from the previous one.
+ * Workers share nothing but the chunk counter and the result table.
+ *
+ * Usage: ScenarioSweep [--solver=gurobi|simplex] [--instance=<path>] [--coverage=60000:120000:5000]
+ *                      [--omega=0.01:0.05:0.005] [--budget=0.8:1.2:0.1] [--workers=<cores>]
+ */
+public class ScenarioSweep {
+    // chunks for each worker, more chunks balance the load better but start from a farther basis more often
+    private static final int CHUNKS_PER_WORKER = 4;
+
+    private final Instance instance;
+    private final String solver;
+    private final int workers;
+
+    public ScenarioSweep(Instance instance, String solver, int workers) {
+        this.instance = instance;
+        this.solver = solver;
+        this.workers = workers;
+    }
+
+    public static void main(String[] args) throws IOException, SolverException, InterruptedException {
+        Instance instance = InstanceReader.read(Paths.get(Gurobi.option(args, "instance", "data/couple_10.csv")));
+        double[] coverages = range(Gurobi.option(args, "coverage", "60000:120000:5000"));
+        double[] omegas = range(Gurobi.option(args, "omega", "0.01:0.05:0.005"));
+        double[] factors = range(Gurobi.option(args, "budget", "0.8:1.2:0.1"));
+        int workers = Integer.parseInt(Gurobi.option(args, "workers", Integer.toString(Runtime.getRuntime().availableProcessors())));
+
+        ScenarioSweep sweep = new ScenarioSweep(instance, Gurobi.option(args, "solver", "gurobi"), workers);
+        long start = System.nanoTime();
+        Result[] results = sweep.run(coverages, omegas, factors);
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%10s %7s %7s %7s %14s %14s %14s %10s%n",
+                "S", "Omega", "budget", "status", "objective", "coverage", "unused budget", "time (ms)");
+        for (Result result : results)
+            System.out.println(result);
+        System.out.printf("%d scenarios, %d workers, %.2f s (%.1f scenarios/s)%n",
+                results.length, workers, elapsed, results.length / elapsed);
+    }
+
+    // "from:to:step", both ends included
+    static double[] range(String spec) {
+        String[] parts = spec.split(":");
+        double from = Double.parseDouble(parts[0]);
+        if (parts.length == 1)
+            return new double[]{from};
+        double to = Double.parseDouble(parts[1]), step = Double.parseDouble(parts[2]);
+        int count = (int) Math.floor((to - from) / step + 1e-9) + 1;
+        double[] values = new double[count];
+        for (int v = 0; v < count; v++)
+            values[v] = from + v * step;
+        return values;
+    }
+
+    /**
+     * Solves every combination of the given values, the results are ordered by budget factor, Ω and S.
+     */
+    public Result[] run(double[] coverages, double[] omegas, double[] factors) throws SolverException, InterruptedException {
+        int nS = coverages.length, nO = omegas.length, nB = factors.length;
+
+        // snake order: S goes back and forth along each line, Ω back and forth along each budget factor
+        int[] order = new int[nS * nO * nB];
+        int line = 0, next = 0;
+        for (int b = 0; b < nB; b++) {
+            for (int oi = 0; oi < nO; oi++, line++) {
+                int o = b % 2 == 0 ? oi : nO - 1 - oi;
+                for (int si = 0; si < nS; si++) {
+                    int s = line % 2 == 0 ? si : nS - 1 - si;
+                    order[next++] = (b * nO + o) * nS + s;
+                }
+            }
+        }
+
+        Result[] results = new Result[order.length];
+        int chunkSize = Math.max(1, order.length / (workers * CHUNKS_PER_WORKER));
+        int chunks = (order.length + chunkSize - 1) / chunkSize;
+        AtomicInteger nextChunk = new AtomicInteger();
+
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        List<Future<Void>> futures = new ArrayList<>();
+        for (int w = 0; w < workers; w++) {
+            futures.add(pool.submit(() -> {
+                LpBackend backend = null;
+                IncrementalSession session = null;
+                try {
+                    backend = createBackend();
+                    int chunk;
+                    while ((chunk = nextChunk.getAndIncrement()) < chunks) {
+                        if (session == null)
+                            session = new IncrementalSession(backend, instance, false);
+                        int end = Math.min(order.length, (chunk + 1) * chunkSize);
+                        for (int p = chunk * chunkSize; p < end; p++) {
+                            int index = order[p];
+                            results[index] = solve(session, coverages[index % nS], omegas[index / nS % nO], factors[index / (nS * nO)]);
+                        }
+                    }
+                } finally {
+                    try {
+                        if (session != null)
+                            session.dispose();
+                    } finally {
+                        if (backend != null)
+                            backend.dispose();
+                    }
+                }
+                return null;
+            }));
+        }
+        pool.shutdown();
+
+        try {
+            for (Future<Void> future : futures)
+                future.get();
+        } catch (ExecutionException e) {
+            pool.shutdownNow();
+            if (e.getCause() instanceof SolverException)
+                throw (SolverException) e.getCause();
+            throw new SolverException("scenario sweep failed", e.getCause());
+        }
+        return results;
+    }
+
+    private Result solve(IncrementalSession session, double coverage, double omega, double factor) throws SolverException {
+        session.setCoverage(coverage);
+        session.setOmega(omega);
+        session.scaleBudgets(factor);
+
+        long start = System.nanoTime();
+        IncrementalSession.Result solution = session.reoptimize();
+        double time = (System.nanoTime() - start) / 1e6;
+
+        double fullCoverage = Double.NaN, unusedBudget = Double.NaN;
+        if (solution.getStatus() == LpModel.OPTIMAL) {
+            double[] x = session.model().getX();
+            double usedBudget = 0;
+            fullCoverage = 0;
+            for (int i = 0; i < instance.m(); i++) {
+                for (int j = 0; j < instance.k(); j++) {
+                    double value = x[ModelBuilder.x(instance, i, j)];
+                    usedBudget += value * instance.cost(i, j);
+                    fullCoverage += value * instance.spectators(i, j);
+                }
+            }
+            unusedBudget = session.totalBudget() - usedBudget;
+        }
+        return new Result(coverage, omega, factor, solution.getStatus(), solution.getObjVal(), fullCoverage, unusedBudget, time);
+    }
+
+    // one environment for each worker, without any output and limited to one thread: the workers are the parallelism
+    // the flags are set before the environment starts (see GurobiBackend.create), so not even its banner is printed
+    private LpBackend createBackend() throws SolverException {
+        return Gurobi.createSilentBackend(solver, SolverParameters.DEFAULT.withThreads(1));
+    }
+
+    public static class Result {
+        private final double coverage, omega, budgetFactor;
+        private final int status;
+        private final double objVal, fullCoverage, unusedBudget, solveTime;
+
+        Result(double coverage, double omega, double budgetFactor, int status, double objVal, double fullCoverage,
+               double unusedBudget, double solveTime) {
+            this.coverage = coverage;
+            this.omega = omega;
+            this.budgetFactor = budgetFactor;
+            this.status = status;
+            this.objVal = objVal;
+            this.fullCoverage = fullCoverage;
+            this.unusedBudget = unusedBudget;
+            this.solveTime = solveTime;
+        }
+
+        public double getCoverage() {
+            return coverage;
+        }
+
+        public double getOmega() {
+            return omega;
+        }
+
+        public double getBudgetFactor() {
+            return budgetFactor;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        // the values below are NaN when the scenario has no optimal solution
+        public double getObjVal() {
+            return objVal;
+        }
+
+        public double getFullCoverage() {
+            return fullCoverage;
+        }
+
+        public double getUnusedBudget() {
+            return unusedBudget;
+        }
+
+        // milliseconds
+        public double getSolveTime() {
+            return solveTime;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%10.0f %7.4f %7.3f %7d %14.4f %14.2f %14.2f %10.2f",
+                    coverage, omega, budgetFactor, status, objVal, fullCoverage, unusedBudget, solveTime);
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package it.unibs.operations_research.gurobi.couple_10;
+
+import it.unibs.operations_research.gurobi.couple_10.instance.Instance;
+import it.unibs.operations_research.gurobi.couple_10.instance.InstanceReader;
+import it.unibs.operations_research.gurobi.couple_10.logging.RunLog;
+import it.unibs.operations_research.gurobi.couple_10.report.ReportWriter;
+import it.unibs.operations_research.gurobi.couple_10.solver.*;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Sensitivity of the optimal plan, taken from the final basis of the planning model (ModelBuilder.build): duals
+ * (Pi) and right-hand side ranges (SARHSLow/SARHSUp) of c_max_budget_i, c_min_budget_j and c_spectators, objective
+ * ranges (SAObjLow/SAObjUp) of x_ij.
+ *
+ * What-if questions are answered in O(1) while the final basis stays optimal, the objective then changes by the
+ * duals times the changes of the right-hand sides. S is the right-hand side of c_spectators alone; B_i is the one of
+ * c_max_budget_i but also a term of Ω * sum_i B_i, the right-hand side of every c_min_budget_j, so a change of B_i
+ * moves K + 1 rows together: by the 100% rule the basis stays optimal when the sum over the rows of
+ * change / allowed change (in the same direction) is at most 1. Outside the ranges the model is solved again,
+ * starting from the final basis.
+ *
+ * Usage: Sensitivity [--solver=gurobi|simplex] [--instance=<path>] [--what-if=B3+200,S=80000] [--report=<path>]
+ *                    [--report-format=text|csv|jsonl] [--log-dir=logs]
+ * A question is "B<i>+<delta>", "B<i>-<delta>", "B<i>=<value>", "S+<delta>", "S-<delta>" or "S=<value>".
+ */
+public final class Sensitivity {
+    private static final Pattern QUESTION = Pattern.compile("([BS])(\\d*)([=+-])(\\d+(?:\\.\\d*)?)");
+    // slack of the 100% rule, the ranges come with the tolerances of the solver
+    private static final double TOLERANCE = 1e-9;
+
+    private final LpBackend backend;
+    private final Instance instance;
+    private final double objVal;
+    // the M + K + 1 rows c_max_budget_i, c_min_budget_j and c_spectators
+    private final double[] rhs, pi, rhsLow, rhsUp;
+    // x_ij at i*K + j
+    private final double[] objLow, objUp;
+    private final int[] vBasis, cBasis;
+    // sum of the duals of the slot rows and sums of 1 / allowed change of the slot rows, up and down
+    private final double slotPi, slotUpInverse, slotDownInverse;
+
+    private Sensitivity(LpBackend backend, Instance instance, LpModel model) throws SolverException {
+        int m = instance.m(), k = instance.k(), rows = m + k + 1;
+        this.backend = backend;
+        this.instance = instance;
+        objVal = model.getObjVal();
+        rhs = new double[rows];
+        for (int r = 0; r < rows; r++)
+            rhs[r] = r < m ? instance.budget(r) : r < m + k ? instance.minSlotBudget() : instance.coverage();
+        pi = Arrays.copyOf(model.getPi(), rows);
+        rhsLow = Arrays.copyOf(model.getSARHSLow(), rows);
+        rhsUp = Arrays.copyOf(model.getSARHSUp(), rows);
+        objLow = Arrays.copyOf(model.getSAObjLow(), m * k);
+        objUp = Arrays.copyOf(model.getSAObjUp(), m * k);
+        vBasis = model.getVBasis();
+        cBasis = model.getCBasis();
+
+        double piSum = 0, upInverse = 0, downInverse = 0;
+        for (int j = 0; j < k; j++) {
+            int r = ModelBuilder.minBudgetConstr(instance, j);
+            piSum += pi[r];
+            upInverse += inverse(rhsUp[r] - rhs[r]);
+            downInverse += inverse(rhs[r] - rhsLow[r]);
+        }
+        slotPi = piSum;
+        slotUpInverse = upInverse;
+        slotDownInverse = downInverse;
+    }
+
+    /**
+     * Sensitivity of "model", built by ModelBuilder.build (isAuxiliary == false) for "instance" and optimal;
+     * the questions outside the ranges are solved again on "backend".
+     */
+    public static Sensitivity of(LpBackend backend, Instance instance, LpModel model) throws SolverException {
+        if (model.getStatus() != LpModel.OPTIMAL)
+            throw new SolverException("sensitivity requires an optimal model (status " + model.getStatus() + ")");
+        return new Sensitivity(backend, instance, model);
+    }
+
+    public static void main(String[] args) throws SolverException, IOException {
+        try (RunLog log = RunLog.open(Paths.get(Gurobi.option(args, "log-dir", "logs")), "Sensitivity")) {
+            run(args, log);
+        }
+    }
+
+    private static void run(String[] args, RunLog log) throws SolverException, IOException {
+        String path = Gurobi.option(args, "instance", "data/couple_10.csv");
+        Instance instance = InstanceReader.read(Paths.get(path));
+        log.parameter("Instance", path);
+        String[] questions = Gurobi.option(args, "what-if", "").split(",");
+        LpBackend backend = Gurobi.createBackend(Gurobi.option(args, "solver", "gurobi"), log);
+
+        try {
+            Sensitivity sensitivity;
+            String[] constrNames, varNames;
+            LpModel model = ModelBuilder.build(backend, instance, false, true);
+            try {
+                model.update();
+                model.optimize();
+                sensitivity = of(backend, instance, model);
+                constrNames = model.getConstrNames();
+                varNames = model.getVarNames();
+            } finally {
+                model.dispose();
+            }
+
+            Answer[] answers = new Answer[questions.length];
+            for (int q = 0; q < questions.length; q++)
+                if (!questions[q].isEmpty())
+                    answers[q] = sensitivity.answer(questions[q]);
+
+            int rows = sensitivity.rhs.length, cells = sensitivity.objLow.length;
+            try (ReportWriter report = ReportWriter.open(Gurobi.option(args, "report-format", "text"), Gurobi.option(args, "report", null))) {
+                report.header("GRUPPO 10", "Componenti: Baresi, El Koudri");
+                report.beginQuestion("SA", "ANALISI DI SENSITIVITÀ");
+                report.value("objective", "funzione obiettivo", sensitivity.objVal);
+                report.beginList("pi", "prezzi ombra");
+                for (int r = 0; r < rows; r++)
+                    report.item(constrNames[r], sensitivity.pi[r]);
+                report.endList();
+                report.beginList("rhs_low", "termine noto minimo");
+                for (int r = 0; r < rows; r++)
+                    report.item(constrNames[r], sensitivity.rhsLow[r]);
+                report.endList();
+                report.beginList("rhs_up", "termine noto massimo");
+                for (int r = 0; r < rows; r++)
+                    report.item(constrNames[r], sensitivity.rhsUp[r]);
+                report.endList();
+                report.beginList("obj_low", "coefficiente di costo minimo");
+                for (int c = 0; c < cells; c++)
+                    report.item(varNames[c], sensitivity.objLow[c]);
+                report.endList();
+                report.beginList("obj_up", "coefficiente di costo massimo");
+                for (int c = 0; c < cells; c++)
+                    report.item(varNames[c], sensitivity.objUp[c]);
+                report.endList();
+                report.beginList("what_if", "funzione obiettivo delle domande");
+                for (int q = 0; q < questions.length; q++)
+                    if (answers[q] != null)
+                        report.item(questions[q], answers[q].objVal);
+                report.endList();
+                report.beginList("resolved", "domande risolte di nuovo");
+                for (int q = 0; q < questions.length; q++)
+                    if (answers[q] != null)
+                        report.item(questions[q], answers[q].resolved ? 1 : 0);
+                report.endList();
+                report.endQuestion();
+            }
+        } finally {
+            // Release the resources associated with the backend, also when a solve or the report failed
+            backend.dispose();
+        }
+    }
+
+    // a question of the "--what-if" option, see the class comment
+    public Answer answer(String question) throws SolverException {
+        Matcher matcher = QUESTION.matcher(question.trim());
+        if (!matcher.matches())
+            throw new IllegalArgumentException("malformed question \"" + question + "\", expected e.g. B3+200 or S=80000");
+        double value = Double.parseDouble(matcher.group(4));
+        boolean budget = matcher.group(1).equals("B");
+        if (budget == matcher.group(2).isEmpty())
+            throw new IllegalArgumentException("\"" + question + "\": B needs the station (B1 .. B" + instance.m() + "), S none");
+        int i = budget ? Integer.parseInt(matcher.group(2)) - 1 : -1;
+        if (budget && (i < 0 || i >= instance.m()))
+            throw new IllegalArgumentException("\"" + question + "\": the stations are B1 .. B" + instance.m());
+
+        double current = budget ? rhs[i] : instance.coverage();
+        double delta = matcher.group(3).equals("=") ? value - current : matcher.group(3).equals("+") ? value : -value;
+        return budget ? budget(i, delta) : coverage(instance.coverage() + delta);
+    }
+
+    /**
+     * Objective when B_i changes by "delta": the station row moves by delta, every slot row by Ω * delta.
+     */
+    public Answer budget(int i, double delta) throws SolverException {
+        int m = instance.m(), k = instance.k();
+        double slotDelta = instance.omega() * delta;
+        double used = fraction(i, delta);
+        if (slotDelta != 0)
+            used += Math.abs(slotDelta) * (slotDelta > 0 ? slotUpInverse : slotDownInverse);
+        if (used <= 1 + TOLERANCE)
+            return new Answer(LpModel.OPTIMAL, objVal + pi[i] * delta + slotPi * slotDelta, false);
+
+        int[] constrs = new int[k + 1];
+        double[] values = new double[k + 1];
+        constrs[0] = ModelBuilder.maxBudgetConstr(i);
+        values[0] = rhs[i] + delta;
+        for (int j = 0; j < k; j++) {
+            constrs[j + 1] = ModelBuilder.minBudgetConstr(instance, j);
+            values[j + 1] = rhs[m + j] + slotDelta;
+        }
+        return resolve(constrs, values);
+    }
+
+    // objective when S becomes "coverage"
+    public Answer coverage(double coverage) throws SolverException {
+        return rhs(ModelBuilder.spectatorsConstr(instance), coverage);
+    }
+
+    // objective when the right-hand side of row "constr" (one of the M + K + 1 rows) becomes "value"
+    public Answer rhs(int constr, double value) throws SolverException {
+        if (fraction(constr, value - rhs[constr]) <= 1 + TOLERANCE)
+            return new Answer(LpModel.OPTIMAL, objVal + pi[constr] * (value - rhs[constr]), false);
+        return resolve(new int[]{constr}, new double[]{value});
+    }
+
+    // change "delta" of the right-hand side of row r over the allowed change in its direction
+    private double fraction(int r, double delta) {
+        if (delta == 0)
+            return 0;
+        return Math.abs(delta) * inverse(delta > 0 ? rhsUp[r] - rhs[r] : rhs[r] - rhsLow[r]);
+    }
+
+    // a row that cannot move makes any change leave the basis
+    private static double inverse(double allowed) {
+        return allowed <= 0 ? Double.POSITIVE_INFINITY : 1 / allowed;
+    }
+
+    // the model with the right-hand sides "values" of rows "constrs", from the final basis
+    private Answer resolve(int[] constrs, double[] values) throws SolverException {
+        LpModel model = ModelBuilder.build(backend, instance, false, false);
+        try {
+            for (int n = 0; n < constrs.length; n++)
+                model.setRHS(constrs[n], values[n]);
+            // Gurobi takes the basis of variables and constraints that have been added to the model
+            model.update();
+            model.setBasis(vBasis, cBasis);
+            model.optimize();
+            int status = model.getStatus();
+            return new Answer(status, status == LpModel.OPTIMAL ? model.getObjVal() : Double.NaN, true);
+        } finally {
+            model.dispose();
+        }
+    }
+
+    public double getObjVal() {
+        return objVal;
+    }
+
+    // duals and ranges of the M + K + 1 rows, by constraint index; objective ranges of x_ij at i*K + j
+    public double[] getPi() {
+        return pi;
+    }
+
+    public double[] getRHSLow() {
+        return rhsLow;
+    }
+
+    public double[] getRHSUp() {
+        return rhsUp;
+    }
+
+    public double[] getObjLow() {
+        return objLow;
+    }
+
+    public double[] getObjUp() {
+        return objUp;
+    }
+
+    public static final class Answer {
+        private final int status;
+        private final double objVal;
+        private final boolean resolved;
+
+        private Answer(int status, double objVal, boolean resolved) {
+            this.status = status;
+            this.objVal = objVal;
+            this.resolved = resolved;
+        }
+
+        // status of the solve, OPTIMAL when the answer comes from the ranges
+        public int getStatus() {
+            return status;
+        }
+
+        // NaN when the changed model has no optimal solution
+        public double getObjVal() {
+            return objVal;
+        }
+
+        // false: answered from the ranges, without solving
+        public boolean isResolved() {
+            return resolved;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package it.unibs.operations_research.gurobi.couple_10;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Sends the same instance to a SolveDaemon many times from a few concurrent clients and prints the percentiles of
+ * the request latency next to the ones of the optimize() time reported by the daemon ("X-Solve-Time"): the
+ * difference is what a request costs beyond the solve.
+ *
+ * Usage: SolveClient [--url=http://localhost:8080/solve] [--instance=data/couple_10.csv] [--requests=200]
+ *                    [--concurrency=<cores>] [--mode=separate]
+ */
+public class SolveClient {
+    public static void main(String[] args) throws IOException, InterruptedException, ExecutionException {
+        URI uri = URI.create(Gurobi.option(args, "url", "http://localhost:8080/solve") + "?mode=" + Gurobi.option(args, "mode", "separate"));
+        byte[] instance = Files.readAllBytes(Paths.get(Gurobi.option(args, "instance", "data/couple_10.csv")));
+        int requests = Integer.parseInt(Gurobi.option(args, "requests", "200"));
+        int concurrency = Integer.parseInt(Gurobi.option(args, "concurrency", Integer.toString(Runtime.getRuntime().availableProcessors())));
+
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest request = HttpRequest.newBuilder(uri).POST(HttpRequest.BodyPublishers.ofByteArray(instance)).build();
+        double[] latencies = new double[requests], solveTimes = new double[requests];
+
+        ExecutorService pool = Executors.newFixedThreadPool(concurrency);
+        List<Future<Void>> futures = new ArrayList<>();
+        for (int r = 0; r < requests; r++) {
+            int index = r;
+            futures.add(pool.submit(() -> {
+                long start = System.nanoTime();
+                HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                latencies[index] = (System.nanoTime() - start) / 1e6;
+                if (response.statusCode() != 200)
+                    throw new IOException("status " + response.statusCode() + ": " + response.body().trim());
+                solveTimes[index] = Double.parseDouble(response.headers().firstValue("X-Solve-Time").orElse("NaN")) * 1e3;
+                return null;
+            }));
+        }
+        pool.shutdown();
+        for (Future<Void> future : futures)
+            future.get();
+
+        System.out.printf("%d richieste, %d client%n", requests, concurrency);
+        System.out.printf("%-20s %10s %10s %10s%n", "", "p50 (ms)", "p90 (ms)", "p99 (ms)");
+        print("latenza", latencies);
+        print("tempo di optimize()", solveTimes);
+    }
+
+    private static void print(String label, double[] values) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        System.out.printf("%-20s %10.3f %10.3f %10.3f%n", label, percentile(sorted, 0.5), percentile(sorted, 0.9), percentile(sorted, 0.99));
+    }
+
+    // nearest-rank percentile of sorted values
+    private static double percentile(double[] sorted, double p) {
+        return sorted[Math.max(0, (int) Math.ceil(p * sorted.length) - 1)];
+    }
+}
@@ -0,0 +1,314 @@
+package it.unibs.operations_research.gurobi.couple_10;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import it.unibs.operations_research.gurobi.couple_10.cache.CachedResult;
+import it.unibs.operations_research.gurobi.couple_10.cache.ResultCache;
+import it.unibs.operations_research.gurobi.couple_10.instance.Instance;
+import it.unibs.operations_research.gurobi.couple_10.instance.InstanceReader;
+import it.unibs.operations_research.gurobi.couple_10.instance.SparseInstance;
+import it.unibs.operations_research.gurobi.couple_10.logging.RunLog;
+import it.unibs.operations_research.gurobi.couple_10.report.ReportWriter;
+import it.unibs.operations_research.gurobi.couple_10.solver.*;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Long-running solver: the JVM, the native library, the environments with their license and parameters are set up
+ * once, then every request only pays for building and solving its model.
+ *
+ * The daemon keeps a pool of pre-initialized environments (backends), each one warmed up with a solve of the
+ * default instance, and serves on the loopback address:
+ *   POST /solve   body: an instance (CSV or binary, see InstanceReader), answers: the report of Gurobi.main
+ *                 query: format=text|csv|jsonl, mode=separate|single|sample, alternatives=<max>,
+ *                 sparse=true (x_ij only for the pairs with τ_ij > 0, not with mode=single)
+ *                 header "X-Solve-Time": seconds spent in optimize() for the request
+ *                 header "X-Cache": "hit" when the report comes from the cache, "miss" otherwise
+ *   GET  /health  "ok", the environments and how many are idle, the results in the cache
+ * A request takes an environment from the pool for the whole solve, so requests run concurrently on different
+ * environments; there are as many HTTP threads as environments, a request never waits for one.
+ * Repeated instances are answered from a ResultCache without taking an environment, the other ones are solved from
+ * scratch, so a report never depends on the requests before it; "--cache-size=0" disables the cache,
+ * "--cache=<directory>" keeps it across restarts.
+ * The daemon stops on SIGINT/SIGTERM, after the running requests.
+ *
+ * Usage: SolveDaemon [--solver=gurobi|simplex] [--port=8080] [--environments=<cores>] [--warm-up=data/couple_10.csv]
+ *                    [--cache-size=1024] [--cache=<directory>] [--log-dir=logs]
+ */
+public class SolveDaemon implements Closeable {
+    private static final int MAX_BODY_BYTES = 64 << 20;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final BlockingQueue<Environment> pool;
+    private final List<Environment> environments = new ArrayList<>();
+    private final RunLog log;
+    private final String solver;
+    // null without cache
+    private final ResultCache cache;
+    private final AtomicInteger requests = new AtomicInteger();
+
+    // "warmUp" == null: the environments are not warmed up, "cache" == null: every request is solved
+    public SolveDaemon(String solver, int size, Instance warmUp, ResultCache cache, int port, RunLog log) throws IOException, SolverException {
+        this.log = log;
+        this.solver = solver;
+        this.cache = cache;
+        pool = new ArrayBlockingQueue<>(size);
+        log.parameter("Environments", size);
+        // the requests are the parallelism, each environment gets its share of the cores
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / size);
+        for (int e = 0; e < size; e++) {
+            Environment environment = new Environment(Gurobi.createBackend(solver, log, SolverParameters.DEFAULT.withThreads(threads)), log);
+            environments.add(environment);
+            if (warmUp != null)
+                environment.solve(warmUp, null, "separate", 0, "text");
+            pool.add(environment);
+        }
+
+        // headers and body are written separately: with Nagle's algorithm the body waits for the delayed ACK of the
+        // client (~40 ms), far longer than the solve; read once, before the first server is created
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/solve", this::solve);
+        server.createContext("/health", this::health);
+        executor = Executors.newFixedThreadPool(size, runnable -> {
+            Thread thread = new Thread(runnable, "solve-daemon");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public static void main(String[] args) throws IOException, SolverException, InterruptedException {
+        String solver = Gurobi.option(args, "solver", "gurobi");
+        int size = Integer.parseInt(Gurobi.option(args, "environments", Integer.toString(Runtime.getRuntime().availableProcessors())));
+        int port = Integer.parseInt(Gurobi.option(args, "port", "8080"));
+        String warmUp = Gurobi.option(args, "warm-up", "data/couple_10.csv");
+        int cacheSize = Integer.parseInt(Gurobi.option(args, "cache-size", "1024"));
+        String cacheDirectory = Gurobi.option(args, "cache", null);
+
+        RunLog log = RunLog.open(Paths.get(Gurobi.option(args, "log-dir", "logs")), "SolveDaemon");
+        ResultCache cache = cacheSize == 0 ? null : ResultCache.open(cacheSize, cacheDirectory == null ? null : Paths.get(cacheDirectory), log);
+        SolveDaemon daemon = new SolveDaemon(solver, size, warmUp.isEmpty() ? null : InstanceReader.read(Paths.get(warmUp)),
+                cache, port, log);
+        System.out.println("SolveDaemon: " + size + " ambienti, http://localhost:" + daemon.getPort() + "/solve");
+
+        CountDownLatch stopped = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                daemon.close();
+                log.close();
+            } catch (IOException e) {
+                System.err.println("SolveDaemon: " + e.getMessage());
+            } finally {
+                stopped.countDown();
+            }
+        }));
+        stopped.await();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void solve(HttpExchange exchange) throws IOException {
+        try {
+            if (!exchange.getRequestMethod().equals("POST")) {
+                respond(exchange, 405, "POST an instance to /solve\n");
+                return;
+            }
+            String query = exchange.getRequestURI().getRawQuery();
+            String format = parameter(query, "format", "text");
+            String mode;
+            int alternatives;
+            Instance instance;
+            SparseInstance sparse = null;
+            try {
+                mode = parameter(query, "mode", "separate", "separate", "single", "sample");
+                alternatives = Integer.parseInt(parameter(query, "alternatives", "0"));
+                boolean isSparse = parameter(query, "sparse", "false", "true", "false").equals("true");
+                if (isSparse && mode.equals("single"))
+                    throw new IllegalArgumentException("sparse=true needs mode separate or sample");
+                instance = InstanceReader.read(readBody(exchange.getRequestBody()), "request");
+                if (isSparse) {
+                    // the pairs with τ_ij = 0 have no variable, the answers are those of the instance without them
+                    sparse = SparseInstance.of(instance);
+                    instance = sparse.toInstance();
+                }
+            } catch (IOException | RuntimeException e) {
+                // whatever the parser rejects is a bad request, never an error of the daemon
+                respond(exchange, 400, e.getMessage() + "\n");
+                return;
+            }
+
+            int id = requests.incrementAndGet();
+            log.line("Request " + id + " M=" + instance.m() + " K=" + instance.k() + " mode=" + mode + (sparse != null ? " sparse" : ""));
+            String key = cache == null ? null : Gurobi.cacheKey(instance, sparse != null, solver, mode, alternatives, format);
+            CachedResult cached = key == null ? null : cache.get(key);
+            if (cached != null) {
+                send(exchange, format, cached.getReport(), 0, "hit");
+                return;
+            }
+
+            Environment environment = pool.take();
+            CachedResult result;
+            double solveTime;
+            try {
+                result = environment.solve(instance, sparse, mode, alternatives, format);
+                solveTime = environment.solveTime;
+                if (cache != null)
+                    cache.put(key, result);
+            } catch (IllegalArgumentException e) {
+                respond(exchange, 400, e.getMessage() + "\n");
+                return;
+            } catch (SolverException | IOException | RuntimeException e) {
+                // a failed report or cache write, or a bug, fails this request only: the worker keeps serving
+                log.line("Request " + id + " failed: " + e);
+                respond(exchange, 500, e + "\n");
+                return;
+            } finally {
+                pool.add(environment);
+            }
+
+            send(exchange, format, result.getReport(), solveTime, "miss");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            respond(exchange, 503, "shutting down\n");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void health(HttpExchange exchange) throws IOException {
+        try {
+            String cached = cache == null ? "" : ", cache: " + cache.size() + " results, " + cache.getHits() + " hits, "
+                    + cache.getMisses() + " misses";
+            respond(exchange, 200, "ok " + environments.size() + " environments, " + pool.size() + " idle, "
+                    + requests.get() + " requests" + cached + "\n");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static void send(HttpExchange exchange, String format, byte[] report, double solveTime, String cache) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType(format));
+        exchange.getResponseHeaders().set("X-Solve-Time", String.format(Locale.ROOT, "%.6f", solveTime));
+        exchange.getResponseHeaders().set("X-Cache", cache);
+        exchange.sendResponseHeaders(200, report.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(report);
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int code, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(code, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static ByteBuffer readBody(InputStream in) throws IOException {
+        byte[] bytes = in.readNBytes(MAX_BODY_BYTES + 1);
+        if (bytes.length > MAX_BODY_BYTES)
+            throw new IOException("instance larger than " + MAX_BODY_BYTES + " bytes");
+        return ByteBuffer.wrap(bytes);
+    }
+
+    // value of "name" in a query string "a=1&b=2", not URL-decoded: the values are plain words and numbers
+    static String parameter(String query, String name, String defaultValue) {
+        if (query != null)
+            for (String pair : query.split("&"))
+                if (pair.startsWith(name + "="))
+                    return pair.substring(name.length() + 1);
+        return defaultValue;
+    }
+
+    // parameter() that must be one of "allowed"
+    static String parameter(String query, String name, String defaultValue, String... allowed) {
+        String value = parameter(query, name, defaultValue);
+        for (String candidate : allowed)
+            if (candidate.equals(value))
+                return value;
+        throw new IllegalArgumentException("unknown " + name + " '" + value + "' (" + String.join(", ", allowed) + ")");
+    }
+
+    private static String contentType(String format) {
+        switch (format) {
+            case "csv": return "text/csv; charset=utf-8";
+            case "jsonl": return "application/jsonl; charset=utf-8";
+            default: return "text/plain; charset=utf-8";
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        // no new request; the exchanges still open are closed after at most 1 s, their solves go on
+        server.stop(1);
+        executor.shutdown();
+        // every request gives its environment back before its thread ends: no model is optimized in an environment
+        // once the executor has terminated, so the environments can be freed
+        try {
+            while (!executor.awaitTermination(1, TimeUnit.MINUTES))
+                log.line("Waiting for the running requests");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            // freeing an environment still in use would crash the process, they are left to the end of the process
+            throw new InterruptedIOException("interrupted while waiting for the running requests, environments not freed");
+        }
+        try {
+            for (Environment environment : environments)
+                environment.backend.dispose();
+        } catch (SolverException e) {
+            throw new IOException(e);
+        }
+    }
+
+    // one backend of the pool, with the time of its solves; used by one request at a time
+    private static final class Environment implements ProgressListener {
+        private final LpBackend backend;
+        private double solveTime;
+
+        Environment(LpBackend backend, RunLog log) {
+            this.backend = backend;
+            backend.setProgressListener(ProgressListener.combine(log, this));
+        }
+
+        // the seconds spent in optimize() are left in solveTime
+        CachedResult solve(Instance instance, SparseInstance sparse, String mode, int alternatives, String format)
+                throws SolverException, IOException {
+            solveTime = 0;
+            return Gurobi.render(backend, instance, sparse, mode, alternatives, format);
+        }
+
+        @Override
+        public void simplex(double iterations, double objective, double primalInfeasibility, double dualInfeasibility, double runtime) {
+        }
+
+        @Override
+        public void mip(double nodes, double incumbent, double bound, int solutions, double runtime) {
+        }
+
+        @Override
+        public void finished(int status, double iterations, double objective, double runtime) {
+            solveTime += runtime;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package it.unibs.operations_research.gurobi.couple_10.bench;
+
+import it.unibs.operations_research.gurobi.couple_10.Gurobi;
+import it.unibs.operations_research.gurobi.couple_10.ModelBuilder;
+import it.unibs.operations_research.gurobi.couple_10.instance.Instance;
+import it.unibs.operations_research.gurobi.couple_10.instance.InstanceGenerator;
+import it.unibs.operations_research.gurobi.couple_10.solver.*;
+
+import java.util.Arrays;
+
+/**
+ * Time needed to build the planning model (no optimization) with one addVar/addTerm call per term,
+ * as the model used to be built, and with the bulk calls of {@link ModelBuilder}, with and without names.
+ *
+ * Usage: BuildBenchmark [--solver=gurobi|simplex] [--sizes=10x8,1000x96,10000x96] [--runs=5]
+ */
+public class BuildBenchmark {
+    public static void main(String[] args) throws SolverException {
+        String solver = Gurobi.option(args, "solver", "gurobi");
+        String[] sizes = Gurobi.option(args, "sizes", "10x8,1000x96,10000x96").split(",");
+        int runs = Integer.parseInt(Gurobi.option(args, "runs", "5"));
+
+        LpBackend backend = solver.equals("simplex") ? new SimplexBackend() : GurobiBackend.create(null, SolverParameters.AUTOMATIC);
+
+        System.out.printf("%-10s %14s %14s %14s%n", "M x K", "per-term (ms)", "bulk (ms)", "bulk no names");
+        for (String size : sizes) {
+            int m = Integer.parseInt(size.substring(0, size.indexOf('x')));
+            int k = Integer.parseInt(size.substring(size.indexOf('x') + 1));
+            Instance instance = InstanceGenerator.generate(m, k, 1);
+
+            double perTerm = median(backend, instance, runs, 0);
+            double bulk = median(backend, instance, runs, 1);
+            double bulkNoNames = median(backend, instance, runs, 2);
+            System.out.printf("%-10s %14.2f %14.2f %14.2f%n", size, perTerm, bulk, bulkNoNames);
+        }
+
+        backend.dispose();
+    }
+
+    // median build time in milliseconds, after one warm-up run
+    private static double median(LpBackend backend, Instance instance, int runs, int mode) throws SolverException {
+        double[] times = new double[runs];
+        for (int run = -1; run < runs; run++) {
+            long start = System.nanoTime();
+            LpModel model;
+            if (mode == 0)
+                model = buildPerTerm(backend, instance);
+            else
+                model = ModelBuilder.build(backend, instance, false, mode == 1);
+            // Gurobi adds pending variables and constraints to the model only on update
+            model.update();
+            long elapsed = System.nanoTime() - start;
+            model.dispose();
+            if (run >= 0)
+                times[run] = elapsed / 1e6;
+        }
+        Arrays.sort(times);
+        return times[runs / 2];
+    }
+
+    // the same model built one variable and one term at a time, with both "sum" and "reverse_sum"
+    private static LpModel buildPerTerm(LpBackend backend, Instance instance) throws SolverException {
+        int m = instance.m(), k = instance.k();
+        LpModel model = backend.newModel();
+
+        int[][] x_ij = new int[m][k];
+        for (int i = 0; i < m; i++)
+            for (int j = 0; j < k; j++)
+                x_ij[i][j] = model.addVar(0.0, instance.minutes(i, j), 0.0, LpModel.CONTINUOUS, "x_" + (i + 1) + "_" + (j + 1));
+
+        int[] s = new int[m + k + 1];
+        for (int i = 0; i < (m + k + 1); i++)
+            s[i] = model.addVar(0.0, LpModel.INFINITY, 0.0, LpModel.CONTINUOUS, "s_" + i);
+
+        for (int i = 0; i < m; i++) {
+            LinExpr expr = new LinExpr();
+            for (int j = 0; j < k; j++)
+                expr.addTerm(instance.cost(i, j), x_ij[i][j]);
+            expr.addTerm(1, s[i]);
+            model.addConstr(expr, LpModel.EQUAL, instance.budget(i), "c_max_budget_" + (i + 1));
+        }
+
+        for (int j = 0; j < k; j++) {
+            LinExpr expr = new LinExpr();
+            for (int i = 0; i < m; i++)
+                expr.addTerm(instance.cost(i, j), x_ij[i][j]);
+            expr.addTerm(-1.0, s[m + j]);
+            model.addConstr(expr, LpModel.EQUAL, instance.minSlotBudget(), "c_min_budget_" + (j + 1));
+        }
+
+        LinExpr spectators = new LinExpr();
+        for (int i = 0; i < m; i++)
+            for (int j = 0; j < k; j++)
+                spectators.addTerm(instance.spectators(i, j), x_ij[i][j]);
+        spectators.addTerm(-1.0, s[m + k]);
+        model.addConstr(spectators, LpModel.EQUAL, instance.coverage(), "c_spectators");
+
+        LinExpr sum = new LinExpr();
+        LinExpr reverse_sum = new LinExpr();
+        int aux_var = model.addVar(0.0, LpModel.INFINITY, 0.0, LpModel.CONTINUOUS, "aux");
+        for (int i = 0; i < m; i++) {
+            for (int j = 0; j < k; j++) {
+                int sign = (j < (k/2) ? 1 : -1);
+                sum.addTerm(sign * instance.spectators(i, j), x_ij[i][j]);
+                reverse_sum.addTerm((-1 * sign) * instance.spectators(i, j), x_ij[i][j]);
+            }
+        }
+        model.addConstr(aux_var, LpModel.GREATER_EQUAL, sum, "c_aux1");
+        model.addConstr(aux_var, LpModel.GREATER_EQUAL, reverse_sum, "c_aux2");
+
+        LinExpr objFunc = new LinExpr();
+        objFunc.addTerm(1.0, aux_var);
+        model.setObjective(objFunc, LpModel.MINIMIZE);
+
+        return model;
+    }
+}
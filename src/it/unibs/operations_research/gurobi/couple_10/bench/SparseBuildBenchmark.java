@@ -0,0 +1,67 @@
+package it.unibs.operations_research.gurobi.couple_10.bench;
+
+import it.unibs.operations_research.gurobi.couple_10.Gurobi;
+import it.unibs.operations_research.gurobi.couple_10.ModelBuilder;
+import it.unibs.operations_research.gurobi.couple_10.instance.Instance;
+import it.unibs.operations_research.gurobi.couple_10.instance.InstanceGenerator;
+import it.unibs.operations_research.gurobi.couple_10.instance.SparseInstance;
+import it.unibs.operations_research.gurobi.couple_10.solver.*;
+
+import java.util.Arrays;
+
+/**
+ * Memory of the instance and time needed to build the planning model (no optimization) of sparse catalogues:
+ * the same pairs as a dense {@link Instance}, where the missing ones have τ_ij = 0 but still get a variable, and as
+ * a {@link SparseInstance}.
+ *
+ * Usage: SparseBuildBenchmark [--solver=gurobi|simplex] [--size=2000x480] [--densities=0.01,0.05,0.2,1] [--runs=5]
+ */
+public class SparseBuildBenchmark {
+    public static void main(String[] args) throws SolverException {
+        String size = Gurobi.option(args, "size", "2000x480");
+        int m = Integer.parseInt(size.substring(0, size.indexOf('x')));
+        int k = Integer.parseInt(size.substring(size.indexOf('x') + 1));
+        double[] densities = Arrays.stream(Gurobi.option(args, "densities", "0.01,0.05,0.2,1").split(","))
+                .mapToDouble(Double::parseDouble).toArray();
+        int runs = Integer.parseInt(Gurobi.option(args, "runs", "5"));
+
+        String solver = Gurobi.option(args, "solver", "gurobi");
+        LpBackend backend = solver.equals("simplex") ? new SimplexBackend() : GurobiBackend.create(null, SolverParameters.AUTOMATIC);
+
+        System.out.printf("%-8s %12s %14s %14s %14s %14s%n", "density", "pairs", "dense (MB)", "sparse (MB)",
+                "dense (ms)", "sparse (ms)");
+        for (double density : densities) {
+            SparseInstance sparse = InstanceGenerator.generateSparse(m, k, density, 1);
+            Instance dense = sparse.toInstance();
+            double denseBytes = 3. * Integer.BYTES * m * k, sparseBytes = 4. * Integer.BYTES * sparse.entries() + Integer.BYTES * (m + 1.);
+
+            double denseTime = median(runs, () -> ModelBuilder.build(backend, dense, false, false));
+            double sparseTime = median(runs, () -> ModelBuilder.build(backend, sparse, false, false));
+            System.out.printf("%-8s %12d %14.1f %14.1f %14.2f %14.2f%n", density, sparse.entries(), denseBytes / 1e6,
+                    sparseBytes / 1e6, denseTime, sparseTime);
+        }
+
+        backend.dispose();
+    }
+
+    private interface Build {
+        LpModel build() throws SolverException;
+    }
+
+    // median build time in milliseconds, after one warm-up run
+    private static double median(int runs, Build build) throws SolverException {
+        double[] times = new double[runs];
+        for (int run = -1; run < runs; run++) {
+            long start = System.nanoTime();
+            LpModel model = build.build();
+            // Gurobi adds pending variables and constraints to the model only on update
+            model.update();
+            long elapsed = System.nanoTime() - start;
+            model.dispose();
+            if (run >= 0)
+                times[run] = elapsed / 1e6;
+        }
+        Arrays.sort(times);
+        return times[runs / 2];
+    }
+}
@@ -0,0 +1,67 @@
+package it.unibs.operations_research.gurobi.couple_10.bench;
+
+import it.unibs.operations_research.gurobi.couple_10.Gurobi;
+import it.unibs.operations_research.gurobi.couple_10.IncrementalSession;
+import it.unibs.operations_research.gurobi.couple_10.instance.Instance;
+import it.unibs.operations_research.gurobi.couple_10.instance.InstanceGenerator;
+import it.unibs.operations_research.gurobi.couple_10.solver.*;
+
+import java.util.Random;
+
+/**
+ * Simplex iterations of warm-started re-optimizations compared with cold solves, on a sequence of random
+ * planner changes: one station budget, the coverage target or a few prices at a time.
+ *
+ * Usage: WarmStartBenchmark [--solver=gurobi|simplex] [--size=100x24] [--changes=20]
+ */
+public class WarmStartBenchmark {
+    public static void main(String[] args) throws SolverException {
+        String solver = Gurobi.option(args, "solver", "gurobi");
+        String size = Gurobi.option(args, "size", "100x24");
+        int changes = Integer.parseInt(Gurobi.option(args, "changes", "20"));
+
+        int m = Integer.parseInt(size.substring(0, size.indexOf('x')));
+        int k = Integer.parseInt(size.substring(size.indexOf('x') + 1));
+        Instance instance = InstanceGenerator.generate(m, k, 1);
+        Random random = new Random(1);
+
+        LpBackend backend = solver.equals("simplex") ? new SimplexBackend() : GurobiBackend.create(null, SolverParameters.DEFAULT);
+        IncrementalSession session = new IncrementalSession(backend, instance, true);
+
+        double warm = 0, cold = 0;
+        for (int change = 0; change < changes; change++) {
+            String description;
+            switch (change % 3) {
+                case 0: {
+                    int i = random.nextInt(m);
+                    double budget = instance.budget(i) * (0.95 + 0.1 * random.nextDouble());
+                    session.setBudget(i, budget);
+                    description = "B_" + (i + 1) + " = " + Math.round(budget);
+                    break;
+                }
+                case 1: {
+                    double coverage = instance.coverage() * (0.98 + 0.02 * random.nextDouble());
+                    session.setCoverage(coverage);
+                    description = "S = " + Math.round(coverage);
+                    break;
+                }
+                default: {
+                    description = "C_ij x 3";
+                    for (int t = 0; t < 3; t++) {
+                        int i = random.nextInt(m), j = random.nextInt(k);
+                        session.setCost(i, j, instance.cost(i, j) * (0.95 + 0.1 * random.nextDouble()));
+                    }
+                }
+            }
+
+            IncrementalSession.Result result = session.reoptimize();
+            warm += result.getWarmIterations();
+            cold += result.getColdIterations();
+            System.out.printf("%-16s %s%n", description, result);
+        }
+        System.out.printf("total iterations: warm %.0f, cold %.0f, saved %.1f%%%n", warm, cold, 100 * (cold - warm) / cold);
+
+        session.dispose();
+        backend.dispose();
+    }
+}
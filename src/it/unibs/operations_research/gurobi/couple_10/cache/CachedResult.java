@@ -0,0 +1,80 @@
+package it.unibs.operations_research.gurobi.couple_10.cache;
+
+import it.unibs.operations_research.gurobi.couple_10.solver.SolutionSnapshot;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Result of one instance kept by the {@link ResultCache}: objective and X values of the optimal model,
+ * the iterations of a solve from scratch and the report written for it.
+ * The arrays are not copied by the getters: they belong to the result and should not be changed.
+ */
+public final class CachedResult {
+    private final int status;
+    private final double objVal;
+    private final double[] x;
+    // iterations of the optimal model solved from scratch
+    private final double coldIterations;
+    private final byte[] report;
+
+    public CachedResult(int status, double objVal, double[] x, double coldIterations, byte[] report) {
+        this.status = status;
+        this.objVal = objVal;
+        this.x = x;
+        this.coldIterations = coldIterations;
+        this.report = report;
+    }
+
+    public static CachedResult of(SolutionSnapshot snapshot, double coldIterations) {
+        return new CachedResult(snapshot.getStatus(), snapshot.getObjVal(), snapshot.getX(), coldIterations, null);
+    }
+
+    public CachedResult withReport(byte[] report) {
+        return new CachedResult(status, objVal, x, coldIterations, report);
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public double getObjVal() {
+        return objVal;
+    }
+
+    public double[] getX() {
+        return x;
+    }
+
+    public double getColdIterations() {
+        return coldIterations;
+    }
+
+    // null until the report is added with withReport()
+    public byte[] getReport() {
+        return report;
+    }
+
+    void write(DataOutputStream out) throws IOException {
+        out.writeInt(status);
+        out.writeDouble(objVal);
+        out.writeDouble(coldIterations);
+        out.writeInt(x.length);
+        for (double value : x)
+            out.writeDouble(value);
+        out.writeInt(report.length);
+        out.write(report);
+    }
+
+    static CachedResult read(DataInputStream in) throws IOException {
+        int status = in.readInt();
+        double objVal = in.readDouble(), coldIterations = in.readDouble();
+        double[] x = new double[in.readInt()];
+        for (int v = 0; v < x.length; v++)
+            x[v] = in.readDouble();
+        byte[] report = new byte[in.readInt()];
+        in.readFully(report);
+        return new CachedResult(status, objVal, x, coldIterations, report);
+    }
+}
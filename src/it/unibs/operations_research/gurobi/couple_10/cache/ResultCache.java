@@ -0,0 +1,215 @@
+package it.unibs.operations_research.gurobi.couple_10.cache;
+
+import it.unibs.operations_research.gurobi.couple_10.instance.Instance;
+import it.unibs.operations_research.gurobi.couple_10.logging.RunLog;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Results of solved instances, content-addressed: the key is the SHA-256 of the instance values (M, K, S, Ω and
+ * the B_i, T_ij, C_ij, P_ij tables, not the text of the file they come from) and of the solver parameters, so
+ * repeated inputs are answered without building a model.
+ *
+ * At most "capacity" results are kept, the least recently used one is evicted first. With a directory every result
+ * is also written to "<directory>/<key>.result" and the cache is loaded again from there after a restart (least
+ * recently written first); evicted results are deleted from the directory too. A file that cannot be read back
+ * (truncated, corrupted or of another format) is logged, deleted and skipped: its instance is solved again.
+ *
+ * The reports are not warm-started from the results of other instances: their optimal vertex and Question III depend
+ * on the starting basis, a cached report must only depend on its key.
+ * Thread-safe, the lock is held only for the map operations: the files are written and deleted outside it, so a
+ * get() never waits for the disk.
+ */
+public final class ResultCache {
+    // "RSL2"
+    private static final int MAGIC = 0x52534c32;
+    private static final String EXTENSION = ".result";
+
+    private final int capacity;
+    private final Path directory;
+    private final Map<String, CachedResult> entries;
+    // keys evicted by the last map operation, their files are deleted once the lock is released
+    private final List<String> evicted = new ArrayList<>();
+    private long hits, misses;
+
+    private ResultCache(int capacity, Path directory) {
+        this.capacity = capacity;
+        this.directory = directory;
+        entries = new LinkedHashMap<String, CachedResult>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResult> eldest) {
+                if (size() <= ResultCache.this.capacity)
+                    return false;
+                evicted.add(eldest.getKey());
+                return true;
+            }
+        };
+    }
+
+    // "directory" == null keeps the results in memory only, "log" gets the files that could not be loaded
+    public static ResultCache open(int capacity, Path directory, RunLog log) throws IOException {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("the capacity of the cache must be positive");
+        ResultCache cache = new ResultCache(capacity, directory);
+        if (directory != null) {
+            Files.createDirectories(directory);
+            List<Path> files;
+            try (Stream<Path> stream = Files.list(directory)) {
+                files = stream.filter(file -> file.getFileName().toString().endsWith(EXTENSION)).collect(Collectors.toList());
+            }
+            Map<Path, FileTime> times = new HashMap<>();
+            for (Path file : files)
+                times.put(file, Files.getLastModifiedTime(file));
+            files.sort(Comparator.comparing(times::get));
+            for (Path file : files)
+                cache.load(file, log);
+            // the results beyond the capacity, their files go too
+            cache.deleteEvicted(cache.drainEvicted());
+        }
+        return cache;
+    }
+
+    /**
+     * Canonical key: hash of the instance values and of "parameters", e.g. "solver=gurobi;Method=0;mode=separate".
+     */
+    public static String key(Instance instance, String parameters) {
+        int m = instance.m(), k = instance.k();
+        ByteBuffer buffer = ByteBuffer.allocate(2 * Integer.BYTES + 2 * Double.BYTES + (m + 3 * m * k) * Integer.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(m).putInt(k).putDouble(instance.coverage()).putDouble(instance.omega());
+        buffer.asIntBuffer().put(instance.budgets()).put(instance.minutes()).put(instance.costs()).put(instance.spectators());
+
+        MessageDigest digest = sha256();
+        digest.update(buffer.array());
+        digest.update(parameters.getBytes(StandardCharsets.UTF_8));
+        StringBuilder key = new StringBuilder(64);
+        for (byte b : digest.digest())
+            key.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        return key.toString();
+    }
+
+    // null on a miss
+    public synchronized CachedResult get(String key) {
+        CachedResult result = entries.get(key);
+        if (result == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return result;
+    }
+
+    // "result" must hold its report
+    public void put(String key, CachedResult result) throws IOException {
+        List<String> evicted;
+        synchronized (this) {
+            entries.put(key, result);
+            evicted = drainEvicted();
+        }
+        if (directory == null)
+            return;
+        deleteEvicted(evicted);
+        write(key, result);
+        boolean kept;
+        synchronized (this) {
+            kept = entries.containsKey(key);
+        }
+        // evicted by another put() while it was being written: its file must not outlive it
+        if (!kept)
+            deleteEvicted(Collections.singletonList(key));
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    private synchronized List<String> drainEvicted() {
+        List<String> keys = new ArrayList<>(evicted);
+        evicted.clear();
+        return keys;
+    }
+
+    private void deleteEvicted(List<String> keys) {
+        if (directory == null)
+            return;
+        for (String key : keys) {
+            try {
+                Files.deleteIfExists(file(key));
+            } catch (IOException e) {
+                // a file left behind only makes the next restart load one more result
+            }
+        }
+    }
+
+    private void write(String key, CachedResult result) throws IOException {
+        // written aside and moved, a crash never leaves a truncated result; a temporary file of its own for each
+        // writer, two requests of the same key can be written at the same time
+        Path temporary = Files.createTempFile(directory, key, ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                out.writeInt(MAGIC);
+                result.write(out);
+            }
+            Files.move(temporary, file(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            // nothing left after the move
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    // a file that cannot be read back is deleted, one bad result never keeps the others from loading
+    private void load(Path file, RunLog log) {
+        String name = file.getFileName().toString();
+        String key = name.substring(0, name.length() - EXTENSION.length());
+        String problem;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() == MAGIC) {
+                entries.put(key, CachedResult.read(in));
+                return;
+            }
+            problem = "unknown format";
+        } catch (EOFException e) {
+            problem = "truncated";
+        } catch (IOException | RuntimeException e) {
+            // e.g. a corrupted length
+            problem = e.toString();
+        }
+        try {
+            Files.deleteIfExists(file);
+            log.line("Cache: " + file + " skipped and deleted, " + problem);
+        } catch (IOException e) {
+            log.line("Cache: " + file + " skipped, " + problem + ", not deleted: " + e.getMessage());
+        }
+    }
+
+    private Path file(String key) {
+        return directory.resolve(key + EXTENSION);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform has SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package it.unibs.operations_research.gurobi.couple_10.instance;
+
+/**
+ * Data of a planning instance: M television stations, K time slots for each station.
+ * The (i, j) tables are stored row-major in flat primitive arrays, cell (i, j) is at index i*K + j.
+ * The arrays returned by the getters are not copied and must not be modified.
+ */
+public class Instance {
+    // number of television station
+    private final int m;
+
+    // number of time slots for each television station
+    private final int k;
+
+    // minimum daily number of spectators (coverage)
+    private final double coverage;
+
+    // Ω (Omega) - fraction of the total budget to invest in each time slot (0.02 stands for 2%)
+    private final double omega;
+
+    // β_i - maximum budget for the i-th television station
+    private final int[] budgets;
+
+    // τ_ij - maximum amount of minutes that can be purchased in each time slot
+    private final int[] minutes;
+
+    // cost euro/minute of each time slot
+    private final int[] costs;
+
+    // coverage of spectators (spectators/minute) guaranteed by spending C_ij euro/minute
+    private final int[] spectators;
+
+    // D_ij - how far the spectators P_ij may fall below the estimate, null when the instance has none (robust model)
+    private final int[] deviations;
+
+    // total budget = sum of maximum budgets of the i-th television station
+    private final long totalBudget;
+
+    public Instance(int m, int k, double coverage, double omega, int[] budgets, int[] minutes, int[] costs, int[] spectators) {
+        this(m, k, coverage, omega, budgets, minutes, costs, spectators, null);
+    }
+
+    // "deviations" can be null
+    public Instance(int m, int k, double coverage, double omega, int[] budgets, int[] minutes, int[] costs, int[] spectators,
+                    int[] deviations) {
+        if (m <= 0 || k <= 0)
+            throw new IllegalArgumentException("M and K must be positive (M = " + m + ", K = " + k + ")");
+        if (budgets.length != m)
+            throw new IllegalArgumentException("B_i must contain " + m + " values, found " + budgets.length);
+        checkTable("T_ij", minutes, m, k);
+        checkTable("C_ij", costs, m, k);
+        checkTable("P_ij", spectators, m, k);
+        if (deviations != null)
+            checkTable("D_ij", deviations, m, k);
+
+        this.m = m;
+        this.k = k;
+        this.coverage = coverage;
+        this.omega = omega;
+        this.budgets = budgets;
+        this.minutes = minutes;
+        this.costs = costs;
+        this.spectators = spectators;
+        this.deviations = deviations;
+
+        long sum = 0;
+        for (int budget : budgets)
+            sum += budget;
+        totalBudget = sum;
+    }
+
+    private static void checkTable(String name, int[] table, int m, int k) {
+        if (table.length != (long) m * k)
+            throw new IllegalArgumentException(name + " must contain " + ((long) m * k) + " values, found " + table.length);
+    }
+
+    public int m() {
+        return m;
+    }
+
+    public int k() {
+        return k;
+    }
+
+    public double coverage() {
+        return coverage;
+    }
+
+    public double omega() {
+        return omega;
+    }
+
+    public int budget(int i) {
+        return budgets[i];
+    }
+
+    public int minutes(int i, int j) {
+        return minutes[i * k + j];
+    }
+
+    public int cost(int i, int j) {
+        return costs[i * k + j];
+    }
+
+    public int spectators(int i, int j) {
+        return spectators[i * k + j];
+    }
+
+    public int[] budgets() {
+        return budgets;
+    }
+
+    public int[] minutes() {
+        return minutes;
+    }
+
+    public int[] costs() {
+        return costs;
+    }
+
+    public int[] spectators() {
+        return spectators;
+    }
+
+    // null when the instance has no deviations
+    public int[] deviations() {
+        return deviations;
+    }
+
+    // same instance with the deviations D_ij, the tables are shared
+    public Instance withDeviations(int[] deviations) {
+        return new Instance(m, k, coverage, omega, budgets, minutes, costs, spectators, deviations);
+    }
+
+    public long totalBudget() {
+        return totalBudget;
+    }
+
+    // Ω% of the total budget = B_TOT * Ω, minimum budget of each time slot
+    public double minSlotBudget() {
+        return totalBudget * omega;
+    }
+}
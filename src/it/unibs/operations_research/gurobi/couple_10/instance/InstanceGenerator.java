@@ -0,0 +1,161 @@
+package it.unibs.operations_research.gurobi.couple_10.instance;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Random instances of any size, used by benchmarks and experiments.
+ * Values are drawn from the ranges of the couple_10 instance (10 stations, 8 slots); budgets and Ω are scaled
+ * with the size, the coverage asks for the same share of the maximum reachable coverage as couple_10 (about 96%).
+ */
+public final class InstanceGenerator {
+    // ranges of τ_ij, C_ij, P_ij and β_i in the couple_10 instance
+    static final int MIN_MINUTES = 1, MAX_MINUTES = 3;
+    static final int MIN_COST = 900, MAX_COST = 1393;
+    static final int MIN_SPECTATORS = 359, MAX_SPECTATORS = 3496;
+    static final int MIN_BUDGET = 2632, MAX_BUDGET = 3449;
+
+    // number of slots and Ω of the couple_10 instance
+    private static final int BASE_K = 8;
+    private static final double BASE_OMEGA = 0.02;
+
+    // S / maximum reachable coverage in the couple_10 instance (86236 / 89659)
+    private static final double COVERAGE_SHARE = 0.96;
+
+    private InstanceGenerator() {
+    }
+
+    // writes a random instance: "InstanceGenerator <M> <K> <seed> <output>"
+    public static void main(String[] args) throws IOException {
+        if (args.length != 4) {
+            System.err.println("usage: InstanceGenerator <M> <K> <seed> <output>");
+            System.exit(2);
+        }
+        Instance instance = generate(Integer.parseInt(args[0]), Integer.parseInt(args[1]), Long.parseLong(args[2]));
+        InstanceWriter.write(instance, Paths.get(args[3]));
+    }
+
+    public static Instance generate(int m, int k, long seed) {
+        Random random = new Random(seed);
+        int cells = Math.multiplyExact(m, k);
+
+        // a station with K slots can spend K/8 times the budget of a station with 8 slots
+        double budgetScale = (double) k / BASE_K;
+        int[] budgets = new int[m];
+        for (int i = 0; i < m; i++)
+            budgets[i] = (int) Math.round(uniform(random, MIN_BUDGET, MAX_BUDGET) * budgetScale);
+
+        int[] minutes = new int[cells], costs = new int[cells], spectators = new int[cells];
+        for (int c = 0; c < cells; c++) {
+            minutes[c] = uniform(random, MIN_MINUTES, MAX_MINUTES);
+            costs[c] = uniform(random, MIN_COST, MAX_COST);
+            spectators[c] = uniform(random, MIN_SPECTATORS, MAX_SPECTATORS);
+        }
+
+        // the slots together must still receive Ω * K = 16% of the total budget
+        double omega = BASE_OMEGA * BASE_K / k;
+        double coverage = Math.floor(COVERAGE_SHARE * maxCoverage(m, k, budgets, minutes, costs, spectators));
+
+        return new Instance(m, k, coverage, omega, budgets, minutes, costs, spectators);
+    }
+
+    /**
+     * Sparse catalogue: each station sells each slot with probability "density", values drawn as in generate().
+     * Budgets scale with the slots each station sells, so its budget buys about as much as in a dense instance.
+     * The pairs are drawn by skipping a geometric number of cells, the time is proportional to the pairs.
+     */
+    public static SparseInstance generateSparse(int m, int k, double density, long seed) {
+        if (density <= 0 || density > 1)
+            throw new IllegalArgumentException("the density must be in (0, 1], found " + density);
+        Random random = new Random(seed);
+        long cells = (long) m * k;
+        int capacity = (int) Math.min(Integer.MAX_VALUE - 8, (long) (cells * density * 1.1) + 16);
+        int[] stationStart = new int[m + 1];
+        int[] slots = new int[capacity], minutes = new int[capacity], costs = new int[capacity], spectators = new int[capacity];
+
+        int e = 0;
+        double logSkip = Math.log1p(-density);
+        long c = density == 1 ? 0 : (long) (Math.log(1 - random.nextDouble()) / logSkip);
+        for (int i = 0; i < m; i++) {
+            for (; c < (long) (i + 1) * k; c += density == 1 ? 1 : 1 + (long) (Math.log(1 - random.nextDouble()) / logSkip)) {
+                if (e == slots.length) {
+                    int grown = (int) Math.min(Integer.MAX_VALUE - 8, 2L * e);
+                    slots = Arrays.copyOf(slots, grown);
+                    minutes = Arrays.copyOf(minutes, grown);
+                    costs = Arrays.copyOf(costs, grown);
+                    spectators = Arrays.copyOf(spectators, grown);
+                }
+                slots[e] = (int) (c - (long) i * k);
+                minutes[e] = uniform(random, MIN_MINUTES, MAX_MINUTES);
+                costs[e] = uniform(random, MIN_COST, MAX_COST);
+                spectators[e++] = uniform(random, MIN_SPECTATORS, MAX_SPECTATORS);
+            }
+            stationStart[i + 1] = e;
+        }
+        slots = Arrays.copyOf(slots, e);
+        minutes = Arrays.copyOf(minutes, e);
+        costs = Arrays.copyOf(costs, e);
+        spectators = Arrays.copyOf(spectators, e);
+
+        // a station that sells n slots can spend n/8 times the budget of a station with 8 slots
+        int[] budgets = new int[m];
+        for (int i = 0; i < m; i++)
+            budgets[i] = (int) Math.round(uniform(random, MIN_BUDGET, MAX_BUDGET) * (stationStart[i + 1] - stationStart[i]) / (double) BASE_K);
+
+        double omega = BASE_OMEGA * BASE_K / k;
+        double coverage = Math.floor(COVERAGE_SHARE * maxCoverage(m, budgets, stationStart, minutes, costs, spectators));
+        return new SparseInstance(m, k, coverage, omega, budgets, stationStart, slots, minutes, costs, spectators);
+    }
+
+    // highest coverage within the station budgets: each station buys its slots by decreasing P_ij / C_ij
+    // (fractional knapsack), the minimum budget of the slots is not considered
+    private static double maxCoverage(int m, int k, int[] budgets, int[] minutes, int[] costs, int[] spectators) {
+        double coverage = 0;
+        Integer[] slots = new Integer[k];
+        for (int i = 0; i < m; i++) {
+            int row = i * k;
+            for (int j = 0; j < k; j++)
+                slots[j] = j;
+            Arrays.sort(slots, (a, b) -> Double.compare((double) spectators[row + b] / costs[row + b],
+                    (double) spectators[row + a] / costs[row + a]));
+
+            double budget = budgets[i];
+            for (int j : slots) {
+                double time = Math.min(minutes[row + j], budget / costs[row + j]);
+                budget -= time * costs[row + j];
+                coverage += time * spectators[row + j];
+            }
+        }
+        return coverage;
+    }
+
+    // maxCoverage() of a sparse catalogue, the pairs of each station are sorted as primitive keys (ratio bits, entry)
+    private static double maxCoverage(int m, int[] budgets, int[] stationStart, int[] minutes, int[] costs, int[] spectators) {
+        double coverage = 0;
+        long[] keys = new long[0];
+        for (int i = 0; i < m; i++) {
+            int from = stationStart[i], count = stationStart[i + 1] - from;
+            if (keys.length < count)
+                keys = new long[Math.max(count, 2 * keys.length)];
+            // positive ratios: their float bits sort like the values, the best one first after the negation
+            for (int e = 0; e < count; e++)
+                keys[e] = (long) -Float.floatToIntBits((float) spectators[from + e] / costs[from + e]) << 32 | e;
+            Arrays.sort(keys, 0, count);
+
+            double budget = budgets[i];
+            for (int n = 0; n < count && budget > 0; n++) {
+                int e = from + (int) keys[n];
+                double time = Math.min(minutes[e], budget / costs[e]);
+                budget -= time * costs[e];
+                coverage += time * spectators[e];
+            }
+        }
+        return coverage;
+    }
+
+    private static int uniform(Random random, int min, int max) {
+        return min + random.nextInt(max - min + 1);
+    }
+}
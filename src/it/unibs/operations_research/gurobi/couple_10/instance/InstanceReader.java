@@ -0,0 +1,368 @@
+package it.unibs.operations_research.gurobi.couple_10.instance;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Loads an {@link Instance} from a CSV file or from the binary columnar format written by {@link InstanceWriter}.
+ * Both formats are read through a memory-mapped file and parsed straight into the primitive tables,
+ * no object is allocated per cell.
+ *
+ * CSV layout ('#' starts a comment, values are separated by commas, blanks or new lines):
+ * <pre>
+ * M,K,S,O
+ * 10,8,86236,0.02
+ * B
+ * 3356
+ * ...                 (M values)
+ * T
+ * 1,2,2,1,1,2,2,1
+ * ...                 (M rows of K values, same for C and P)
+ * </pre>
+ * Sections B, T, C and P can appear in any order. An optional section D (M rows of K values) holds the deviations
+ * D_ij of the spectators used by the robust model; the binary format has no D.
+ * The values of the tables are non-negative integers that fit in an int, in both formats.
+ */
+public final class InstanceReader {
+    // "TVPI" in ASCII
+    static final int MAGIC = 0x54565049;
+    static final int VERSION = 1;
+    // magic, version, M, K (int) + S, O (double)
+    static final int HEADER_BYTES = 4 * 4 + 2 * 8;
+
+    private InstanceReader() {
+    }
+
+    // the format is chosen by extension: ".bin" is binary, everything else is CSV
+    public static Instance read(Path path) throws IOException {
+        return path.toString().endsWith(".bin") ? readBinary(path) : readCsv(path);
+    }
+
+    public static Instance readBinary(Path path) throws IOException {
+        return readBinary(map(path), path.toString());
+    }
+
+    public static Instance readCsv(Path path) throws IOException {
+        return new CsvParser(path.toString(), map(path)).parse();
+    }
+
+    /**
+     * Instance held in memory (e.g. the body of a request), binary when it starts with the magic number and CSV
+     * otherwise; "source" names it in the error messages.
+     */
+    public static Instance read(ByteBuffer buffer, String source) throws IOException {
+        boolean binary = buffer.remaining() >= Integer.BYTES
+                && buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN).getInt() == MAGIC;
+        return binary ? readBinary(buffer, source) : new CsvParser(source, buffer.duplicate()).parse();
+    }
+
+    /**
+     * Only the pairs with τ_ij > 0 of the instance at "path", see {@link SparseInstance}. A binary file is read
+     * straight into the sparse tables: the T column of the mapped file is scanned first, then only the C and P
+     * values of the available pairs are read, so no M x K table is allocated. A CSV file is parsed whole first.
+     */
+    public static SparseInstance readSparse(Path path) throws IOException {
+        if (!path.toString().endsWith(".bin"))
+            return SparseInstance.of(readCsv(path));
+
+        String source = path.toString();
+        ByteBuffer buffer = map(path).order(ByteOrder.LITTLE_ENDIAN);
+        int m = checkHeader(buffer, source), k = buffer.getInt();
+        double coverage = buffer.getDouble(), omega = buffer.getDouble();
+        long cells = checkSize(buffer, source, m, k);
+
+        IntBuffer values = buffer.asIntBuffer();
+        int[] budgets = new int[m];
+        values.get(budgets);
+        checkValues(budgets, source, "B");
+        int minutesAt = m, costsAt = (int) (m + cells), spectatorsAt = (int) (m + 2 * cells);
+        int entries = 0;
+        for (int c = 0; c < cells; c++)
+            if (values.get(minutesAt + c) > 0)
+                entries++;
+
+        int[] stationStart = new int[m + 1];
+        int[] slots = new int[entries], minutes = new int[entries], costs = new int[entries], spectators = new int[entries];
+        int e = 0;
+        for (int i = 0; i < m; i++) {
+            for (int j = 0, c = i * k; j < k; j++, c++) {
+                int minute = values.get(minutesAt + c);
+                if (minute < 0)
+                    throw negative(source, "T", c);
+                if (minute > 0) {
+                    slots[e] = j;
+                    minutes[e] = minute;
+                    costs[e] = values.get(costsAt + c);
+                    spectators[e] = values.get(spectatorsAt + c);
+                    if (costs[e] < 0)
+                        throw negative(source, "C", c);
+                    if (spectators[e++] < 0)
+                        throw negative(source, "P", c);
+                }
+            }
+            stationStart[i + 1] = e;
+        }
+        return new SparseInstance(m, k, coverage, omega, budgets, stationStart, slots, minutes, costs, spectators);
+    }
+
+    private static Instance readBinary(ByteBuffer buffer, String source) throws IOException {
+        buffer = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int m = checkHeader(buffer, source), k = buffer.getInt();
+        double coverage = buffer.getDouble(), omega = buffer.getDouble();
+        long cells = checkSize(buffer, source, m, k);
+
+        // columns are contiguous, each one is copied with a single bulk get
+        int[] budgets = new int[m], minutes = new int[(int) cells], costs = new int[(int) cells], spectators = new int[(int) cells];
+        buffer.asIntBuffer().get(budgets).get(minutes).get(costs).get(spectators);
+        checkValues(budgets, source, "B");
+        checkValues(minutes, source, "T");
+        checkValues(costs, source, "C");
+        checkValues(spectators, source, "P");
+
+        return new Instance(m, k, coverage, omega, budgets, minutes, costs, spectators);
+    }
+
+    // reads magic and version, returns M
+    private static int checkHeader(ByteBuffer buffer, String source) throws IOException {
+        if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC)
+            throw new IOException(source + " is not a binary instance file");
+        int version = buffer.getInt();
+        if (version != VERSION)
+            throw new IOException(source + ": unsupported binary instance version " + version);
+        return buffer.getInt();
+    }
+
+    // M x K, when the rest of the buffer holds exactly the B, T, C and P columns
+    private static long checkSize(ByteBuffer buffer, String source, int m, int k) throws IOException {
+        long cells = (long) m * k;
+        // 3 * cells cannot overflow, and the columns fit in int-indexed arrays
+        if (m <= 0 || k <= 0 || cells > Integer.MAX_VALUE / 3 || buffer.remaining() != (m + 3 * cells) * Integer.BYTES)
+            throw new IOException(source + ": size does not match M = " + m + ", K = " + k);
+        return cells;
+    }
+
+    // the tables of the binary format hold non-negative values
+    private static void checkValues(int[] table, String source, String name) throws IOException {
+        for (int c = 0; c < table.length; c++)
+            if (table[c] < 0)
+                throw negative(source, name, c);
+    }
+
+    private static IOException negative(String source, String name, int c) {
+        return new IOException(source + ": value " + c + " of table " + name + " is negative");
+    }
+
+    private static MappedByteBuffer map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // the mapping stays valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    private static final class CsvParser {
+        // 10^0 .. 10^22, all exact doubles
+        private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+                1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+        // beyond the exponent of any double, also with 18 significant digits in the mantissa
+        private static final long MAX_EXPONENT = 100_000;
+
+        private final String source;
+        private final ByteBuffer in;
+        private int line = 1;
+        // position of the first character of the line and of the last number read
+        private int lineStart, numberStart;
+
+        CsvParser(String source, ByteBuffer in) {
+            this.source = source;
+            this.in = in;
+            lineStart = in.position();
+        }
+
+        Instance parse() throws IOException {
+            for (char name : new char[]{'M', 'K', 'S', 'O'})
+                expectSection(name);
+            long m = nextInteger();
+            long k = nextInteger();
+            double coverage = nextNumber();
+            double omega = nextNumber();
+            if (m <= 0 || k <= 0)
+                throw error("M and K must be positive");
+            if (m > Integer.MAX_VALUE || k > Integer.MAX_VALUE)
+                throw error("M and K must be at most " + Integer.MAX_VALUE);
+
+            int[] budgets = null, minutes = null, costs = null, spectators = null, deviations = null;
+            int section;
+            while ((section = nextSection()) >= 0) {
+                switch (section) {
+                    case 'B': budgets = readTable(m); break;
+                    case 'T': minutes = readTable(m * k); break;
+                    case 'C': costs = readTable(m * k); break;
+                    case 'P': spectators = readTable(m * k); break;
+                    case 'D': deviations = readTable(m * k); break;
+                    default: throw error("unknown section '" + (char) section + "'");
+                }
+            }
+            if (budgets == null || minutes == null || costs == null || spectators == null)
+                throw error("sections B, T, C and P are all required");
+
+            return new Instance((int) m, (int) k, coverage, omega, budgets, minutes, costs, spectators, deviations);
+        }
+
+        // "size" values; checked against the input before the table is allocated, a header can claim any M and K
+        private int[] readTable(long size) throws IOException {
+            // every value takes a digit and all but the last one a separator
+            if (size > Integer.MAX_VALUE || size > (in.remaining() + 1) / 2)
+                throw error("a table of " + size + " values does not fit in the rest of the input");
+            int[] table = new int[(int) size];
+            for (int i = 0; i < size; i++) {
+                // the range is checked before the conversion, which would wrap or saturate
+                double value = nextNumber();
+                if (value < 0 || value > Integer.MAX_VALUE)
+                    throw error(numberStart, "value between 0 and " + Integer.MAX_VALUE + " expected, found " + numberText());
+                if (value != Math.rint(value))
+                    throw error(numberStart, "integer expected, found " + numberText());
+                table[i] = (int) value;
+            }
+            return table;
+        }
+
+        private void expectSection(char name) throws IOException {
+            if (nextSection() != name)
+                throw error("'" + name + "' expected");
+        }
+
+        // next single-letter section name, -1 at end of file
+        private int nextSection() throws IOException {
+            skipSeparators();
+            if (!in.hasRemaining())
+                return -1;
+            int c = in.get(in.position());
+            if (!Character.isLetter(c))
+                throw error("section name expected");
+            in.get();
+            if (in.hasRemaining() && Character.isLetterOrDigit(in.get(in.position())))
+                throw error("section names are single letters");
+            return Character.toUpperCase(c);
+        }
+
+        private long nextInteger() throws IOException {
+            double value = nextNumber();
+            if (value != Math.rint(value))
+                throw error("integer expected, found " + value);
+            return (long) value;
+        }
+
+        private double nextNumber() throws IOException {
+            skipSeparators();
+            if (!in.hasRemaining())
+                throw error("number expected, found end of file");
+
+            int start = numberStart = in.position();
+            boolean negative = false;
+            int c = in.get(in.position());
+            if (c == '-' || c == '+') {
+                negative = c == '-';
+                in.get();
+            }
+
+            // leading zeros are not significant; past 18 significant digits the mantissa would overflow, the
+            // value is then parsed by Double.parseDouble
+            long mantissa = 0;
+            int digits = 0, significant = 0, scale = 0;
+            boolean dot = false;
+            while (in.hasRemaining()) {
+                c = in.get(in.position());
+                if (c >= '0' && c <= '9') {
+                    digits++;
+                    if (mantissa != 0 || c != '0')
+                        significant++;
+                    if (significant <= 18) {
+                        mantissa = mantissa * 10 + (c - '0');
+                        if (dot) scale--;
+                    }
+                } else if (c == '.' && !dot) {
+                    dot = true;
+                } else {
+                    break;
+                }
+                in.get();
+            }
+            if (digits == 0)
+                throw error("malformed number");
+
+            if (in.hasRemaining() && (in.get(in.position()) == 'e' || in.get(in.position()) == 'E')) {
+                in.get();
+                scale += (int) nextExponent();
+            }
+
+            // exact mantissa and power of ten: a single rounding, as Double.parseDouble (e.g. the values of
+            // Double.toString written by InstanceWriter, up to 17 digits, take the slow path)
+            if (mantissa <= 1L << 53 && scale >= -22 && scale <= 22) {
+                double value = scale >= 0 ? mantissa * POWERS_OF_TEN[scale] : mantissa / POWERS_OF_TEN[-scale];
+                return negative ? -value : value;
+            }
+            byte[] text = new byte[in.position() - start];
+            in.duplicate().position(start).get(text);
+            return Double.parseDouble(new String(text, StandardCharsets.US_ASCII));
+        }
+
+        // text of the last number read
+        private String numberText() {
+            byte[] text = new byte[in.position() - numberStart];
+            in.duplicate().position(numberStart).get(text);
+            return new String(text, StandardCharsets.US_ASCII);
+        }
+
+        private long nextExponent() throws IOException {
+            boolean negative = false;
+            if (in.hasRemaining() && (in.get(in.position()) == '-' || in.get(in.position()) == '+'))
+                negative = in.get() == '-';
+            long exponent = 0;
+            int digits = 0;
+            while (in.hasRemaining() && in.get(in.position()) >= '0' && in.get(in.position()) <= '9') {
+                // clamped: any exponent past MAX_EXPONENT gives 0 or infinity, a larger one would wrap
+                exponent = Math.min(exponent * 10 + (in.get() - '0'), MAX_EXPONENT);
+                digits++;
+            }
+            if (digits == 0)
+                throw error("malformed exponent");
+            return negative ? -exponent : exponent;
+        }
+
+        // blanks, commas, semicolons, new lines and comments
+        private void skipSeparators() {
+            while (in.hasRemaining()) {
+                int c = in.get(in.position());
+                if (c == '#') {
+                    while (in.hasRemaining() && in.get(in.position()) != '\n')
+                        in.get();
+                } else if (c == '\n') {
+                    line++;
+                    in.get();
+                    lineStart = in.position();
+                } else if (c == ' ' || c == '\t' || c == '\r' || c == ',' || c == ';') {
+                    in.get();
+                } else {
+                    return;
+                }
+            }
+        }
+
+        private IOException error(String message) {
+            return error(in.position(), message);
+        }
+
+        // "position" on the current line, its column counts from 1
+        private IOException error(int position, String message) {
+            return new IOException(source + ":" + line + ":" + (position - lineStart + 1) + ": " + message);
+        }
+    }
+}
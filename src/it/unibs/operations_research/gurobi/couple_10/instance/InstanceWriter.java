@@ -0,0 +1,92 @@
+package it.unibs.operations_research.gurobi.couple_10.instance;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes an {@link Instance} in the formats read by {@link InstanceReader}.
+ * The binary file is little-endian: header (magic, version, M, K, S, O) followed by the columns
+ * B_i, T_ij, C_ij and P_ij, each one stored as a contiguous block of ints.
+ * The binary format has no deviations D_ij.
+ */
+public final class InstanceWriter {
+    private InstanceWriter() {
+    }
+
+    // converts a CSV instance to the binary format: "InstanceWriter <input.csv> <output.bin>"
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("usage: InstanceWriter <input> <output>");
+            System.exit(2);
+        }
+        Instance instance = InstanceReader.read(Paths.get(args[0]));
+        write(instance, Paths.get(args[1]));
+    }
+
+    public static void write(Instance instance, Path path) throws IOException {
+        if (path.toString().endsWith(".bin"))
+            writeBinary(instance, path);
+        else
+            writeCsv(instance, path);
+    }
+
+    public static void writeBinary(Instance instance, Path path) throws IOException {
+        int m = instance.m(), k = instance.k();
+        long size = InstanceReader.HEADER_BYTES + (m + 3L * m * k) * Integer.BYTES;
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, size).order(ByteOrder.LITTLE_ENDIAN);
+            out.putInt(InstanceReader.MAGIC)
+                    .putInt(InstanceReader.VERSION)
+                    .putInt(m)
+                    .putInt(k)
+                    .putDouble(instance.coverage())
+                    .putDouble(instance.omega());
+            out.asIntBuffer()
+                    .put(instance.budgets())
+                    .put(instance.minutes())
+                    .put(instance.costs())
+                    .put(instance.spectators());
+        }
+    }
+
+    public static void writeCsv(Instance instance, Path path) throws IOException {
+        int m = instance.m(), k = instance.k();
+
+        try (BufferedWriter out = Files.newBufferedWriter(path)) {
+            out.write("M,K,S,O\n");
+            out.write(m + "," + k + "," + number(instance.coverage()) + "," + number(instance.omega()) + "\n");
+            out.write("B\n");
+            for (int i = 0; i < m; i++)
+                out.write(instance.budget(i) + "\n");
+            writeTable(out, "T", instance.minutes(), m, k);
+            writeTable(out, "C", instance.costs(), m, k);
+            writeTable(out, "P", instance.spectators(), m, k);
+            if (instance.deviations() != null)
+                writeTable(out, "D", instance.deviations(), m, k);
+        }
+    }
+
+    private static void writeTable(BufferedWriter out, String name, int[] table, int m, int k) throws IOException {
+        out.write(name + "\n");
+        for (int i = 0; i < m; i++) {
+            for (int j = 0; j < k; j++) {
+                if (j > 0) out.write(',');
+                out.write(Integer.toString(table[i * k + j]));
+            }
+            out.write('\n');
+        }
+    }
+
+    private static String number(double value) {
+        return value == Math.rint(value) && Math.abs(value) < 1e15 ? Long.toString((long) value) : Double.toString(value);
+    }
+}
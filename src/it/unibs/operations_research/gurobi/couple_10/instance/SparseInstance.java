@@ -0,0 +1,177 @@
+package it.unibs.operations_research.gurobi.couple_10.instance;
+
+import java.util.Arrays;
+
+/**
+ * Planning instance of a sparse catalogue, where a station sells only a few of the K slots: only the pairs (i, j)
+ * with τ_ij > 0 are stored, compressed by station (CSR). The pairs of station i are the entries
+ * stationStart[i] <= e < stationStart[i+1], by increasing slot; slots[e] is the slot of entry e and minutes[e],
+ * costs[e], spectators[e] its τ_ij, C_ij and P_ij. Memory is about 16 bytes per available pair instead of
+ * 12 bytes per cell of {@link Instance}.
+ * The arrays returned by the getters are not copied and must not be modified.
+ */
+public final class SparseInstance {
+    private final int m, k;
+    private final double coverage, omega;
+    private final int[] budgets;
+    private final int[] stationStart, slots, minutes, costs, spectators;
+    private final long totalBudget;
+
+    public SparseInstance(int m, int k, double coverage, double omega, int[] budgets, int[] stationStart, int[] slots,
+                          int[] minutes, int[] costs, int[] spectators) {
+        if (m <= 0 || k <= 0)
+            throw new IllegalArgumentException("M and K must be positive (M = " + m + ", K = " + k + ")");
+        if (budgets.length != m)
+            throw new IllegalArgumentException("B_i must contain " + m + " values, found " + budgets.length);
+        if (stationStart.length != m + 1 || stationStart[0] != 0)
+            throw new IllegalArgumentException("the station offsets must contain " + (m + 1) + " values from 0");
+        int entries = stationStart[m];
+        if (slots.length != entries || minutes.length != entries || costs.length != entries || spectators.length != entries)
+            throw new IllegalArgumentException("slots, T_ij, C_ij and P_ij must contain " + entries + " values");
+        for (int i = 0; i < m; i++) {
+            for (int e = stationStart[i]; e < stationStart[i + 1]; e++) {
+                if (slots[e] < 0 || slots[e] >= k || e > stationStart[i] && slots[e] <= slots[e - 1])
+                    throw new IllegalArgumentException("the slots of station " + (i + 1) + " must be increasing and below K");
+                if (minutes[e] <= 0)
+                    throw new IllegalArgumentException("T_" + (i + 1) + "_" + (slots[e] + 1) + " must be positive in a sparse instance");
+            }
+        }
+
+        this.m = m;
+        this.k = k;
+        this.coverage = coverage;
+        this.omega = omega;
+        this.budgets = budgets;
+        this.stationStart = stationStart;
+        this.slots = slots;
+        this.minutes = minutes;
+        this.costs = costs;
+        this.spectators = spectators;
+
+        long sum = 0;
+        for (int budget : budgets)
+            sum += budget;
+        totalBudget = sum;
+    }
+
+    // pairs of "instance" with τ_ij > 0
+    public static SparseInstance of(Instance instance) {
+        int m = instance.m(), k = instance.k();
+        int[] denseMinutes = instance.minutes(), denseCosts = instance.costs(), denseSpectators = instance.spectators();
+        int entries = 0;
+        for (int minute : denseMinutes)
+            if (minute > 0)
+                entries++;
+
+        int[] stationStart = new int[m + 1];
+        int[] slots = new int[entries], minutes = new int[entries], costs = new int[entries], spectators = new int[entries];
+        int e = 0;
+        for (int i = 0; i < m; i++) {
+            for (int j = 0, c = i * k; j < k; j++, c++) {
+                if (denseMinutes[c] > 0) {
+                    slots[e] = j;
+                    minutes[e] = denseMinutes[c];
+                    costs[e] = denseCosts[c];
+                    spectators[e++] = denseSpectators[c];
+                }
+            }
+            stationStart[i + 1] = e;
+        }
+        return new SparseInstance(m, k, instance.coverage(), instance.omega(), instance.budgets(), stationStart, slots,
+                minutes, costs, spectators);
+    }
+
+    // the same instance with every cell, τ_ij = C_ij = P_ij = 0 for the missing pairs
+    public Instance toInstance() {
+        int cells = Math.multiplyExact(m, k);
+        int[] denseMinutes = new int[cells], denseCosts = new int[cells], denseSpectators = new int[cells];
+        for (int i = 0; i < m; i++) {
+            for (int e = stationStart[i]; e < stationStart[i + 1]; e++) {
+                int c = i * k + slots[e];
+                denseMinutes[c] = minutes[e];
+                denseCosts[c] = costs[e];
+                denseSpectators[c] = spectators[e];
+            }
+        }
+        return new Instance(m, k, coverage, omega, budgets, denseMinutes, denseCosts, denseSpectators);
+    }
+
+    public int m() {
+        return m;
+    }
+
+    public int k() {
+        return k;
+    }
+
+    // number of available pairs
+    public int entries() {
+        return stationStart[m];
+    }
+
+    // available pairs / (M * K)
+    public double density() {
+        return (double) stationStart[m] / ((double) m * k);
+    }
+
+    public double coverage() {
+        return coverage;
+    }
+
+    public double omega() {
+        return omega;
+    }
+
+    public int budget(int i) {
+        return budgets[i];
+    }
+
+    public int[] budgets() {
+        return budgets;
+    }
+
+    public int[] stationStart() {
+        return stationStart;
+    }
+
+    public int[] slots() {
+        return slots;
+    }
+
+    public int[] minutes() {
+        return minutes;
+    }
+
+    public int[] costs() {
+        return costs;
+    }
+
+    public int[] spectators() {
+        return spectators;
+    }
+
+    // entry of the pair (i, j), -1 when the station does not sell the slot
+    public int entry(int i, int j) {
+        int e = Arrays.binarySearch(slots, stationStart[i], stationStart[i + 1], j);
+        return e < 0 ? -1 : e;
+    }
+
+    // station of entry "e"
+    public int station(int e) {
+        int i = Arrays.binarySearch(stationStart, e);
+        if (i < 0)
+            return -i - 2;
+        // stations without pairs share the offset of the next one
+        while (stationStart[i + 1] == e)
+            i++;
+        return i;
+    }
+
+    public long totalBudget() {
+        return totalBudget;
+    }
+
+    public double minSlotBudget() {
+        return totalBudget * omega;
+    }
+}
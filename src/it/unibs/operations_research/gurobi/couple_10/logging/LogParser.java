@@ -0,0 +1,154 @@
+package it.unibs.operations_research.gurobi.couple_10.logging;
+
+import it.unibs.operations_research.gurobi.couple_10.solver.LpModel;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reads run records out of solver logs, both the ones written by RunLog and the Gurobi log files of older runs
+ * (one session for each "logging started" line, like "gurobi_first_part.log").
+ *
+ * A RunLog session starts with "Run <id> program <program> started <time>" and has one "Solve ..." line for each
+ * optimize(); the Gurobi lines ("Solved in ... iterations and ... seconds", "Optimal objective ...", ...) are used
+ * only by sessions without them.
+ */
+public final class LogParser {
+    private static final Pattern RUN = Pattern.compile("^Run (\\S+) program (\\S+) started (\\S+)");
+    private static final Pattern SOLVE = Pattern.compile("^Solve status=(\\d+) iterations=(\\S+) objective=(\\S+) time=(\\S+)");
+    private static final Pattern LEGACY = Pattern.compile("logging started (.+)$");
+    private static final Pattern PARAMETER = Pattern.compile("^Set parameter (\\S+) to value (.+)$");
+    // "Solved in 41 iterations and 0.00 seconds", "Stopped in ...", MIP: "Explored 1 nodes (52 simplex iterations) in 0.01 seconds"
+    private static final Pattern SOLVED = Pattern.compile("^(?:Solved|Stopped) in (\\S+) iterations and (\\S+) seconds");
+    private static final Pattern EXPLORED = Pattern.compile("^Explored \\S+ nodes \\((\\S+) simplex iterations\\) in (\\S+) seconds");
+    private static final Pattern OPTIMAL = Pattern.compile("^Optimal objective\\s+(\\S+)");
+    private static final Pattern BEST = Pattern.compile("^Best objective (\\S+?),");
+    private static final DateTimeFormatter GUROBI_DATE = DateTimeFormatter.ofPattern("EEE MMM d HH:mm:ss yyyy", Locale.US);
+
+    private LogParser() {
+    }
+
+    // "prefix" names the sessions without a RunLog header: prefix-1, prefix-2, ...
+    public static List<RunRecord> parse(List<Path> files, String prefix, String program) throws IOException {
+        Session session = new Session(prefix, program);
+        for (Path file : files) {
+            try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                for (String line = in.readLine(); line != null; line = in.readLine())
+                    session.line(line.trim());
+            }
+        }
+        return session.finish();
+    }
+
+    private static final class Session {
+        private final String prefix, program;
+        private final List<RunRecord> records = new ArrayList<>();
+        private RunRecord current;
+        // solves of the Gurobi lines, kept apart until the end of the session
+        private RunRecord gurobi;
+        private int legacy;
+
+        Session(String prefix, String program) {
+            this.prefix = prefix;
+            this.program = program;
+        }
+
+        void line(String line) {
+            Matcher matcher;
+            if ((matcher = RUN.matcher(line)).find()) {
+                start(new RunRecord(matcher.group(1), matcher.group(2), LocalDateTime.parse(matcher.group(3))));
+            } else if ((matcher = LEGACY.matcher(line)).find()) {
+                start(new RunRecord(prefix + "-" + ++legacy, program, gurobiDate(matcher.group(1))));
+            } else if ((matcher = SOLVE.matcher(line)).find()) {
+                record().addSolve(Integer.parseInt(matcher.group(1)), Double.parseDouble(matcher.group(2)),
+                        Double.parseDouble(matcher.group(4)), Double.parseDouble(matcher.group(3)));
+            } else if ((matcher = PARAMETER.matcher(line)).find()) {
+                record().parameter(matcher.group(1), matcher.group(2).trim());
+            } else if ((matcher = SOLVED.matcher(line)).find() || (matcher = EXPLORED.matcher(line)).find()) {
+                record();
+                gurobi.addSolve(LpModel.LOADED, Double.parseDouble(matcher.group(1)), Double.parseDouble(matcher.group(2)), Double.NaN);
+            } else if ((matcher = OPTIMAL.matcher(line)).find() || (matcher = BEST.matcher(line)).find()) {
+                RunRecord.Solve solve = lastGurobiSolve();
+                if (solve != null) {
+                    solve.setObjective(number(matcher.group(1)));
+                    if (line.startsWith("Optimal"))
+                        solve.setStatus(LpModel.OPTIMAL);
+                }
+            } else {
+                int status = status(line);
+                RunRecord.Solve solve = lastGurobiSolve();
+                if (status != 0 && solve != null)
+                    solve.setStatus(status);
+            }
+        }
+
+        // status line that follows the summary of a Gurobi solve, 0 for any other line
+        private static int status(String line) {
+            if (line.startsWith("Optimal solution found")) return LpModel.OPTIMAL;
+            if (line.equals("Infeasible model")) return LpModel.INFEASIBLE;
+            if (line.equals("Infeasible or unbounded model")) return 4;
+            if (line.equals("Unbounded model")) return LpModel.UNBOUNDED;
+            if (line.equals("Iteration limit reached")) return LpModel.ITERATION_LIMIT;
+            if (line.equals("Time limit reached")) return LpModel.TIME_LIMIT;
+            return 0;
+        }
+
+        private RunRecord.Solve lastGurobiSolve() {
+            return gurobi == null ? null : gurobi.lastSolve();
+        }
+
+        private RunRecord record() {
+            if (current == null)
+                start(new RunRecord(prefix + "-" + ++legacy, program, null));
+            return current;
+        }
+
+        private void start(RunRecord record) {
+            close();
+            current = record;
+            gurobi = new RunRecord(record.getId(), record.getProgram(), record.getStart());
+            records.add(record);
+        }
+
+        // the Gurobi lines count only when the session has no "Solve" line
+        private void close() {
+            if (current != null && current.getSolves().isEmpty())
+                for (RunRecord.Solve solve : gurobi.getSolves())
+                    current.addSolve(solve.getStatus(), solve.getIterations(), solve.getTime(), solve.getObjective());
+        }
+
+        List<RunRecord> finish() {
+            close();
+            current = null;
+            return records;
+        }
+
+        private static LocalDateTime gurobiDate(String text) {
+            try {
+                return LocalDateTime.parse(text.trim().replaceAll("\\s+", " "), GUROBI_DATE);
+            } catch (DateTimeParseException e) {
+                return null;
+            }
+        }
+
+        private static double number(String text) {
+            try {
+                return Double.parseDouble(text);
+            } catch (NumberFormatException e) {
+                // "-" when Gurobi has no value
+                return Double.NaN;
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package it.unibs.operations_research.gurobi.couple_10.logging;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Text file that never grows beyond "maxBytes": when the next line does not fit, "run.log" becomes "run.log.1"
+ * (the older ones "run.log.2", ...) and a new "run.log" is started; only "keep" old files are kept.
+ * Not thread-safe, RunLog writes from its own thread only.
+ */
+final class RotatingLog implements Closeable {
+    private final Path file;
+    private final long maxBytes;
+    private final int keep;
+    private BufferedWriter out;
+    private long size;
+
+    RotatingLog(Path file, long maxBytes, int keep) throws IOException {
+        this.file = file;
+        this.maxBytes = maxBytes;
+        this.keep = keep;
+        open();
+    }
+
+    void write(String line) throws IOException {
+        long bytes = line.getBytes(StandardCharsets.UTF_8).length + 1;
+        if (size > 0 && size + bytes > maxBytes)
+            rotate();
+        out.write(line);
+        out.newLine();
+        size += bytes;
+    }
+
+    void flush() throws IOException {
+        out.flush();
+    }
+
+    // the files of the log, oldest first, the current one last
+    List<Path> files() {
+        List<Path> files = new ArrayList<>();
+        for (int n = keep; n >= 1; n--)
+            if (Files.exists(rotated(n)))
+                files.add(rotated(n));
+        files.add(file);
+        return files;
+    }
+
+    private void rotate() throws IOException {
+        out.close();
+        Files.deleteIfExists(rotated(keep));
+        for (int n = keep - 1; n >= 1; n--)
+            if (Files.exists(rotated(n)))
+                Files.move(rotated(n), rotated(n + 1), StandardCopyOption.REPLACE_EXISTING);
+        if (keep > 0)
+            Files.move(file, rotated(1), StandardCopyOption.REPLACE_EXISTING);
+        open();
+    }
+
+    private void open() throws IOException {
+        out = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        size = 0;
+    }
+
+    private Path rotated(int n) {
+        return file.resolveSibling(file.getFileName() + "." + n);
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
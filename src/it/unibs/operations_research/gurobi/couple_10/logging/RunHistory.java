@@ -0,0 +1,124 @@
+package it.unibs.operations_research.gurobi.couple_10.logging;
+
+import it.unibs.operations_research.gurobi.couple_10.Gurobi;
+import it.unibs.operations_research.gurobi.couple_10.report.ReportWriter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Queries the history of the runs written by RunLog: the runs that match the filters, with iterations, solve time
+ * and last objective, and the mean solve time of the older and the newer half of them to spot a trend.
+ *
+ * "--import=<log>" first adds the sessions of a Gurobi log file of older runs (e.g. gurobi_first_part.log) to the
+ * history, the ones already imported are skipped.
+ *
+ * Usage: RunHistory [--history=logs/runs.tsv] [--import=<log>] [--program=<name>] [--since=<yyyy-mm-dd>]
+ *                   [--parameter=<Name>=<value>] [--report=<path>] [--report-format=text|csv|jsonl]
+ */
+public class RunHistory {
+    public static void main(String[] args) throws IOException {
+        Path history = Paths.get(Gurobi.option(args, "history", "logs/" + RunLog.HISTORY));
+        String imported = Gurobi.option(args, "import", null);
+        if (imported != null)
+            importLog(history, Paths.get(imported));
+
+        String parameter = Gurobi.option(args, "parameter", null);
+        if (parameter != null && parameter.indexOf('=') <= 0) {
+            System.err.println("usage: RunHistory ... --parameter=<Name>=<value>, e.g. --parameter=Solver=simplex");
+            System.exit(2);
+        }
+        List<RunRecord> runs = select(RunRecord.read(history), Gurobi.option(args, "program", null),
+                Gurobi.option(args, "since", null), parameter);
+        // imported runs are appended after newer ones: the trend needs the order of the start times
+        runs.sort(Comparator.comparing(RunRecord::getStart, Comparator.nullsFirst(Comparator.naturalOrder())));
+
+        try (ReportWriter report = ReportWriter.open(Gurobi.option(args, "report-format", "text"), Gurobi.option(args, "report", null))) {
+            report.header("GRUPPO 10", "Componenti: Baresi, El Koudri");
+            report.beginQuestion("RUNS", "STORICO DELLE ESECUZIONI");
+            report.value("runs", "esecuzioni", runs.size());
+            report.value("solves", "soluzioni", runs.stream().mapToInt(run -> run.getSolves().size()).sum());
+
+            // older half and newer half of the runs with at least one solve
+            List<RunRecord> solved = new ArrayList<>();
+            for (RunRecord run : runs)
+                if (!run.getSolves().isEmpty())
+                    solved.add(run);
+            int half = solved.size() / 2;
+            report.value("older_mean_time", "tempo medio di soluzione, prima metà (s)", meanTime(solved.subList(0, half)));
+            report.value("newer_mean_time", "tempo medio di soluzione, seconda metà (s)", meanTime(solved.subList(half, solved.size())));
+
+            report.beginList("solve_time", "tempo di soluzione (s)");
+            for (RunRecord run : runs)
+                report.item(label(run), run.getSolveTime());
+            report.endList();
+            report.beginList("iterations", "iterazioni");
+            for (RunRecord run : runs)
+                report.item(label(run), run.getIterations());
+            report.endList();
+            report.beginList("objective", "funzione obiettivo dell'ultima soluzione");
+            for (RunRecord run : runs)
+                report.item(label(run), run.getSolves().isEmpty() ? Double.NaN : run.getSolves().get(run.getSolves().size() - 1).getObjective());
+            report.endList();
+            report.endQuestion();
+        }
+    }
+
+    // runs of "program" started on "since" or later with the parameter "Name=value", null filters match every run
+    public static List<RunRecord> select(List<RunRecord> runs, String program, String since, String parameter) {
+        LocalDate from = since == null ? null : LocalDate.parse(since);
+        String name = null, value = null;
+        if (parameter != null) {
+            int equals = parameter.indexOf('=');
+            if (equals <= 0)
+                throw new IllegalArgumentException("parameter filter \"" + parameter + "\" is not Name=value");
+            name = parameter.substring(0, equals);
+            value = parameter.substring(equals + 1);
+        }
+        List<RunRecord> selected = new ArrayList<>();
+        for (RunRecord run : runs) {
+            if (program != null && !program.equals(run.getProgram()))
+                continue;
+            if (from != null && (run.getStart() == null || run.getStart().toLocalDate().isBefore(from)))
+                continue;
+            if (name != null && !value.equals(run.getParameters().get(name)))
+                continue;
+            selected.add(run);
+        }
+        return selected;
+    }
+
+    private static void importLog(Path history, Path log) throws IOException {
+        String prefix = log.getFileName().toString().replaceFirst("\\.log$", "");
+        Set<String> known = new HashSet<>();
+        for (RunRecord run : RunRecord.read(history))
+            known.add(run.getId());
+        List<RunRecord> runs = new ArrayList<>();
+        for (RunRecord run : LogParser.parse(Collections.singletonList(log), prefix, prefix))
+            if (!known.contains(run.getId()))
+                runs.add(run);
+        if (history.getParent() != null)
+            Files.createDirectories(history.getParent());
+        RunRecord.append(history, runs);
+    }
+
+    private static double meanTime(List<RunRecord> runs) {
+        double time = 0;
+        for (RunRecord run : runs)
+            time += run.getSolveTime();
+        return runs.isEmpty() ? Double.NaN : time / runs.size();
+    }
+
+    private static String label(RunRecord run) {
+        return run.getStart() == null ? run.getId() : run.getId() + " (" + run.getStart() + ")";
+    }
+}
@@ -0,0 +1,152 @@
+package it.unibs.operations_research.gurobi.couple_10.logging;
+
+import it.unibs.operations_research.gurobi.couple_10.solver.ProgressListener;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Log of one run: "<directory>/<program>-<time>-<pid>.log", rotated every MAX_BYTES (see RotatingLog).
+ *
+ * Lines are queued and written by a background thread, so the thread that solves never waits for the disk: when
+ * the queue is full the line is dropped and counted. As a ProgressListener it receives the solver log lines
+ * (Gurobi) and writes one "Solve ..." line for every optimize(), for every backend.
+ * close() writes the rest of the queue, parses the log into a RunRecord and appends it to the history
+ * "<directory>/runs.tsv", see RunHistory.
+ */
+public final class RunLog implements ProgressListener, Closeable {
+    public static final String HISTORY = "runs.tsv";
+    private static final long MAX_BYTES = 1 << 20;
+    private static final int KEEP = 4;
+    private static final int CAPACITY = 1 << 16;
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+    // tells the writer thread to stop, compared by identity
+    private static final String END = new String("end");
+
+    private final Path directory;
+    private final String id, program;
+    private final RotatingLog log;
+    private final BlockingQueue<String> queue = new ArrayBlockingQueue<>(CAPACITY);
+    private final Thread writer;
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile IOException failure;
+    private RunRecord record;
+
+    private RunLog(Path directory, String program) throws IOException {
+        this.directory = directory;
+        this.program = program;
+        LocalDateTime start = LocalDateTime.now();
+        id = program + "-" + FILE_TIME.format(start) + "-" + ProcessHandle.current().pid();
+        Files.createDirectories(directory);
+        log = new RotatingLog(directory.resolve(id + ".log"), MAX_BYTES, KEEP);
+        writer = new Thread(this::write, "run-log");
+        writer.setDaemon(true);
+        writer.start();
+        line("Run " + id + " program " + program + " started " + start);
+    }
+
+    public static RunLog open(Path directory, String program) throws IOException {
+        return new RunLog(directory, program);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    // one or more lines of text, never blocks
+    public void line(String text) {
+        if (text.endsWith("\n"))
+            text = text.substring(0, text.length() - 1);
+        for (String line : text.split("\n", -1))
+            if (!queue.offer(line))
+                dropped.incrementAndGet();
+    }
+
+    // same line written by Gurobi, for the parameters of every backend
+    public void parameter(String name, Object value) {
+        line("Set parameter " + name + " to value " + value);
+    }
+
+    @Override
+    public void simplex(double iterations, double objective, double primalInfeasibility, double dualInfeasibility, double runtime) {
+        // the iterations are in the solver log already, a line for each callback would only fill the queue
+    }
+
+    @Override
+    public void mip(double nodes, double incumbent, double bound, int solutions, double runtime) {
+    }
+
+    @Override
+    public void finished(int status, double iterations, double objective, double runtime) {
+        line(String.format(Locale.ROOT, "Solve status=%d iterations=%.0f objective=%s time=%.6f", status, iterations, objective, runtime));
+    }
+
+    @Override
+    public void message(String text) {
+        line(text);
+    }
+
+    // record of the run, available after close()
+    public RunRecord getRecord() {
+        return record;
+    }
+
+    private void write() {
+        List<String> batch = new ArrayList<>();
+        try {
+            while (true) {
+                batch.add(queue.take());
+                queue.drainTo(batch);
+                for (String line : batch) {
+                    if (line == END) {
+                        log.flush();
+                        return;
+                    }
+                    log.write(line);
+                }
+                batch.clear();
+                // a flush for each batch: the file is up to date whenever the queue is empty
+                log.flush();
+            }
+        } catch (IOException e) {
+            failure = e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (dropped.get() > 0)
+            line("Dropped " + dropped.get() + " log lines");
+        try {
+            // a writer stopped by an error (checked or not) would never make room in the queue
+            boolean ended = false;
+            while (!ended && writer.isAlive())
+                ended = queue.offer(END, 100, TimeUnit.MILLISECONDS);
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.close();
+        if (failure != null)
+            throw failure;
+
+        List<RunRecord> records = LogParser.parse(log.files(), id, program);
+        record = records.isEmpty() ? null : records.get(0);
+        if (record != null)
+            RunRecord.append(directory.resolve(HISTORY), Collections.singletonList(record));
+    }
+}
@@ -0,0 +1,186 @@
+package it.unibs.operations_research.gurobi.couple_10.logging;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Compact record of one run, parsed from its log: the solver parameters and, for every optimize(), status,
+ * iterations, solve time and objective.
+ *
+ * The history of the runs is a tab separated file with one row for each solve (solve 0 for a run without solves):
+ *     run  start  program  parameters  solve  status  iterations  time  objective
+ * parameters are "Name=value" pairs separated by ';'.
+ */
+public final class RunRecord {
+    private static final String HEADER = "run\tstart\tprogram\tparameters\tsolve\tstatus\titerations\ttime\tobjective";
+
+    private final String id, program;
+    private final LocalDateTime start;
+    private final Map<String, String> parameters = new LinkedHashMap<>();
+    private final List<Solve> solves = new ArrayList<>();
+
+    public RunRecord(String id, String program, LocalDateTime start) {
+        this.id = id;
+        this.program = program;
+        this.start = start;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getProgram() {
+        return program;
+    }
+
+    // null when the log does not tell
+    public LocalDateTime getStart() {
+        return start;
+    }
+
+    public Map<String, String> getParameters() {
+        return Collections.unmodifiableMap(parameters);
+    }
+
+    public List<Solve> getSolves() {
+        return Collections.unmodifiableList(solves);
+    }
+
+    public double getIterations() {
+        double iterations = 0;
+        for (Solve solve : solves)
+            iterations += solve.iterations;
+        return iterations;
+    }
+
+    // seconds spent in optimize(), all the solves
+    public double getSolveTime() {
+        double time = 0;
+        for (Solve solve : solves)
+            time += solve.time;
+        return time;
+    }
+
+    void parameter(String name, String value) {
+        parameters.put(name, value);
+    }
+
+    Solve addSolve(int status, double iterations, double time, double objective) {
+        Solve solve = new Solve(status, iterations, time, objective);
+        solves.add(solve);
+        return solve;
+    }
+
+    Solve lastSolve() {
+        return solves.isEmpty() ? null : solves.get(solves.size() - 1);
+    }
+
+    // rows of the history, the file and its header are created when missing
+    public static void append(Path history, List<RunRecord> records) throws IOException {
+        boolean exists = Files.exists(history);
+        try (BufferedWriter out = Files.newBufferedWriter(history, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND)) {
+            if (!exists) {
+                out.write(HEADER);
+                out.newLine();
+            }
+            for (RunRecord record : records) {
+                StringBuilder parameters = new StringBuilder();
+                for (Map.Entry<String, String> parameter : record.parameters.entrySet())
+                    parameters.append(parameters.length() == 0 ? "" : ";").append(parameter.getKey()).append('=').append(parameter.getValue());
+                String prefix = clean(record.id) + '\t' + (record.start == null ? "" : record.start) + '\t'
+                        + clean(record.program) + '\t' + clean(parameters.toString()) + '\t';
+                if (record.solves.isEmpty()) {
+                    out.write(prefix + "0\t\t\t\t");
+                    out.newLine();
+                }
+                for (int n = 0; n < record.solves.size(); n++) {
+                    Solve solve = record.solves.get(n);
+                    out.write(prefix + (n + 1) + '\t' + solve.status + '\t'
+                            + String.format(Locale.ROOT, "%.0f\t%.6f\t%s", solve.iterations, solve.time, solve.objective));
+                    out.newLine();
+                }
+            }
+        }
+    }
+
+    // the runs of a history file, in the order they were appended
+    public static List<RunRecord> read(Path history) throws IOException {
+        Map<String, RunRecord> records = new LinkedHashMap<>();
+        if (!Files.exists(history))
+            return new ArrayList<>();
+        for (String line : Files.readAllLines(history, StandardCharsets.UTF_8)) {
+            if (line.isEmpty() || line.equals(HEADER))
+                continue;
+            String[] fields = line.split("\t", -1);
+            RunRecord record = records.get(fields[0]);
+            if (record == null) {
+                record = new RunRecord(fields[0], fields[2], fields[1].isEmpty() ? null : LocalDateTime.parse(fields[1]));
+                for (String parameter : fields[3].split(";")) {
+                    int equals = parameter.indexOf('=');
+                    if (equals > 0)
+                        record.parameter(parameter.substring(0, equals), parameter.substring(equals + 1));
+                }
+                records.put(record.id, record);
+            }
+            if (!fields[4].equals("0"))
+                record.addSolve(Integer.parseInt(fields[5]), Double.parseDouble(fields[6]), Double.parseDouble(fields[7]),
+                        Double.parseDouble(fields[8]));
+        }
+        return new ArrayList<>(records.values());
+    }
+
+    // tabs and line breaks would break the rows
+    private static String clean(String value) {
+        return value.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+    }
+
+    // one optimize(): status code (LpModel), iterations, seconds and objective (NaN without a solution)
+    public static final class Solve {
+        private int status;
+        private final double iterations, time;
+        private double objective;
+
+        Solve(int status, double iterations, double time, double objective) {
+            this.status = status;
+            this.iterations = iterations;
+            this.time = time;
+            this.objective = objective;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        public double getIterations() {
+            return iterations;
+        }
+
+        public double getTime() {
+            return time;
+        }
+
+        public double getObjective() {
+            return objective;
+        }
+
+        void setStatus(int status) {
+            this.status = status;
+        }
+
+        void setObjective(double objective) {
+            this.objective = objective;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package it.unibs.operations_research.gurobi.couple_10.metrics;
+
+import java.util.concurrent.atomic.DoubleAdder;
+
+/**
+ * Value that only grows, e.g. the simplex iterations of all the solves.
+ */
+public class Counter extends Metric {
+    private final DoubleAdder value = new DoubleAdder();
+
+    Counter(String name, String help) {
+        super(name, help);
+    }
+
+    public void inc() {
+        value.add(1.);
+    }
+
+    public void add(double amount) {
+        if (amount < 0.)
+            throw new IllegalArgumentException("counter " + getName() + " cannot decrease");
+        value.add(amount);
+    }
+
+    public double get() {
+        return value.sum();
+    }
+
+    @Override
+    public String getType() {
+        return "counter";
+    }
+}
@@ -0,0 +1,26 @@
+package it.unibs.operations_research.gurobi.couple_10.metrics;
+
+/**
+ * Last value of a quantity that goes up and down, e.g. the objective of the current basis.
+ */
+public class Gauge extends Metric {
+    private volatile double value = Double.NaN;
+
+    Gauge(String name, String help) {
+        super(name, help);
+    }
+
+    public void set(double value) {
+        this.value = value;
+    }
+
+    // NaN until the first set()
+    public double get() {
+        return value;
+    }
+
+    @Override
+    public String getType() {
+        return "gauge";
+    }
+}
@@ -0,0 +1,55 @@
+package it.unibs.operations_research.gurobi.couple_10.metrics;
+
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Distribution of observed values over fixed buckets, e.g. the duration of the solves.
+ * Bucket b counts the values <= upperBounds[b] (and greater than the previous bound), the last bucket is +Inf.
+ */
+public class Histogram extends Metric {
+    private final double[] upperBounds;
+    private final LongAdder[] counts;
+    private final DoubleAdder sum = new DoubleAdder();
+
+    Histogram(String name, String help, double[] upperBounds) {
+        super(name, help);
+        for (int b = 1; b < upperBounds.length; b++)
+            if (upperBounds[b] <= upperBounds[b - 1])
+                throw new IllegalArgumentException("bucket bounds of " + name + " must be increasing");
+        this.upperBounds = upperBounds.clone();
+        counts = new LongAdder[upperBounds.length + 1];
+        for (int b = 0; b < counts.length; b++)
+            counts[b] = new LongAdder();
+    }
+
+    public void observe(double value) {
+        int b = 0;
+        while (b < upperBounds.length && value > upperBounds[b])
+            b++;
+        counts[b].increment();
+        sum.add(value);
+    }
+
+    // finite bounds, the +Inf bucket is not included
+    public double[] getUpperBounds() {
+        return upperBounds.clone();
+    }
+
+    // one count for each bucket (+Inf last), not cumulative
+    public long[] getCounts() {
+        long[] values = new long[counts.length];
+        for (int b = 0; b < counts.length; b++)
+            values[b] = counts[b].sum();
+        return values;
+    }
+
+    public double getSum() {
+        return sum.sum();
+    }
+
+    @Override
+    public String getType() {
+        return "histogram";
+    }
+}
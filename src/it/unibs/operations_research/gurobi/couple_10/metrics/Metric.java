@@ -0,0 +1,26 @@
+package it.unibs.operations_research.gurobi.couple_10.metrics;
+
+/**
+ * A named value of a {@link MetricsRegistry}. Updates are lock-free, so they can be made from the solving threads
+ * while an exporter reads the values.
+ */
+public abstract class Metric {
+    private final String name;
+    private final String help;
+
+    protected Metric(String name, String help) {
+        this.name = name;
+        this.help = help;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getHelp() {
+        return help;
+    }
+
+    // "counter", "gauge" or "histogram", as named by Prometheus
+    public abstract String getType();
+}
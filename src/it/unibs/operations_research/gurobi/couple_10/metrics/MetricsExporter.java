@@ -0,0 +1,15 @@
+package it.unibs.operations_research.gurobi.couple_10.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Writes the current values of the metrics in some exposition format, see {@link PrometheusExporter}.
+ */
+public interface MetricsExporter {
+    // value of the Content-Type header when the metrics are served over HTTP
+    String contentType();
+
+    void export(List<Metric> metrics, Writer out) throws IOException;
+}
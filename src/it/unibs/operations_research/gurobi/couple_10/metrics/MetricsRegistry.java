@@ -0,0 +1,41 @@
+package it.unibs.operations_research.gurobi.couple_10.metrics;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-process set of metrics, identified by name. Registering a name twice returns the metric registered first,
+ * so independent components can share a metric; the type must be the same.
+ */
+public class MetricsRegistry {
+    // registration order is the export order
+    private final Map<String, Metric> metrics = new LinkedHashMap<>();
+
+    public Counter counter(String name, String help) {
+        return register(Counter.class, new Counter(name, help));
+    }
+
+    public Gauge gauge(String name, String help) {
+        return register(Gauge.class, new Gauge(name, help));
+    }
+
+    public Histogram histogram(String name, String help, double... upperBounds) {
+        return register(Histogram.class, new Histogram(name, help, upperBounds));
+    }
+
+    // snapshot of the registered metrics, their values keep changing
+    public synchronized List<Metric> metrics() {
+        return new ArrayList<>(metrics.values());
+    }
+
+    private synchronized <T extends Metric> T register(Class<T> type, T metric) {
+        Metric existing = metrics.putIfAbsent(metric.getName(), metric);
+        if (existing == null)
+            return metric;
+        if (!type.isInstance(existing))
+            throw new IllegalArgumentException("metric " + metric.getName() + " is already registered as " + existing.getType());
+        return type.cast(existing);
+    }
+}
@@ -0,0 +1,62 @@
+package it.unibs.operations_research.gurobi.couple_10.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Local HTTP endpoint serving the metrics of a registry at "/metrics", a stand-in for the scrape target of a
+ * Prometheus server. It listens on the loopback address only and answers on a single daemon thread, so the
+ * solving threads are never slowed down by a scrape.
+ */
+public class MetricsServer implements Closeable {
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    // port 0 picks a free port, see getPort()
+    public MetricsServer(MetricsRegistry registry, MetricsExporter exporter, int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/metrics", exchange -> serve(exchange, registry, exporter));
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-server");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private static void serve(HttpExchange exchange, MetricsRegistry registry, MetricsExporter exporter) throws IOException {
+        try {
+            if (!exchange.getRequestMethod().equals("GET")) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            exporter.export(registry.metrics(), new OutputStreamWriter(body, StandardCharsets.UTF_8));
+            exchange.getResponseHeaders().set("Content-Type", exporter.contentType());
+            exchange.sendResponseHeaders(200, body.size());
+            try (OutputStream out = exchange.getResponseBody()) {
+                body.writeTo(out);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,57 @@
+package it.unibs.operations_research.gurobi.couple_10.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Prometheus text exposition format (version 0.0.4): a HELP and a TYPE line for every metric, then its samples.
+ * Histograms get cumulative "_bucket" samples with the "le" label, "_sum" and "_count".
+ */
+public class PrometheusExporter implements MetricsExporter {
+    @Override
+    public String contentType() {
+        return "text/plain; version=0.0.4; charset=utf-8";
+    }
+
+    @Override
+    public void export(List<Metric> metrics, Writer out) throws IOException {
+        for (Metric metric : metrics) {
+            out.write("# HELP " + metric.getName() + " " + escape(metric.getHelp()) + "\n");
+            out.write("# TYPE " + metric.getName() + " " + metric.getType() + "\n");
+            if (metric instanceof Counter) {
+                sample(out, metric.getName(), "", ((Counter) metric).get());
+            } else if (metric instanceof Gauge) {
+                sample(out, metric.getName(), "", ((Gauge) metric).get());
+            } else if (metric instanceof Histogram) {
+                Histogram histogram = (Histogram) metric;
+                double[] bounds = histogram.getUpperBounds();
+                long[] counts = histogram.getCounts();
+                long cumulative = 0;
+                for (int b = 0; b < counts.length; b++) {
+                    cumulative += counts[b];
+                    String le = b < bounds.length ? format(bounds[b]) : "+Inf";
+                    sample(out, metric.getName() + "_bucket", "{le=\"" + le + "\"}", cumulative);
+                }
+                sample(out, metric.getName() + "_sum", "", histogram.getSum());
+                sample(out, metric.getName() + "_count", "", cumulative);
+            }
+        }
+        out.flush();
+    }
+
+    private static void sample(Writer out, String name, String labels, double value) throws IOException {
+        out.write(name + labels + " " + format(value) + "\n");
+    }
+
+    private static String format(double value) {
+        if (Double.isNaN(value)) return "NaN";
+        if (Double.isInfinite(value)) return value > 0 ? "+Inf" : "-Inf";
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) return Long.toString((long) value);
+        return Double.toString(value);
+    }
+
+    private static String escape(String help) {
+        return help.replace("\\", "\\\\").replace("\n", "\\n");
+    }
+}
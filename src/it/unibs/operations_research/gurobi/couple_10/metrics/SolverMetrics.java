@@ -0,0 +1,76 @@
+package it.unibs.operations_research.gurobi.couple_10.metrics;
+
+import it.unibs.operations_research.gurobi.couple_10.solver.LpModel;
+import it.unibs.operations_research.gurobi.couple_10.solver.ProgressListener;
+
+/**
+ * {@link ProgressListener} publishing the progress of the solves to a {@link MetricsRegistry}.
+ * Gauges hold the last sample of the running solve, counters and histograms are updated when a solve ends.
+ * A sample is a handful of lock-free writes; how often samples are taken is bounded by the backend
+ * (every 64 simplex iterations and every branch and bound node in the pure-Java one, the callback frequency
+ * of Gurobi in the other), so the listener can stay installed on every model.
+ */
+public class SolverMetrics implements ProgressListener {
+    private final Counter solves, iterationsTotal, samples;
+    private final Gauge status, iterations, objective, primalInfeasibility, dualInfeasibility, runtime;
+    private final Gauge nodes, incumbent, bound, solutions;
+    private final Histogram solveSeconds, solveIterations;
+
+    public SolverMetrics(MetricsRegistry registry) {
+        solves = registry.counter("solver_solves_total", "Completed optimize() calls");
+        iterationsTotal = registry.counter("solver_iterations_total", "Simplex iterations of the completed solves");
+        samples = registry.counter("solver_progress_samples_total", "Progress samples received from the solvers");
+        status = registry.gauge("solver_last_status", "Status code of the last completed solve");
+        iterations = registry.gauge("solver_iterations", "Simplex iterations of the running solve");
+        objective = registry.gauge("solver_objective", "Objective of the current simplex basis");
+        primalInfeasibility = registry.gauge("solver_primal_infeasibility", "Primal infeasibility of the current simplex basis");
+        dualInfeasibility = registry.gauge("solver_dual_infeasibility", "Dual infeasibility of the current simplex basis");
+        runtime = registry.gauge("solver_runtime_seconds", "Elapsed time of the running (or last) solve");
+        nodes = registry.gauge("solver_mip_nodes", "Branch and bound nodes explored by the running solve");
+        incumbent = registry.gauge("solver_mip_incumbent", "Objective of the best integer solution");
+        bound = registry.gauge("solver_mip_bound", "Best bound of the running MIP solve");
+        solutions = registry.gauge("solver_mip_solutions", "Integer solutions found by the running solve");
+        solveSeconds = registry.histogram("solver_solve_seconds", "Duration of the completed solves",
+                0.001, 0.01, 0.1, 1, 10, 100);
+        solveIterations = registry.histogram("solver_solve_iterations", "Simplex iterations of the completed solves",
+                10, 100, 1e3, 1e4, 1e5, 1e6);
+    }
+
+    @Override
+    public void simplex(double iterations, double objective, double primalInfeasibility, double dualInfeasibility, double runtime) {
+        samples.inc();
+        this.iterations.set(iterations);
+        this.objective.set(objective);
+        this.primalInfeasibility.set(primalInfeasibility);
+        this.dualInfeasibility.set(dualInfeasibility);
+        this.runtime.set(runtime);
+    }
+
+    @Override
+    public void mip(double nodes, double incumbent, double bound, int solutions, double runtime) {
+        samples.inc();
+        this.nodes.set(nodes);
+        this.incumbent.set(infinite(incumbent));
+        this.bound.set(infinite(bound));
+        this.solutions.set(solutions);
+        this.runtime.set(runtime);
+    }
+
+    @Override
+    public void finished(int status, double iterations, double objective, double runtime) {
+        solves.inc();
+        iterationsTotal.add(iterations);
+        solveSeconds.observe(runtime);
+        solveIterations.observe(iterations);
+        this.status.set(status);
+        this.iterations.set(iterations);
+        this.runtime.set(runtime);
+    }
+
+    // solvers report "no value" as +-INFINITY (1e100)
+    private static double infinite(double value) {
+        if (value >= LpModel.INFINITY) return Double.POSITIVE_INFINITY;
+        if (value <= -LpModel.INFINITY) return Double.NEGATIVE_INFINITY;
+        return value;
+    }
+}
@@ -0,0 +1,97 @@
+package it.unibs.operations_research.gurobi.couple_10.profiling;
+
+import it.unibs.operations_research.gurobi.couple_10.instance.Instance;
+import jdk.jfr.*;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Java Flight Recorder event spanning one phase of the pipeline (model building, optimize, extraction of the
+ * solution, answers), with the size of the instance, the simplex iterations of the phase and the bytes the
+ * thread allocated during it. Start a recording with -XX:StartFlightRecording and look for "Pipeline Phase".
+ *
+ * When the event is not enabled (no recording) begin() and end() do nothing but the enabled check.
+ */
+@Name("it.unibs.operations_research.couple_10.Phase")
+@Label("Pipeline Phase")
+@Category("Gurobi Couple 10")
+@StackTrace(false)
+public final class PhaseEvent extends Event {
+    @Label("Phase")
+    String phase;
+
+    @Label("Stations")
+    int stations;
+
+    @Label("Time Slots")
+    int timeSlots;
+
+    @Label("Simplex Iterations")
+    long iterations;
+
+    @Label("Allocated")
+    @DataAmount
+    long allocated;
+
+    // allocation counter of the thread when the phase began, not recorded
+    private transient long allocatedBefore;
+
+    private PhaseEvent() {
+    }
+
+    // "instance" can be null for phases that do not depend on it
+    public static PhaseEvent begin(String phase, Instance instance) {
+        return instance != null ? begin(phase, instance.m(), instance.k()) : begin(phase, 0, 0);
+    }
+
+    // phases of instances that are not an Instance, such as a SparseInstance
+    public static PhaseEvent begin(String phase, int stations, int timeSlots) {
+        PhaseEvent event = new PhaseEvent();
+        if (!event.isEnabled())
+            return event;
+        event.phase = phase;
+        event.stations = stations;
+        event.timeSlots = timeSlots;
+        event.allocatedBefore = allocatedBytes();
+        event.begin();
+        return event;
+    }
+
+    public void end(double iterations) {
+        if (!isEnabled())
+            return;
+        end();
+        if (shouldCommit()) {
+            this.iterations = (long) iterations;
+            long allocatedAfter = allocatedBytes();
+            allocated = allocatedBefore < 0 || allocatedAfter < 0 ? -1 : allocatedAfter - allocatedBefore;
+            commit();
+        }
+    }
+
+    // phases that do not run the simplex
+    public void finish() {
+        end(0);
+    }
+
+    // -1 when the JVM does not count the allocations of each thread
+    private static long allocatedBytes() {
+        com.sun.management.ThreadMXBean threads = Allocations.THREADS;
+        if (threads == null || !threads.isThreadAllocatedMemoryEnabled())
+            return -1;
+        return threads.getCurrentThreadAllocatedBytes();
+    }
+
+    // loaded with the first enabled event, runs without a recording do not initialize the management beans
+    private static final class Allocations {
+        static final com.sun.management.ThreadMXBean THREADS = threads();
+
+        private static com.sun.management.ThreadMXBean threads() {
+            java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            if (!(threads instanceof com.sun.management.ThreadMXBean))
+                return null;
+            com.sun.management.ThreadMXBean counters = (com.sun.management.ThreadMXBean) threads;
+            return counters.isThreadAllocatedMemorySupported() ? counters : null;
+        }
+    }
+}
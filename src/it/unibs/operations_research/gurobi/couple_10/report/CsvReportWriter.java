@@ -0,0 +1,94 @@
+package it.unibs.operations_research.gurobi.couple_10.report;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * One "question,key,name,value" record for each value, flag, variable row and list item.
+ * Values and flags have an empty name, items without a value have an empty value.
+ */
+class CsvReportWriter extends ReportWriter {
+    // key of the current solution or list
+    private String section;
+
+    CsvReportWriter(Writer out, boolean closeOut) {
+        super(out, closeOut);
+    }
+
+    @Override
+    public void header(String title, String subtitle) throws IOException {
+        out.write("question,key,name,value\n");
+    }
+
+    @Override
+    public void value(String key, String label, double value) throws IOException {
+        record(key, "", Double.toString(value));
+    }
+
+    @Override
+    public void flag(String key, String label, boolean value) throws IOException {
+        record(key, "", Boolean.toString(value));
+    }
+
+    @Override
+    public void beginSolution(String key, String label) {
+        section = key;
+    }
+
+    @Override
+    public void variable(String name, double value) throws IOException {
+        record(section, name, Double.toString(value));
+    }
+
+    @Override
+    public void beginList(String key, String label) {
+        section = key;
+    }
+
+    @Override
+    public void item(String name, double value) throws IOException {
+        record(section, name, Double.toString(value));
+    }
+
+    @Override
+    public void item(String name, long value) throws IOException {
+        record(section, name, Long.toString(value));
+    }
+
+    @Override
+    public void item(String name) throws IOException {
+        record(section, name, "");
+    }
+
+    @Override
+    public void endList() {
+        section = null;
+    }
+
+    private void record(String key, String name, String value) throws IOException {
+        out.write(question);
+        out.write(',');
+        out.write(key);
+        out.write(',');
+        writeField(name);
+        out.write(',');
+        out.write(value);
+        out.write('\n');
+    }
+
+    // names are quoted only when they contain a separator, a quote or a new line
+    private void writeField(String field) throws IOException {
+        boolean quote = false;
+        for (int c = 0; c < field.length() && !quote; c++) {
+            char ch = field.charAt(c);
+            quote = ch == ',' || ch == '"' || ch == '\n' || ch == '\r';
+        }
+        if (!quote) {
+            out.write(field);
+            return;
+        }
+        out.write('"');
+        out.write(field.replace("\"", "\"\""));
+        out.write('"');
+    }
+}
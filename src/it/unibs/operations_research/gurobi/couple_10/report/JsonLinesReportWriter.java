@@ -0,0 +1,118 @@
+package it.unibs.operations_research.gurobi.couple_10.report;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * One JSON object per line for each value, flag, variable row and list item, e.g.
+ * {"question":"I","key":"optimal_solution","name":"x_1_1","value":2.0}.
+ * Values that are not finite are written as null.
+ */
+class JsonLinesReportWriter extends ReportWriter {
+    // key of the current solution or list
+    private String section;
+
+    JsonLinesReportWriter(Writer out, boolean closeOut) {
+        super(out, closeOut);
+    }
+
+    @Override
+    public void header(String title, String subtitle) {
+        // the records are self-describing, there is no header line
+    }
+
+    @Override
+    public void value(String key, String label, double value) throws IOException {
+        begin(key);
+        out.write(",\"value\":");
+        writeNumber(value);
+        out.write("}\n");
+    }
+
+    @Override
+    public void flag(String key, String label, boolean value) throws IOException {
+        begin(key);
+        out.write(",\"value\":");
+        out.write(Boolean.toString(value));
+        out.write("}\n");
+    }
+
+    @Override
+    public void beginSolution(String key, String label) {
+        section = key;
+    }
+
+    @Override
+    public void variable(String name, double value) throws IOException {
+        item(name, value);
+    }
+
+    @Override
+    public void beginList(String key, String label) {
+        section = key;
+    }
+
+    @Override
+    public void item(String name, double value) throws IOException {
+        beginItem(name);
+        out.write(",\"value\":");
+        writeNumber(value);
+        out.write("}\n");
+    }
+
+    @Override
+    public void item(String name, long value) throws IOException {
+        beginItem(name);
+        out.write(",\"value\":");
+        out.write(Long.toString(value));
+        out.write("}\n");
+    }
+
+    @Override
+    public void item(String name) throws IOException {
+        beginItem(name);
+        out.write("}\n");
+    }
+
+    @Override
+    public void endList() {
+        section = null;
+    }
+
+    private void begin(String key) throws IOException {
+        out.write("{\"question\":");
+        writeString(question);
+        out.write(",\"key\":");
+        writeString(key);
+    }
+
+    private void beginItem(String name) throws IOException {
+        begin(section);
+        out.write(",\"name\":");
+        writeString(name);
+    }
+
+    private void writeNumber(double value) throws IOException {
+        out.write(Double.isFinite(value) ? Double.toString(value) : "null");
+    }
+
+    private void writeString(String value) throws IOException {
+        if (value == null) {
+            out.write("null");
+            return;
+        }
+        out.write('"');
+        for (int c = 0; c < value.length(); c++) {
+            char ch = value.charAt(c);
+            if (ch == '"' || ch == '\\') {
+                out.write('\\');
+                out.write(ch);
+            } else if (ch < 0x20) {
+                out.write(String.format("\\u%04x", (int) ch));
+            } else {
+                out.write(ch);
+            }
+        }
+        out.write('"');
+    }
+}
@@ -0,0 +1,94 @@
+package it.unibs.operations_research.gurobi.couple_10.report;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streaming writer of the answers to the project questions. Every value and every variable row is written
+ * as soon as it is produced, nothing is accumulated: time and memory grow linearly with the number of variables.
+ *
+ * A report is a sequence of questions; a question contains single values, flags, solutions (one row for each
+ * variable) and lists (one item for each variable or constraint). "key" identifies a value or a section in the
+ * machine-readable formats, "label" is the text shown in the text format.
+ */
+public abstract class ReportWriter implements Closeable {
+    // output buffer, large enough to keep the number of writes to the channel low
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    protected final Writer out;
+    private final boolean closeOut;
+
+    // id of the current question
+    protected String question;
+
+    protected ReportWriter(Writer out, boolean closeOut) {
+        this.out = out;
+        this.closeOut = closeOut;
+    }
+
+    /**
+     * @param format "text", "csv" or "jsonl"
+     * @param path   output file, standard output when null
+     */
+    public static ReportWriter open(String format, String path) throws IOException {
+        if (path == null)
+            return create(format, new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), BUFFER_SIZE), false);
+
+        FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        return create(format, new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8), BUFFER_SIZE), true);
+    }
+
+    // "out" is closed with the report only when "closeOut" is true, otherwise it is just flushed
+    public static ReportWriter create(String format, Writer out, boolean closeOut) {
+        switch (format) {
+            case "text": return new TextReportWriter(out, closeOut);
+            case "csv": return new CsvReportWriter(out, closeOut);
+            case "jsonl": return new JsonLinesReportWriter(out, closeOut);
+            default: throw new IllegalArgumentException("unknown report format '" + format + "' (text, csv, jsonl)");
+        }
+    }
+
+    // title of the report, only the text format shows it
+    public abstract void header(String title, String subtitle) throws IOException;
+
+    public void beginQuestion(String id, String title) throws IOException {
+        question = id;
+    }
+
+    public abstract void value(String key, String label, double value) throws IOException;
+
+    public abstract void flag(String key, String label, boolean value) throws IOException;
+
+    // a solution lasts until the next section or the end of the question
+    public abstract void beginSolution(String key, String label) throws IOException;
+
+    public abstract void variable(String name, double value) throws IOException;
+
+    public abstract void beginList(String key, String label) throws IOException;
+
+    public abstract void item(String name, double value) throws IOException;
+
+    public abstract void item(String name, long value) throws IOException;
+
+    // item without a value (e.g. the name of a constraint)
+    public abstract void item(String name) throws IOException;
+
+    public abstract void endList() throws IOException;
+
+    public void endQuestion() throws IOException {
+        question = null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closeOut)
+            out.close();
+        else
+            out.flush();
+    }
+}
@@ -0,0 +1,96 @@
+package it.unibs.operations_research.gurobi.couple_10.report;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Human-readable report, the layout printed by the project since the first version:
+ * "label = value" for values, "label:" followed by "name = value" rows for solutions,
+ * "label: [item, item, ]" for lists.
+ */
+class TextReportWriter extends ReportWriter {
+    // answers of the flags
+    private static final String YES = "Si", NO = "No";
+
+    // a solution that follows another one in the same question is separated by an empty line
+    private boolean afterSolution;
+
+    TextReportWriter(Writer out, boolean closeOut) {
+        super(out, closeOut);
+    }
+
+    @Override
+    public void header(String title, String subtitle) throws IOException {
+        out.write("\n\n\n" + title + "\n" + subtitle + "\n\n\n");
+    }
+
+    @Override
+    public void beginQuestion(String id, String title) throws IOException {
+        super.beginQuestion(id, title);
+        afterSolution = false;
+        out.write(title + ":\n");
+    }
+
+    @Override
+    public void value(String key, String label, double value) throws IOException {
+        afterSolution = false;
+        out.write(label + " = " + value + "\n");
+    }
+
+    @Override
+    public void flag(String key, String label, boolean value) throws IOException {
+        afterSolution = false;
+        out.write(label + ": " + (value ? YES : NO) + "\n");
+    }
+
+    @Override
+    public void beginSolution(String key, String label) throws IOException {
+        if (afterSolution)
+            out.write('\n');
+        afterSolution = true;
+        out.write(label + ":\n");
+    }
+
+    @Override
+    public void variable(String name, double value) throws IOException {
+        out.write(name);
+        out.write(" = ");
+        out.write(Double.toString(value));
+        out.write('\n');
+    }
+
+    @Override
+    public void beginList(String key, String label) throws IOException {
+        afterSolution = false;
+        out.write(label + ": [");
+    }
+
+    @Override
+    public void item(String name, double value) throws IOException {
+        out.write(Double.toString(value));
+        out.write(", ");
+    }
+
+    @Override
+    public void item(String name, long value) throws IOException {
+        out.write(Long.toString(value));
+        out.write(", ");
+    }
+
+    @Override
+    public void item(String name) throws IOException {
+        out.write(name);
+        out.write(", ");
+    }
+
+    @Override
+    public void endList() throws IOException {
+        out.write("]\n");
+    }
+
+    @Override
+    public void endQuestion() throws IOException {
+        super.endQuestion();
+        out.write('\n');
+    }
+}
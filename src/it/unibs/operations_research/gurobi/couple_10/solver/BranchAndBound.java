@@ -0,0 +1,304 @@
+package it.unibs.operations_research.gurobi.couple_10.solver;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Depth-first branch and bound over the integer variables of a {@link SimplexModel}.
+ * Every node is an LP solved by {@link RevisedSimplex} starting from the basis of its parent; the node branches on
+ * its most fractional variable and the child on the side nearest to the fractional value is explored first,
+ * so the first leaves are close to a rounding of the relaxation.
+ * The search stops when the relative gap between the incumbent and the best bound of the open nodes is within
+ * the MIP gap, or at the time limit, which also bounds the LP of every node.
+ * A node whose LP ends without an answer (NUMERIC) is not explored but keeps the bound of its parent: the search
+ * can still prove the gap over it, otherwise it ends with status NUMERIC, never OPTIMAL or INFEASIBLE.
+ */
+final class BranchAndBound {
+    private static final double INTEGER_TOL = 1e-6;
+    private static final double FEASIBILITY_TOL = 1e-6;
+
+    private final int m, n;
+    private final int[] colStart, rowIdx;
+    private final double[] val;
+    private final double[] lo, up, cost, rhs;
+    private final boolean[] integer;
+
+    private double mipGap = 1e-4;
+    private double timeLimit = Double.POSITIVE_INFINITY;
+
+    // best integer solution (structurals and logicals) and its objective
+    private double[] incumbent;
+    private double incumbentObj = Double.POSITIVE_INFINITY;
+    private double bound = Double.NEGATIVE_INFINITY;
+    // lowest bound of the nodes whose LP could not be solved
+    private double unresolvedBound = Double.POSITIVE_INFINITY;
+    private int[] rootStates;
+    private long iterations, nodes;
+    private int solutions;
+
+    private ProgressListener listener;
+    // -1 when the objective of the model is maximized, the progress reports its value
+    private double objSign = 1.;
+    private int status = LpModel.LOADED;
+    // set by another thread, checked before every node
+    private volatile boolean terminated;
+
+    // same arguments of RevisedSimplex, "integer" tells which structurals must take integer values
+    BranchAndBound(int m, int n, int[] colStart, int[] rowIdx, double[] val, double[] lo, double[] up, double[] cost,
+                   double[] rhs, boolean[] integer) {
+        this.m = m;
+        this.n = n;
+        this.colStart = colStart;
+        this.rowIdx = rowIdx;
+        this.val = val;
+        this.lo = lo;
+        this.up = up;
+        this.cost = cost;
+        this.rhs = rhs;
+        this.integer = integer;
+    }
+
+    void terminate() {
+        terminated = true;
+    }
+
+    void setMIPGap(double gap) {
+        mipGap = gap;
+    }
+
+    // seconds
+    void setTimeLimit(double seconds) {
+        timeLimit = seconds;
+    }
+
+    void setProgressListener(ProgressListener listener, double objSign) {
+        this.listener = listener;
+        this.objSign = objSign;
+    }
+
+    /**
+     * Uses the given values of the structurals as first incumbent, if they are integer and feasible.
+     * NaN values are not supported: a partial start is ignored.
+     */
+    boolean setStart(double[] start) {
+        double[] x = new double[n + m];
+        for (int j = 0; j < n; j++) {
+            double value = start[j];
+            if (Double.isNaN(value))
+                return false;
+            if (integer[j]) {
+                if (Math.abs(value - Math.rint(value)) > INTEGER_TOL)
+                    return false;
+                value = Math.rint(value);
+            }
+            if (value < lo[j] - FEASIBILITY_TOL || value > up[j] + FEASIBILITY_TOL)
+                return false;
+            x[j] = value;
+        }
+        // logical r_i = rhs_i - a_i x
+        for (int i = 0; i < m; i++)
+            x[n + i] = rhs[i];
+        for (int j = 0; j < n; j++)
+            for (int s = colStart[j]; s < colStart[j + 1]; s++)
+                x[n + rowIdx[s]] -= val[s] * x[j];
+        for (int i = 0; i < m; i++) {
+            double tol = FEASIBILITY_TOL * (1. + Math.abs(rhs[i]));
+            if (x[n + i] < lo[n + i] - tol || x[n + i] > up[n + i] + tol)
+                return false;
+        }
+
+        double obj = 0.;
+        for (int j = 0; j < n; j++)
+            obj += cost[j] * x[j];
+        if (obj < incumbentObj) {
+            incumbent = x;
+            incumbentObj = obj;
+            solutions++;
+        }
+        return true;
+    }
+
+    // "states" is the starting basis of the root (null for the slack basis)
+    int solve(int[] states) {
+        long start = System.nanoTime();
+        long deadline = start + (long) Math.min(timeLimit * 1e9, Long.MAX_VALUE / 2.);
+        Deque<Node> open = new ArrayDeque<>();
+        open.push(new Node(lo.clone(), up.clone(), states, Double.NEGATIVE_INFINITY));
+        status = LpModel.OPTIMAL;
+
+        while (!open.isEmpty()) {
+            bound = bound(open);
+            if (listener != null)
+                // one report for each node, a node costs a whole LP
+                listener.mip(nodes, objSign * clamp(incumbentObj), objSign * clamp(bound), solutions,
+                        (System.nanoTime() - start) / 1e9);
+            if (gap() <= mipGap)
+                break;
+            if (System.nanoTime() > deadline) {
+                status = LpModel.TIME_LIMIT;
+                break;
+            }
+            if (terminated) {
+                status = LpModel.INTERRUPTED;
+                break;
+            }
+
+            Node node = open.pop();
+            if (node.bound >= incumbentObj)
+                continue;
+
+            RevisedSimplex lp = new RevisedSimplex(m, n, colStart, rowIdx, val, node.lo, node.up, cost, rhs);
+            if (node.states != null)
+                lp.setBasis(node.states);
+            lp.setTimeLimit((deadline - System.nanoTime()) / 1e9);
+            int lpStatus = lp.solve();
+            iterations += lp.iterations();
+            if (lpStatus == LpModel.TIME_LIMIT) {
+                // the node stays open, its bound is part of the bound of the search
+                open.push(node);
+                status = LpModel.TIME_LIMIT;
+                break;
+            }
+            nodes++;
+            if (nodes == 1)
+                rootStates = lp.state().clone();
+
+            if (lpStatus == LpModel.UNBOUNDED && nodes == 1) {
+                status = LpModel.UNBOUNDED;
+                return status;
+            }
+            if (lpStatus == LpModel.INFEASIBLE)
+                continue;
+            if (lpStatus != LpModel.OPTIMAL) {
+                // the simplex could not solve the node: it is not explored, but it is not pruned either
+                unresolvedBound = Math.min(unresolvedBound, node.bound);
+                continue;
+            }
+            double obj = lp.objective();
+            if (obj >= incumbentObj)
+                continue;
+
+            double[] x = lp.x();
+            int branch = -1;
+            double mostFractional = INTEGER_TOL;
+            for (int j = 0; j < n; j++) {
+                if (!integer[j])
+                    continue;
+                double fraction = Math.abs(x[j] - Math.rint(x[j]));
+                if (fraction > mostFractional) {
+                    mostFractional = fraction;
+                    branch = j;
+                }
+            }
+
+            if (branch < 0) {
+                incumbent = x.clone();
+                for (int j = 0; j < n; j++)
+                    if (integer[j]) incumbent[j] = Math.rint(incumbent[j]);
+                incumbentObj = obj;
+                solutions++;
+                continue;
+            }
+
+            // x_branch <= floor and x_branch >= ceil, the children share the basis of this node
+            int[] basis = lp.state().clone();
+            double floor = Math.floor(x[branch]);
+            double[] downUp = node.up.clone(), upperLo = node.lo.clone();
+            downUp[branch] = floor;
+            upperLo[branch] = floor + 1.;
+            Node down = new Node(node.lo, downUp, basis, obj);
+            Node upper = new Node(upperLo, node.up, basis, obj);
+            // the last one pushed is explored first
+            if (x[branch] - floor < 0.5) {
+                open.push(upper);
+                open.push(down);
+            } else {
+                open.push(down);
+                open.push(upper);
+            }
+        }
+
+        bound = bound(open);
+        if (status == LpModel.OPTIMAL && gap() > mipGap)
+            // the tree is exhausted, but the unresolved nodes may hide better solutions (or the only ones)
+            status = unresolvedBound < Double.POSITIVE_INFINITY ? LpModel.NUMERIC : LpModel.INFEASIBLE;
+        return status;
+    }
+
+    // lowest bound of the search: incumbent, open nodes and unresolved nodes
+    private double bound(Deque<Node> open) {
+        return Math.min(incumbentObj, Math.min(bestBound(open), unresolvedBound));
+    }
+
+    // infinite objectives are reported as +-INFINITY, like Gurobi
+    private static double clamp(double value) {
+        return Math.max(-LpModel.INFINITY, Math.min(LpModel.INFINITY, value));
+    }
+
+    private static double bestBound(Deque<Node> open) {
+        double best = Double.POSITIVE_INFINITY;
+        for (Node node : open)
+            best = Math.min(best, node.bound);
+        return best;
+    }
+
+    // relative gap as defined by Gurobi: |bound - incumbent| / |incumbent|
+    double gap() {
+        if (incumbent == null)
+            return Double.POSITIVE_INFINITY;
+        double difference = Math.abs(incumbentObj - bound);
+        if (difference <= 1e-10)
+            return 0.;
+        return incumbentObj == 0. ? Double.POSITIVE_INFINITY : difference / Math.abs(incumbentObj);
+    }
+
+    int status() {
+        return status;
+    }
+
+    boolean hasSolution() {
+        return incumbent != null;
+    }
+
+    // structurals and logicals of the incumbent
+    double[] x() {
+        return incumbent;
+    }
+
+    double objective() {
+        return incumbentObj;
+    }
+
+    double bound() {
+        return bound;
+    }
+
+    long iterations() {
+        return iterations;
+    }
+
+    // incumbents found, the start included
+    int solutions() {
+        return solutions;
+    }
+
+    // basis of the root relaxation, null if the root has not been solved
+    int[] rootStates() {
+        return rootStates;
+    }
+
+    private static final class Node {
+        // bounds are shared with the parent and the sibling when they do not change, they are never modified
+        final double[] lo, up;
+        final int[] states;
+        // objective of the parent relaxation, a lower bound for the node
+        final double bound;
+
+        Node(double[] lo, double[] up, int[] states, double bound) {
+            this.lo = lo;
+            this.up = up;
+            this.states = states;
+            this.bound = bound;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package it.unibs.operations_research.gurobi.couple_10.solver;
+
+/**
+ * Constraint matrix of a model stored by columns (CSC), with the bounds of the variables and the senses of the rows:
+ * the terms of variable j are rowIdx[e], val[e] for colStart[j] <= e < colStart[j+1].
+ * An infinite bound is Double.POSITIVE_INFINITY (or NEGATIVE_INFINITY), not LpModel.INFINITY.
+ */
+public final class ColumnMatrix {
+    private final int numRows;
+    private final int[] colStart, rowIdx;
+    private final double[] val, lb, ub;
+    private final char[] senses;
+
+    public ColumnMatrix(int numRows, int[] colStart, int[] rowIdx, double[] val, double[] lb, double[] ub, char[] senses) {
+        this.numRows = numRows;
+        this.colStart = colStart;
+        this.rowIdx = rowIdx;
+        this.val = val;
+        this.lb = lb;
+        this.ub = ub;
+        this.senses = senses;
+    }
+
+    public int numRows() {
+        return numRows;
+    }
+
+    public int numCols() {
+        return colStart.length - 1;
+    }
+
+    public int[] colStart() {
+        return colStart;
+    }
+
+    public int[] rowIdx() {
+        return rowIdx;
+    }
+
+    public double[] val() {
+        return val;
+    }
+
+    public double[] lb() {
+        return lb;
+    }
+
+    public double[] ub() {
+        return ub;
+    }
+
+    public char[] senses() {
+        return senses;
+    }
+}
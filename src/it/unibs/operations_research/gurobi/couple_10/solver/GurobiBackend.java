@@ -0,0 +1,93 @@
+package it.unibs.operations_research.gurobi.couple_10.solver;
+
+import gurobi.*;
+
+/**
+ * Backend running models on Gurobi, parameters are taken from the given environment; the models of a size class
+ * with an entry in the parameter table use its values, except Threads when the environment sets it.
+ */
+public class GurobiBackend implements LpBackend {
+    private final GRBEnv env;
+    private ProgressListener listener;
+    private ParameterTable parameters = new ParameterTable();
+
+    public GurobiBackend(GRBEnv env) {
+        this.env = env;
+    }
+
+    /**
+     * Backend on a new environment with "parameters" (see SolverParameters). The output goes to "logFile" ("" for
+     * none) and to the message callbacks, never to the console; "logFile" == null turns every output off.
+     * The environment is started after the parameters are set, a failure disposes it.
+     * The only place where environments are created: the other classes do not refer to Gurobi, so they run without
+     * the Gurobi library and license when the pure-Java simplex is used.
+     */
+    public static GurobiBackend create(String logFile, SolverParameters parameters) throws SolverException {
+        GRBEnv env;
+        try {
+            env = new GRBEnv(true);
+        } catch (GRBException e) {
+            throw new SolverException("unable to create Gurobi environment", e);
+        }
+        try {
+            if (logFile == null) {
+                env.set(GRB.IntParam.OutputFlag, 0);
+            } else {
+                env.set(GRB.StringParam.LogFile, logFile);
+                env.set(GRB.IntParam.LogToConsole, 0);
+            }
+            env.set(GRB.IntParam.Method, parameters.method());
+            env.set(GRB.IntParam.Presolve, parameters.presolve());
+            env.set(GRB.IntParam.Threads, parameters.threads());
+            env.set(GRB.IntParam.Crossover, parameters.crossover());
+            env.start();
+            return new GurobiBackend(env);
+        } catch (GRBException e) {
+            try {
+                env.dispose();
+            } catch (GRBException ignored) {
+                // the first failure is the one reported
+            }
+            throw new SolverException("unable to start Gurobi environment", e);
+        }
+    }
+
+    public GRBEnv getEnv() {
+        return env;
+    }
+
+    @Override
+    public LpModel newModel() throws SolverException {
+        try {
+            // read at every model: the environment may change after the backend is created, see SolveDaemon
+            SolverParameters environment = new SolverParameters(env.get(GRB.IntParam.Method), env.get(GRB.IntParam.Presolve),
+                    env.get(GRB.IntParam.Threads), env.get(GRB.IntParam.Crossover));
+            GurobiModel model = new GurobiModel(new GRBModel(env), parameters, environment);
+            if (listener != null)
+                model.setProgressListener(listener);
+            return model;
+        } catch (GRBException e) {
+            throw new SolverException("unable to create Gurobi model", e);
+        }
+    }
+
+    // used by the models created afterwards
+    public void setParameterTable(ParameterTable parameters) {
+        this.parameters = parameters;
+    }
+
+    @Override
+    public void setProgressListener(ProgressListener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public void dispose() throws SolverException {
+        try {
+            // Release the resources associated with a GRBEnv object
+            env.dispose();
+        } catch (GRBException e) {
+            throw new SolverException("unable to dispose Gurobi environment", e);
+        }
+    }
+}
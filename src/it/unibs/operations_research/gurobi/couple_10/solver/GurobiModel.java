@@ -0,0 +1,589 @@
+package it.unibs.operations_research.gurobi.couple_10.solver;
+
+import gurobi.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * {@link LpModel} backed by a 'GRBModel', indices map to the order in which variables and constraints were added.
+ */
+public class GurobiModel implements LpModel {
+    private final GRBModel model;
+    private final List<GRBVar> vars = new ArrayList<>();
+    private final List<GRBConstr> constrs = new ArrayList<>();
+    private ProgressListener listener;
+    // parameters by size class, unless setParameters() chose them; "environment" are the ones the model was
+    // created with, "applied" the ones it holds
+    private final ParameterTable table;
+    private final SolverParameters environment;
+    private SolverParameters parameters, applied;
+    private boolean iterationLimited;
+
+    public GurobiModel(GRBModel model) {
+        this(model, new ParameterTable(), SolverParameters.DEFAULT);
+    }
+
+    // "model" holds the parameters "environment" (those of its GRBEnv), the ones of "table" are set by optimize()
+    public GurobiModel(GRBModel model, ParameterTable table, SolverParameters environment) {
+        this.model = model;
+        this.table = table;
+        this.environment = environment;
+        applied = environment;
+    }
+
+    public GRBModel getModel() {
+        return model;
+    }
+
+    public GRBVar getVar(int var) {
+        return vars.get(var);
+    }
+
+    public GRBConstr getConstr(int constr) {
+        return constrs.get(constr);
+    }
+
+    @Override
+    public int addVar(double lb, double ub, double obj, char type, String name) throws SolverException {
+        try {
+            vars.add(model.addVar(lb, ub, obj, type, name));
+        } catch (GRBException e) {
+            throw wrap(e);
+        }
+        return vars.size() - 1;
+    }
+
+    @Override
+    public int addConstr(LinExpr lhs, char sense, double rhs, String name) throws SolverException {
+        try {
+            constrs.add(model.addConstr(toGRBLinExpr(lhs), sense, rhs, name));
+        } catch (GRBException e) {
+            throw wrap(e);
+        }
+        return constrs.size() - 1;
+    }
+
+    @Override
+    public int addConstr(int lhsVar, char sense, LinExpr rhs, String name) throws SolverException {
+        try {
+            constrs.add(model.addConstr(vars.get(lhsVar), sense, toGRBLinExpr(rhs), name));
+        } catch (GRBException e) {
+            throw wrap(e);
+        }
+        return constrs.size() - 1;
+    }
+
+    @Override
+    public int addVars(int count, double[] lb, double[] ub, double[] obj, char[] type, String[] names) throws SolverException {
+        int first = vars.size();
+        // 'addVars' needs at least one array to know how many variables to add
+        if (ub == null) {
+            ub = new double[count];
+            Arrays.fill(ub, GRB.INFINITY);
+        }
+        try {
+            vars.addAll(Arrays.asList(model.addVars(lb, ub, obj, type, names)));
+        } catch (GRBException e) {
+            throw wrap(e);
+        }
+        return first;
+    }
+
+    @Override
+    public int addVars(int count, double[] lb, double[] ub, double[] obj, char[] type, String[] names, int[] colStart,
+                       int[] constrs, double[] coeffs) throws SolverException {
+        int first = vars.size();
+        if (ub == null) {
+            ub = new double[count];
+            Arrays.fill(ub, GRB.INFINITY);
+        }
+        try {
+            GRBColumn[] columns = new GRBColumn[count];
+            for (int v = 0; v < count; v++) {
+                columns[v] = new GRBColumn();
+                for (int e = colStart[v]; e < colStart[v + 1]; e++)
+                    columns[v].addTerm(coeffs[e], this.constrs.get(constrs[e]));
+            }
+            vars.addAll(Arrays.asList(model.addVars(lb, ub, obj, type, names, columns)));
+        } catch (GRBException e) {
+            throw wrap(e);
+        }
+        return first;
+    }
+
+    @Override
+    public int addConstrs(int count, int[] rowStart, int[] vars, double[] coeffs, char[] senses, double[] rhs, String[] names) throws SolverException {
+        int first = constrs.size();
+        try {
+            // the GRBVar of every term, laid out like "coeffs" so each row is added with one 'addTerms'
+            GRBVar[] terms = new GRBVar[rowStart[count]];
+            for (int e = rowStart[0]; e < rowStart[count]; e++)
+                terms[e] = this.vars.get(vars[e]);
+
+            GRBLinExpr[] lhs = new GRBLinExpr[count];
+            for (int r = 0; r < count; r++) {
+                lhs[r] = new GRBLinExpr();
+                lhs[r].addTerms(coeffs, terms, rowStart[r], rowStart[r + 1] - rowStart[r]);
+            }
+            constrs.addAll(Arrays.asList(model.addConstrs(lhs, senses, rhs, names)));
+        } catch (GRBException e) {
+            throw wrap(e);
+        }
+        return first;
+    }
+
+    @Override
+    public void setObjective(LinExpr obj, int sense) throws SolverException {
+        try {
+            model.setObjective(toGRBLinExpr(obj), sense);
+        } catch (GRBException e) {
+            throw wrap(e);
+        }
+    }
+
+    @Override
+    public void setRHS(int constr, double rhs) throws SolverException {
+        try {
+            constrs.get(constr).set(GRB.DoubleAttr.RHS, rhs);
+        } catch (GRBException e) {
+            throw wrap(e);
+        }
+    }
+
+    @Override
+    public void chgCoeff(int constr, int var, double coeff) throws SolverException {
+        try {
+            model.chgCoeff(constrs.get(constr), vars.get(var), coeff);
+        } catch (GRBException e) {
+            throw wrap(e);
+        }
+    }
+
+    @Override
+    public void setLB(int var, double lb) throws SolverException {
+        try {
+            vars.get(var).set(GRB.DoubleAttr.LB, lb);
+        } catch (GRBException e) {
+            throw wrap(e);
+        }
+    }
+
+    @Override
+    public void setUB(int var, double ub) throws SolverException {
+        try {
+            vars.get(var).set(GRB.DoubleAttr.UB, ub);
+        } catch (GRBException e) {
+            throw wrap(e);
+        }
+    }
+
+    @Override
+    public void setBasis(int[] vBasis, int[] cBasis) throws SolverException {
+        try {
+            model.set(GRB.IntAttr.VBasis, vars.toArray(new GRBVar[0]), vBasis);
+            model.set(GRB.IntAttr.CBasis, constrs.toArray(new GRBConstr[0]), cBasis);
+        } catch (GRBException e) {
+            throw wrap(e);
+        }
+    }
+
+    @Override
+    public void setIterationLimit(double limit) throws SolverException {
+        try {
+            model.set(GRB.DoubleParam.IterationLimit, limit);
+        } catch (GRBException e) {
+            throw wrap(e);
+        }
+        iterationLimited = limit < GRB.INFINITY;
+    }
+
+    // parameters of every optimize() from now on, instead of the ones of the parameter table
+    @Override
+    public void setParameters(SolverParameters parameters) {
+        this.parameters = parameters;
+    }
+
+    // a solve stopped after a number of iterations (Question III) means primal simplex iterations: the table is not used
+    private void applyParameters() throws SolverException {
+        SolverParameters wanted = parameters != null ? parameters
+                : iterationLimited ? environment : table.get(vars.size(), environment);
+        // Threads set on the environment is its share of the cores (SolveDaemon, ScenarioSweep), a tuned value
+        // measured on the whole machine would oversubscribe them
+        if (parameters == null && environment.threads() != 0 && wanted.threads() != environment.threads())
+            wanted = new SolverParameters(wanted.method(), wanted.presolve(), environment.threads(), wanted.crossover());
+        if (wanted.equals(applied))
+            return;
+        try {
+            model.set(GRB.IntParam.Method, wanted.method());
+            model.set(GRB.IntParam.Presolve, wanted.presolve());
+            model.set(GRB.IntParam.Threads, wanted.threads());
+            model.set(GRB.IntParam.Crossover, wanted.crossover());
+        } catch (GRBException e) {
+            throw wrap(e);
+        }
+        applied = wanted;
+    }
+
+    @Override
+    public void setVTypes(int first, int count, char type) throws SolverException {
+        char[] types = new char[count];
+        Arrays.fill(types, type);
+        try {
+            model.set(GRB.CharAttr.VType, vars.subList(first, first + count).toArray(new GRBVar[0]), types);
+        } catch (GRBException e) {
+            throw wrap(e);
+        }
+    }
+
+    @Override
+    public void setStart(double[] start) throws SolverException {
+        double[] values = new double[start.length];
+        for (int var = 0; var < values.length; var++)
+            values[var] = Double.isNaN(start[var]) ? GRB.UNDEFINED : start[var];
+        try {
+            model.set(GRB.DoubleAttr.Start, vars.toArray(new GRBVar[0]), values);
+        } catch (GRBException e) {
+            throw wrap(e);
+        }
+    }
+
+    @Override
+    public void setMIPGap(double gap) throws SolverException {
+        try {
+            model.set(GRB.DoubleParam.MIPGap, gap);
+        } catch (GRBException e) {
+            throw wrap(e);
+        }
+    }
+
+    @Override
+    public void setTimeLimit(double seconds) throws SolverException {
+        try {
+            model.set(GRB.DoubleParam.TimeLimit, seconds);
+        } catch (GRBException e) {
+            throw wrap(e);
+        }
+    }
+
+    @Override
+    public void setProgressListener(ProgressListener listener) throws SolverException {
+        this.listener = listener;
+        try {
+            // Gurobi decides how often the callback runs, it only reads a few values each time
+            model.setCallback(listener == null ? null : new ProgressCallback(listener));
+        } catch (GRBException e) {
+            throw wrap(e);
+        }
+    }
+
+    @Override
+    public void update() throws SolverException {
+        try {
+            model.update();
+        } catch (GRBException e) {
+            throw wrap(e);
+        }
+    }
+
+    @Override
+    public void optimize() throws SolverException {
+        applyParameters();
+        try {
+            model.optimize();
+            if (listener != null)
+                listener.finished(model.get(GRB.IntAttr.Status), model.get(GRB.DoubleAttr.IterCount), objective(),
+                        model.get(GRB.DoubleAttr.Runtime));
+        } catch (GRBException e) {
+            throw wrap(e);
+        }
+    }
+
+    @Override
+    public void terminate() {
+        model.terminate();
+    }
+
+    // ObjVal, NaN when the model has no solution
+    private double objective() {
+        try {
+            return model.get(GRB.DoubleAttr.ObjVal);
+        } catch (GRBException e) {
+            return Double.NaN;
+        }
+    }
+
+    @Override
+    public void reset() throws SolverException {
+        try {
+            model.reset();
+        } catch (GRBException e) {
+            throw wrap(e);
+        }
+    }
+
+    @Override
+    public int getStatus() throws SolverException {
+        try {
+            return model.get(GRB.IntAttr.Status);
+        } catch (GRBException e) {
+            throw wrap(e);
+        }
+    }
+
+    @Override
+    public double getObjVal() throws SolverException {
+        try {
+            return model.get(GRB.DoubleAttr.ObjVal);
+        } catch (GRBException e) {
+            throw wrap(e);
+        }
+    }
+
+    @Override
+    public double getIterCount() throws SolverException {
+        try {
+            return model.get(GRB.DoubleAttr.IterCount);
+        } catch (GRBException e) {
+            throw wrap(e);
+        }
+    }
+
+    @Override
+    public double getObjBound() throws SolverException {
+        try {
+            return model.get(GRB.DoubleAttr.ObjBound);
+        } catch (GRBException e) {
+            throw wrap(e);
+        }
+    }
+
+    @Override
+    public double getMIPGap() throws SolverException {
+        try {
+            return model.get(GRB.DoubleAttr.MIPGap);
+        } catch (GRBException e) {
+            throw wrap(e);
+        }
+    }
+
+    @Override
+    public int getSolCount() throws SolverException {
+        try {
+            return model.get(GRB.IntAttr.SolCount);
+        } catch (GRBException e) {
+            throw wrap(e);
+        }
+    }
+
+    @Override
+    public int numVars() {
+        return vars.size();
+    }
+
+    @Override
+    public int numConstrs() {
+        return constrs.size();
+    }
+
+    @Override
+    public String getVarName(int var) throws SolverException {
+        try {
+            return vars.get(var).get(GRB.StringAttr.VarName);
+        } catch (GRBException e) {
+            throw wrap(e);
+        }
+    }
+
+    @Override
+    public String getConstrName(int constr) throws SolverException {
+        try {
+            return constrs.get(constr).get(GRB.StringAttr.ConstrName);
+        } catch (GRBException e) {
+            throw wrap(e);
+        }
+    }
+
+    @Override
+    public double getX(int var) throws SolverException {
+        try {
+            return vars.get(var).get(GRB.DoubleAttr.X);
+        } catch (GRBException e) {
+            throw wrap(e);
+        }
+    }
+
+    @Override
+    public int getVBasis(int var) throws SolverException {
+        try {
+            return vars.get(var).get(GRB.IntAttr.VBasis);
+        } catch (GRBException e) {
+            throw wrap(e);
+        }
+    }
+
+    @Override
+    public int getCBasis(int constr) throws SolverException {
+        try {
+            return constrs.get(constr).get(GRB.IntAttr.CBasis);
+        } catch (GRBException e) {
+            throw wrap(e);
+        }
+    }
+
+    @Override
+    public double getRC(int var) throws SolverException {
+        try {
+            return vars.get(var).get(GRB.DoubleAttr.RC);
+        } catch (GRBException e) {
+            throw wrap(e);
+        }
+    }
+
+    @Override
+    public String[] getVarNames() throws SolverException {
+        try {
+            return model.get(GRB.StringAttr.VarName, vars.toArray(new GRBVar[0]));
+        } catch (GRBException e) {
+            throw wrap(e);
+        }
+    }
+
+    @Override
+    public String[] getConstrNames() throws SolverException {
+        try {
+            return model.get(GRB.StringAttr.ConstrName, constrs.toArray(new GRBConstr[0]));
+        } catch (GRBException e) {
+            throw wrap(e);
+        }
+    }
+
+    @Override
+    public double[] getX() throws SolverException {
+        return getVarAttr(GRB.DoubleAttr.X);
+    }
+
+    @Override
+    public double[] getRC() throws SolverException {
+        return getVarAttr(GRB.DoubleAttr.RC);
+    }
+
+    @Override
+    public int[] getVBasis() throws SolverException {
+        try {
+            return model.get(GRB.IntAttr.VBasis, vars.toArray(new GRBVar[0]));
+        } catch (GRBException e) {
+            throw wrap(e);
+        }
+    }
+
+    @Override
+    public double[] getSlack() throws SolverException {
+        return getConstrAttr(GRB.DoubleAttr.Slack);
+    }
+
+    @Override
+    public double[] getPi() throws SolverException {
+        return getConstrAttr(GRB.DoubleAttr.Pi);
+    }
+
+    @Override
+    public int[] getCBasis() throws SolverException {
+        try {
+            return model.get(GRB.IntAttr.CBasis, constrs.toArray(new GRBConstr[0]));
+        } catch (GRBException e) {
+            throw wrap(e);
+        }
+    }
+
+    @Override
+    public double[] getSAObjLow() throws SolverException {
+        return getVarAttr(GRB.DoubleAttr.SAObjLow);
+    }
+
+    @Override
+    public double[] getSAObjUp() throws SolverException {
+        return getVarAttr(GRB.DoubleAttr.SAObjUp);
+    }
+
+    @Override
+    public double[] getSARHSLow() throws SolverException {
+        return getConstrAttr(GRB.DoubleAttr.SARHSLow);
+    }
+
+    @Override
+    public double[] getSARHSUp() throws SolverException {
+        return getConstrAttr(GRB.DoubleAttr.SARHSUp);
+    }
+
+    // a single JNI call for the attribute of every variable
+    private double[] getVarAttr(GRB.DoubleAttr attr) throws SolverException {
+        try {
+            return model.get(attr, vars.toArray(new GRBVar[0]));
+        } catch (GRBException e) {
+            throw wrap(e);
+        }
+    }
+
+    private double[] getConstrAttr(GRB.DoubleAttr attr) throws SolverException {
+        try {
+            return model.get(attr, constrs.toArray(new GRBConstr[0]));
+        } catch (GRBException e) {
+            throw wrap(e);
+        }
+    }
+
+    @Override
+    public void dispose() {
+        // Release the resources associated with a GRBModel object
+        model.dispose();
+    }
+
+    private GRBLinExpr toGRBLinExpr(LinExpr expr) throws GRBException {
+        int size = expr.size();
+        double[] coeffs = new double[size];
+        GRBVar[] terms = new GRBVar[size];
+
+        for (int i = 0; i < size; i++) {
+            coeffs[i] = expr.getCoeff(i);
+            terms[i] = vars.get(expr.getVar(i));
+        }
+
+        GRBLinExpr grbExpr = new GRBLinExpr();
+        grbExpr.addTerms(coeffs, terms);
+        return grbExpr;
+    }
+
+    // forwards the simplex, MIP and message callbacks of Gurobi to a ProgressListener
+    private static final class ProgressCallback extends GRBCallback {
+        private final ProgressListener listener;
+
+        ProgressCallback(ProgressListener listener) {
+            this.listener = listener;
+        }
+
+        @Override
+        protected void callback() {
+            try {
+                if (where == GRB.CB_SIMPLEX) {
+                    listener.simplex(getDoubleInfo(GRB.CB_SPX_ITRCNT), getDoubleInfo(GRB.CB_SPX_OBJVAL),
+                            getDoubleInfo(GRB.CB_SPX_PRIMINF), getDoubleInfo(GRB.CB_SPX_DUALINF),
+                            getDoubleInfo(GRB.CB_RUNTIME));
+                } else if (where == GRB.CB_MIP) {
+                    listener.mip(getDoubleInfo(GRB.CB_MIP_NODCNT), getDoubleInfo(GRB.CB_MIP_OBJBST),
+                            getDoubleInfo(GRB.CB_MIP_OBJBND), getIntInfo(GRB.CB_MIP_SOLCNT),
+                            getDoubleInfo(GRB.CB_RUNTIME));
+                } else if (where == GRB.CB_MESSAGE) {
+                    listener.message(getStringInfo(GRB.CB_MSG_STRING));
+                }
+            } catch (GRBException e) {
+                // progress is best effort, a value that cannot be read does not stop the solve
+            }
+        }
+    }
+
+    static SolverException wrap(GRBException e) {
+        return new SolverException(e.getMessage(), e);
+    }
+}
@@ -0,0 +1,49 @@
+package it.unibs.operations_research.gurobi.couple_10.solver;
+
+import java.util.Arrays;
+
+/**
+ * Linear expression over variable indices of an {@link LpModel}.
+ * It mirrors 'GRBLinExpr', but terms are kept in primitive arrays so it does not depend on any backend.
+ */
+public class LinExpr {
+    private int[] vars;
+    private double[] coeffs;
+    private int size;
+
+    public LinExpr() {
+        this(8);
+    }
+
+    public LinExpr(int capacity) {
+        vars = new int[Math.max(capacity, 1)];
+        coeffs = new double[vars.length];
+    }
+
+    public void addTerm(double coeff, int var) {
+        if (size == vars.length) {
+            vars = Arrays.copyOf(vars, size * 2);
+            coeffs = Arrays.copyOf(coeffs, size * 2);
+        }
+        vars[size] = var;
+        coeffs[size] = coeff;
+        size++;
+    }
+
+    public void addTerms(double[] coeffs, int[] vars) {
+        for (int i = 0; i < vars.length; i++)
+            addTerm(coeffs[i], vars[i]);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getVar(int i) {
+        return vars[i];
+    }
+
+    public double getCoeff(int i) {
+        return coeffs[i];
+    }
+}
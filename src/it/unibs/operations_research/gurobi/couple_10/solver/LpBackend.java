@@ -0,0 +1,13 @@
+package it.unibs.operations_research.gurobi.couple_10.solver;
+
+/**
+ * Creates {@link LpModel} instances, it plays the role of 'GRBEnv'.
+ */
+public interface LpBackend {
+    LpModel newModel() throws SolverException;
+
+    // installed on every model created afterwards, null for none
+    void setProgressListener(ProgressListener listener);
+
+    void dispose() throws SolverException;
+}
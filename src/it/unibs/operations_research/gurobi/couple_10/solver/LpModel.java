@@ -0,0 +1,168 @@
+package it.unibs.operations_research.gurobi.couple_10.solver;
+
+/**
+ * A single optimization problem, independent of the solver that runs it.
+ * Variables and constraints are identified by the index returned when they are added,
+ * constants and status codes share the values used by Gurobi ('GRB').
+ */
+public interface LpModel {
+    double INFINITY = 1e100;
+
+    // variable types
+    char CONTINUOUS = 'C';
+    char INTEGER = 'I';
+
+    // constraint senses
+    char LESS_EQUAL = '<';
+    char GREATER_EQUAL = '>';
+    char EQUAL = '=';
+
+    // objective senses
+    int MINIMIZE = 1;
+    int MAXIMIZE = -1;
+
+    // basis status of variables (VBasis)
+    int BASIC = 0;
+    int NONBASIC_LOWER = -1;
+    int NONBASIC_UPPER = -2;
+    int SUPERBASIC = -3;
+
+    // optimization status codes (Status)
+    int LOADED = 1;
+    int OPTIMAL = 2;
+    int INFEASIBLE = 3;
+    int UNBOUNDED = 5;
+    int ITERATION_LIMIT = 7;
+    int TIME_LIMIT = 9;
+    int INTERRUPTED = 11;
+    int NUMERIC = 12;
+
+    int addVar(double lb, double ub, double obj, char type, String name) throws SolverException;
+
+    int addConstr(LinExpr lhs, char sense, double rhs, String name) throws SolverException;
+
+    int addConstr(int lhsVar, char sense, LinExpr rhs, String name) throws SolverException;
+
+    // adds "count" variables with a single call, returns the index of the first one (the others follow in order)
+    // every array can be null: lb 0, ub INFINITY, obj 0, CONTINUOUS type and default names ("C<index>")
+    int addVars(int count, double[] lb, double[] ub, double[] obj, char[] type, String[] names) throws SolverException;
+
+    // addVars with the columns of the new variables in the existing constraints, also with a single call
+    // columns are compressed: the terms of column v are constrs[e], coeffs[e] for colStart[v] <= e < colStart[v+1],
+    // a constraint at most once in each column
+    int addVars(int count, double[] lb, double[] ub, double[] obj, char[] type, String[] names, int[] colStart,
+                int[] constrs, double[] coeffs) throws SolverException;
+
+    // adds "count" constraints with a single call, returns the index of the first one (the others follow in order)
+    // rows are compressed: the terms of row r are vars[e], coeffs[e] for rowStart[r] <= e < rowStart[r+1]
+    // names can be null (default names "R<index>")
+    int addConstrs(int count, int[] rowStart, int[] vars, double[] coeffs, char[] senses, double[] rhs, String[] names) throws SolverException;
+
+    void setObjective(LinExpr obj, int sense) throws SolverException;
+
+    // in-place changes, the model keeps its last basis and the next optimize() starts from it
+    void setRHS(int constr, double rhs) throws SolverException;
+
+    void chgCoeff(int constr, int var, double coeff) throws SolverException;
+
+    void setLB(int var, double lb) throws SolverException;
+
+    void setUB(int var, double ub) throws SolverException;
+
+    // starting basis of the next optimize(), one VBasis value for each variable and one CBasis value for each constraint
+    void setBasis(int[] vBasis, int[] cBasis) throws SolverException;
+
+    void setIterationLimit(double limit) throws SolverException;
+
+    // type of the "count" variables that start at "first", e.g. INTEGER to solve a model again as a MIP
+    void setVTypes(int first, int count, char type) throws SolverException;
+
+    // MIP start, one value for each variable (NaN leaves the value of the variable undefined)
+    void setStart(double[] start) throws SolverException;
+
+    // relative gap |ObjBound - ObjVal| / |ObjVal| at which a MIP is considered solved
+    void setMIPGap(double gap) throws SolverException;
+
+    // parameters of every following optimize() instead of the ones of the backend, see SolverParameters
+    void setParameters(SolverParameters parameters) throws SolverException;
+
+    // seconds, optimize() stops with status TIME_LIMIT and the best solution found so far
+    void setTimeLimit(double seconds) throws SolverException;
+
+    // receives the progress of every following optimize(), null removes it
+    void setProgressListener(ProgressListener listener) throws SolverException;
+
+    void update() throws SolverException;
+
+    void optimize() throws SolverException;
+
+    // asks the optimize() running in another thread to stop, it ends with status INTERRUPTED; any thread can call it
+    void terminate();
+
+    // discards the solution and the basis, next optimize() starts from scratch
+    void reset() throws SolverException;
+
+    int getStatus() throws SolverException;
+
+    double getObjVal() throws SolverException;
+
+    double getIterCount() throws SolverException;
+
+    // best bound and relative gap of a MIP
+    double getObjBound() throws SolverException;
+
+    double getMIPGap() throws SolverException;
+
+    // solutions found by the last optimize(), like Gurobi SolCount: 0 when a MIP stopped without incumbent
+    int getSolCount() throws SolverException;
+
+    int numVars() throws SolverException;
+
+    int numConstrs() throws SolverException;
+
+    String getVarName(int var) throws SolverException;
+
+    String getConstrName(int constr) throws SolverException;
+
+    double getX(int var) throws SolverException;
+
+    // VBasis, RC, CBasis and Pi are available only for continuous models
+    int getVBasis(int var) throws SolverException;
+
+    // BASIC (0) or NONBASIC_LOWER (-1), like Gurobi CBasis
+    int getCBasis(int constr) throws SolverException;
+
+    double getRC(int var) throws SolverException;
+
+    // bulk getters: one call for all the variables (or all the constraints), in index order
+    String[] getVarNames() throws SolverException;
+
+    String[] getConstrNames() throws SolverException;
+
+    double[] getX() throws SolverException;
+
+    double[] getRC() throws SolverException;
+
+    int[] getVBasis() throws SolverException;
+
+    // rhs - lhs of every constraint
+    double[] getSlack() throws SolverException;
+
+    // dual values of the constraints, like Gurobi Pi
+    double[] getPi() throws SolverException;
+
+    int[] getCBasis() throws SolverException;
+
+    // ranging of continuous models, like Gurobi SAObjLow/SAObjUp: objective coefficient of every variable within
+    // which the basis stays optimal (-INFINITY / INFINITY when unbounded)
+    double[] getSAObjLow() throws SolverException;
+
+    double[] getSAObjUp() throws SolverException;
+
+    // like Gurobi SARHSLow/SARHSUp: right-hand side of every constraint within which the basis stays optimal
+    double[] getSARHSLow() throws SolverException;
+
+    double[] getSARHSUp() throws SolverException;
+
+    void dispose();
+}
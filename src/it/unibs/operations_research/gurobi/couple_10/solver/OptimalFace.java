@@ -0,0 +1,296 @@
+package it.unibs.operations_research.gurobi.couple_10.solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Optimal face around the final basis of a solved LP, with explicit tolerances instead of comparisons with 0.
+ *
+ * The basis of the snapshot is factored again (B x_B = b); then
+ * - the solution is degenerate when a basic variable lies within the primal tolerance of one of its bounds;
+ * - every nonbasic column whose reduced cost is within the dual tolerance of 0 (the logical of a row uses -Pi)
+ *   is a pivot that keeps the objective: the ratio test along B^-1 a_q tells how far it can move.
+ * The optimum is multiple when one of these pivots moves by more than the primal tolerance, and unique when there
+ * is no such column at all; a pivot that cannot move (degenerate) proves neither.
+ * The adjacent optimal vertices reached by the pivots can be enumerated, see {@link #alternatives}.
+ * Ratio tests and vertices run in parallel on a fork-join pool, one factorization shared by all the tasks.
+ */
+public final class OptimalFace {
+    // same tolerances of RevisedSimplex, primal ones relative to the size of the bound
+    public static final double PRIMAL_TOL = 1e-7;
+    public static final double DUAL_TOL = 1e-7;
+    private static final double PIVOT_TOL = 1e-9;
+    // candidate columns handled by one fork-join task
+    private static final int CHUNK = 16;
+
+    private final ColumnMatrix matrix;
+    private final int n, rows, numVars;
+    private final double[] values, lower, upper;
+    // basic column at each basis position, logical of row i is column n + i
+    private final int[] head;
+    private final SparseLU lu;
+
+    // nonbasic columns with zero reduced cost, their direction (+1 up from the lower bound, -1 down from the upper)
+    // and the step of their ratio test (POSITIVE_INFINITY along a ray of the face)
+    private final int[] candidates, directions;
+    private final double[] steps;
+    private final int[] degenerateBasics;
+
+    private OptimalFace(ColumnMatrix matrix, SolutionSnapshot snapshot, int numVars, ForkJoinPool pool) throws SolverException {
+        this.matrix = matrix;
+        this.numVars = numVars;
+        n = matrix.numCols();
+        rows = matrix.numRows();
+        if (snapshot.numVars() != n || snapshot.numConstrs() != rows)
+            throw new SolverException("snapshot and matrix have different sizes");
+
+        values = Arrays.copyOf(snapshot.getX(), n + rows);
+        System.arraycopy(snapshot.getSlack(), 0, values, n, rows);
+        lower = new double[n + rows];
+        upper = new double[n + rows];
+        System.arraycopy(matrix.lb(), 0, lower, 0, n);
+        System.arraycopy(matrix.ub(), 0, upper, 0, n);
+        char[] senses = matrix.senses();
+        for (int i = 0; i < rows; i++) {
+            // the logical of a row is rhs - a x
+            lower[n + i] = senses[i] == LpModel.GREATER_EQUAL ? Double.NEGATIVE_INFINITY : 0.;
+            upper[n + i] = senses[i] == LpModel.LESS_EQUAL ? Double.POSITIVE_INFINITY : 0.;
+        }
+
+        int[] vBasis = snapshot.getVBasis(), cBasis = snapshot.getCBasis();
+        double[] rc = snapshot.getRC(), pi = snapshot.getPi();
+        head = new int[rows];
+        int basic = 0;
+        List<Integer> zero = new ArrayList<>();
+        List<Integer> dirs = new ArrayList<>();
+        for (int j = 0; j < n + rows; j++) {
+            boolean logical = j >= n;
+            if (logical ? cBasis[j - n] == LpModel.BASIC : vBasis[j] == LpModel.BASIC) {
+                if (basic == rows)
+                    throw new SolverException("the basis has more than " + rows + " columns");
+                head[basic++] = j;
+                continue;
+            }
+            // fixed columns (equality rows, variables with lb == ub) cannot move, superbasic ones are not at a vertex
+            if (upper[j] - lower[j] <= PRIMAL_TOL || !logical && vBasis[j] == LpModel.SUPERBASIC)
+                continue;
+            double reduced = logical ? -pi[j - n] : rc[j];
+            if (Math.abs(reduced) > DUAL_TOL)
+                continue;
+            boolean atUpper = logical ? senses[j - n] == LpModel.GREATER_EQUAL : vBasis[j] == LpModel.NONBASIC_UPPER;
+            zero.add(j);
+            dirs.add(atUpper ? -1 : 1);
+        }
+        if (basic != rows)
+            throw new SolverException("the basis has " + basic + " columns instead of " + rows);
+
+        lu = new SparseLU(rows);
+        if (!factorBasis())
+            throw new SolverException("the final basis is singular");
+
+        List<Integer> degenerate = new ArrayList<>();
+        for (int j : head)
+            if ((j < numVars || j >= n) && (near(values[j], lower[j]) || near(values[j], upper[j])))
+                degenerate.add(j);
+        degenerateBasics = degenerate.stream().mapToInt(Integer::intValue).toArray();
+
+        candidates = zero.stream().mapToInt(Integer::intValue).toArray();
+        directions = dirs.stream().mapToInt(Integer::intValue).toArray();
+        steps = new double[candidates.length];
+        pool.invoke(new Pivots(0, candidates.length, null));
+    }
+
+    /**
+     * Analyzes the basis of "snapshot", a solution of the model described by "matrix" (same columns and rows).
+     * Only the first "numVars" columns count for degeneracy and vertices, the others (e.g. artificial variables
+     * fixed at 0) are still part of the basis.
+     */
+    public static OptimalFace analyze(ColumnMatrix matrix, SolutionSnapshot snapshot, int numVars, ForkJoinPool pool) throws SolverException {
+        return new OptimalFace(matrix, snapshot, numVars, pool);
+    }
+
+    // some basic variable (or logical) is at one of its bounds
+    public boolean isDegenerate() {
+        return degenerateBasics.length > 0;
+    }
+
+    // some pivot on a zero reduced cost column reaches another optimal point
+    public boolean isMultiple() {
+        for (double step : steps)
+            if (step > PRIMAL_TOL)
+                return true;
+        return false;
+    }
+
+    // no nonbasic column has zero reduced cost: the optimal solution is the only one
+    public boolean isUnique() {
+        return candidates.length == 0;
+    }
+
+    // basic columns at a bound, logical of row i is numCols + i
+    public int[] getDegenerateBasics() {
+        return degenerateBasics.clone();
+    }
+
+    // nonbasic columns with zero reduced cost, same numbering
+    public int[] getZeroReducedCosts() {
+        return candidates.clone();
+    }
+
+    /**
+     * Optimal vertices adjacent to the current one, at most "max": one pivot for each zero reduced cost column that
+     * can move, vertices reached by more than one pivot are returned once. Along a ray of the face the
+     * {@link Vertex} holds the direction instead of a point.
+     */
+    public List<Vertex> alternatives(ForkJoinPool pool, int max) {
+        Vertex[] vertices = new Vertex[candidates.length];
+        pool.invoke(new Pivots(0, candidates.length, vertices));
+
+        List<Vertex> distinct = new ArrayList<>();
+        for (Vertex vertex : vertices) {
+            if (distinct.size() >= max)
+                break;
+            if (vertex == null)
+                continue;
+            boolean seen = false;
+            for (Vertex other : distinct)
+                seen |= other.isRay() == vertex.isRay() && same(other.getValues(), vertex.getValues());
+            if (!seen)
+                distinct.add(vertex);
+        }
+        return distinct;
+    }
+
+    // ratio tests of candidates[from, to), with the vertices they reach when "vertices" is not null
+    private final class Pivots extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from, to;
+        private final Vertex[] vertices;
+
+        Pivots(int from, int to, Vertex[] vertices) {
+            this.from = from;
+            this.to = to;
+            this.vertices = vertices;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > CHUNK) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Pivots(from, middle, vertices), new Pivots(middle, to, vertices));
+                return;
+            }
+            // ftran() only reads the factorization, every task has its own work arrays
+            double[] column = new double[rows], alpha = new double[rows];
+            for (int c = from; c < to; c++) {
+                int q = candidates[c], dir = directions[c];
+                Arrays.fill(column, 0.);
+                if (q >= n) {
+                    column[q - n] = 1.;
+                } else {
+                    for (int e = matrix.colStart()[q]; e < matrix.colStart()[q + 1]; e++)
+                        column[matrix.rowIdx()[e]] = matrix.val()[e];
+                }
+                lu.ftran(column, alpha);
+
+                double step = upper[q] - lower[q];
+                for (int p = 0; p < rows; p++) {
+                    // x_B moves by -dir * step * alpha
+                    int j = head[p];
+                    double rate = dir * alpha[p];
+                    if (rate > PIVOT_TOL && lower[j] > Double.NEGATIVE_INFINITY)
+                        step = Math.min(step, Math.max(0., values[j] - lower[j]) / rate);
+                    else if (rate < -PIVOT_TOL && upper[j] < Double.POSITIVE_INFINITY)
+                        step = Math.min(step, Math.max(0., upper[j] - values[j]) / -rate);
+                }
+                steps[c] = step;
+
+                if (vertices == null || step <= PRIMAL_TOL)
+                    continue;
+                boolean ray = step == Double.POSITIVE_INFINITY;
+                // along a ray the values are the direction, otherwise the vertex reached
+                double[] point = ray ? new double[numVars] : Arrays.copyOf(values, numVars);
+                double length = ray ? 1. : step;
+                if (q < numVars)
+                    point[q] += dir * length;
+                for (int p = 0; p < rows; p++)
+                    if (head[p] < numVars)
+                        point[head[p]] -= dir * length * alpha[p];
+                vertices[c] = new Vertex(q, step, point, ray);
+            }
+        }
+    }
+
+    private boolean factorBasis() {
+        int[] colStart = matrix.colStart(), rowIdx = matrix.rowIdx();
+        double[] val = matrix.val();
+        int[] start = new int[rows + 1];
+        for (int p = 0; p < rows; p++) {
+            int j = head[p];
+            start[p + 1] = start[p] + (j >= n ? 1 : colStart[j + 1] - colStart[j]);
+        }
+        int[] idx = new int[start[rows]];
+        double[] coeffs = new double[start[rows]];
+        for (int p = 0; p < rows; p++) {
+            int j = head[p], e = start[p];
+            if (j >= n) {
+                idx[e] = j - n;
+                coeffs[e] = 1.;
+            } else {
+                System.arraycopy(rowIdx, colStart[j], idx, e, colStart[j + 1] - colStart[j]);
+                System.arraycopy(val, colStart[j], coeffs, e, colStart[j + 1] - colStart[j]);
+            }
+        }
+        return lu.factor(start, idx, coeffs);
+    }
+
+    private static boolean near(double value, double bound) {
+        return Math.abs(bound) < Double.POSITIVE_INFINITY && Math.abs(value - bound) <= PRIMAL_TOL * (1. + Math.abs(bound));
+    }
+
+    private static boolean same(double[] a, double[] b) {
+        for (int j = 0; j < a.length; j++)
+            if (Math.abs(a[j] - b[j]) > PRIMAL_TOL * (1. + Math.abs(a[j])))
+                return false;
+        return true;
+    }
+
+    /**
+     * Optimal point reached by the pivot on one zero reduced cost column: the values of the first numVars
+     * variables, or the direction of the face when the pivot has no blocking bound.
+     */
+    public static final class Vertex {
+        private final int entering;
+        private final double step;
+        private final double[] values;
+        private final boolean ray;
+
+        Vertex(int entering, double step, double[] values, boolean ray) {
+            this.entering = entering;
+            this.step = step;
+            this.values = values;
+            this.ray = ray;
+        }
+
+        // column of the pivot, logical of row i is numCols + i
+        public int getEntering() {
+            return entering;
+        }
+
+        public double getStep() {
+            return step;
+        }
+
+        public double[] getValues() {
+            return values;
+        }
+
+        public boolean isRay() {
+            return ray;
+        }
+    }
+}
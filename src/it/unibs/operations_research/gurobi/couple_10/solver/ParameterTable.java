@@ -0,0 +1,78 @@
+package it.unibs.operations_research.gurobi.couple_10.solver;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Parameters of a model by size class, the class of a model with n variables is "1e<d>" with 10^d <= n < 10^(d+1).
+ * The models of a class without an entry keep the parameters of their environment.
+ *
+ * The file written by ParameterTuner has one class per line, "<class>\t<parameters>" (see
+ * {@link SolverParameters#parse}); empty lines and lines starting with '#' are ignored.
+ */
+public final class ParameterTable {
+    private final Map<String, SolverParameters> classes = new TreeMap<>();
+
+    public static ParameterTable read(Path path) throws IOException {
+        ParameterTable table = new ParameterTable();
+        int number = 0;
+        for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+            number++;
+            if (line.isBlank() || line.startsWith("#"))
+                continue;
+            String[] fields = line.trim().split("\\s+");
+            if (fields.length != 2)
+                throw new IOException(path + ":" + number + ": expected <class> <parameters>");
+            try {
+                table.put(fields[0], SolverParameters.parse(fields[1]));
+            } catch (IllegalArgumentException e) {
+                throw new IOException(path + ":" + number + ": " + e.getMessage(), e);
+            }
+        }
+        return table;
+    }
+
+    // "comments" go before the classes, one '#' line each
+    public void write(Path path, List<String> comments) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            for (String comment : comments)
+                out.write("# " + comment + "\n");
+            for (Map.Entry<String, SolverParameters> entry : classes.entrySet())
+                out.write(entry.getKey() + "\t" + entry.getValue() + "\n");
+        }
+    }
+
+    public static String sizeClass(int numVars) {
+        return "1e" + (int) Math.log10(Math.max(numVars, 1));
+    }
+
+    public void put(String sizeClass, SolverParameters parameters) {
+        if (!sizeClass.matches("1e\\d+"))
+            throw new IllegalArgumentException("malformed size class \"" + sizeClass + "\", expected 1e<digits>");
+        classes.put(sizeClass, parameters);
+    }
+
+    // parameters of a model with "numVars" variables, "otherwise" when its size class has no entry
+    public SolverParameters get(int numVars, SolverParameters otherwise) {
+        return classes.getOrDefault(sizeClass(numVars), otherwise);
+    }
+
+    public boolean isEmpty() {
+        return classes.isEmpty();
+    }
+
+    // "<class>:<parameters>" of every class, separated by '|' (part of the key of the cached results)
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        for (Map.Entry<String, SolverParameters> entry : classes.entrySet())
+            text.append(text.length() == 0 ? "" : "|").append(entry.getKey()).append(':').append(entry.getValue());
+        return text.toString();
+    }
+}
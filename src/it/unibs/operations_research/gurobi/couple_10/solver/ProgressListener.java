@@ -0,0 +1,53 @@
+package it.unibs.operations_research.gurobi.couple_10.solver;
+
+/**
+ * Progress of optimize(), reported while the model is being solved.
+ * Methods are called on the thread running optimize(), so they must return quickly; a listener shared by many
+ * models (one backend, several workers) must be thread-safe.
+ * Values are counted from the start of the current optimize(), runtime is in seconds.
+ */
+public interface ProgressListener {
+    // every few simplex iterations, infeasibilities are sums of the violations of the current basis
+    void simplex(double iterations, double objective, double primalInfeasibility, double dualInfeasibility, double runtime);
+
+    // after branch and bound nodes, incumbent is INFINITY until the first integer solution
+    void mip(double nodes, double incumbent, double bound, int solutions, double runtime);
+
+    // once, when optimize() returns, objective is NaN without a solution
+    void finished(int status, double iterations, double objective, double runtime);
+
+    // lines of the solver log, for solvers that write one (Gurobi)
+    default void message(String text) {
+    }
+
+    // both listeners receive every call, either can be null
+    static ProgressListener combine(ProgressListener first, ProgressListener second) {
+        if (first == null || second == null)
+            return first != null ? first : second;
+        return new ProgressListener() {
+            @Override
+            public void simplex(double iterations, double objective, double primalInfeasibility, double dualInfeasibility, double runtime) {
+                first.simplex(iterations, objective, primalInfeasibility, dualInfeasibility, runtime);
+                second.simplex(iterations, objective, primalInfeasibility, dualInfeasibility, runtime);
+            }
+
+            @Override
+            public void mip(double nodes, double incumbent, double bound, int solutions, double runtime) {
+                first.mip(nodes, incumbent, bound, solutions, runtime);
+                second.mip(nodes, incumbent, bound, solutions, runtime);
+            }
+
+            @Override
+            public void finished(int status, double iterations, double objective, double runtime) {
+                first.finished(status, iterations, objective, runtime);
+                second.finished(status, iterations, objective, runtime);
+            }
+
+            @Override
+            public void message(String text) {
+                first.message(text);
+                second.message(text);
+            }
+        };
+    }
+}
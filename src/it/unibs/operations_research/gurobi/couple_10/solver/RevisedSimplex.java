@@ -0,0 +1,583 @@
+package it.unibs.operations_research.gurobi.couple_10.solver;
+
+import java.util.Arrays;
+
+/**
+ * Bounded-variable primal revised simplex on min c x, A x + r = b, lo <= (x, r) <= up.
+ * Every row gets a logical variable r_i (index n + i) whose bounds encode the constraint sense,
+ * the starting basis is made of logicals and phase I minimizes the sum of the bound violations.
+ * The basis inverse is kept as a {@link SparseLU} refactored every {@link #REFACTOR_FREQUENCY} pivots.
+ * When the method stalls on a degenerate vertex the bounds are randomly widened, once the perturbed
+ * problem is solved the original bounds are restored and the method continues from that basis.
+ */
+final class RevisedSimplex {
+    static final int BASIC = LpModel.BASIC;
+    static final int AT_LOWER = LpModel.NONBASIC_LOWER;
+    static final int AT_UPPER = LpModel.NONBASIC_UPPER;
+    static final int FREE = LpModel.SUPERBASIC;
+
+    private static final double PRIMAL_TOL = 1e-7;
+    private static final double DUAL_TOL = 1e-7;
+    private static final double PIVOT_TOL = 1e-9;
+    private static final int REFACTOR_FREQUENCY = 64;
+    // consecutive degenerate pivots before perturbing the bounds (and before Bland's rule, if it stalls again)
+    private static final int DEGENERATE_LIMIT = 50;
+    private static final double PERTURBATION = 1e-6;
+    // iterations between two progress reports, a report costs about one pricing
+    private static final int PROGRESS_FREQUENCY = 64;
+
+    private final int m, n;
+    private final int[] colStart, rowIdx;
+    private final double[] val;
+    private final double[] lo, up, cost, rhs;
+    // original bounds while the perturbation is active
+    private double[] loSaved, upSaved;
+    private boolean perturbed;
+    // true while the basic values are the ones computed by the last factorization
+    private boolean fresh;
+
+    private final int[] head;
+    private final int[] state;
+    private final double[] x;
+
+    private final double[] y, d;
+    private final double[] work, alpha;
+    private final SparseLU lu;
+
+    // result of the last ratio test
+    private double step, leavingBound;
+
+    private double iterationLimit = Double.POSITIVE_INFINITY;
+    private double timeLimit = Double.POSITIVE_INFINITY;
+    private long iterations;
+    private int status = LpModel.LOADED;
+    // set by another thread, read once per iteration
+    private volatile boolean terminated;
+
+    private ProgressListener listener;
+    // -1 when the objective of the model is maximized, the progress reports its value
+    private double objSign = 1.;
+
+    /**
+     * @param colStart CSC column pointers of the n structural columns
+     * @param lo       lower bounds of structurals and logicals (n + m)
+     * @param up       upper bounds of structurals and logicals (n + m)
+     * @param cost     costs of structurals (n), to be minimized
+     */
+    RevisedSimplex(int m, int n, int[] colStart, int[] rowIdx, double[] val, double[] lo, double[] up, double[] cost, double[] rhs) {
+        this.m = m;
+        this.n = n;
+        this.colStart = colStart;
+        this.rowIdx = rowIdx;
+        this.val = val;
+        this.lo = lo;
+        this.up = up;
+        this.cost = Arrays.copyOf(cost, n + m);
+        this.rhs = rhs;
+        head = new int[m];
+        state = new int[n + m];
+        x = new double[n + m];
+        y = new double[m];
+        d = new double[n + m];
+        work = new double[m];
+        alpha = new double[m];
+        lu = new SparseLU(m);
+        slackBasis();
+    }
+
+    void setIterationLimit(double limit) {
+        iterationLimit = limit;
+    }
+
+    // seconds from the start of solve()
+    void setTimeLimit(double seconds) {
+        timeLimit = seconds;
+    }
+
+    void setProgressListener(ProgressListener listener, double objSign) {
+        this.listener = listener;
+        this.objSign = objSign;
+    }
+
+    void terminate() {
+        terminated = true;
+    }
+
+    int status() {
+        return status;
+    }
+
+    long iterations() {
+        return iterations;
+    }
+
+    double[] x() {
+        return x;
+    }
+
+    // reduced costs of structurals and logicals
+    double[] reducedCosts() {
+        return d;
+    }
+
+    // row duals
+    double[] duals() {
+        return y;
+    }
+
+    int[] state() {
+        return state;
+    }
+
+    double objective() {
+        double obj = 0.;
+        for (int j = 0; j < n; j++)
+            obj += cost[j] * x[j];
+        return obj;
+    }
+
+    /**
+     * Right-hand side of row i within which the final basis stays feasible, in range[0] and range[1]: the basic
+     * values move along B^-1 e_i until one of them reaches a bound.
+     */
+    void rhsRange(int i, double[] range) {
+        Arrays.fill(work, 0.);
+        work[i] = 1.;
+        lu.ftran(work, alpha);
+        double increase = LpModel.INFINITY, decrease = LpModel.INFINITY;
+        for (int p = 0; p < m; p++) {
+            double w = alpha[p];
+            if (Math.abs(w) <= PIVOT_TOL) continue;
+            int j = head[p];
+            // rhs_i + t moves x_j by t * w, towards the bound "ahead" for t > 0 and "behind" for t < 0
+            double ahead = w > 0 ? up[j] : lo[j], behind = w > 0 ? lo[j] : up[j];
+            if (Math.abs(ahead) < LpModel.INFINITY)
+                increase = Math.min(increase, (ahead - x[j]) / w);
+            if (Math.abs(behind) < LpModel.INFINITY)
+                decrease = Math.min(decrease, (x[j] - behind) / w);
+        }
+        range[0] = decrease >= LpModel.INFINITY ? -LpModel.INFINITY : rhs[i] - Math.max(decrease, 0.);
+        range[1] = increase >= LpModel.INFINITY ? LpModel.INFINITY : rhs[i] + Math.max(increase, 0.);
+    }
+
+    /**
+     * Cost of variable j (structural, minimized) within which the final basis stays optimal, in range[0] and
+     * range[1]. A nonbasic cost only changes its own reduced cost; the cost of the basic variable at position p
+     * changes d_k by -t * (B^-1 a_k)_p for every nonbasic k.
+     */
+    void costRange(int j, double[] range) {
+        double increase = LpModel.INFINITY, decrease = LpModel.INFINITY;
+        if (state[j] == AT_LOWER && lo[j] < up[j]) {
+            decrease = d[j];
+        } else if (state[j] == AT_UPPER && lo[j] < up[j]) {
+            increase = -d[j];
+        } else if (state[j] == FREE) {
+            increase = decrease = 0.;
+        } else if (state[j] == BASIC) {
+            int p = 0;
+            while (head[p] != j)
+                p++;
+            Arrays.fill(work, 0.);
+            work[p] = 1.;
+            // row p of B^-1
+            lu.btran(work, alpha);
+            for (int k = 0; k < n + m; k++) {
+                if (state[k] == BASIC || lo[k] == up[k]) continue;
+                double a = 0.;
+                if (k < n) {
+                    for (int s = colStart[k]; s < colStart[k + 1]; s++)
+                        a += alpha[rowIdx[s]] * val[s];
+                } else {
+                    a = alpha[k - n];
+                }
+                if (Math.abs(a) <= PIVOT_TOL) continue;
+                if (state[k] == FREE) {
+                    increase = decrease = 0.;
+                    break;
+                }
+                // d_k must keep its sign: >= 0 at the lower bound, <= 0 at the upper one
+                double t = d[k] / a;
+                if ((state[k] == AT_LOWER) == (a > 0))
+                    increase = Math.min(increase, t);
+                else
+                    decrease = Math.min(decrease, -t);
+            }
+        }
+        range[0] = decrease >= LpModel.INFINITY ? -LpModel.INFINITY : cost[j] - Math.max(decrease, 0.);
+        range[1] = increase >= LpModel.INFINITY ? LpModel.INFINITY : cost[j] + Math.max(increase, 0.);
+    }
+
+    // all logicals basic, structurals nonbasic at their lower bound (upper if the lower one is infinite)
+    void slackBasis() {
+        for (int j = 0; j < n + m; j++) {
+            if (j >= n) {
+                head[j - n] = j;
+                state[j] = BASIC;
+            } else {
+                state[j] = nonbasicState(j);
+            }
+        }
+    }
+
+    /**
+     * Installs a starting basis (one state per structural and logical), it is repaired if it is not valid.
+     */
+    void setBasis(int[] states) {
+        int basics = 0;
+        for (int j = 0; j < n + m; j++) {
+            int s = states[j];
+            if (s == BASIC && basics < m) {
+                head[basics++] = j;
+                state[j] = BASIC;
+            } else if ((s == AT_UPPER && up[j] < LpModel.INFINITY) || (s == AT_LOWER && lo[j] > -LpModel.INFINITY)) {
+                state[j] = s;
+            } else {
+                state[j] = nonbasicState(j);
+            }
+        }
+        // complete a short basis with logicals of uncovered rows, a singular one is repaired by factorize()
+        boolean[] covered = new boolean[m];
+        for (int p = 0; p < basics; p++)
+            if (head[p] >= n) covered[head[p] - n] = true;
+        for (int i = 0; i < m && basics < m; i++) {
+            if (!covered[i] && state[n + i] != BASIC) {
+                head[basics++] = n + i;
+                state[n + i] = BASIC;
+            }
+        }
+    }
+
+    private int nonbasicState(int j) {
+        if (lo[j] > -LpModel.INFINITY) return AT_LOWER;
+        if (up[j] < LpModel.INFINITY) return AT_UPPER;
+        return FREE;
+    }
+
+    int solve() {
+        long start = System.nanoTime();
+        long deadline = start + (long) Math.min(timeLimit * 1e9, Long.MAX_VALUE / 2.);
+        long nextReport = iterations;
+        factorize();
+        int degenerate = 0;
+        boolean bland = false;
+
+        while (true) {
+            if (degenerate >= DEGENERATE_LIMIT && !bland) {
+                if (loSaved == null) {
+                    perturbBounds();
+                } else {
+                    bland = true;
+                }
+                degenerate = 0;
+            }
+
+            boolean phaseOne = computePhaseCosts();
+            lu.btran(work, y);
+            pricing(phaseOne);
+            if (listener != null && iterations >= nextReport) {
+                report(start);
+                nextReport = iterations + PROGRESS_FREQUENCY;
+            }
+
+            int q = chooseEntering(bland);
+            if (q < 0 && perturbed) {
+                restoreBounds();
+                continue;
+            }
+            if (q < 0 && !fresh) {
+                // confirm the result on basic values computed from scratch, not on the updated ones
+                factorize();
+                continue;
+            }
+            if (q < 0) {
+                status = phaseOne ? LpModel.INFEASIBLE : LpModel.OPTIMAL;
+                break;
+            }
+            if (iterations >= iterationLimit) {
+                status = LpModel.ITERATION_LIMIT;
+                break;
+            }
+            if (terminated) {
+                status = LpModel.INTERRUPTED;
+                break;
+            }
+            if (System.nanoTime() > deadline) {
+                status = LpModel.TIME_LIMIT;
+                break;
+            }
+
+            int dir = d[q] < 0 ? 1 : -1;
+            Arrays.fill(work, 0.);
+            loadColumn(q, work);
+            lu.ftran(work, alpha);
+
+            int r = ratioTest(q, dir, phaseOne, bland);
+            double t = step;
+            if (r == -2) {
+                status = phaseOne ? LpModel.NUMERIC : LpModel.UNBOUNDED;
+                break;
+            }
+
+            iterations++;
+            fresh = false;
+            degenerate = t <= PRIMAL_TOL ? degenerate + 1 : 0;
+
+            // move along the edge
+            x[q] += dir * t;
+            for (int i = 0; i < m; i++)
+                if (alpha[i] != 0.) x[head[i]] -= dir * t * alpha[i];
+
+            if (r == -1) {
+                // bound flip, the basis does not change
+                state[q] = state[q] == AT_LOWER ? AT_UPPER : AT_LOWER;
+                x[q] = state[q] == AT_LOWER ? lo[q] : up[q];
+                continue;
+            }
+
+            // the leaving variable stops on the bound that blocked it
+            int leaving = head[r];
+            state[leaving] = leavingBound == lo[leaving] ? AT_LOWER : AT_UPPER;
+            x[leaving] = leavingBound;
+            head[r] = q;
+            state[q] = BASIC;
+
+            if (lu.etaCount() >= REFACTOR_FREQUENCY)
+                factorize();
+            else
+                lu.update(r, alpha);
+        }
+
+        if (perturbed)
+            restoreBounds();
+
+        // duals and reduced costs of the original objective
+        Arrays.fill(work, 0.);
+        for (int i = 0; i < m; i++)
+            work[i] = cost[head[i]];
+        lu.btran(work, y);
+        pricing(false);
+        for (int i = 0; i < m; i++)
+            d[head[i]] = 0.;
+
+        return status;
+    }
+
+    // sums of the bound violations of the basic variables and of the wrong-signed reduced costs (of the current phase)
+    private void report(long start) {
+        double primal = 0., dual = 0.;
+        for (int p = 0; p < m; p++) {
+            int j = head[p];
+            primal += Math.max(0., lo[j] - x[j]) + Math.max(0., x[j] - up[j]);
+        }
+        for (int j = 0; j < n + m; j++) {
+            if (state[j] == BASIC || lo[j] == up[j])
+                continue;
+            if (state[j] == FREE) dual += Math.abs(d[j]);
+            else if (state[j] == AT_LOWER) dual += Math.max(0., -d[j]);
+            else dual += Math.max(0., d[j]);
+        }
+        listener.simplex(iterations, objSign * objective(), primal, dual, (System.nanoTime() - start) / 1e9);
+    }
+
+    private void perturbBounds() {
+        loSaved = lo.clone();
+        upSaved = up.clone();
+        perturbed = true;
+        // fixed seed: the same model always takes the same path
+        java.util.Random random = new java.util.Random(n + 31L * m);
+        for (int j = 0; j < n + m; j++) {
+            if (lo[j] > -LpModel.INFINITY)
+                lo[j] -= PERTURBATION * (1. + Math.abs(lo[j])) * (1. + random.nextDouble());
+            if (up[j] < LpModel.INFINITY)
+                up[j] += PERTURBATION * (1. + Math.abs(up[j])) * (1. + random.nextDouble());
+        }
+        factorize();
+    }
+
+    private void restoreBounds() {
+        System.arraycopy(loSaved, 0, lo, 0, n + m);
+        System.arraycopy(upSaved, 0, up, 0, n + m);
+        perturbed = false;
+        factorize();
+    }
+
+    // factors the basis and recomputes the basic values from the nonbasic ones
+    private void factorize() {
+        int[] bStart = new int[m + 1];
+        int nnz = 0;
+        for (int p = 0; p < m; p++)
+            nnz += head[p] < n ? colStart[head[p] + 1] - colStart[head[p]] : 1;
+        int[] bRow = new int[nnz];
+        double[] bVal = new double[nnz];
+        for (int p = 0, e = 0; p < m; p++) {
+            int j = head[p];
+            if (j < n) {
+                for (int s = colStart[j]; s < colStart[j + 1]; s++) {
+                    bRow[e] = rowIdx[s];
+                    bVal[e++] = val[s];
+                }
+            } else {
+                bRow[e] = j - n;
+                bVal[e++] = 1.;
+            }
+            bStart[p + 1] = e;
+        }
+
+        if (!lu.factor(bStart, bRow, bVal)) {
+            // singular basis: the columns without pivot are replaced with the logicals of the rows without pivot
+            int[] rows = lu.singularRows(), cols = lu.singularCols();
+            for (int t = 0; t < cols.length; t++) {
+                int j = head[cols[t]];
+                state[j] = nonbasicState(j);
+                head[cols[t]] = n + rows[t];
+                state[n + rows[t]] = BASIC;
+            }
+            factorize();
+            return;
+        }
+
+        for (int j = 0; j < n + m; j++) {
+            if (state[j] == AT_LOWER) x[j] = lo[j];
+            else if (state[j] == AT_UPPER) x[j] = up[j];
+            else if (state[j] == FREE) x[j] = 0.;
+        }
+        System.arraycopy(rhs, 0, work, 0, m);
+        for (int j = 0; j < n + m; j++) {
+            if (state[j] == BASIC || x[j] == 0.) continue;
+            if (j < n) {
+                for (int s = colStart[j]; s < colStart[j + 1]; s++)
+                    work[rowIdx[s]] -= val[s] * x[j];
+            } else {
+                work[j - n] -= x[j];
+            }
+        }
+        lu.ftran(work, alpha);
+        for (int p = 0; p < m; p++)
+            x[head[p]] = alpha[p];
+        fresh = true;
+    }
+
+    // fills work with the basic costs, returns true if the basis is primal infeasible (phase I)
+    private boolean computePhaseCosts() {
+        boolean infeasible = false;
+        for (int p = 0; p < m; p++) {
+            int j = head[p];
+            if (x[j] < lo[j] - PRIMAL_TOL) {
+                work[p] = -1.;
+                infeasible = true;
+            } else if (x[j] > up[j] + PRIMAL_TOL) {
+                work[p] = 1.;
+                infeasible = true;
+            } else {
+                work[p] = 0.;
+            }
+        }
+        if (!infeasible) {
+            for (int p = 0; p < m; p++)
+                work[p] = cost[head[p]];
+        }
+        return infeasible;
+    }
+
+    // d_j = c_j - y a_j for nonbasic variables
+    private void pricing(boolean phaseOne) {
+        for (int j = 0; j < n; j++) {
+            if (state[j] == BASIC) continue;
+            double dj = phaseOne ? 0. : cost[j];
+            for (int s = colStart[j]; s < colStart[j + 1]; s++)
+                dj -= y[rowIdx[s]] * val[s];
+            d[j] = dj;
+        }
+        for (int i = 0; i < m; i++)
+            if (state[n + i] != BASIC) d[n + i] = (phaseOne ? 0. : cost[n + i]) - y[i];
+    }
+
+    // Dantzig rule, Bland's rule (smallest index) while the method is stalling
+    private int chooseEntering(boolean bland) {
+        int q = -1;
+        double best = DUAL_TOL;
+        for (int j = 0; j < n + m; j++) {
+            int s = state[j];
+            if (s == BASIC || lo[j] == up[j]) continue;
+            double dj = d[j];
+            boolean improving = (s == AT_LOWER && dj < -DUAL_TOL) || (s == AT_UPPER && dj > DUAL_TOL)
+                    || (s == FREE && Math.abs(dj) > DUAL_TOL);
+            if (!improving) continue;
+            if (bland) return j;
+            if (Math.abs(dj) > best) {
+                best = Math.abs(dj);
+                q = j;
+            }
+        }
+        return q;
+    }
+
+    private void loadColumn(int j, double[] column) {
+        if (j < n) {
+            for (int s = colStart[j]; s < colStart[j + 1]; s++)
+                column[rowIdx[s]] += val[s];
+        } else {
+            column[j - n] = 1.;
+        }
+    }
+
+    /**
+     * Harris two-pass ratio test. In phase I an infeasible basic variable only blocks when it reaches
+     * the bound it violates.
+     *
+     * @return the leaving basis position, -1 for a bound flip of the entering variable, -2 if unbounded
+     */
+    private int ratioTest(int q, int dir, boolean phaseOne, boolean bland) {
+        double thetaMax = Double.POSITIVE_INFINITY;
+        for (int p = 0; p < m; p++) {
+            double delta = -dir * alpha[p];
+            if (Math.abs(delta) <= PIVOT_TOL) continue;
+            double bound = blockingBound(head[p], delta, phaseOne);
+            if (Double.isNaN(bound)) continue;
+            double tol = delta > 0 ? PRIMAL_TOL : -PRIMAL_TOL;
+            thetaMax = Math.min(thetaMax, (bound + tol - x[head[p]]) / delta);
+        }
+
+        double range = up[q] - lo[q];
+        if (lo[q] > -LpModel.INFINITY && up[q] < LpModel.INFINITY && range <= thetaMax) {
+            step = range;
+            return -1;
+        }
+        if (thetaMax == Double.POSITIVE_INFINITY)
+            return -2;
+
+        int r = -1;
+        double bestAlpha = 0., bestTheta = 0., bestBound = 0.;
+        for (int p = 0; p < m; p++) {
+            double delta = -dir * alpha[p];
+            if (Math.abs(delta) <= PIVOT_TOL) continue;
+            double bound = blockingBound(head[p], delta, phaseOne);
+            if (Double.isNaN(bound)) continue;
+            double theta = Math.max((bound - x[head[p]]) / delta, 0.);
+            if (theta > thetaMax) continue;
+            boolean better = bland
+                    ? r < 0 || theta < bestTheta || (theta == bestTheta && head[p] < head[r])
+                    : Math.abs(delta) > bestAlpha;
+            if (better) {
+                r = p;
+                bestAlpha = Math.abs(delta);
+                bestTheta = theta;
+                bestBound = bound;
+            }
+        }
+        step = bestTheta;
+        leavingBound = bestBound;
+        return r;
+    }
+
+    // bound reached by basic variable j moving with rate delta, NaN if it never blocks
+    private double blockingBound(int j, double delta, boolean phaseOne) {
+        if (phaseOne && x[j] < lo[j] - PRIMAL_TOL)
+            return delta > 0 ? lo[j] : Double.NaN;
+        if (phaseOne && x[j] > up[j] + PRIMAL_TOL)
+            return delta < 0 ? up[j] : Double.NaN;
+        if (delta > 0)
+            return up[j] < LpModel.INFINITY ? up[j] : Double.NaN;
+        return lo[j] > -LpModel.INFINITY ? lo[j] : Double.NaN;
+    }
+}
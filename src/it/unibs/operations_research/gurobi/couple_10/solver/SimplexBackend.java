@@ -0,0 +1,25 @@
+package it.unibs.operations_research.gurobi.couple_10.solver;
+
+/**
+ * Pure-Java backend, see {@link SimplexModel}.
+ */
+public class SimplexBackend implements LpBackend {
+    private ProgressListener listener;
+
+    @Override
+    public LpModel newModel() {
+        SimplexModel model = new SimplexModel();
+        model.setProgressListener(listener);
+        return model;
+    }
+
+    @Override
+    public void setProgressListener(ProgressListener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public void dispose() {
+        // no native resources to release
+    }
+}
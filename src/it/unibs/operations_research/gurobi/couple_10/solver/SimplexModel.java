@@ -0,0 +1,685 @@
+package it.unibs.operations_research.gurobi.couple_10.solver;
+
+import java.util.Arrays;
+
+/**
+ * {@link LpModel} solved in pure Java by {@link RevisedSimplex}, it needs neither the native library nor a license.
+ * Rows are stored as they are added (CSR) and transposed to columns (CSC) when the model is optimized.
+ * Like Gurobi, a new optimize() starts from the last basis unless reset() has been called.
+ * When some variables are INTEGER the model is solved by {@link BranchAndBound}.
+ */
+public class SimplexModel implements LpModel {
+    private int numVars;
+    private double[] lb = new double[16], ub = new double[16], obj = new double[16];
+    private char[] vType = new char[16];
+    private String[] varNames = new String[16];
+
+    private int numConstrs;
+    private int[] rowStart = new int[17];
+    private int rowEnd;
+    private int[] rowCol = new int[64];
+    private double[] rowVal = new double[64];
+    private char[] sense = new char[16];
+    private double[] rhs = new double[16];
+    private String[] constrNames = new String[16];
+
+    private int objSense = MINIMIZE;
+    private double iterationLimit = Double.POSITIVE_INFINITY;
+
+    // integer models only
+    private double[] start;
+    private double mipGap = 1e-4;
+    private double timeLimit = Double.POSITIVE_INFINITY;
+
+    private ProgressListener listener;
+
+    // volatile: terminate() reaches the running solve from another thread
+    private volatile RevisedSimplex engine;
+    // not null when the last optimize() solved an integer model, "engine" is null in that case
+    private volatile BranchAndBound mip;
+    // basis of the last solve, used as starting point by the next one
+    private int[] lastStates;
+    private boolean solved;
+    // low and up ranges of the costs and of the right-hand sides, computed on the first request after a solve
+    private double[][] objRanges, rhsRanges;
+
+    @Override
+    public int addVar(double lb, double ub, double obj, char type, String name) throws SolverException {
+        checkType(type);
+        growVars(1);
+        vType[numVars] = type;
+        this.lb[numVars] = lb;
+        this.ub[numVars] = ub;
+        this.obj[numVars] = obj;
+        varNames[numVars] = name;
+        return numVars++;
+    }
+
+    @Override
+    public int addVars(int count, double[] lb, double[] ub, double[] obj, char[] type, String[] names) throws SolverException {
+        if (type != null)
+            for (int v = 0; v < count; v++)
+                checkType(type[v]);
+        growVars(count);
+        int first = numVars;
+        if (type != null) System.arraycopy(type, 0, vType, first, count);
+        else Arrays.fill(vType, first, first + count, CONTINUOUS);
+        if (lb != null) System.arraycopy(lb, 0, this.lb, first, count);
+        else Arrays.fill(this.lb, first, first + count, 0.);
+        if (ub != null) System.arraycopy(ub, 0, this.ub, first, count);
+        else Arrays.fill(this.ub, first, first + count, INFINITY);
+        if (obj != null) System.arraycopy(obj, 0, this.obj, first, count);
+        else Arrays.fill(this.obj, first, first + count, 0.);
+        if (names != null) System.arraycopy(names, 0, varNames, first, count);
+        else Arrays.fill(varNames, first, first + count, null);
+        numVars += count;
+        return first;
+    }
+
+    @Override
+    public int addVars(int count, double[] lb, double[] ub, double[] obj, char[] type, String[] names, int[] colStart,
+                       int[] constrs, double[] coeffs) throws SolverException {
+        int terms = colStart[count] - colStart[0];
+        int[] added = new int[numConstrs];
+        for (int e = colStart[0]; e < colStart[count]; e++) {
+            if (constrs[e] < 0 || constrs[e] >= numConstrs)
+                throw new SolverException("unknown constraint index " + constrs[e]);
+            added[constrs[e]]++;
+        }
+        int first = addVars(count, lb, ub, obj, type, names);
+
+        // every row moves once, by the terms added to the rows before it: from the last row back, so no row is
+        // overwritten before it has moved (one chgCoeff for each term would shift all the following rows every time)
+        int end = rowStart[numConstrs];
+        beginRow(terms);
+        int shift = terms, next = end;
+        for (int r = numConstrs - 1; r >= 0; r--) {
+            shift -= added[r];
+            int from = rowStart[r], length = next - from;
+            System.arraycopy(rowCol, from, rowCol, from + shift, length);
+            System.arraycopy(rowVal, from, rowVal, from + shift, length);
+            // "added" becomes the position of the next new term of the row
+            added[r] = from + shift + length;
+            rowStart[r] = from + shift;
+            next = from;
+        }
+        rowStart[numConstrs] = end + terms;
+        rowEnd = end + terms;
+
+        for (int v = 0; v < count; v++) {
+            for (int e = colStart[v]; e < colStart[v + 1]; e++) {
+                int at = added[constrs[e]]++;
+                rowCol[at] = first + v;
+                rowVal[at] = coeffs[e];
+            }
+        }
+        return first;
+    }
+
+    private static void checkType(char type) throws SolverException {
+        if (type != CONTINUOUS && type != INTEGER)
+            throw new SolverException("variable type '" + type + "' is not supported by the simplex backend");
+    }
+
+    private void growVars(int count) {
+        if (numVars + count > lb.length) {
+            int capacity = Math.max(lb.length * 2, numVars + count);
+            lb = Arrays.copyOf(lb, capacity);
+            ub = Arrays.copyOf(ub, capacity);
+            obj = Arrays.copyOf(obj, capacity);
+            vType = Arrays.copyOf(vType, capacity);
+            varNames = Arrays.copyOf(varNames, capacity);
+        }
+    }
+
+    @Override
+    public int addConstr(LinExpr lhs, char sense, double rhs, String name) throws SolverException {
+        beginRow(lhs.size());
+        for (int t = 0; t < lhs.size(); t++)
+            pushTerm(lhs.getVar(t), lhs.getCoeff(t));
+        return endRow(sense, rhs, name);
+    }
+
+    @Override
+    public int addConstr(int lhsVar, char sense, LinExpr rhs, String name) throws SolverException {
+        // lhsVar (sense) rhs  ->  lhsVar - rhs (sense) 0
+        beginRow(rhs.size() + 1);
+        pushTerm(lhsVar, 1.);
+        for (int t = 0; t < rhs.size(); t++)
+            pushTerm(rhs.getVar(t), -rhs.getCoeff(t));
+        return endRow(sense, 0., name);
+    }
+
+    @Override
+    public int addConstrs(int count, int[] rowStart, int[] vars, double[] coeffs, char[] senses, double[] rhs, String[] names) throws SolverException {
+        int first = numConstrs, base = this.rowStart[first], terms = rowStart[count] - rowStart[0];
+        for (int r = 0; r < count; r++)
+            if (senses[r] != LESS_EQUAL && senses[r] != GREATER_EQUAL && senses[r] != EQUAL)
+                throw new SolverException("unknown constraint sense '" + senses[r] + "'");
+        for (int e = rowStart[0]; e < rowStart[count]; e++)
+            if (vars[e] < 0 || vars[e] >= numVars)
+                throw new SolverException("unknown variable index " + vars[e]);
+
+        // the rows are already compressed, they are appended with block copies
+        beginRow(terms);
+        growConstrs(count);
+        System.arraycopy(vars, rowStart[0], rowCol, base, terms);
+        System.arraycopy(coeffs, rowStart[0], rowVal, base, terms);
+        for (int r = 0; r < count; r++)
+            this.rowStart[first + r + 1] = base + rowStart[r + 1] - rowStart[0];
+        System.arraycopy(senses, 0, sense, first, count);
+        System.arraycopy(rhs, 0, this.rhs, first, count);
+        if (names != null) System.arraycopy(names, 0, constrNames, first, count);
+        else Arrays.fill(constrNames, first, first + count, null);
+        numConstrs += count;
+        rowEnd = base + terms;
+        return first;
+    }
+
+    private void beginRow(int terms) {
+        rowEnd = rowStart[numConstrs];
+        if (rowEnd + terms > rowCol.length) {
+            int capacity = Math.max(rowCol.length * 2, rowEnd + terms);
+            rowCol = Arrays.copyOf(rowCol, capacity);
+            rowVal = Arrays.copyOf(rowVal, capacity);
+        }
+    }
+
+    private void growConstrs(int count) {
+        if (numConstrs + count > sense.length) {
+            int capacity = Math.max(sense.length * 2, numConstrs + count);
+            sense = Arrays.copyOf(sense, capacity);
+            rhs = Arrays.copyOf(rhs, capacity);
+            constrNames = Arrays.copyOf(constrNames, capacity);
+            rowStart = Arrays.copyOf(rowStart, capacity + 1);
+        }
+    }
+
+    private void pushTerm(int var, double coeff) throws SolverException {
+        if (var < 0 || var >= numVars)
+            throw new SolverException("unknown variable index " + var);
+        rowCol[rowEnd] = var;
+        rowVal[rowEnd++] = coeff;
+    }
+
+    private int endRow(char sense, double rhs, String name) throws SolverException {
+        if (sense != LESS_EQUAL && sense != GREATER_EQUAL && sense != EQUAL)
+            throw new SolverException("unknown constraint sense '" + sense + "'");
+        growConstrs(1);
+        this.sense[numConstrs] = sense;
+        this.rhs[numConstrs] = rhs;
+        constrNames[numConstrs] = name;
+        rowStart[numConstrs + 1] = rowEnd;
+        return numConstrs++;
+    }
+
+    @Override
+    public void setObjective(LinExpr expr, int sense) throws SolverException {
+        Arrays.fill(obj, 0, numVars, 0.);
+        for (int t = 0; t < expr.size(); t++) {
+            if (expr.getVar(t) >= numVars)
+                throw new SolverException("unknown variable index " + expr.getVar(t));
+            obj[expr.getVar(t)] += expr.getCoeff(t);
+        }
+        objSense = sense;
+    }
+
+    @Override
+    public void setRHS(int constr, double rhs) {
+        this.rhs[constr] = rhs;
+    }
+
+    @Override
+    public void chgCoeff(int constr, int var, double coeff) throws SolverException {
+        if (var < 0 || var >= numVars)
+            throw new SolverException("unknown variable index " + var);
+        boolean found = false;
+        for (int e = rowStart[constr]; e < rowStart[constr + 1]; e++) {
+            if (rowCol[e] == var) {
+                // repeated terms of the same variable are merged into the first one
+                rowVal[e] = found ? 0. : coeff;
+                found = true;
+            }
+        }
+        if (found)
+            return;
+
+        // new term: the following rows are shifted by one position
+        int end = rowStart[numConstrs], at = rowStart[constr + 1];
+        beginRow(1);
+        System.arraycopy(rowCol, at, rowCol, at + 1, end - at);
+        System.arraycopy(rowVal, at, rowVal, at + 1, end - at);
+        rowCol[at] = var;
+        rowVal[at] = coeff;
+        for (int r = constr + 1; r <= numConstrs; r++)
+            rowStart[r]++;
+    }
+
+    @Override
+    public void setLB(int var, double lb) {
+        this.lb[var] = lb;
+    }
+
+    @Override
+    public void setUB(int var, double ub) {
+        this.ub[var] = ub;
+    }
+
+    @Override
+    public void setBasis(int[] vBasis, int[] cBasis) {
+        int[] states = new int[numVars + numConstrs];
+        System.arraycopy(vBasis, 0, states, 0, numVars);
+        for (int i = 0; i < numConstrs; i++) {
+            // the logical of a '>' row is bounded above, the other ones below
+            if (cBasis[i] == BASIC)
+                states[numVars + i] = BASIC;
+            else
+                states[numVars + i] = sense[i] == GREATER_EQUAL ? NONBASIC_UPPER : NONBASIC_LOWER;
+        }
+        lastStates = states;
+    }
+
+    @Override
+    public void setIterationLimit(double limit) {
+        iterationLimit = limit;
+    }
+
+    @Override
+    public void setVTypes(int first, int count, char type) throws SolverException {
+        checkType(type);
+        Arrays.fill(vType, first, first + count, type);
+    }
+
+    // the simplex backend uses a start only when it is complete, integer and feasible
+    @Override
+    public void setStart(double[] start) {
+        this.start = start.clone();
+    }
+
+    @Override
+    public void setMIPGap(double gap) {
+        mipGap = gap;
+    }
+
+    // a single algorithm, no parameter applies to it
+    @Override
+    public void setParameters(SolverParameters parameters) {
+    }
+
+    // checked once per simplex iteration, in every node of an integer model
+    @Override
+    public void setTimeLimit(double seconds) {
+        timeLimit = seconds;
+    }
+
+    @Override
+    public void setProgressListener(ProgressListener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public void update() {
+        // changes are applied immediately, nothing is pending
+    }
+
+    @Override
+    public void optimize() {
+        int m = numConstrs, n = numVars;
+        objRanges = rhsRanges = null;
+
+        // rows -> columns, terms of the same variable in a row are merged
+        int[] colStart = new int[n + 1];
+        for (int e = 0; e < rowStart[m]; e++)
+            colStart[rowCol[e] + 1]++;
+        for (int j = 0; j < n; j++)
+            colStart[j + 1] += colStart[j];
+        int[] rowIdx = new int[rowStart[m]];
+        double[] val = new double[rowStart[m]];
+        int[] fill = Arrays.copyOf(colStart, n);
+        for (int i = 0; i < m; i++) {
+            for (int e = rowStart[i]; e < rowStart[i + 1]; e++) {
+                int j = rowCol[e], at = fill[j];
+                if (at > colStart[j] && rowIdx[at - 1] == i) {
+                    val[at - 1] += rowVal[e];
+                } else {
+                    rowIdx[at] = i;
+                    val[at] = rowVal[e];
+                    fill[j]++;
+                }
+            }
+        }
+        int nnz = 0;
+        for (int j = 0; j < n; j++) {
+            int start = nnz;
+            for (int e = colStart[j]; e < fill[j]; e++) {
+                rowIdx[nnz] = rowIdx[e];
+                val[nnz++] = val[e];
+            }
+            colStart[j] = start;
+        }
+        colStart[n] = nnz;
+
+        double[] lo = new double[n + m], up = new double[n + m], cost = new double[n];
+        for (int j = 0; j < n; j++) {
+            lo[j] = lb[j] <= -INFINITY ? -INFINITY : lb[j];
+            up[j] = ub[j] >= INFINITY ? INFINITY : ub[j];
+            cost[j] = objSense == MAXIMIZE ? -obj[j] : obj[j];
+        }
+        for (int i = 0; i < m; i++) {
+            // logical r_i = rhs_i - a_i x
+            lo[n + i] = sense[i] == GREATER_EQUAL ? -INFINITY : 0.;
+            up[n + i] = sense[i] == LESS_EQUAL ? INFINITY : 0.;
+        }
+
+        int[] states = lastStates != null && lastStates.length == n + m ? lastStates : null;
+        boolean[] integer = new boolean[n];
+        boolean isMIP = false;
+        for (int j = 0; j < n; j++) {
+            integer[j] = vType[j] == INTEGER;
+            isMIP |= integer[j];
+        }
+
+        if (isMIP) {
+            engine = null;
+            mip = new BranchAndBound(m, n, colStart, rowIdx, val, lo, up, cost, Arrays.copyOf(rhs, m), integer);
+            mip.setMIPGap(mipGap);
+            mip.setTimeLimit(timeLimit);
+            mip.setProgressListener(listener, objSense);
+            if (start != null && start.length == n)
+                mip.setStart(start);
+            long startTime = System.nanoTime();
+            mip.solve(states);
+            // next solve starts from the basis of the root relaxation
+            lastStates = mip.rootStates();
+            solved = true;
+            if (listener != null)
+                listener.finished(mip.status(), mip.iterations(), mip.hasSolution() ? objSense * mip.objective() : Double.NaN,
+                        (System.nanoTime() - startTime) / 1e9);
+            return;
+        }
+
+        mip = null;
+        engine = new RevisedSimplex(m, n, colStart, rowIdx, val, lo, up, cost, Arrays.copyOf(rhs, m));
+        if (states != null)
+            engine.setBasis(states);
+        engine.setIterationLimit(iterationLimit);
+        engine.setTimeLimit(timeLimit);
+        engine.setProgressListener(listener, objSense);
+        long startTime = System.nanoTime();
+        engine.solve();
+        lastStates = engine.state().clone();
+        solved = true;
+        if (listener != null)
+            listener.finished(engine.status(), engine.iterations(), objSense * engine.objective(),
+                    (System.nanoTime() - startTime) / 1e9);
+    }
+
+    // the node LP running in a MIP is completed, the search stops before the next node
+    @Override
+    public void terminate() {
+        RevisedSimplex running = engine;
+        if (running != null)
+            running.terminate();
+        BranchAndBound search = mip;
+        if (search != null)
+            search.terminate();
+    }
+
+    @Override
+    public void reset() {
+        engine = null;
+        mip = null;
+        lastStates = null;
+        solved = false;
+        objRanges = rhsRanges = null;
+    }
+
+    @Override
+    public int getStatus() {
+        if (!solved)
+            return LOADED;
+        return mip != null ? mip.status() : engine.status();
+    }
+
+    @Override
+    public double getObjVal() throws SolverException {
+        checkSolution();
+        double objective = mip != null ? mip.objective() : engine.objective();
+        return objSense == MAXIMIZE ? -objective : objective;
+    }
+
+    @Override
+    public double getIterCount() throws SolverException {
+        if (!solved)
+            throw new SolverException("model has not been optimized");
+        return mip != null ? mip.iterations() : engine.iterations();
+    }
+
+    @Override
+    public double getObjBound() throws SolverException {
+        checkMIP();
+        return objSense == MAXIMIZE ? -mip.bound() : mip.bound();
+    }
+
+    @Override
+    public double getMIPGap() throws SolverException {
+        checkMIP();
+        return mip.gap();
+    }
+
+    @Override
+    public int getSolCount() {
+        if (!solved)
+            return 0;
+        if (mip != null)
+            return mip.solutions();
+        return engine.status() == OPTIMAL || engine.status() == ITERATION_LIMIT ? 1 : 0;
+    }
+
+    @Override
+    public int numVars() {
+        return numVars;
+    }
+
+    @Override
+    public int numConstrs() {
+        return numConstrs;
+    }
+
+    @Override
+    public String getVarName(int var) {
+        return varNames[var] != null ? varNames[var] : "C" + var;
+    }
+
+    @Override
+    public String getConstrName(int constr) {
+        return constrNames[constr] != null ? constrNames[constr] : "R" + constr;
+    }
+
+    @Override
+    public double getX(int var) throws SolverException {
+        checkSolution();
+        return values()[var];
+    }
+
+    @Override
+    public int getVBasis(int var) throws SolverException {
+        checkBasis();
+        return engine.state()[var];
+    }
+
+    @Override
+    public int getCBasis(int constr) throws SolverException {
+        checkBasis();
+        return engine.state()[numVars + constr] == BASIC ? BASIC : NONBASIC_LOWER;
+    }
+
+    @Override
+    public double getRC(int var) throws SolverException {
+        checkBasis();
+        double rc = engine.reducedCosts()[var];
+        return objSense == MAXIMIZE ? -rc : rc;
+    }
+
+    @Override
+    public String[] getVarNames() {
+        String[] names = new String[numVars];
+        for (int var = 0; var < numVars; var++)
+            names[var] = getVarName(var);
+        return names;
+    }
+
+    @Override
+    public String[] getConstrNames() {
+        String[] names = new String[numConstrs];
+        for (int constr = 0; constr < numConstrs; constr++)
+            names[constr] = getConstrName(constr);
+        return names;
+    }
+
+    @Override
+    public double[] getX() throws SolverException {
+        checkSolution();
+        return Arrays.copyOf(values(), numVars);
+    }
+
+    @Override
+    public double[] getRC() throws SolverException {
+        checkBasis();
+        double[] rc = Arrays.copyOf(engine.reducedCosts(), numVars);
+        if (objSense == MAXIMIZE)
+            for (int var = 0; var < numVars; var++)
+                rc[var] = -rc[var];
+        return rc;
+    }
+
+    @Override
+    public int[] getVBasis() throws SolverException {
+        checkBasis();
+        return Arrays.copyOf(engine.state(), numVars);
+    }
+
+    @Override
+    public double[] getSlack() throws SolverException {
+        checkSolution();
+        // the logical variable of a row is rhs - a x
+        return Arrays.copyOfRange(values(), numVars, numVars + numConstrs);
+    }
+
+    @Override
+    public double[] getPi() throws SolverException {
+        checkBasis();
+        double[] pi = engine.duals().clone();
+        if (objSense == MAXIMIZE)
+            for (int constr = 0; constr < numConstrs; constr++)
+                pi[constr] = -pi[constr];
+        return pi;
+    }
+
+    @Override
+    public int[] getCBasis() throws SolverException {
+        checkBasis();
+        int[] cBasis = new int[numConstrs];
+        int[] state = engine.state();
+        for (int constr = 0; constr < numConstrs; constr++)
+            cBasis[constr] = state[numVars + constr] == BASIC ? BASIC : NONBASIC_LOWER;
+        return cBasis;
+    }
+
+    @Override
+    public double[] getSAObjLow() throws SolverException {
+        return objRanges()[0].clone();
+    }
+
+    @Override
+    public double[] getSAObjUp() throws SolverException {
+        return objRanges()[1].clone();
+    }
+
+    @Override
+    public double[] getSARHSLow() throws SolverException {
+        return rhsRanges()[0].clone();
+    }
+
+    @Override
+    public double[] getSARHSUp() throws SolverException {
+        return rhsRanges()[1].clone();
+    }
+
+    // one btran and one pass over the nonbasic columns for every basic variable
+    private double[][] objRanges() throws SolverException {
+        checkOptimal();
+        if (objRanges == null) {
+            double[][] ranges = new double[2][numVars];
+            double[] range = new double[2];
+            for (int var = 0; var < numVars; var++) {
+                engine.costRange(var, range);
+                // the engine minimizes -c of a maximized objective
+                ranges[0][var] = objSense == MAXIMIZE ? -range[1] : range[0];
+                ranges[1][var] = objSense == MAXIMIZE ? -range[0] : range[1];
+            }
+            objRanges = ranges;
+        }
+        return objRanges;
+    }
+
+    // one ftran for every constraint
+    private double[][] rhsRanges() throws SolverException {
+        checkOptimal();
+        if (rhsRanges == null) {
+            double[][] ranges = new double[2][numConstrs];
+            double[] range = new double[2];
+            for (int constr = 0; constr < numConstrs; constr++) {
+                engine.rhsRange(constr, range);
+                ranges[0][constr] = range[0];
+                ranges[1][constr] = range[1];
+            }
+            rhsRanges = ranges;
+        }
+        return rhsRanges;
+    }
+
+    @Override
+    public void dispose() {
+        engine = null;
+        mip = null;
+        lastStates = null;
+    }
+
+    private void checkSolution() throws SolverException {
+        if (!solved)
+            throw new SolverException("model has not been optimized");
+        if (mip != null) {
+            if (!mip.hasSolution())
+                throw new SolverException("no solution available (status " + mip.status() + ")");
+            return;
+        }
+        int status = engine.status();
+        if (status != OPTIMAL && status != ITERATION_LIMIT)
+            throw new SolverException("no solution available (status " + status + ")");
+    }
+
+    // like Gurobi, basis and duals exist only for continuous models
+    private void checkBasis() throws SolverException {
+        checkSolution();
+        if (mip != null)
+            throw new SolverException("basis and duals are not available for integer models");
+    }
+
+    // like Gurobi, the ranges exist only for an optimal basis
+    private void checkOptimal() throws SolverException {
+        checkBasis();
+        if (engine.status() != OPTIMAL)
+            throw new SolverException("sensitivity information is available only for an optimal basis (status " + engine.status() + ")");
+    }
+
+    private void checkMIP() throws SolverException {
+        if (!solved || mip == null)
+            throw new SolverException("the model is not an optimized integer model");
+    }
+
+    // structurals and logicals of the current solution
+    private double[] values() {
+        return mip != null ? mip.x() : engine.x();
+    }
+}
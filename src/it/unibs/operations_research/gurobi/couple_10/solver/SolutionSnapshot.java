@@ -0,0 +1,92 @@
+package it.unibs.operations_research.gurobi.couple_10.solver;
+
+import java.util.Arrays;
+
+/**
+ * Solution of a model copied into primitive columns with one bulk call per attribute:
+ * X, RC and VBasis for the variables, Slack, Pi and CBasis for the constraints.
+ * The analysis of the solution runs on these arrays instead of asking the solver for every single value.
+ *
+ * The arrays are not copied by the getters: they belong to the snapshot and should not be changed.
+ */
+public final class SolutionSnapshot {
+    private final int status;
+    private final double objVal;
+    private final double[] x, rc, slack, pi;
+    private final int[] vBasis, cBasis;
+
+    private SolutionSnapshot(int status, double objVal, double[] x, double[] rc, int[] vBasis,
+                             double[] slack, double[] pi, int[] cBasis) {
+        this.status = status;
+        this.objVal = objVal;
+        this.x = x;
+        this.rc = rc;
+        this.vBasis = vBasis;
+        this.slack = slack;
+        this.pi = pi;
+        this.cBasis = cBasis;
+    }
+
+    // the model must hold a solution (optimal or stopped by the iteration limit)
+    public static SolutionSnapshot take(LpModel model) throws SolverException {
+        return new SolutionSnapshot(model.getStatus(), model.getObjVal(), model.getX(), model.getRC(), model.getVBasis(),
+                model.getSlack(), model.getPi(), model.getCBasis());
+    }
+
+    /**
+     * The same solution in a model of "numVars" variables where variable v of this one is column columns[v]: the
+     * other columns are nonbasic at 0 with zero reduced cost, as variables without terms fixed at 0. Constraints
+     * are unchanged.
+     */
+    public SolutionSnapshot scatter(int[] columns, int numVars) {
+        double[] denseX = new double[numVars], denseRC = new double[numVars];
+        int[] denseVBasis = new int[numVars];
+        Arrays.fill(denseVBasis, LpModel.NONBASIC_LOWER);
+        for (int v = 0; v < x.length; v++) {
+            denseX[columns[v]] = x[v];
+            denseRC[columns[v]] = rc[v];
+            denseVBasis[columns[v]] = vBasis[v];
+        }
+        return new SolutionSnapshot(status, objVal, denseX, denseRC, denseVBasis, slack, pi, cBasis);
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public double getObjVal() {
+        return objVal;
+    }
+
+    public int numVars() {
+        return x.length;
+    }
+
+    public int numConstrs() {
+        return slack.length;
+    }
+
+    public double[] getX() {
+        return x;
+    }
+
+    public double[] getRC() {
+        return rc;
+    }
+
+    public int[] getVBasis() {
+        return vBasis;
+    }
+
+    public double[] getSlack() {
+        return slack;
+    }
+
+    public double[] getPi() {
+        return pi;
+    }
+
+    public int[] getCBasis() {
+        return cBasis;
+    }
+}
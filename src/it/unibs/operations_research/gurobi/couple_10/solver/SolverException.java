@@ -0,0 +1,17 @@
+package it.unibs.operations_research.gurobi.couple_10.solver;
+
+/**
+ * Error raised by an {@link LpModel} backend.
+ * Backend specific exceptions (e.g. GRBException) are wrapped as cause.
+ */
+public class SolverException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    public SolverException(String message) {
+        super(message);
+    }
+
+    public SolverException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
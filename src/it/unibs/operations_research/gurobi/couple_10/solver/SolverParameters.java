@@ -0,0 +1,91 @@
+package it.unibs.operations_research.gurobi.couple_10.solver;
+
+import java.util.Objects;
+
+/**
+ * Values of the Gurobi parameters Method, Presolve, Threads and Crossover, written "Method=1;Presolve=-1;Threads=1;Crossover=-1"
+ * (-1 and Threads=0 leave the choice to Gurobi). The pure-Java simplex has a single algorithm and ignores them.
+ */
+public final class SolverParameters {
+    // the parameters of Gurobi.setParameters: primal simplex without presolve
+    public static final SolverParameters DEFAULT = new SolverParameters(0, 0, 0, -1);
+    // every choice left to Gurobi, e.g. for the benchmarks of the model construction
+    public static final SolverParameters AUTOMATIC = new SolverParameters(-1, -1, 0, -1);
+
+    private final int method, presolve, threads, crossover;
+
+    public SolverParameters(int method, int presolve, int threads, int crossover) {
+        if (method < -1 || method > 5)
+            throw new IllegalArgumentException("Method must be between -1 and 5 (Method = " + method + ")");
+        if (presolve < -1 || presolve > 2)
+            throw new IllegalArgumentException("Presolve must be between -1 and 2 (Presolve = " + presolve + ")");
+        if (threads < 0)
+            throw new IllegalArgumentException("Threads must not be negative (Threads = " + threads + ")");
+        // without crossover the barrier ends without a basis, Question II and the warm starts need one
+        if (crossover < -1 || crossover > 4 || crossover == 0)
+            throw new IllegalArgumentException("Crossover must be -1 or between 1 and 4 (Crossover = " + crossover + ")");
+        this.method = method;
+        this.presolve = presolve;
+        this.threads = threads;
+        this.crossover = crossover;
+    }
+
+    // "Method=<m>;Presolve=<p>;Threads=<t>;Crossover=<c>", the missing parameters keep the value of DEFAULT
+    public static SolverParameters parse(String text) {
+        int method = DEFAULT.method, presolve = DEFAULT.presolve, threads = DEFAULT.threads, crossover = DEFAULT.crossover;
+        for (String pair : text.split(";")) {
+            int equals = pair.indexOf('=');
+            if (equals < 0)
+                throw new IllegalArgumentException("malformed parameter \"" + pair + "\", expected <name>=<value>");
+            String name = pair.substring(0, equals).trim();
+            int value = Integer.parseInt(pair.substring(equals + 1).trim());
+            switch (name) {
+                case "Method": method = value; break;
+                case "Presolve": presolve = value; break;
+                case "Threads": threads = value; break;
+                case "Crossover": crossover = value; break;
+                default: throw new IllegalArgumentException("unknown parameter \"" + name + "\"");
+            }
+        }
+        return new SolverParameters(method, presolve, threads, crossover);
+    }
+
+    // same parameters with another Threads, e.g. the share of the cores of one environment
+    public SolverParameters withThreads(int threads) {
+        return new SolverParameters(method, presolve, threads, crossover);
+    }
+
+    public int method() {
+        return method;
+    }
+
+    public int presolve() {
+        return presolve;
+    }
+
+    public int threads() {
+        return threads;
+    }
+
+    public int crossover() {
+        return crossover;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof SolverParameters))
+            return false;
+        SolverParameters other = (SolverParameters) o;
+        return method == other.method && presolve == other.presolve && threads == other.threads && crossover == other.crossover;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(method, presolve, threads, crossover);
+    }
+
+    @Override
+    public String toString() {
+        return "Method=" + method + ";Presolve=" + presolve + ";Threads=" + threads + ";Crossover=" + crossover;
+    }
+}
@@ -0,0 +1,326 @@
+package it.unibs.operations_research.gurobi.couple_10.solver;
+
+import java.util.Arrays;
+
+/**
+ * Sparse LU factorization of a simplex basis with product-form (eta) updates.
+ * Row and column singletons are eliminated first, they cost no fill-in and cover the slack and
+ * per-station parts of the basis; the remaining nucleus is factored densely with partial pivoting.
+ * Columns of the basis are identified by their position (0 ... m-1), rows by the constraint index.
+ */
+final class SparseLU {
+    private static final double SINGULAR_TOL = 1e-11;
+
+    private final int m;
+
+    // pivot sequence: at step k row pivRow[k] is eliminated with basis column pivCol[k]
+    private final int[] pivRow, pivCol;
+    private final double[] pivVal;
+
+    // multipliers of L, entries of step k are in [lStart[k], lStart[k+1])
+    private final int[] lStart;
+    private int[] lIdx = new int[16];
+    private double[] lVal = new double[16];
+    private int lSize;
+
+    // off-diagonal entries of U (basis positions), entries of step k are in [uStart[k], uStart[k+1])
+    private final int[] uStart;
+    private int[] uIdx = new int[16];
+    private double[] uVal = new double[16];
+    private int uSize;
+
+    // eta file, one eta per basis change since the last factorization
+    private int etaCount;
+    private int[] etaPos = new int[8];
+    private double[] etaPiv = new double[8];
+    private int[] etaStart = new int[9];
+    private int[] etaIdx = new int[16];
+    private double[] etaVal = new double[16];
+
+    // rows and basis positions left without a pivot by the last factor() call
+    private int[] singularRows = new int[0], singularCols = new int[0];
+
+    SparseLU(int m) {
+        this.m = m;
+        pivRow = new int[m];
+        pivCol = new int[m];
+        pivVal = new double[m];
+        lStart = new int[m + 1];
+        uStart = new int[m + 1];
+    }
+
+    int etaCount() {
+        return etaCount;
+    }
+
+    int[] singularRows() {
+        return singularRows;
+    }
+
+    int[] singularCols() {
+        return singularCols;
+    }
+
+    /**
+     * Factors the basis given column-wise (CSC with m columns).
+     *
+     * @return false if the basis is singular, see {@link #singularRows()} and {@link #singularCols()}
+     */
+    boolean factor(int[] colStart, int[] rowIdx, double[] val) {
+        lSize = 0;
+        uSize = 0;
+        etaCount = 0;
+
+        // row-wise copy of the pattern, needed to find row singletons
+        int[] rowStart = new int[m + 1];
+        for (int e = 0; e < colStart[m]; e++)
+            rowStart[rowIdx[e] + 1]++;
+        for (int i = 0; i < m; i++)
+            rowStart[i + 1] += rowStart[i];
+        int[] rowCol = new int[colStart[m]];
+        double[] rowVal = new double[colStart[m]];
+        int[] fill = Arrays.copyOf(rowStart, m);
+        for (int c = 0; c < m; c++) {
+            for (int e = colStart[c]; e < colStart[c + 1]; e++) {
+                rowCol[fill[rowIdx[e]]] = c;
+                rowVal[fill[rowIdx[e]]++] = val[e];
+            }
+        }
+
+        boolean[] rowDone = new boolean[m], colDone = new boolean[m];
+        int[] rowCount = new int[m], colCount = new int[m];
+        for (int c = 0; c < m; c++)
+            colCount[c] = colStart[c + 1] - colStart[c];
+        for (int i = 0; i < m; i++)
+            rowCount[i] = rowStart[i + 1] - rowStart[i];
+
+        int[] colQueue = new int[m], rowQueue = new int[m];
+        int colHead = 0, colTail = 0, rowHead = 0, rowTail = 0;
+        for (int c = 0; c < m; c++)
+            if (colCount[c] == 1) colQueue[colTail++] = c;
+        for (int i = 0; i < m; i++)
+            if (rowCount[i] == 1) rowQueue[rowTail++] = i;
+
+        int k = 0;
+        while (colHead < colTail || rowHead < rowTail) {
+            if (colHead < colTail) {
+                // column singleton: empty L column, the U row is the rest of the pivot row
+                int c = colQueue[colHead++];
+                if (colDone[c] || colCount[c] != 1) continue;
+                int r = -1;
+                double v = 0.;
+                for (int e = colStart[c]; e < colStart[c + 1]; e++) {
+                    if (!rowDone[rowIdx[e]]) {
+                        r = rowIdx[e];
+                        v = val[e];
+                    }
+                }
+                if (Math.abs(v) <= SINGULAR_TOL) continue;
+                lStart[k] = lSize;
+                uStart[k] = uSize;
+                for (int e = rowStart[r]; e < rowStart[r + 1]; e++) {
+                    int j = rowCol[e];
+                    if (j == c || colDone[j]) continue;
+                    pushU(j, rowVal[e]);
+                    if (--colCount[j] == 1) colQueue[colTail++] = j;
+                }
+                pivot(k++, r, c, v, rowDone, colDone);
+            } else {
+                // row singleton: empty U row, the L column is the rest of the pivot column
+                int r = rowQueue[rowHead++];
+                if (rowDone[r] || rowCount[r] != 1) continue;
+                int c = -1;
+                double v = 0.;
+                for (int e = rowStart[r]; e < rowStart[r + 1]; e++) {
+                    if (!colDone[rowCol[e]]) {
+                        c = rowCol[e];
+                        v = rowVal[e];
+                    }
+                }
+                if (Math.abs(v) <= SINGULAR_TOL) continue;
+                lStart[k] = lSize;
+                uStart[k] = uSize;
+                for (int e = colStart[c]; e < colStart[c + 1]; e++) {
+                    int i = rowIdx[e];
+                    if (i == r || rowDone[i]) continue;
+                    pushL(i, val[e] / v);
+                    if (--rowCount[i] == 1) rowQueue[rowTail++] = i;
+                }
+                pivot(k++, r, c, v, rowDone, colDone);
+            }
+        }
+
+        return k == m || factorNucleus(k, colStart, rowIdx, val, rowDone, colDone);
+    }
+
+    // dense LU with partial pivoting of the rows and columns not eliminated by singletons
+    private boolean factorNucleus(int k, int[] colStart, int[] rowIdx, double[] val, boolean[] rowDone, boolean[] colDone) {
+        int n = m - k;
+        int[] rows = new int[n], cols = new int[n];
+        int[] local = new int[m];
+        Arrays.fill(local, -1);
+        for (int i = 0, t = 0; i < m; i++) {
+            if (!rowDone[i]) {
+                local[i] = t;
+                rows[t++] = i;
+            }
+        }
+        for (int c = 0, t = 0; c < m; c++)
+            if (!colDone[c]) cols[t++] = c;
+
+        double[][] dense = new double[n][n];
+        for (int t = 0; t < n; t++) {
+            int c = cols[t];
+            for (int e = colStart[c]; e < colStart[c + 1]; e++)
+                if (local[rowIdx[e]] >= 0) dense[local[rowIdx[e]]][t] += val[e];
+        }
+
+        boolean[] used = new boolean[n];
+        int missing = 0;
+        int[] badCols = new int[n];
+        for (int t = 0; t < n; t++) {
+            int best = -1;
+            double max = SINGULAR_TOL;
+            for (int i = 0; i < n; i++) {
+                if (!used[i] && Math.abs(dense[i][t]) > max) {
+                    max = Math.abs(dense[i][t]);
+                    best = i;
+                }
+            }
+            if (best < 0) {
+                badCols[missing++] = cols[t];
+                continue;
+            }
+            used[best] = true;
+            double v = dense[best][t];
+            lStart[k] = lSize;
+            uStart[k] = uSize;
+            for (int s = t + 1; s < n; s++)
+                if (dense[best][s] != 0.) pushU(cols[s], dense[best][s]);
+            for (int i = 0; i < n; i++) {
+                if (used[i] || dense[i][t] == 0.) continue;
+                double mult = dense[i][t] / v;
+                pushL(rows[i], mult);
+                for (int s = t + 1; s < n; s++)
+                    dense[i][s] -= mult * dense[best][s];
+            }
+            pivot(k++, rows[best], cols[t], v, rowDone, colDone);
+        }
+
+        if (missing == 0) return true;
+
+        singularCols = Arrays.copyOf(badCols, missing);
+        singularRows = new int[missing];
+        for (int i = 0, t = 0; i < n; i++)
+            if (!used[i]) singularRows[t++] = rows[i];
+        return false;
+    }
+
+    private void pivot(int k, int r, int c, double v, boolean[] rowDone, boolean[] colDone) {
+        pivRow[k] = r;
+        pivCol[k] = c;
+        pivVal[k] = v;
+        lStart[k + 1] = lSize;
+        uStart[k + 1] = uSize;
+        rowDone[r] = true;
+        colDone[c] = true;
+    }
+
+    private void pushL(int i, double v) {
+        if (lSize == lIdx.length) {
+            lIdx = Arrays.copyOf(lIdx, lSize * 2);
+            lVal = Arrays.copyOf(lVal, lSize * 2);
+        }
+        lIdx[lSize] = i;
+        lVal[lSize++] = v;
+    }
+
+    private void pushU(int j, double v) {
+        if (uSize == uIdx.length) {
+            uIdx = Arrays.copyOf(uIdx, uSize * 2);
+            uVal = Arrays.copyOf(uVal, uSize * 2);
+        }
+        uIdx[uSize] = j;
+        uVal[uSize++] = v;
+    }
+
+    /**
+     * Solves B x = a. The right hand side (indexed by row) is overwritten,
+     * the result is written in out (indexed by basis position).
+     */
+    void ftran(double[] a, double[] out) {
+        for (int k = 0; k < m; k++) {
+            double ar = a[pivRow[k]];
+            if (ar == 0.) continue;
+            for (int e = lStart[k]; e < lStart[k + 1]; e++)
+                a[lIdx[e]] -= lVal[e] * ar;
+        }
+        for (int k = m - 1; k >= 0; k--) {
+            double v = a[pivRow[k]];
+            for (int e = uStart[k]; e < uStart[k + 1]; e++)
+                v -= uVal[e] * out[uIdx[e]];
+            out[pivCol[k]] = v / pivVal[k];
+        }
+        for (int t = 0; t < etaCount; t++) {
+            int p = etaPos[t];
+            double xp = out[p] / etaPiv[t];
+            if (xp != 0.) {
+                for (int e = etaStart[t]; e < etaStart[t + 1]; e++)
+                    out[etaIdx[e]] -= etaVal[e] * xp;
+            }
+            out[p] = xp;
+        }
+    }
+
+    /**
+     * Solves y B = c. The right hand side (indexed by basis position) is overwritten,
+     * the result is written in y (indexed by row).
+     */
+    void btran(double[] c, double[] y) {
+        for (int t = etaCount - 1; t >= 0; t--) {
+            int p = etaPos[t];
+            double v = c[p];
+            for (int e = etaStart[t]; e < etaStart[t + 1]; e++)
+                v -= etaVal[e] * c[etaIdx[e]];
+            c[p] = v / etaPiv[t];
+        }
+        for (int k = 0; k < m; k++) {
+            double w = c[pivCol[k]] / pivVal[k];
+            y[pivRow[k]] = w;
+            if (w == 0.) continue;
+            for (int e = uStart[k]; e < uStart[k + 1]; e++)
+                c[uIdx[e]] -= uVal[e] * w;
+        }
+        for (int k = m - 1; k >= 0; k--) {
+            double v = y[pivRow[k]];
+            for (int e = lStart[k]; e < lStart[k + 1]; e++)
+                v -= lVal[e] * y[lIdx[e]];
+            y[pivRow[k]] = v;
+        }
+    }
+
+    /**
+     * Records the replacement of the column at basis position p, alpha is the entering column after ftran().
+     */
+    void update(int p, double[] alpha) {
+        if (etaCount == etaPos.length) {
+            etaPos = Arrays.copyOf(etaPos, etaCount * 2);
+            etaPiv = Arrays.copyOf(etaPiv, etaCount * 2);
+            etaStart = Arrays.copyOf(etaStart, etaCount * 2 + 1);
+        }
+        int start = etaStart[etaCount];
+        int size = start;
+        for (int i = 0; i < m; i++) {
+            if (i == p || alpha[i] == 0.) continue;
+            if (size == etaIdx.length) {
+                etaIdx = Arrays.copyOf(etaIdx, size * 2);
+                etaVal = Arrays.copyOf(etaVal, size * 2);
+            }
+            etaIdx[size] = i;
+            etaVal[size++] = alpha[i];
+        }
+        etaPos[etaCount] = p;
+        etaPiv[etaCount] = alpha[p];
+        etaStart[++etaCount] = size;
+    }
+}